@@ -0,0 +1,15 @@
+package fr.formation.bench;
+
+import fr.formation.service.EmailSender;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ConfigurationBenchmark {
+
+    // Les rappels sont mesurés sans envoi réel
+    @Bean
+    public EmailSender emailSender() {
+        return (destinataire, sujet, contenu) -> { };
+    }
+}
@@ -0,0 +1,109 @@
+package fr.formation.bench;
+
+import fr.formation.Main;
+import fr.formation.repository.LivreRepository;
+import fr.formation.repository.ReservationRepository;
+import fr.formation.service.AdherentService;
+import fr.formation.service.LivreService;
+import fr.formation.service.ReservationService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Application démarrée sur une base H2 en mémoire, alimentée avec {@code taille} livres,
+ * {@code taille} réservations (moitié en retard) et un adhérent pour dix livres.
+ */
+@State(Scope.Benchmark)
+public class ContexteBenchmark {
+
+    static final String[] MOTS = {"nuit", "guerre", "paix", "mer", "soleil", "prince", "comte", "jardin",
+            "voyage", "silence", "histoire", "lumière", "ombre", "rivière", "montagne", "secret"};
+    static final String[] AUTEURS = {"Victor Hugo", "Albert Camus", "Émile Zola", "George Sand", "Jules Verne",
+            "Marguerite Duras", "Alexandre Dumas", "Simone de Beauvoir", "Paul Éluard", "Colette"};
+
+    @Param({"1000", "10000", "100000"})
+    public int taille;
+
+    ConfigurableApplicationContext contexte;
+    LivreService livreService;
+    ReservationService reservationService;
+    LivreRepository livreRepository;
+    ReservationRepository reservationRepository;
+    JdbcTemplate jdbcTemplate;
+
+    final List<String> isbns = new ArrayList<>();
+    final List<String> codesAdherents = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void demarrer() {
+        contexte = new SpringApplicationBuilder(Main.class, ConfigurationBenchmark.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench-" + taille + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN")
+                .run();
+        livreService = contexte.getBean(LivreService.class);
+        reservationService = contexte.getBean(ReservationService.class);
+        livreRepository = contexte.getBean(LivreRepository.class);
+        reservationRepository = contexte.getBean(ReservationRepository.class);
+        jdbcTemplate = contexte.getBean(JdbcTemplate.class);
+
+        alimenter();
+        // Les index ont été construits au démarrage, sur une base vide
+        livreService.construireIndex();
+        contexte.getBean(AdherentService.class).construireIndex();
+    }
+
+    @TearDown(Level.Trial)
+    public void arreter() {
+        contexte.close();
+    }
+
+    private void alimenter() {
+        Random aleatoire = new Random(42);
+
+        List<Object[]> livres = new ArrayList<>(taille);
+        for (int i = 0; i < taille; i++) {
+            String isbn = String.valueOf(9780000000000L + i);
+            isbns.add(isbn);
+            String titre = MOTS[aleatoire.nextInt(MOTS.length)] + " " + MOTS[aleatoire.nextInt(MOTS.length)] + " " + i;
+            livres.add(new Object[]{isbn, titre, AUTEURS[aleatoire.nextInt(AUTEURS.length)], "Éditeur " + (i % 50),
+                    "POCHE", aleatoire.nextInt(10) < 8});
+        }
+        jdbcTemplate.batchUpdate("insert into livre (isbn, titre, auteur, editeur, format, disponible) values (?, ?, ?, ?, ?, ?)", livres);
+
+        int nombreAdherents = Math.max(10, taille / 10);
+        List<Object[]> adherents = new ArrayList<>(nombreAdherents);
+        for (int i = 0; i < nombreAdherents; i++) {
+            String code = "A" + i;
+            codesAdherents.add(code);
+            adherents.add(new Object[]{code, "Nom" + i, "Prénom" + i, "2000-01-01", i % 2 == 0 ? "FEMME" : "HOMME", code + "@mail.com"});
+        }
+        jdbcTemplate.batchUpdate("insert into adherent (code_adherent, nom, prenom, date_naissance, civilite, adresse_mail) values (?, ?, ?, ?, ?, ?)", adherents);
+
+        inserer(taille / 2, true, aleatoire);
+        inserer(taille - taille / 2, false, aleatoire);
+    }
+
+    void inserer(int nombre, boolean enRetard, Random aleatoire) {
+        LocalDate aujourdhui = LocalDate.now();
+        List<Object[]> reservations = new ArrayList<>(nombre);
+        for (int i = 0; i < nombre; i++) {
+            LocalDate dateFin = enRetard ? aujourdhui.minusDays(1 + aleatoire.nextInt(90)) : aujourdhui.plusDays(1 + aleatoire.nextInt(90));
+            reservations.add(new Object[]{codesAdherents.get(aleatoire.nextInt(codesAdherents.size())),
+                    isbns.get(aleatoire.nextInt(isbns.size())), Date.valueOf(dateFin.minusMonths(1)), Date.valueOf(dateFin)});
+        }
+        jdbcTemplate.batchUpdate("insert into reservation (adherent_code_adherent, livre_isbn, date_debut, date_fin) values (?, ?, ?, ?)", reservations);
+    }
+}
@@ -0,0 +1,104 @@
+package fr.formation.bench;
+
+import fr.formation.Main;
+import fr.formation.model.Livre;
+import fr.formation.service.DemarrageCatalogue;
+import fr.formation.service.LivreService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Temps de mise en route du catalogue : du lancement de la construction des index à la
+ * première recherche servie par l'index, depuis la base ou depuis l'instantané. La base H2
+ * est en mémoire : le coût d'une base froide sur disque n'est pas reproduit ici.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DemarrageBenchmark {
+
+    @Param({"10000", "100000"})
+    public int taille;
+
+    @Param({"false", "true"})
+    public boolean instantane;
+
+    private ConfigurableApplicationContext contexte;
+    private DemarrageCatalogue demarrageCatalogue;
+    private LivreService livreService;
+    private Path repertoire;
+    private CompletableFuture<Boolean> verification;
+
+    @Setup(Level.Trial)
+    public void demarrer() throws IOException {
+        repertoire = Files.createTempDirectory("instantane-bench");
+        contexte = new SpringApplicationBuilder(Main.class, ConfigurationBenchmark.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:demarrage-" + taille + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN",
+                        "catalogue.instantane.fichier=" + (instantane ? repertoire.resolve("catalogue.bin") : ""))
+                .run();
+        demarrageCatalogue = contexte.getBean(DemarrageCatalogue.class);
+        livreService = contexte.getBean(LivreService.class);
+        alimenter();
+        // Écrit l'instantané des données alimentées
+        demarrageCatalogue.rechauffer().join();
+    }
+
+    @TearDown(Level.Invocation)
+    public void attendreVerification() {
+        verification.join();
+    }
+
+    @TearDown(Level.Trial)
+    public void arreter() throws IOException {
+        contexte.close();
+        Files.deleteIfExists(repertoire.resolve("catalogue.bin"));
+        Files.deleteIfExists(repertoire);
+    }
+
+    @Benchmark
+    public List<Livre> premiereRecherche() {
+        verification = demarrageCatalogue.rechauffer();
+        return livreService.rechercherParTitre("guerre");
+    }
+
+    private void alimenter() {
+        Random aleatoire = new Random(42);
+        List<Object[]> livres = new ArrayList<>(taille);
+        for (int i = 0; i < taille; i++) {
+            String titre = ContexteBenchmark.MOTS[aleatoire.nextInt(ContexteBenchmark.MOTS.length)] + " "
+                    + ContexteBenchmark.MOTS[aleatoire.nextInt(ContexteBenchmark.MOTS.length)] + " " + i;
+            livres.add(new Object[]{String.valueOf(9780000000000L + i), titre,
+                    ContexteBenchmark.AUTEURS[aleatoire.nextInt(ContexteBenchmark.AUTEURS.length)], "Éditeur " + (i % 50),
+                    "POCHE", aleatoire.nextInt(10) < 8});
+        }
+        JdbcTemplate jdbcTemplate = contexte.getBean(JdbcTemplate.class);
+        jdbcTemplate.batchUpdate("insert into livre (isbn, titre, auteur, editeur, format, disponible) values (?, ?, ?, ?, ?, ?)", livres);
+
+        List<Object[]> adherents = new ArrayList<>(taille / 10);
+        for (int i = 0; i < taille / 10; i++) {
+            String code = "A" + i;
+            adherents.add(new Object[]{code, "Nom" + i, "Prénom" + i, "2000-01-01", i % 2 == 0 ? "FEMME" : "HOMME", code + "@mail.com"});
+        }
+        jdbcTemplate.batchUpdate("insert into adherent (code_adherent, nom, prenom, date_naissance, civilite, adresse_mail) values (?, ?, ?, ?, ?, ?)", adherents);
+    }
+}
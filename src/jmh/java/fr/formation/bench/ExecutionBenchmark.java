@@ -0,0 +1,124 @@
+package fr.formation.bench;
+
+import fr.formation.Main;
+import fr.formation.service.LivreService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare le traitement des requêtes HTTP sur le pool de threads Tomcat et sur des threads
+ * virtuels : chaque invocation envoie {@code clients} requêtes simultanées et attend toutes
+ * les réponses. Client et serveur partagent le processus : chaque client ouvre deux sockets,
+ * la limite de descripteurs de fichiers (ulimit -n) doit dépasser 2 × {@code clients}.
+ * Les threads virtuels demandent Java 21 : en dessous, les mesures avec {@code threadsVirtuels}
+ * sont refusées plutôt que de mesurer en silence le pool Tomcat.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExecutionBenchmark {
+
+    private static final int NOMBRE_LIVRES = 1000;
+    private static final boolean JAVA_21 = Runtime.version().feature() >= 21;
+
+    @State(Scope.Benchmark)
+    public static class Serveur {
+
+        @Param({"false", "true"})
+        public boolean threadsVirtuels;
+
+        @Param({"1000", "10000"})
+        public int clients;
+
+        ConfigurableApplicationContext contexte;
+        SimpleAsyncTaskExecutor executeurClients;
+        HttpClient client;
+        final List<URI> adresses = new ArrayList<>();
+
+        @Setup(Level.Trial)
+        public void demarrer() {
+            if (threadsVirtuels && !JAVA_21) {
+                throw new IllegalStateException("Threads virtuels : Java 21 requis, " + Runtime.version() + " détecté");
+            }
+            contexte = new SpringApplicationBuilder(Main.class, ConfigurationBenchmark.class)
+                    .properties(
+                            "spring.threads.virtual.enabled=" + threadsVirtuels,
+                            "server.port=0",
+                            "server.tomcat.max-connections=" + (clients * 2),
+                            "server.tomcat.accept-count=" + clients,
+                            "spring.datasource.url=jdbc:h2:mem:execution-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1",
+                            "spring.jpa.hibernate.ddl-auto=create-drop",
+                            "spring.main.banner-mode=off",
+                            "logging.level.root=WARN")
+                    .run();
+            alimenter();
+
+            int port = ((WebServerApplicationContext) contexte).getWebServer().getPort();
+            // Requêtes mélangées : lecture par ISBN (cache), recherche par titre, page de réservations (JPA)
+            for (int i = 0; i < clients; i++) {
+                String chemin = switch (i % 3) {
+                    case 0 -> "/api/livres/" + (9780000000000L + i % NOMBRE_LIVRES);
+                    case 1 -> "/api/livres/recherche/titre?titre=" + ContexteBenchmark.MOTS[i % ContexteBenchmark.MOTS.length];
+                    default -> "/api/reservations/actives?taille=20";
+                };
+                adresses.add(URI.create("http://localhost:" + port + chemin));
+            }
+            // Côté client, un thread par requête (virtuel à partir de Java 21) pour ne mesurer que le serveur
+            executeurClients = new SimpleAsyncTaskExecutor("client-");
+            executeurClients.setVirtualThreads(JAVA_21);
+            client = HttpClient.newBuilder().executor(executeurClients).version(HttpClient.Version.HTTP_1_1).build();
+        }
+
+        @TearDown(Level.Trial)
+        public void arreter() {
+            client = null;
+            executeurClients.close();
+            contexte.close();
+        }
+
+        private void alimenter() {
+            List<Object[]> livres = new ArrayList<>(NOMBRE_LIVRES);
+            for (int i = 0; i < NOMBRE_LIVRES; i++) {
+                String titre = ContexteBenchmark.MOTS[i % ContexteBenchmark.MOTS.length] + " " + i;
+                livres.add(new Object[]{String.valueOf(9780000000000L + i), titre,
+                        ContexteBenchmark.AUTEURS[i % ContexteBenchmark.AUTEURS.length], "Éditeur", "POCHE", true});
+            }
+            contexte.getBean(JdbcTemplate.class)
+                    .batchUpdate("insert into livre (isbn, titre, auteur, editeur, format, disponible) values (?, ?, ?, ?, ?, ?)", livres);
+            contexte.getBean(LivreService.class).construireIndex();
+        }
+    }
+
+    @Benchmark
+    public int rafale(Serveur serveur) {
+        List<CompletableFuture<HttpResponse<Void>>> reponses = new ArrayList<>(serveur.adresses.size());
+        for (URI adresse : serveur.adresses) {
+            reponses.add(serveur.client.sendAsync(HttpRequest.newBuilder(adresse).GET().build(), HttpResponse.BodyHandlers.discarding()));
+        }
+        int succes = 0;
+        for (CompletableFuture<HttpResponse<Void>> reponse : reponses) {
+            if (reponse.join().statusCode() == 200) {
+                succes++;
+            }
+        }
+        if (succes != reponses.size()) {
+            throw new IllegalStateException((reponses.size() - succes) + " requêtes en échec");
+        }
+        return succes;
+    }
+}
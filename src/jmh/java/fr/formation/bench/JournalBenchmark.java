@@ -0,0 +1,62 @@
+package fr.formation.bench;
+
+import fr.formation.journal.EvenementReservation;
+import fr.formation.journal.JournalReservations;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Écriture dans le journal des réservations : sans attendre la synchronisation (chemin des
+ * services), et en attendant que l'événement soit durable, où les fsync sont regroupés
+ * entre les threads.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JournalBenchmark {
+
+    private final AtomicLong ids = new AtomicLong();
+    private final LocalDate debut = LocalDate.now();
+    private final LocalDate fin = debut.plusMonths(1);
+    private Path repertoire;
+    private JournalReservations journal;
+
+    @Setup(Level.Trial)
+    public void ouvrir() throws IOException {
+        repertoire = Files.createTempDirectory("journal-bench");
+        journal = new JournalReservations(repertoire.toString(), 1 << 20);
+    }
+
+    @TearDown(Level.Trial)
+    public void fermer() throws Exception {
+        journal.fermer();
+        try (Stream<Path> fichiers = Files.walk(repertoire)) {
+            for (Path fichier : fichiers.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(fichier);
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object enregistrer() {
+        return journal.enregistrer(EvenementReservation.Type.CREATION, ids.incrementAndGet(), "A123", "9783161484100", debut, fin);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object enregistrerDurable() {
+        return journal.enregistrer(EvenementReservation.Type.CREATION, ids.incrementAndGet(), "A123", "9783161484100", debut, fin).join();
+    }
+}
@@ -0,0 +1,57 @@
+package fr.formation.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.formation.cache.JsonLivres;
+import fr.formation.model.Format;
+import fr.formation.model.Livre;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Écriture d'une liste de livres en JSON, comme une réponse de recherche : sérialisation
+ * Jackson à chaque fois contre assemblage des octets gardés par {@link JsonLivres}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonLivresBenchmark {
+
+    @Param({"20", "100"})
+    public int taille;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JsonLivres jsonLivres = new JsonLivres(objectMapper, 5000);
+    private final List<Livre> livres = new ArrayList<>();
+    private final ByteArrayOutputStream sortie = new ByteArrayOutputStream(64 * 1024);
+
+    @Setup
+    public void preparer() throws IOException {
+        for (int i = 0; i < taille; i++) {
+            livres.add(new Livre(String.format("%013d", i), ContexteBenchmark.MOTS[i % ContexteBenchmark.MOTS.length] + " " + i,
+                    ContexteBenchmark.AUTEURS[i % ContexteBenchmark.AUTEURS.length], "Gallimard", Format.POCHE, i % 2 == 0));
+        }
+        jsonLivres.ecrire(livres, sortie);
+    }
+
+    @Benchmark
+    public int jackson() throws IOException {
+        sortie.reset();
+        objectMapper.writeValue(sortie, livres);
+        return sortie.size();
+    }
+
+    @Benchmark
+    public int octetsEnCache() throws IOException {
+        sortie.reset();
+        jsonLivres.ecrire(livres, sortie);
+        return sortie.size();
+    }
+}
@@ -0,0 +1,50 @@
+package fr.formation.bench;
+
+import fr.formation.model.Livre;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class LivreServiceBenchmark {
+
+    @State(Scope.Thread)
+    public static class Requetes {
+        private final Random aleatoire = new Random();
+
+        String mot() {
+            return ContexteBenchmark.MOTS[aleatoire.nextInt(ContexteBenchmark.MOTS.length)];
+        }
+
+        String auteur() {
+            String auteur = ContexteBenchmark.AUTEURS[aleatoire.nextInt(ContexteBenchmark.AUTEURS.length)];
+            return auteur.substring(auteur.indexOf(' ') + 1);
+        }
+
+        String isbn(ContexteBenchmark contexte) {
+            return contexte.isbns.get(aleatoire.nextInt(contexte.isbns.size()));
+        }
+    }
+
+    @Benchmark
+    public List<Livre> rechercherParTitre(ContexteBenchmark contexte, Requetes requetes) {
+        return contexte.livreService.rechercherParTitre(requetes.mot());
+    }
+
+    @Benchmark
+    public List<Livre> rechercherParAuteur(ContexteBenchmark contexte, Requetes requetes) {
+        return contexte.livreService.rechercherParAuteur(requetes.auteur());
+    }
+
+    @Benchmark
+    public Optional<Livre> rechercherParIsbn(ContexteBenchmark contexte, Requetes requetes) {
+        return contexte.livreService.rechercherParISBN(requetes.isbn(contexte));
+    }
+}
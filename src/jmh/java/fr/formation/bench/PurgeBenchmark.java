@@ -0,0 +1,31 @@
+package fr.formation.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * La purge est destructive : chaque mesure porte sur une seule exécution, précédée
+ * de la réinsertion des réservations en retard.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PurgeBenchmark {
+
+    private final Random aleatoire = new Random(7);
+
+    @Setup(Level.Invocation)
+    public void realimenter(ContexteBenchmark contexte) {
+        contexte.inserer(contexte.taille / 2, true, aleatoire);
+    }
+
+    @Benchmark
+    public long supprimerReservationsExpirees(ContexteBenchmark contexte) {
+        return contexte.reservationService.supprimerReservationsExpirees();
+    }
+}
@@ -0,0 +1,73 @@
+package fr.formation.bench;
+
+import fr.formation.dto.LigneRetard;
+import fr.formation.service.ModeleRappel;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Composition des messages de rappel : concaténation dans un StringBuilder neuf par adhérent,
+ * comme avant, contre le modèle compilé. Un lot représente 1 000 adhérents.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RappelBenchmark {
+
+    @Param({"1", "3", "10"})
+    public int livresParAdherent;
+
+    private final ModeleRappel modele = new ModeleRappel();
+    private final List<List<LigneRetard>> adherents = new ArrayList<>();
+
+    @Setup
+    public void preparer() {
+        Random aleatoire = new Random(42);
+        for (int a = 0; a < 1000; a++) {
+            List<LigneRetard> retards = new ArrayList<>();
+            for (int i = 0; i < livresParAdherent; i++) {
+                String titre = ContexteBenchmark.MOTS[aleatoire.nextInt(ContexteBenchmark.MOTS.length)];
+                retards.add(new LigneRetard("A" + a, "Prénom" + a, "adherent" + a + "@mail.com", titre,
+                        LocalDate.now().minusDays(1 + aleatoire.nextInt(60))));
+            }
+            adherents.add(retards);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1000)
+    public long concatenation() {
+        long taille = 0;
+        for (List<LigneRetard> retards : adherents) {
+            StringBuilder message = new StringBuilder();
+            message.append("Cher(e) ").append(retards.get(0).prenom()).append(",\n\n");
+            message.append("Vous avez des réservations en retard :\n");
+            for (LigneRetard retard : retards) {
+                message.append("- ").append(retard.titre())
+                        .append(" (fin prévue le ").append(retard.dateFin()).append(")\n");
+            }
+            message.append("\nMerci de les retourner au plus vite.\n\n");
+            message.append("Cordialement,\nBibliothèque");
+            taille += message.toString().length();
+        }
+        return taille;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1000)
+    public long modeleCompile() {
+        long taille = 0;
+        for (List<LigneRetard> retards : adherents) {
+            taille += modele.rendre(retards).length();
+        }
+        return taille;
+    }
+}
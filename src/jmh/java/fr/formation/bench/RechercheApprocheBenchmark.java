@@ -0,0 +1,63 @@
+package fr.formation.bench;
+
+import fr.formation.index.IndexApproche;
+import fr.formation.index.NormalisationTexte;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recherche d'un auteur mal orthographié : index approché contre parcours de tous les auteurs
+ * pliés, qui ne trouve que les sous-chaînes exactes, comme la recherche en base.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RechercheApprocheBenchmark {
+
+    private static final String[] PRENOMS = {"Paul", "Émile", "Victor", "Alexandre", "Albert", "Françoise", "Hélène", "Léon"};
+    private static final String[] SYLLABES = {"du", "ma", "ca", "mus", "lu", "ard", "zo", "la", "hu", "go", "bé", "det", "ro", "sseau"};
+
+    @Param({"10000", "100000"})
+    public int taille;
+
+    private final IndexApproche index = new IndexApproche();
+    private final List<String> auteursPlies = new ArrayList<>();
+
+    @Setup
+    public void preparer() {
+        Random aleatoire = new Random(42);
+        for (int i = 0; i < taille; i++) {
+            StringBuilder nom = new StringBuilder();
+            for (int s = 0; s < 3; s++) {
+                nom.append(SYLLABES[aleatoire.nextInt(SYLLABES.length)]);
+            }
+            String auteur = PRENOMS[aleatoire.nextInt(PRENOMS.length)] + " " + nom;
+            index.indexer(Integer.toString(i), auteur);
+            auteursPlies.add(NormalisationTexte.plier(auteur));
+        }
+    }
+
+    @Benchmark
+    public int indexApproche() {
+        return index.rechercher("Dumacarro", 20).size();
+    }
+
+    @Benchmark
+    public int parcours() {
+        String recherche = NormalisationTexte.plier("Dumacarro");
+        int trouves = 0;
+        for (String auteur : auteursPlies) {
+            if (auteur.contains(recherche)) {
+                trouves++;
+            }
+        }
+        return trouves;
+    }
+}
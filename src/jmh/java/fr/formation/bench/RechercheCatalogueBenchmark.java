@@ -0,0 +1,69 @@
+package fr.formation.bench;
+
+import fr.formation.dto.CriteresLivres;
+import fr.formation.dto.PageLivres;
+import fr.formation.index.DisponibiliteLivres;
+import fr.formation.index.NormalisationTexte;
+import fr.formation.index.RechercheCatalogue;
+import fr.formation.model.Format;
+import fr.formation.model.Livre;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recherche multicritère (mot du titre, auteur, format, disponibilité) avec comptage :
+ * intersections de bitmaps contre parcours de tout le catalogue.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RechercheCatalogueBenchmark {
+
+    @Param({"10000", "100000"})
+    public int taille;
+
+    private final DisponibiliteLivres disponibilite = new DisponibiliteLivres();
+    private final RechercheCatalogue recherche = new RechercheCatalogue(disponibilite);
+    private final List<Livre> catalogue = new ArrayList<>();
+    private final CriteresLivres criteres = new CriteresLivres("prince", "auteur 1", null, Set.of(Format.POCHE), true);
+
+    @Setup
+    public void preparer() {
+        Random aleatoire = new Random(42);
+        Format[] formats = Format.values();
+        for (int i = 0; i < taille; i++) {
+            String titre = ContexteBenchmark.MOTS[aleatoire.nextInt(ContexteBenchmark.MOTS.length)] + " "
+                    + ContexteBenchmark.MOTS[aleatoire.nextInt(ContexteBenchmark.MOTS.length)] + " " + i;
+            catalogue.add(new Livre(String.format("%013d", i), titre, "Auteur " + (i % 50), "Éditeur " + (i % 20),
+                    formats[aleatoire.nextInt(formats.length)], aleatoire.nextBoolean()));
+        }
+        disponibilite.reconstruire(catalogue);
+        recherche.reconstruire(catalogue);
+    }
+
+    @Benchmark
+    public PageLivres bitmaps() {
+        return recherche.rechercher(criteres, 0, 20);
+    }
+
+    @Benchmark
+    public int parcours() {
+        int total = 0;
+        for (Livre livre : catalogue) {
+            if (NormalisationTexte.mots(NormalisationTexte.plier(livre.getTitre())).contains("prince")
+                    && NormalisationTexte.plier(livre.getAuteur()).startsWith("auteur 1")
+                    && livre.getFormat() == Format.POCHE && livre.isDisponible()) {
+                total++;
+            }
+        }
+        return total;
+    }
+}
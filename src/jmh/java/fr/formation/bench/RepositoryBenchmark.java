@@ -0,0 +1,45 @@
+package fr.formation.bench;
+
+import fr.formation.model.Livre;
+import fr.formation.model.Reservation;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requêtes du repository appelées directement, sans les index en mémoire des services.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    @State(Scope.Thread)
+    public static class Requetes {
+        private final Random aleatoire = new Random();
+
+        String mot() {
+            return ContexteBenchmark.MOTS[aleatoire.nextInt(ContexteBenchmark.MOTS.length)];
+        }
+    }
+
+    @Benchmark
+    public List<Livre> findByTitreContainingIgnoreCase(ContexteBenchmark contexte, Requetes requetes) {
+        return contexte.livreRepository.findByTitreContainingIgnoreCase(requetes.mot());
+    }
+
+    @Benchmark
+    public List<Livre> findByAuteurContainingIgnoreCase(ContexteBenchmark contexte) {
+        return contexte.livreRepository.findByAuteurContainingIgnoreCase("camus");
+    }
+
+    @Benchmark
+    public List<Reservation> findByDateFinBefore(ContexteBenchmark contexte) {
+        return contexte.reservationRepository.findByDateFinBefore(LocalDate.now());
+    }
+}
@@ -0,0 +1,53 @@
+package fr.formation.bench;
+
+import fr.formation.dto.PageReservations;
+import fr.formation.model.Reservation;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class ReservationServiceBenchmark {
+
+    @State(Scope.Thread)
+    public static class Demandes {
+        private final Random aleatoire = new Random();
+    }
+
+    @Benchmark
+    public void ajouterReservation(ContexteBenchmark contexte, Demandes demandes, Blackhole trou) {
+        String code = contexte.codesAdherents.get(demandes.aleatoire.nextInt(contexte.codesAdherents.size()));
+        String isbn = contexte.isbns.get(demandes.aleatoire.nextInt(contexte.isbns.size()));
+        try {
+            trou.consume(contexte.reservationService.ajouterReservation(code, isbn, LocalDate.now().plusMonths(1)));
+        } catch (IllegalStateException e) {
+            // Livre indisponible ou quota atteint : le refus fait partie du chemin mesuré
+            trou.consume(e);
+        }
+    }
+
+    @Benchmark
+    public List<Reservation> recupererReservationsActives(ContexteBenchmark contexte) {
+        return contexte.reservationService.recupererReservationsActives();
+    }
+
+    @Benchmark
+    public PageReservations recupererReservationsActivesPage(ContexteBenchmark contexte) {
+        return contexte.reservationService.recupererReservationsActives(null, 100);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void envoyerRappelReservationsDepassees(ContexteBenchmark contexte) {
+        contexte.reservationService.envoyerRappelReservationsDepassees();
+    }
+}
@@ -0,0 +1,66 @@
+package fr.formation.bench;
+
+import fr.formation.index.NormalisationTexte;
+import fr.formation.index.SuggestionsLivres;
+import fr.formation.model.Format;
+import fr.formation.model.Livre;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Suggestions pour un préfixe saisi : arbre de préfixes contre parcours de tous les titres
+ * pliés, comme le fait la recherche par titre à chaque frappe, dont les dix premiers sont gardés.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SuggestionsBenchmark {
+
+    @Param({"10000", "100000"})
+    public int taille;
+
+    @Param({"p", "prin"})
+    public String prefixe;
+
+    private final SuggestionsLivres suggestions = new SuggestionsLivres();
+    private final List<String> titres = new ArrayList<>();
+    private final List<String> titresPlies = new ArrayList<>();
+
+    @Setup
+    public void preparer() {
+        Random aleatoire = new Random(42);
+        List<Livre> catalogue = new ArrayList<>(taille);
+        for (int i = 0; i < taille; i++) {
+            String titre = ContexteBenchmark.MOTS[aleatoire.nextInt(ContexteBenchmark.MOTS.length)] + " "
+                    + ContexteBenchmark.MOTS[aleatoire.nextInt(ContexteBenchmark.MOTS.length)] + " " + i;
+            catalogue.add(new Livre(String.format("%013d", i), titre, "Auteur " + (i % 500), "Éditeur", Format.POCHE, true));
+            titres.add(titre);
+            titresPlies.add(NormalisationTexte.plier(titre));
+        }
+        suggestions.reconstruire(catalogue);
+    }
+
+    @Benchmark
+    public List<String> arbre() {
+        return suggestions.suggerer(prefixe, 10);
+    }
+
+    @Benchmark
+    public List<String> parcours() {
+        String recherche = NormalisationTexte.plier(prefixe);
+        List<String> trouves = new ArrayList<>();
+        for (int i = 0; i < titresPlies.size(); i++) {
+            if (titresPlies.get(i).contains(recherche)) {
+                trouves.add(titres.get(i));
+            }
+        }
+        return trouves.subList(0, Math.min(10, trouves.size()));
+    }
+}
@@ -0,0 +1,129 @@
+package fr.formation.cache;
+
+import fr.formation.model.Livre;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Cache en lecture des livres par ISBN, borné en taille (LRU) et en durée de vie.
+ * Les entrées sont copiées à l'écriture et à la lecture pour que les appelants ne
+ * puissent pas modifier le contenu du cache. Un chargement pendant lequel le cache a été
+ * invalidé ou mis à jour n'est pas conservé : il a pu lire la ligne d'avant le commit.
+ */
+@Component
+public class CacheLivres {
+
+    public record Statistiques(long succes, long echecs, long evictions, int taille) {
+    }
+
+    private record Entree(Livre livre, long expiration) {
+    }
+
+    private final int tailleMax;
+    private final long ttlMillis;
+    private final Clock horloge;
+    private final Map<String, Entree> entrees;
+    // Incrémenté à chaque invalidation ou mise à jour, sous le verrou de entrees
+    private long generation;
+
+    private final LongAdder succes = new LongAdder();
+    private final LongAdder echecs = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Autowired
+    public CacheLivres(@Value("${livres.cache.taille-max:10000}") int tailleMax,
+                       @Value("${livres.cache.ttl:PT10M}") Duration ttl) {
+        this(tailleMax, ttl, Clock.systemUTC());
+    }
+
+    CacheLivres(int tailleMax, Duration ttl, Clock horloge) {
+        this.tailleMax = tailleMax;
+        this.ttlMillis = ttl.toMillis();
+        this.horloge = horloge;
+        this.entrees = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entree> eldest) {
+                if (size() > CacheLivres.this.tailleMax) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Retourne le livre en cache, ou le charge avec {@code chargeur} et le met en cache s'il existe.
+     */
+    public Optional<Livre> obtenir(String isbn, Function<String, Optional<Livre>> chargeur) {
+        long generationChargement;
+        synchronized (entrees) {
+            Entree entree = entrees.get(isbn);
+            if (entree != null) {
+                if (entree.expiration() > horloge.millis()) {
+                    succes.increment();
+                    return Optional.of(copier(entree.livre()));
+                }
+                entrees.remove(isbn);
+                evictions.increment();
+            }
+            generationChargement = generation;
+        }
+        echecs.increment();
+
+        // Chargement hors verrou pour ne pas bloquer les autres lectures pendant l'accès base
+        Optional<Livre> livre = chargeur.apply(isbn);
+        livre.ifPresent(charge -> {
+            Entree entree = new Entree(copier(charge), horloge.millis() + ttlMillis);
+            synchronized (entrees) {
+                if (generation == generationChargement) {
+                    entrees.put(isbn, entree);
+                }
+            }
+        });
+        return livre;
+    }
+
+    public void mettreAJour(Livre livre) {
+        Entree entree = new Entree(copier(livre), horloge.millis() + ttlMillis);
+        synchronized (entrees) {
+            generation++;
+            entrees.put(livre.getIsbn(), entree);
+        }
+    }
+
+    public void invalider(String isbn) {
+        synchronized (entrees) {
+            generation++;
+            entrees.remove(isbn);
+        }
+    }
+
+    public void vider() {
+        synchronized (entrees) {
+            generation++;
+            entrees.clear();
+        }
+    }
+
+    public Statistiques statistiques() {
+        int taille;
+        synchronized (entrees) {
+            taille = entrees.size();
+        }
+        return new Statistiques(succes.sum(), echecs.sum(), evictions.sum(), taille);
+    }
+
+    private static Livre copier(Livre livre) {
+        return new Livre(livre.getIsbn(), livre.getTitre(), livre.getAuteur(), livre.getEditeur(), livre.getFormat(), livre.isDisponible());
+    }
+}
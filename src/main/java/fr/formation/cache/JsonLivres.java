@@ -0,0 +1,123 @@
+package fr.formation.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.formation.model.Livre;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Forme JSON des livres, sérialisée une fois par Jackson puis gardée en octets.
+ * Une entrée n'est servie que si le livre à écrire est égal à celui qui a été sérialisé :
+ * toute écriture d'un champ invalide donc la forme en cache, quel que soit le chemin qui l'a faite.
+ * Lectures sans verrou ; au-delà de la taille maximale, les entrées sont évincées dans l'ordre
+ * d'insertion, en épargnant une fois celles servies depuis leur dernier passage (LRU approché).
+ */
+@Component
+public class JsonLivres {
+
+    private static final byte DEBUT_TABLEAU = '[';
+    private static final byte SEPARATEUR = ',';
+    private static final byte FIN_TABLEAU = ']';
+
+    private static final class Entree {
+        private final Livre livre;
+        private final byte[] octets;
+        private volatile boolean servie;
+
+        private Entree(Livre livre, byte[] octets) {
+            this.livre = livre;
+            this.octets = octets;
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final int tailleMax;
+    private final ConcurrentHashMap<String, Entree> entrees = new ConcurrentHashMap<>();
+    // ISBN dans l'ordre d'insertion, chacun une fois tant qu'il a une entrée
+    private final Queue<String> ordre = new ConcurrentLinkedQueue<>();
+
+    public JsonLivres(ObjectMapper objectMapper, @Value("${livres.json.taille-max:5000}") int tailleMax) {
+        this.objectMapper = objectMapper;
+        this.tailleMax = tailleMax;
+    }
+
+    public byte[] octets(Livre livre) {
+        if (livre.getIsbn() == null) {
+            return serialiser(livre);
+        }
+        Entree entree = entrees.get(livre.getIsbn());
+        if (entree != null && entree.livre.equals(livre)) {
+            if (!entree.servie) {
+                entree.servie = true;
+            }
+            return entree.octets;
+        }
+        // Le livre est copié pour qu'une modification de l'appelant ne fausse pas la comparaison
+        Livre copie = new Livre(livre.getIsbn(), livre.getTitre(), livre.getAuteur(), livre.getEditeur(), livre.getFormat(), livre.isDisponible());
+        byte[] octets = serialiser(copie);
+        if (entrees.put(copie.getIsbn(), new Entree(copie, octets)) == null) {
+            ordre.add(copie.getIsbn());
+            evincer();
+        }
+        return octets;
+    }
+
+    public void ecrire(Livre livre, OutputStream sortie) throws IOException {
+        sortie.write(octets(livre));
+    }
+
+    // Tableau JSON assemblé à partir des formes en cache, sans repasser par Jackson
+    public void ecrire(Collection<? extends Livre> livres, OutputStream sortie) throws IOException {
+        sortie.write(DEBUT_TABLEAU);
+        boolean premier = true;
+        for (Livre livre : livres) {
+            if (!premier) {
+                sortie.write(SEPARATEUR);
+            }
+            sortie.write(octets(livre));
+            premier = false;
+        }
+        sortie.write(FIN_TABLEAU);
+    }
+
+    public int taille() {
+        return entrees.size();
+    }
+
+    private void evincer() {
+        while (entrees.size() > tailleMax) {
+            String isbn = ordre.poll();
+            if (isbn == null) {
+                return;
+            }
+            Entree entree = entrees.get(isbn);
+            if (entree == null) {
+                continue;
+            }
+            if (entree.servie) {
+                entree.servie = false;
+                ordre.add(isbn);
+            } else if (!entrees.remove(isbn, entree)) {
+                // Remplacée entretemps : l'ISBN garde sa place dans l'ordre
+                ordre.add(isbn);
+            }
+        }
+    }
+
+    private byte[] serialiser(Livre livre) {
+        try {
+            return objectMapper.writeValueAsBytes(livre);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package fr.formation.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versions des livres et des adhérents servies en ETag, pour répondre 304 sans lecture en base.
+ * Seules les entités déjà lues sont suivies ; chaque écriture d'une entité suivie lui attribue
+ * une nouvelle valeur d'une séquence commune, si bien qu'une version n'est jamais réutilisée.
+ * L'ETag porte aussi un identifiant tiré au démarrage : après un redémarrage, les anciens ETag
+ * ne correspondent plus à rien et le client relit la ressource.
+ */
+@Component
+public class VersionsEntites {
+
+    public enum Ressource {
+        LIVRE, ADHERENT
+    }
+
+    private final String epoque = Long.toString(new SecureRandom().nextLong() >>> 1, Character.MAX_RADIX);
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Ressource, Map<String, Long>> versions = new EnumMap<>(Ressource.class);
+
+    public VersionsEntites() {
+        for (Ressource ressource : Ressource.values()) {
+            versions.put(ressource, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * ETag de la version courante, si l'entité est suivie.
+     */
+    public Optional<String> etag(Ressource ressource, String cle) {
+        Long version = versions.get(ressource).get(cle);
+        return version == null ? Optional.empty() : Optional.of(etag(version));
+    }
+
+    /**
+     * ETag de la version courante, en commençant à suivre l'entité au besoin. À appeler avant
+     * de lire l'entité : une écriture concurrente donne au pire un ETag plus ancien que le contenu.
+     */
+    public String suivre(Ressource ressource, String cle) {
+        return etag(versions.get(ressource).computeIfAbsent(cle, c -> sequence.incrementAndGet()));
+    }
+
+    // À appeler une fois l'écriture visible des lecteurs (après commit et invalidation du cache)
+    public void incrementer(Ressource ressource, String cle) {
+        versions.get(ressource).computeIfPresent(cle, (c, version) -> sequence.incrementAndGet());
+    }
+
+    public void oublier(Ressource ressource, String cle) {
+        versions.get(ressource).remove(cle);
+    }
+
+    private String etag(long version) {
+        return "\"" + epoque + "-" + Long.toString(version, Character.MAX_RADIX) + "\"";
+    }
+}
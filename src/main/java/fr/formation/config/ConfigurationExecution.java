@@ -0,0 +1,41 @@
+package fr.formation.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Mode d'exécution choisi par {@code spring.threads.virtual.enabled} : à true, Spring Boot
+ * traite les requêtes Tomcat et les méthodes {@code @Async} sur des threads virtuels.
+ * Les appels bloquants (JPA, envoi de mails) ne monopolisent plus alors un thread du pool ;
+ * seules les connexions JDBC restent bornées. Les tâches {@code @Scheduled} ne tournent
+ * que si leur expression cron est configurée.
+ */
+@Configuration
+@EnableAsync
+@EnableScheduling
+public class ConfigurationExecution {
+
+    @Bean
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    static BeanPostProcessor bornageConnexions(@Value("${jdbc.connexions-max:${spring.datasource.hikari.maximum-pool-size:10}}") int connexionsMax,
+                                               @Value("${spring.datasource.hikari.connection-timeout:30000}") long attenteMaxMillis) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String nom) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof DataSourceBornee)) {
+                    return new DataSourceBornee(dataSource, connexionsMax, Duration.ofMillis(attenteMaxMillis));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,80 @@
+package fr.formation.config;
+
+import fr.formation.cache.JsonLivres;
+import fr.formation.model.Livre;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+
+/**
+ * Écrit les réponses {@code Livre} et listes de livres à partir des octets de {@link JsonLivres}.
+ * Spring Boot place ce convertisseur avant celui de Jackson ; la lecture des corps de requête
+ * et les autres types de réponse restent confiés à Jackson.
+ */
+@Component
+public class ConvertisseurJsonLivres extends AbstractGenericHttpMessageConverter<Object> {
+
+    private final JsonLivres jsonLivres;
+
+    public ConvertisseurJsonLivres(JsonLivres jsonLivres) {
+        super(MediaType.APPLICATION_JSON);
+        this.jsonLivres = jsonLivres;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Livre.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return canWrite(mediaType) && (supports(clazz) || estListeDeLivres(type != null ? type : clazz));
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected void writeInternal(Object valeur, Type type, HttpOutputMessage sortie) throws IOException {
+        if (valeur instanceof Livre livre) {
+            jsonLivres.ecrire(livre, sortie.getBody());
+        } else {
+            jsonLivres.ecrire((Collection<? extends Livre>) valeur, sortie.getBody());
+        }
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage entree) {
+        throw new HttpMessageNotReadableException("Lecture non prise en charge", entree);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage entree) {
+        throw new HttpMessageNotReadableException("Lecture non prise en charge", entree);
+    }
+
+    private static boolean estListeDeLivres(Type type) {
+        ResolvableType resolu = ResolvableType.forType(type);
+        if (!Collection.class.isAssignableFrom(resolu.toClass())) {
+            return false;
+        }
+        Class<?> element = resolu.asCollection().resolveGeneric(0);
+        return element != null && Livre.class.isAssignableFrom(element);
+    }
+}
@@ -0,0 +1,90 @@
+package fr.formation.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limite le nombre de connexions JDBC ouvertes en même temps. Avec des threads virtuels,
+ * des milliers de requêtes peuvent demander une connexion simultanément : elles attendent
+ * ici leur tour, dans l'ordre d'arrivée, au lieu d'épuiser le pool. L'attente est bornée comme
+ * celle du pool : au-delà de {@code attenteMax}, la demande échoue.
+ */
+public class DataSourceBornee extends DelegatingDataSource {
+
+    private final Semaphore permis;
+    private final Duration attenteMax;
+
+    public DataSourceBornee(DataSource cible, int connexionsMax, Duration attenteMax) {
+        super(cible);
+        this.permis = new Semaphore(connexionsMax, true);
+        this.attenteMax = attenteMax;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquerir();
+        try {
+            return liberantALaFermeture(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permis.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String utilisateur, String motDePasse) throws SQLException {
+        acquerir();
+        try {
+            return liberantALaFermeture(super.getConnection(utilisateur, motDePasse));
+        } catch (SQLException | RuntimeException e) {
+            permis.release();
+            throw e;
+        }
+    }
+
+    public int connexionsDisponibles() {
+        return permis.availablePermits();
+    }
+
+    private void acquerir() throws SQLException {
+        try {
+            if (!permis.tryAcquire(attenteMax.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("Aucune connexion disponible après " + attenteMax.toMillis() + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Attente d'une connexion interrompue", e);
+        }
+    }
+
+    // Le permis est rendu à la première fermeture de la connexion, pas aux suivantes
+    private Connection liberantALaFermeture(Connection connexion) {
+        AtomicBoolean fermee = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, methode, arguments) -> {
+                    if (methode.getName().equals("close") && fermee.compareAndSet(false, true)) {
+                        try {
+                            connexion.close();
+                        } finally {
+                            permis.release();
+                        }
+                        return null;
+                    }
+                    try {
+                        return methode.invoke(connexion, arguments);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
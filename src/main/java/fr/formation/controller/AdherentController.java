@@ -1,11 +1,13 @@
 package fr.formation.controller;
 
+import fr.formation.dto.Versionne;
 import fr.formation.exception.AdherentNotFoundException;
 import fr.formation.model.Adherent;
 import fr.formation.service.AdherentService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Optional;
@@ -46,10 +48,16 @@ public class AdherentController {
         }
     }
 
+    // Un client qui envoie l'ETag courant en If-None-Match reçoit 304 sans lecture ni sérialisation de l'adhérent
     @GetMapping("/{codeAdherent}")
-    public ResponseEntity<Adherent> rechercherAdherentParCode(@PathVariable String codeAdherent) {
-        Optional<Adherent> adherent = adherentService.rechercherParCode(codeAdherent);
-        return adherent.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    public ResponseEntity<Adherent> rechercherAdherentParCode(@PathVariable String codeAdherent, WebRequest requete) {
+        Optional<String> etag = adherentService.etag(codeAdherent);
+        if (etag.isPresent() && requete.checkNotModified(etag.get())) {
+            return null;
+        }
+        Optional<Versionne<Adherent>> adherent = adherentService.rechercherParCodeVersionne(codeAdherent);
+        return adherent.map(lu -> ResponseEntity.ok().eTag(lu.etag()).body(lu.valeur()))
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @GetMapping("/recherche/nom")
@@ -58,6 +66,13 @@ public class AdherentController {
         return adherents.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(adherents);
     }
 
+    @GetMapping("/recherche/nom/approchee")
+    public ResponseEntity<List<Adherent>> rechercherAdherentParNomApproche(@RequestParam String nom,
+                                                                          @RequestParam(defaultValue = "20") int limite) {
+        List<Adherent> adherents = adherentService.rechercherParNomApproche(nom, limite);
+        return adherents.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(adherents);
+    }
+
     // Gestionnaire d'exceptions global
     @ExceptionHandler(AdherentNotFoundException.class)
     public ResponseEntity<Void> handleAdherentNotFound(AdherentNotFoundException ex) {
@@ -1,23 +1,45 @@
 package fr.formation.controller;
 
+import fr.formation.cache.CacheLivres;
+import fr.formation.dto.CriteresLivres;
+import fr.formation.dto.PageLivres;
+import fr.formation.dto.RapportImport;
+import fr.formation.dto.Versionne;
+import fr.formation.exception.IndexIndisponibleException;
 import fr.formation.exception.LivreNotFoundException;
+import fr.formation.model.Format;
 import fr.formation.model.Livre;
+import fr.formation.service.ImportLivreService;
+import fr.formation.service.ImportLivreService.FormatImport;
 import fr.formation.service.LivreService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/livres")
 public class LivreController {
 
+    private static final String TEXT_CSV = "text/csv";
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
     private final LivreService livreService;
+    private final ImportLivreService importLivreService;
 
-    public LivreController(LivreService livreService) {
+    public LivreController(LivreService livreService, ImportLivreService importLivreService) {
         this.livreService = livreService;
+        this.importLivreService = importLivreService;
     }
 
     @PostMapping
@@ -26,6 +48,19 @@ public class LivreController {
         return ResponseEntity.status(HttpStatus.CREATED).body(nouveauLivre);
     }
 
+    // Import en masse : le corps est lu au fil de l'eau, sans être chargé en mémoire
+    @PostMapping(value = "/import", consumes = {TEXT_CSV, APPLICATION_NDJSON})
+    public ResponseEntity<RapportImport> importerLivres(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream corps
+    ) throws IOException {
+        FormatImport format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType(TEXT_CSV))
+                ? FormatImport.CSV
+                : FormatImport.NDJSON;
+        RapportImport rapport = importLivreService.importerLivres(new InputStreamReader(corps, StandardCharsets.UTF_8), format);
+        return ResponseEntity.ok(rapport);
+    }
+
     @PutMapping("/{isbn}")
     public ResponseEntity<Livre> modifierLivre(@PathVariable String isbn, @RequestBody Livre livre) {
         try {
@@ -46,10 +81,27 @@ public class LivreController {
         }
     }
 
+    // Un client qui envoie l'ETag courant en If-None-Match reçoit 304 sans lecture ni sérialisation du livre
     @GetMapping("/{isbn}")
-    public ResponseEntity<Livre> rechercherLivreParIsbn(@PathVariable String isbn) {
-        Optional<Livre> livre = livreService.rechercherParISBN(isbn);
-        return livre.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    public ResponseEntity<Livre> rechercherLivreParIsbn(@PathVariable String isbn, WebRequest requete) {
+        Optional<String> etag = livreService.etag(isbn);
+        if (etag.isPresent() && requete.checkNotModified(etag.get())) {
+            return null;
+        }
+        Optional<Versionne<Livre>> livre = livreService.rechercherParIsbnVersionne(isbn);
+        return livre.map(lu -> ResponseEntity.ok().eTag(lu.etag()).body(lu.valeur()))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(value = "/recherche/auteur", params = "disponible=true")
+    public ResponseEntity<List<Livre>> rechercherLivresDisponiblesParAuteur(@RequestParam String auteur) {
+        List<Livre> livres = livreService.rechercherParAuteur(auteur, true);
+        return livres.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(livres);
+    }
+
+    @GetMapping("/cache/statistiques")
+    public ResponseEntity<CacheLivres.Statistiques> statistiquesCache() {
+        return ResponseEntity.ok(livreService.statistiquesCache());
     }
 
     @GetMapping("/recherche/titre")
@@ -58,16 +110,54 @@ public class LivreController {
         return livres.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(livres);
     }
 
+    @GetMapping(value = "/recherche/titre", params = "disponible=true")
+    public ResponseEntity<List<Livre>> rechercherLivresDisponiblesParTitre(@RequestParam String titre) {
+        List<Livre> livres = livreService.rechercherParTitre(titre, true);
+        return livres.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(livres);
+    }
+
     @GetMapping("/recherche/auteur")
     public ResponseEntity<List<Livre>> rechercherLivreParAuteur(@RequestParam String auteur) {
         List<Livre> livres = livreService.rechercherParAuteur(auteur);
         return livres.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(livres);
     }
 
+    // Critères combinés en une seule requête : /recherche?auteur=hugo&format=POCHE&format=BROCHE&disponible=true
+    @GetMapping("/recherche")
+    public ResponseEntity<PageLivres> rechercherLivres(@RequestParam(required = false) String titre,
+                                                       @RequestParam(required = false) String auteur,
+                                                       @RequestParam(required = false) String editeur,
+                                                       @RequestParam(name = "format", required = false) Set<Format> formats,
+                                                       @RequestParam(required = false) Boolean disponible,
+                                                       @RequestParam(defaultValue = "0") int page,
+                                                       @RequestParam(defaultValue = "20") int taille) {
+        CriteresLivres criteres = new CriteresLivres(titre, auteur, editeur, formats, disponible);
+        return ResponseEntity.ok(livreService.rechercher(criteres, page, taille));
+    }
+
+    @GetMapping("/suggestions")
+    public ResponseEntity<List<String>> suggerer(@RequestParam String prefixe, @RequestParam(defaultValue = "10") int limite) {
+        List<String> suggestions = livreService.suggerer(prefixe, limite);
+        return suggestions.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(suggestions);
+    }
+
+    @GetMapping("/recherche/auteur/approchee")
+    public ResponseEntity<List<Livre>> rechercherLivreParAuteurApproche(@RequestParam String auteur,
+                                                                        @RequestParam(defaultValue = "20") int limite) {
+        List<Livre> livres = livreService.rechercherParAuteurApproche(auteur, limite);
+        return livres.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(livres);
+    }
+
     // Exception Handler global
     @ExceptionHandler(LivreNotFoundException.class)
     public ResponseEntity<Void> handleLivreNotFound(LivreNotFoundException ex) {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
     }
+
+    // Index en construction au démarrage : le client réessaie un peu plus tard
+    @ExceptionHandler(IndexIndisponibleException.class)
+    public ResponseEntity<Void> handleIndexIndisponible(IndexIndisponibleException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+    }
 }
 
@@ -1,23 +1,41 @@
 package fr.formation.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.formation.dto.DemandeReservation;
+import fr.formation.dto.ListeReservations;
+import fr.formation.dto.PageReservations;
+import fr.formation.dto.ResultatReservation;
+import fr.formation.exception.CurseurInvalideException;
 import fr.formation.exception.ReservationNotFoundException;
 import fr.formation.model.Reservation;
 import fr.formation.service.ReservationService;
+import fr.formation.service.TacheRappel;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/reservations")
 public class ReservationController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final String INCLURE_ADHERENTS = "adherents";
+    private static final String INCLURE_LIVRES = "livres";
+
     private final ReservationService reservationService;
+    private final ObjectMapper objectMapper;
 
-    public ReservationController(ReservationService reservationService) {
+    public ReservationController(ReservationService reservationService, ObjectMapper objectMapper) {
         this.reservationService = reservationService;
+        this.objectMapper = objectMapper;
     }
 
     // Modification de la méthode pour accepter un paramètre "dateFin"
@@ -35,6 +53,16 @@ public class ReservationController {
         return ResponseEntity.status(HttpStatus.CREATED).body(reservation);
     }
 
+    // Emprunts groupés : un résultat par demande, dans l'ordre de la requête
+    @PostMapping("/batch")
+    public ResponseEntity<List<ResultatReservation>> ajouterReservations(@RequestBody List<DemandeReservation> demandes) {
+        try {
+            return ResponseEntity.ok(reservationService.ajouterReservations(demandes));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> annulerReservation(@PathVariable Long id) {
         try {
@@ -51,6 +79,39 @@ public class ReservationController {
         return reservations.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(reservations);
     }
 
+    @GetMapping(value = "/actives", params = {"taille", "vue!=resume"})
+    public ResponseEntity<PageReservations> recupererReservationsActives(
+            @RequestParam(required = false) String apres,
+            @RequestParam int taille
+    ) {
+        return ResponseEntity.ok(reservationService.recupererReservationsActives(apres, taille));
+    }
+
+    // Vue résumée : clés et dates seulement, adhérents et livres ajoutés à part via inclure=adherents,livres
+    @GetMapping(value = "/actives", params = "vue=resume")
+    public ResponseEntity<ListeReservations> listerReservationsActives(
+            @RequestParam(required = false) String apres,
+            @RequestParam(required = false) Integer taille,
+            @RequestParam(defaultValue = "") Set<String> inclure
+    ) {
+        return ResponseEntity.ok(reservationService.listerReservationsActives(apres, taille,
+                inclure.contains(INCLURE_ADHERENTS), inclure.contains(INCLURE_LIVRES)));
+    }
+
+    // Mode flux : une réservation JSON par ligne, écrite au fil de la lecture du curseur JDBC
+    @GetMapping(value = "/actives", params = "mode=flux")
+    public ResponseEntity<StreamingResponseBody> diffuserReservationsActives() {
+        StreamingResponseBody corps = sortie -> reservationService.parcourirReservationsActives(reservation -> {
+            try {
+                sortie.write(objectMapper.writeValueAsBytes(reservation));
+                sortie.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(NDJSON).body(corps);
+    }
+
     @GetMapping("/actives/{codeAdherent}")
     public ResponseEntity<List<Reservation>> recupererReservationsActivesAdherent(@PathVariable String codeAdherent) {
         try {
@@ -61,6 +122,34 @@ public class ReservationController {
         }
     }
 
+    @GetMapping(value = "/actives/{codeAdherent}", params = {"taille", "vue!=resume"})
+    public ResponseEntity<PageReservations> recupererReservationsActivesAdherent(
+            @PathVariable String codeAdherent,
+            @RequestParam(required = false) String apres,
+            @RequestParam int taille
+    ) {
+        try {
+            return ResponseEntity.ok(reservationService.recupererReservationsActivesParAdherent(codeAdherent, apres, taille));
+        } catch (ReservationNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+    @GetMapping(value = "/actives/{codeAdherent}", params = "vue=resume")
+    public ResponseEntity<ListeReservations> listerReservationsActivesAdherent(
+            @PathVariable String codeAdherent,
+            @RequestParam(required = false) String apres,
+            @RequestParam(required = false) Integer taille,
+            @RequestParam(defaultValue = "") Set<String> inclure
+    ) {
+        try {
+            return ResponseEntity.ok(reservationService.listerReservationsActivesParAdherent(codeAdherent, apres, taille,
+                    inclure.contains(INCLURE_ADHERENTS), inclure.contains(INCLURE_LIVRES)));
+        } catch (ReservationNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
     @GetMapping("/historique/{codeAdherent}")
     public ResponseEntity<List<Reservation>> recupererHistoriqueReservationsAdherent(@PathVariable String codeAdherent) {
         try {
@@ -71,20 +160,63 @@ public class ReservationController {
         }
     }
 
+    @GetMapping(value = "/historique/{codeAdherent}", params = {"taille", "vue!=resume"})
+    public ResponseEntity<PageReservations> recupererHistoriqueReservationsAdherent(
+            @PathVariable String codeAdherent,
+            @RequestParam(required = false) String apres,
+            @RequestParam int taille
+    ) {
+        try {
+            return ResponseEntity.ok(reservationService.recupererHistoriqueReservationsAdherent(codeAdherent, apres, taille));
+        } catch (ReservationNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+    @GetMapping(value = "/historique/{codeAdherent}", params = "vue=resume")
+    public ResponseEntity<ListeReservations> listerHistoriqueReservationsAdherent(
+            @PathVariable String codeAdherent,
+            @RequestParam(required = false) String apres,
+            @RequestParam(required = false) Integer taille,
+            @RequestParam(defaultValue = "") Set<String> inclure
+    ) {
+        try {
+            return ResponseEntity.ok(reservationService.listerHistoriqueReservationsAdherent(codeAdherent, apres, taille,
+                    inclure.contains(INCLURE_ADHERENTS), inclure.contains(INCLURE_LIVRES)));
+        } catch (ReservationNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+    // L'envoi se fait en arrière-plan : on retourne tout de suite la tâche à suivre
     @PostMapping("/rappel")
-    public ResponseEntity<Void> envoyerRappelReservationsDepassees() {
-        reservationService.envoyerRappelReservationsDepassees();
-        return ResponseEntity.ok().build();
+    public ResponseEntity<TacheRappel> envoyerRappelReservationsDepassees() {
+        TacheRappel tache = reservationService.lancerRappelReservationsDepassees();
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(tache);
+    }
+
+    @GetMapping("/rappel/{idTache}")
+    public ResponseEntity<TacheRappel> suivreRappel(@PathVariable String idTache) {
+        return reservationService.suivreRappel(idTache)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    // Retourne le nombre de réservations supprimées
     @DeleteMapping("/expirees")
-    public ResponseEntity<Void> supprimerReservationsExpirees() {
-        reservationService.supprimerReservationsExpirees();
-        return ResponseEntity.noContent().build();
+    public ResponseEntity<Long> supprimerReservationsExpirees() {
+        long supprimees = reservationService.supprimerReservationsExpirees();
+        return ResponseEntity.ok(supprimees);
     }
 
     @ExceptionHandler(ReservationNotFoundException.class)
     public ResponseEntity<Void> handleReservationNotFound(ReservationNotFoundException ex) {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
     }
+
+    // Curseur "apres" mal formé
+    @ExceptionHandler(CurseurInvalideException.class)
+    public ResponseEntity<Void> handleCurseurInvalide(CurseurInvalideException ex) {
+        return ResponseEntity.badRequest().build();
+    }
 }
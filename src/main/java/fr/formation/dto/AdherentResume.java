@@ -0,0 +1,4 @@
+package fr.formation.dto;
+
+public record AdherentResume(String codeAdherent, String nom, String prenom) {
+}
@@ -0,0 +1,4 @@
+package fr.formation.dto;
+
+public record CompteAdherent(String codeAdherent, long nombre) {
+}
@@ -0,0 +1,4 @@
+package fr.formation.dto;
+
+public record CompteLivre(String isbn, long nombre) {
+}
@@ -0,0 +1,13 @@
+package fr.formation.dto;
+
+import fr.formation.model.Format;
+
+import java.util.Set;
+
+/**
+ * Critères de la recherche multicritère du catalogue. Un critère null (ou un ensemble vide
+ * de formats) n'est pas appliqué. Pour les textes, chaque mot doit commencer un mot du champ,
+ * sans tenir compte des accents ni de la casse ; les formats sont combinés par "ou".
+ */
+public record CriteresLivres(String titre, String auteur, String editeur, Set<Format> formats, Boolean disponible) {
+}
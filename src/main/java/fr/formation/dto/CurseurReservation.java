@@ -0,0 +1,65 @@
+package fr.formation.dto;
+
+import fr.formation.exception.CurseurInvalideException;
+import fr.formation.model.Reservation;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Curseur de pagination sur (dateFin, id), sérialisé sous la forme "2025-06-01_42".
+ */
+public record CurseurReservation(LocalDate dateFin, Long id) {
+
+    private static final String SEPARATEUR = "_";
+
+    public static CurseurReservation depuis(Reservation reservation) {
+        return new CurseurReservation(reservation.getDateFin(), reservation.getId());
+    }
+
+    public static CurseurReservation depuis(ReservationResume reservation) {
+        return new CurseurReservation(reservation.dateFin(), reservation.id());
+    }
+
+    // Curseur décodé, ou null si aucun curseur n'est fourni
+    public static CurseurReservation decoderSiPresent(String curseur) {
+        return curseur == null || curseur.isBlank() ? null : decoder(curseur);
+    }
+
+    public static CurseurReservation decoder(String curseur) {
+        int position = curseur.indexOf(SEPARATEUR);
+        if (position < 0) {
+            throw new CurseurInvalideException("Curseur invalide : " + curseur);
+        }
+        try {
+            return new CurseurReservation(
+                    LocalDate.parse(curseur.substring(0, position)),
+                    Long.parseLong(curseur.substring(position + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new CurseurInvalideException("Curseur invalide : " + curseur, e);
+        }
+    }
+
+    // Position de départ pour la requête : début de la liste si aucun curseur n'est fourni
+    public static ScrollPosition positionApres(String curseur) {
+        if (curseur == null || curseur.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        return decoder(curseur).enPosition();
+    }
+
+    public KeysetScrollPosition enPosition() {
+        Map<String, Object> cles = new LinkedHashMap<>();
+        cles.put("dateFin", dateFin);
+        cles.put("id", id);
+        return ScrollPosition.forward(cles);
+    }
+
+    public String encoder() {
+        return dateFin + SEPARATEUR + id;
+    }
+}
@@ -0,0 +1,6 @@
+package fr.formation.dto;
+
+import java.time.LocalDate;
+
+public record DemandeReservation(String codeAdherent, String isbn, LocalDate dateFin) {
+}
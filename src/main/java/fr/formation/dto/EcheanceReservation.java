@@ -0,0 +1,6 @@
+package fr.formation.dto;
+
+import java.time.LocalDate;
+
+public record EcheanceReservation(Long id, LocalDate dateFin) {
+}
@@ -0,0 +1,9 @@
+package fr.formation.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Projection d'une réservation en retard avec les seules colonnes utiles aux rappels.
+ */
+public record LigneRetard(String codeAdherent, String prenom, String adresseMail, String titre, LocalDate dateFin) {
+}
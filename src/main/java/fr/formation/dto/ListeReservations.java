@@ -0,0 +1,18 @@
+package fr.formation.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Liste de réservations résumées. Les adhérents et les livres cités ne sont décrits
+ * qu'une fois, dans des dictionnaires indexés par code et par ISBN, et seulement s'ils
+ * ont été demandés ; les champs absents ne sont pas sérialisés.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ListeReservations(List<ReservationResume> reservations,
+                                Map<String, AdherentResume> adherents,
+                                Map<String, LivreResume> livres,
+                                String curseurSuivant) {
+}
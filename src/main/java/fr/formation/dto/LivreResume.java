@@ -0,0 +1,4 @@
+package fr.formation.dto;
+
+public record LivreResume(String isbn, String titre, String auteur) {
+}
@@ -0,0 +1,16 @@
+package fr.formation.dto;
+
+import fr.formation.model.Format;
+import fr.formation.model.Livre;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Page de résultats d'une recherche multicritère. {@code parFormat} et {@code disponibles}
+ * comptent les livres trouvés en ignorant respectivement le critère de format et celui de
+ * disponibilité, pour afficher les facettes.
+ */
+public record PageLivres(List<Livre> livres, int total, int page, int taille,
+                         Map<Format, Integer> parFormat, int disponibles) {
+}
@@ -0,0 +1,12 @@
+package fr.formation.dto;
+
+import fr.formation.model.Reservation;
+
+import java.util.List;
+
+/**
+ * Page de réservations triée par (dateFin, id). {@code curseurSuivant} est null
+ * quand il n'y a plus de résultats.
+ */
+public record PageReservations(List<Reservation> reservations, String curseurSuivant) {
+}
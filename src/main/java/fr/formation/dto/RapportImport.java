@@ -0,0 +1,13 @@
+package fr.formation.dto;
+
+import java.util.List;
+
+/**
+ * Bilan d'un import de livres. Seuls les premiers rejets sont détaillés,
+ * {@code nombreRejets} donne le total.
+ */
+public record RapportImport(long lignesLues, long livresImportes, long nombreRejets, List<RejetImport> rejets) {
+
+    public record RejetImport(long ligne, String isbn, String motif) {
+    }
+}
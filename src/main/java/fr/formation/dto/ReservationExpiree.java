@@ -0,0 +1,6 @@
+package fr.formation.dto;
+
+import java.time.LocalDate;
+
+public record ReservationExpiree(Long id, String codeAdherent, String isbn, LocalDate dateDebut, LocalDate dateFin) {
+}
@@ -0,0 +1,9 @@
+package fr.formation.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Réservation réduite aux clés de l'adhérent et du livre, lue sans jointure.
+ */
+public record ReservationResume(Long id, String codeAdherent, String isbn, LocalDate dateDebut, LocalDate dateFin) {
+}
@@ -0,0 +1,19 @@
+package fr.formation.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Issue d'une demande d'un lot, à la même position ({@code index}) que dans la requête :
+ * l'identifiant de la réservation créée, ou le motif du refus.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ResultatReservation(int index, String codeAdherent, String isbn, boolean accepte, Long idReservation, String motif) {
+
+    public static ResultatReservation acceptee(int index, DemandeReservation demande, Long idReservation) {
+        return new ResultatReservation(index, demande.codeAdherent(), demande.isbn(), true, idReservation, null);
+    }
+
+    public static ResultatReservation refusee(int index, DemandeReservation demande, String motif) {
+        return new ResultatReservation(index, demande.codeAdherent(), demande.isbn(), false, null, motif);
+    }
+}
@@ -0,0 +1,7 @@
+package fr.formation.dto;
+
+/**
+ * Entité accompagnée de l'ETag de la version lue.
+ */
+public record Versionne<T>(T valeur, String etag) {
+}
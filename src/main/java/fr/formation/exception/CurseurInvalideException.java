@@ -0,0 +1,11 @@
+package fr.formation.exception;
+
+public class CurseurInvalideException extends RuntimeException {
+    public CurseurInvalideException(String message) {
+        super(message);
+    }
+
+    public CurseurInvalideException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,7 @@
+package fr.formation.exception;
+
+public class IndexIndisponibleException extends RuntimeException {
+    public IndexIndisponibleException(String message) {
+        super(message);
+    }
+}
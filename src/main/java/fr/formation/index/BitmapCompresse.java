@@ -0,0 +1,520 @@
+package fr.formation.index;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Ensemble d'entiers positifs compressé à la manière des bitmaps "roaring" : les valeurs
+ * sont rangées par blocs de 65 536 selon leurs 16 bits de poids fort, chaque bloc étant
+ * un tableau trié de 16 bits tant qu'il a au plus {@value #TABLEAU_MAX} valeurs, puis un
+ * bitmap de 8 Ko. Les listes creuses restent petites et les intersections et unions se font
+ * bloc par bloc. Non synchronisé : les opérations ensemblistes retournent un nouveau bitmap.
+ */
+public final class BitmapCompresse {
+
+    static final int TABLEAU_MAX = 4096;
+    private static final int MOTS = 1024;
+
+    private char[] cles = new char[0];
+    private Bloc[] blocs = new Bloc[0];
+    private int nombreBlocs;
+
+    // Un bloc contient les 16 bits de poids faible des valeurs de même poids fort
+    private abstract static class Bloc {
+        abstract int cardinalite();
+
+        abstract boolean contient(char valeur);
+
+        abstract Bloc ajouter(char valeur);
+
+        abstract Bloc retirer(char valeur);
+
+        abstract Bloc et(Bloc autre);
+
+        abstract Bloc ou(Bloc autre);
+
+        abstract Bloc sauf(Bloc autre);
+
+        // Union qui peut modifier ce bloc plutôt que d'en créer un nouveau
+        abstract Bloc ajouterTout(Bloc autre);
+
+        abstract Bloc copie();
+
+        // Fournit au plus {@code nombre} valeurs à partir du rang {@code saut} et retourne combien ont été fournies
+        abstract int parcourir(int saut, int nombre, int base, IntConsumer consommateur);
+    }
+
+    private static final class Tableau extends Bloc {
+        private char[] valeurs;
+        private int taille;
+
+        private Tableau(char[] valeurs, int taille) {
+            this.valeurs = valeurs;
+            this.taille = taille;
+        }
+
+        @Override
+        int cardinalite() {
+            return taille;
+        }
+
+        @Override
+        boolean contient(char valeur) {
+            return Arrays.binarySearch(valeurs, 0, taille, valeur) >= 0;
+        }
+
+        @Override
+        Bloc ajouter(char valeur) {
+            int position = Arrays.binarySearch(valeurs, 0, taille, valeur);
+            if (position >= 0) {
+                return this;
+            }
+            if (taille == TABLEAU_MAX) {
+                return enBits().ajouter(valeur);
+            }
+            int insertion = -position - 1;
+            if (taille == valeurs.length) {
+                valeurs = Arrays.copyOf(valeurs, Math.min(TABLEAU_MAX, Math.max(4, taille * 2)));
+            }
+            System.arraycopy(valeurs, insertion, valeurs, insertion + 1, taille - insertion);
+            valeurs[insertion] = valeur;
+            taille++;
+            return this;
+        }
+
+        @Override
+        Bloc retirer(char valeur) {
+            int position = Arrays.binarySearch(valeurs, 0, taille, valeur);
+            if (position >= 0) {
+                System.arraycopy(valeurs, position + 1, valeurs, position, taille - position - 1);
+                taille--;
+            }
+            return this;
+        }
+
+        @Override
+        Bloc et(Bloc autre) {
+            char[] resultat = new char[Math.min(taille, autre.cardinalite())];
+            int n = 0;
+            if (autre instanceof Tableau tableau) {
+                int i = 0;
+                int j = 0;
+                while (i < taille && j < tableau.taille) {
+                    char a = valeurs[i];
+                    char b = tableau.valeurs[j];
+                    if (a == b) {
+                        resultat[n++] = a;
+                        i++;
+                        j++;
+                    } else if (a < b) {
+                        i++;
+                    } else {
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < taille; i++) {
+                    if (autre.contient(valeurs[i])) {
+                        resultat[n++] = valeurs[i];
+                    }
+                }
+            }
+            return new Tableau(resultat, n);
+        }
+
+        @Override
+        Bloc ou(Bloc autre) {
+            if (autre instanceof Bits) {
+                return autre.ou(this);
+            }
+            Tableau tableau = (Tableau) autre;
+            char[] resultat = new char[taille + tableau.taille];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < taille || j < tableau.taille) {
+                if (j == tableau.taille || (i < taille && valeurs[i] < tableau.valeurs[j])) {
+                    resultat[n++] = valeurs[i++];
+                } else if (i == taille || tableau.valeurs[j] < valeurs[i]) {
+                    resultat[n++] = tableau.valeurs[j++];
+                } else {
+                    resultat[n++] = valeurs[i++];
+                    j++;
+                }
+            }
+            Tableau union = new Tableau(resultat, n);
+            return n > TABLEAU_MAX ? union.enBits() : union;
+        }
+
+        @Override
+        Bloc sauf(Bloc autre) {
+            char[] resultat = new char[taille];
+            int n = 0;
+            for (int i = 0; i < taille; i++) {
+                if (!autre.contient(valeurs[i])) {
+                    resultat[n++] = valeurs[i];
+                }
+            }
+            return new Tableau(resultat, n);
+        }
+
+        @Override
+        Bloc ajouterTout(Bloc autre) {
+            return ou(autre);
+        }
+
+        @Override
+        Bloc copie() {
+            return new Tableau(Arrays.copyOf(valeurs, taille), taille);
+        }
+
+        @Override
+        int parcourir(int saut, int nombre, int base, IntConsumer consommateur) {
+            int fin = Math.min(taille, saut + nombre);
+            for (int i = saut; i < fin; i++) {
+                consommateur.accept(base | valeurs[i]);
+            }
+            return Math.max(0, fin - saut);
+        }
+
+        private Bits enBits() {
+            long[] mots = new long[MOTS];
+            for (int i = 0; i < taille; i++) {
+                mots[valeurs[i] >>> 6] |= 1L << valeurs[i];
+            }
+            return new Bits(mots, taille);
+        }
+    }
+
+    private static final class Bits extends Bloc {
+        private final long[] mots;
+        private int cardinalite;
+
+        private Bits(long[] mots, int cardinalite) {
+            this.mots = mots;
+            this.cardinalite = cardinalite;
+        }
+
+        private static Bloc compacter(long[] mots) {
+            int cardinalite = 0;
+            for (long mot : mots) {
+                cardinalite += Long.bitCount(mot);
+            }
+            if (cardinalite > TABLEAU_MAX) {
+                return new Bits(mots, cardinalite);
+            }
+            char[] valeurs = new char[cardinalite];
+            int n = 0;
+            for (int i = 0; i < MOTS; i++) {
+                for (long mot = mots[i]; mot != 0; mot &= mot - 1) {
+                    valeurs[n++] = (char) ((i << 6) | Long.numberOfTrailingZeros(mot));
+                }
+            }
+            return new Tableau(valeurs, n);
+        }
+
+        @Override
+        int cardinalite() {
+            return cardinalite;
+        }
+
+        @Override
+        boolean contient(char valeur) {
+            return (mots[valeur >>> 6] & (1L << valeur)) != 0;
+        }
+
+        @Override
+        Bloc ajouter(char valeur) {
+            if (!contient(valeur)) {
+                mots[valeur >>> 6] |= 1L << valeur;
+                cardinalite++;
+            }
+            return this;
+        }
+
+        @Override
+        Bloc retirer(char valeur) {
+            if (contient(valeur)) {
+                mots[valeur >>> 6] &= ~(1L << valeur);
+                cardinalite--;
+            }
+            return cardinalite > TABLEAU_MAX ? this : compacter(mots);
+        }
+
+        @Override
+        Bloc et(Bloc autre) {
+            if (autre instanceof Tableau) {
+                return autre.et(this);
+            }
+            long[] resultat = new long[MOTS];
+            long[] autres = ((Bits) autre).mots;
+            for (int i = 0; i < MOTS; i++) {
+                resultat[i] = mots[i] & autres[i];
+            }
+            return compacter(resultat);
+        }
+
+        @Override
+        Bloc ou(Bloc autre) {
+            long[] resultat = mots.clone();
+            if (autre instanceof Tableau tableau) {
+                for (int i = 0; i < tableau.taille; i++) {
+                    resultat[tableau.valeurs[i] >>> 6] |= 1L << tableau.valeurs[i];
+                }
+            } else {
+                long[] autres = ((Bits) autre).mots;
+                for (int i = 0; i < MOTS; i++) {
+                    resultat[i] |= autres[i];
+                }
+            }
+            return compacter(resultat);
+        }
+
+        @Override
+        Bloc sauf(Bloc autre) {
+            long[] resultat = mots.clone();
+            if (autre instanceof Tableau tableau) {
+                for (int i = 0; i < tableau.taille; i++) {
+                    resultat[tableau.valeurs[i] >>> 6] &= ~(1L << tableau.valeurs[i]);
+                }
+            } else {
+                long[] autres = ((Bits) autre).mots;
+                for (int i = 0; i < MOTS; i++) {
+                    resultat[i] &= ~autres[i];
+                }
+            }
+            return compacter(resultat);
+        }
+
+        @Override
+        Bloc ajouterTout(Bloc autre) {
+            if (autre instanceof Tableau tableau) {
+                for (int i = 0; i < tableau.taille; i++) {
+                    ajouter(tableau.valeurs[i]);
+                }
+                return this;
+            }
+            long[] autres = ((Bits) autre).mots;
+            cardinalite = 0;
+            for (int i = 0; i < MOTS; i++) {
+                mots[i] |= autres[i];
+                cardinalite += Long.bitCount(mots[i]);
+            }
+            return this;
+        }
+
+        @Override
+        Bloc copie() {
+            return new Bits(mots.clone(), cardinalite);
+        }
+
+        @Override
+        int parcourir(int saut, int nombre, int base, IntConsumer consommateur) {
+            int rang = 0;
+            int fournis = 0;
+            for (int i = 0; i < MOTS && fournis < nombre; i++) {
+                long mot = mots[i];
+                int bits = Long.bitCount(mot);
+                if (rang + bits <= saut) {
+                    rang += bits;
+                    continue;
+                }
+                for (; mot != 0 && fournis < nombre; mot &= mot - 1) {
+                    if (rang++ >= saut) {
+                        consommateur.accept(base | (i << 6) | Long.numberOfTrailingZeros(mot));
+                        fournis++;
+                    }
+                }
+            }
+            return fournis;
+        }
+    }
+
+    public static BitmapCompresse de(int... valeurs) {
+        BitmapCompresse bitmap = new BitmapCompresse();
+        for (int valeur : valeurs) {
+            bitmap.ajouter(valeur);
+        }
+        return bitmap;
+    }
+
+    public void ajouter(int valeur) {
+        verifier(valeur);
+        char cle = (char) (valeur >>> 16);
+        int position = position(cle);
+        if (position >= 0) {
+            blocs[position] = blocs[position].ajouter((char) valeur);
+            return;
+        }
+        Tableau bloc = new Tableau(new char[4], 0);
+        bloc.ajouter((char) valeur);
+        inserer(-position - 1, cle, bloc);
+    }
+
+    public void retirer(int valeur) {
+        verifier(valeur);
+        int position = position((char) (valeur >>> 16));
+        if (position < 0) {
+            return;
+        }
+        Bloc bloc = blocs[position].retirer((char) valeur);
+        if (bloc.cardinalite() == 0) {
+            System.arraycopy(cles, position + 1, cles, position, nombreBlocs - position - 1);
+            System.arraycopy(blocs, position + 1, blocs, position, nombreBlocs - position - 1);
+            blocs[--nombreBlocs] = null;
+        } else {
+            blocs[position] = bloc;
+        }
+    }
+
+    public boolean contient(int valeur) {
+        if (valeur < 0) {
+            return false;
+        }
+        int position = position((char) (valeur >>> 16));
+        return position >= 0 && blocs[position].contient((char) valeur);
+    }
+
+    public int cardinalite() {
+        int cardinalite = 0;
+        for (int i = 0; i < nombreBlocs; i++) {
+            cardinalite += blocs[i].cardinalite();
+        }
+        return cardinalite;
+    }
+
+    public boolean estVide() {
+        return nombreBlocs == 0;
+    }
+
+    public void vider() {
+        cles = new char[0];
+        blocs = new Bloc[0];
+        nombreBlocs = 0;
+    }
+
+    public BitmapCompresse et(BitmapCompresse autre) {
+        BitmapCompresse resultat = new BitmapCompresse();
+        int i = 0;
+        int j = 0;
+        while (i < nombreBlocs && j < autre.nombreBlocs) {
+            if (cles[i] == autre.cles[j]) {
+                resultat.ajouterBloc(cles[i], blocs[i].et(autre.blocs[j]));
+                i++;
+                j++;
+            } else if (cles[i] < autre.cles[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return resultat;
+    }
+
+    public BitmapCompresse ou(BitmapCompresse autre) {
+        BitmapCompresse resultat = new BitmapCompresse();
+        int i = 0;
+        int j = 0;
+        while (i < nombreBlocs || j < autre.nombreBlocs) {
+            if (j == autre.nombreBlocs || (i < nombreBlocs && cles[i] < autre.cles[j])) {
+                resultat.ajouterBloc(cles[i], blocs[i].copie());
+                i++;
+            } else if (i == nombreBlocs || autre.cles[j] < cles[i]) {
+                resultat.ajouterBloc(autre.cles[j], autre.blocs[j].copie());
+                j++;
+            } else {
+                resultat.ajouterBloc(cles[i], blocs[i].ou(autre.blocs[j]));
+                i++;
+                j++;
+            }
+        }
+        return resultat;
+    }
+
+    public BitmapCompresse sauf(BitmapCompresse autre) {
+        BitmapCompresse resultat = new BitmapCompresse();
+        int j = 0;
+        for (int i = 0; i < nombreBlocs; i++) {
+            while (j < autre.nombreBlocs && autre.cles[j] < cles[i]) {
+                j++;
+            }
+            boolean commun = j < autre.nombreBlocs && autre.cles[j] == cles[i];
+            resultat.ajouterBloc(cles[i], commun ? blocs[i].sauf(autre.blocs[j]) : blocs[i].copie());
+        }
+        return resultat;
+    }
+
+    /**
+     * Ajoute en place toutes les valeurs de {@code autre}, qui n'est pas modifié : plus économe
+     * que {@link #ou(BitmapCompresse)} pour accumuler de nombreuses listes.
+     */
+    public void ajouterTout(BitmapCompresse autre) {
+        for (int j = 0; j < autre.nombreBlocs; j++) {
+            int position = position(autre.cles[j]);
+            if (position < 0) {
+                inserer(-position - 1, autre.cles[j], autre.blocs[j].copie());
+            } else {
+                blocs[position] = blocs[position].ajouterTout(autre.blocs[j]);
+            }
+        }
+    }
+
+    public BitmapCompresse copie() {
+        BitmapCompresse resultat = new BitmapCompresse();
+        for (int i = 0; i < nombreBlocs; i++) {
+            resultat.ajouterBloc(cles[i], blocs[i].copie());
+        }
+        return resultat;
+    }
+
+    /**
+     * Fournit au plus {@code nombre} valeurs, dans l'ordre croissant, en sautant les
+     * {@code saut} premières. Les blocs entiers sautés ne sont pas parcourus.
+     */
+    public void parcourir(int saut, int nombre, IntConsumer consommateur) {
+        int restantASauter = Math.max(0, saut);
+        int restant = nombre;
+        for (int i = 0; i < nombreBlocs && restant > 0; i++) {
+            int cardinalite = blocs[i].cardinalite();
+            if (restantASauter >= cardinalite) {
+                restantASauter -= cardinalite;
+                continue;
+            }
+            restant -= blocs[i].parcourir(restantASauter, restant, cles[i] << 16, consommateur);
+            restantASauter = 0;
+        }
+    }
+
+    public void parcourir(IntConsumer consommateur) {
+        parcourir(0, Integer.MAX_VALUE, consommateur);
+    }
+
+    private int position(char cle) {
+        return Arrays.binarySearch(cles, 0, nombreBlocs, cle);
+    }
+
+    private void ajouterBloc(char cle, Bloc bloc) {
+        if (bloc.cardinalite() > 0) {
+            inserer(nombreBlocs, cle, bloc);
+        }
+    }
+
+    private void inserer(int position, char cle, Bloc bloc) {
+        if (nombreBlocs == cles.length) {
+            int capacite = Math.max(4, nombreBlocs * 2);
+            cles = Arrays.copyOf(cles, capacite);
+            blocs = Arrays.copyOf(blocs, capacite);
+        }
+        System.arraycopy(cles, position, cles, position + 1, nombreBlocs - position);
+        System.arraycopy(blocs, position, blocs, position + 1, nombreBlocs - position);
+        cles[position] = cle;
+        blocs[position] = bloc;
+        nombreBlocs++;
+    }
+
+    private static void verifier(int valeur) {
+        if (valeur < 0) {
+            throw new IllegalArgumentException("Valeur négative : " + valeur);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package fr.formation.index;
+
+import fr.formation.dto.CompteAdherent;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Nombre de réservations en cours par adhérent, tenu en mémoire pour vérifier le quota
+ * sans requête. Reconstruit au démarrage, puis mis à jour par la création, l'annulation
+ * et la purge des réservations.
+ */
+@Component
+public class CompteursEmprunts {
+
+    private final Map<String, AtomicInteger> compteurs = new ConcurrentHashMap<>();
+    private volatile boolean pret;
+
+    public synchronized void reconstruire(Iterable<CompteAdherent> comptes) {
+        pret = false;
+        compteurs.clear();
+        for (CompteAdherent compte : comptes) {
+            compteurs.put(compte.codeAdherent(), new AtomicInteger((int) compte.nombre()));
+        }
+        pret = true;
+    }
+
+    public boolean estPret() {
+        return pret;
+    }
+
+    public int nombre(String codeAdherent) {
+        AtomicInteger compteur = compteurs.get(codeAdherent);
+        return compteur == null ? 0 : compteur.get();
+    }
+
+    /**
+     * Incrémente le compteur de l'adhérent s'il est sous le {@code maximum}.
+     * Retourne false, sans rien modifier, si le quota est atteint.
+     */
+    public boolean reserverPlace(String codeAdherent, int maximum) {
+        AtomicInteger compteur = compteurs.computeIfAbsent(codeAdherent, code -> new AtomicInteger());
+        while (true) {
+            int actuel = compteur.get();
+            if (actuel >= maximum) {
+                return false;
+            }
+            if (compteur.compareAndSet(actuel, actuel + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void liberer(String codeAdherent) {
+        liberer(codeAdherent, 1);
+    }
+
+    public void liberer(String codeAdherent, int nombre) {
+        AtomicInteger compteur = compteurs.get(codeAdherent);
+        if (compteur != null) {
+            compteur.updateAndGet(actuel -> Math.max(0, actuel - nombre));
+        }
+    }
+}
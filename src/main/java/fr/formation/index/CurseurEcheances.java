@@ -0,0 +1,57 @@
+package fr.formation.index;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+
+/**
+ * Premier jour d'échéance pas encore basculé, conservé dans {@code reservations.echeances.fichier}
+ * pour que la roue reprenne, après un arrêt, au jour où la dernière bascule s'est arrêtée.
+ * Sans fichier configuré, la roue repart du jour du démarrage.
+ */
+@Component
+public class CurseurEcheances {
+
+    private final Path fichier;
+
+    public CurseurEcheances(@Value("${reservations.echeances.fichier:}") String fichier) {
+        this.fichier = fichier == null || fichier.isBlank() ? null : Path.of(fichier);
+    }
+
+    public Optional<LocalDate> lire() {
+        if (fichier == null || !Files.isRegularFile(fichier)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(LocalDate.parse(Files.readString(fichier).strip()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lecture du curseur d'échéances impossible : " + fichier, e);
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+
+    public synchronized void enregistrer(LocalDate prochainJour) {
+        if (fichier == null) {
+            return;
+        }
+        Path temporaire = fichier.resolveSibling(fichier.getFileName() + ".tmp");
+        try {
+            if (fichier.getParent() != null) {
+                Files.createDirectories(fichier.getParent());
+            }
+            Files.writeString(temporaire, prochainJour.toString());
+            Files.move(temporaire, fichier, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Écriture du curseur d'échéances impossible : " + fichier, e);
+        }
+    }
+}
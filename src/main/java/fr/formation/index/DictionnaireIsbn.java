@@ -0,0 +1,184 @@
+package fr.formation.index;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Attribue à chaque ISBN un identifiant entier dense (0, 1, 2...) utilisable comme
+ * position dans un bitmap. Les ISBN numériques (ISBN-10 avec éventuel 'X' final, ISBN-13)
+ * sont codés sur un long et rangés dans une table à adressage ouvert, sans objet par entrée.
+ * Les identifiants ne sont jamais réattribués.
+ */
+public class DictionnaireIsbn {
+
+    public static final int ABSENT = -1;
+
+    private static final long CASE_VIDE = 0L;
+    private static final int LONGUEUR_MAX = 17;
+
+    private long[] cles = new long[1024];
+    private int[] valeurs = new int[1024];
+    private int occupation;
+
+    // Repli pour les identifiants non numériques
+    private final Map<String, Integer> autres = new HashMap<>();
+    private final Map<Integer, String> autresInverse = new HashMap<>();
+
+    private long[] codesParIdentifiant = new long[1024];
+    private int taille;
+
+    private final ReadWriteLock verrou = new ReentrantReadWriteLock();
+
+    /**
+     * Retourne l'identifiant de l'ISBN, en lui en attribuant un s'il n'en a pas encore.
+     */
+    public int identifiant(String isbn) {
+        int existant = chercher(isbn);
+        if (existant != ABSENT) {
+            return existant;
+        }
+        verrou.writeLock().lock();
+        try {
+            long code = encoder(isbn);
+            int identifiant = code == CASE_VIDE ? autres.getOrDefault(isbn, ABSENT) : lire(code);
+            if (identifiant != ABSENT) {
+                return identifiant;
+            }
+            identifiant = taille++;
+            if (identifiant == codesParIdentifiant.length) {
+                codesParIdentifiant = Arrays.copyOf(codesParIdentifiant, identifiant * 2);
+            }
+            codesParIdentifiant[identifiant] = code;
+            if (code == CASE_VIDE) {
+                autres.put(isbn, identifiant);
+                autresInverse.put(identifiant, isbn);
+            } else {
+                inserer(code, identifiant);
+            }
+            return identifiant;
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retourne l'identifiant de l'ISBN, ou {@link #ABSENT} s'il n'est pas connu.
+     */
+    public int chercher(String isbn) {
+        long code = encoder(isbn);
+        verrou.readLock().lock();
+        try {
+            return code == CASE_VIDE ? autres.getOrDefault(isbn, ABSENT) : lire(code);
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    public String isbn(int identifiant) {
+        verrou.readLock().lock();
+        try {
+            if (identifiant < 0 || identifiant >= taille) {
+                throw new IndexOutOfBoundsException(identifiant);
+            }
+            long code = codesParIdentifiant[identifiant];
+            return code == CASE_VIDE ? autresInverse.get(identifiant) : decoder(code);
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    public int taille() {
+        verrou.readLock().lock();
+        try {
+            return taille;
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    private int lire(long code) {
+        int masque = cles.length - 1;
+        for (int i = hacher(code) & masque; cles[i] != CASE_VIDE; i = (i + 1) & masque) {
+            if (cles[i] == code) {
+                return valeurs[i];
+            }
+        }
+        return ABSENT;
+    }
+
+    private void inserer(long code, int identifiant) {
+        // On garde un taux de remplissage inférieur à 1/2 pour des sondages courts
+        if ((occupation + 1) * 2 > cles.length) {
+            agrandir();
+        }
+        int masque = cles.length - 1;
+        int i = hacher(code) & masque;
+        while (cles[i] != CASE_VIDE) {
+            i = (i + 1) & masque;
+        }
+        cles[i] = code;
+        valeurs[i] = identifiant;
+        occupation++;
+    }
+
+    private void agrandir() {
+        long[] anciennesCles = cles;
+        int[] anciennesValeurs = valeurs;
+        cles = new long[anciennesCles.length * 2];
+        valeurs = new int[anciennesCles.length * 2];
+        occupation = 0;
+        for (int i = 0; i < anciennesCles.length; i++) {
+            if (anciennesCles[i] != CASE_VIDE) {
+                inserer(anciennesCles[i], anciennesValeurs[i]);
+            }
+        }
+    }
+
+    private static int hacher(long code) {
+        long h = code * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Code un ISBN numérique sur un long non nul : chiffres, longueur (pour conserver
+     * les zéros de tête) et présence d'un 'X' final. Retourne 0 si l'ISBN n'est pas codable.
+     */
+    static long encoder(String isbn) {
+        int longueur = isbn.length();
+        if (longueur == 0 || longueur > LONGUEUR_MAX) {
+            return CASE_VIDE;
+        }
+        boolean x = longueur > 1 && isbn.charAt(longueur - 1) == 'X';
+        int chiffres = x ? longueur - 1 : longueur;
+        long numero = 0;
+        for (int i = 0; i < chiffres; i++) {
+            char c = isbn.charAt(i);
+            if (c < '0' || c > '9') {
+                return CASE_VIDE;
+            }
+            numero = numero * 10 + (c - '0');
+        }
+        return ((numero * (LONGUEUR_MAX + 1) + longueur) << 1) | (x ? 1 : 0);
+    }
+
+    static String decoder(long code) {
+        boolean x = (code & 1) == 1;
+        long reste = code >>> 1;
+        int longueur = (int) (reste % (LONGUEUR_MAX + 1));
+        String numero = Long.toString(reste / (LONGUEUR_MAX + 1));
+        int chiffres = x ? longueur - 1 : longueur;
+
+        StringBuilder isbn = new StringBuilder(longueur);
+        for (int i = numero.length(); i < chiffres; i++) {
+            isbn.append('0');
+        }
+        isbn.append(numero);
+        if (x) {
+            isbn.append('X');
+        }
+        return isbn.toString();
+    }
+}
@@ -0,0 +1,240 @@
+package fr.formation.index;
+
+import fr.formation.model.Livre;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Disponibilité des livres sous forme de bitmap, indexé par l'identifiant dense de
+ * {@link DictionnaireIsbn} : un bit "connu" et un bit "disponible" par livre.
+ * Doit être tenu à jour sur chaque écriture du champ {@code disponible}.
+ * Le dictionnaire est partagé avec {@link RechercheCatalogue}, qui croise ses listes avec ce bitmap.
+ * Toutes les écritures de livres passant par ce bitmap, il note aussi leurs ISBN pendant une
+ * reconstruction des index ({@link #suivreEcritures()}).
+ */
+@Component
+public class DisponibiliteLivres {
+
+    private final DictionnaireIsbn dictionnaire = new DictionnaireIsbn();
+    private final BitmapCompresse connus = new BitmapCompresse();
+    private final BitmapCompresse disponibles = new BitmapCompresse();
+    private final ReadWriteLock verrou = new ReentrantReadWriteLock();
+    private volatile boolean pret;
+    // ISBN écrits depuis suivreEcritures, null hors suivi
+    private Set<String> ecrits;
+
+    public void reconstruire(Iterable<Livre> catalogue) {
+        verrou.writeLock().lock();
+        try {
+            connus.vider();
+            disponibles.vider();
+            for (Livre livre : catalogue) {
+                int identifiant = dictionnaire.identifiant(livre.getIsbn());
+                connus.ajouter(identifiant);
+                if (livre.isDisponible()) {
+                    disponibles.ajouter(identifiant);
+                }
+            }
+            pret = true;
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    // Faux tant que le bitmap n'a pas été construit depuis la base
+    public boolean estPret() {
+        return pret;
+    }
+
+    public void enregistrer(Livre livre) {
+        enregistrer(livre.getIsbn(), livre.isDisponible());
+    }
+
+    public void enregistrer(String isbn, boolean disponible) {
+        noter(isbn);
+        placer(isbn, disponible);
+    }
+
+    private void placer(String isbn, boolean disponible) {
+        int identifiant = dictionnaire.identifiant(isbn);
+        verrou.writeLock().lock();
+        try {
+            connus.ajouter(identifiant);
+            if (disponible) {
+                disponibles.ajouter(identifiant);
+            } else {
+                disponibles.retirer(identifiant);
+            }
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    public void retirer(String isbn) {
+        noter(isbn);
+        effacer(isbn);
+    }
+
+    private void effacer(String isbn) {
+        int identifiant = dictionnaire.chercher(isbn);
+        if (identifiant == DictionnaireIsbn.ABSENT) {
+            return;
+        }
+        verrou.writeLock().lock();
+        try {
+            connus.retirer(identifiant);
+            disponibles.retirer(identifiant);
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Note les ISBN écrits à partir de maintenant : une reconstruction depuis une lecture de la base
+     * peut effacer une écriture validée entre-temps, et doit relire ensuite les livres relevés.
+     */
+    public synchronized void suivreEcritures() {
+        ecrits = new HashSet<>();
+    }
+
+    // ISBN écrits depuis le relevé précédent ; un relevé vide met fin au suivi
+    public synchronized Set<String> releverEcritures() {
+        if (ecrits == null || ecrits.isEmpty()) {
+            ecrits = null;
+            return Set.of();
+        }
+        Set<String> releve = ecrits;
+        ecrits = new HashSet<>();
+        return releve;
+    }
+
+    public synchronized void arreterSuivi() {
+        ecrits = null;
+    }
+
+    private synchronized void noter(String isbn) {
+        if (ecrits != null) {
+            ecrits.add(isbn);
+        }
+    }
+
+    // Livres relus en base après un relevé : mis à jour sans être notés, les absents sont oubliés
+    public void rafraichir(Collection<Livre> relus, Collection<String> absents) {
+        for (Livre livre : relus) {
+            placer(livre.getIsbn(), livre.isDisponible());
+        }
+        absents.forEach(this::effacer);
+    }
+
+    /**
+     * Indique si le bitmap connaît ce livre. Sinon, la disponibilité doit être lue sur l'entité.
+     */
+    public boolean estConnu(String isbn) {
+        int identifiant = dictionnaire.chercher(isbn);
+        if (identifiant == DictionnaireIsbn.ABSENT) {
+            return false;
+        }
+        verrou.readLock().lock();
+        try {
+            return connus.contient(identifiant);
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    public boolean estDisponible(String isbn) {
+        int identifiant = dictionnaire.chercher(isbn);
+        if (identifiant == DictionnaireIsbn.ABSENT) {
+            return false;
+        }
+        verrou.readLock().lock();
+        try {
+            return disponibles.contient(identifiant);
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    public int identifiant(String isbn) {
+        return dictionnaire.identifiant(isbn);
+    }
+
+    public int chercher(String isbn) {
+        return dictionnaire.chercher(isbn);
+    }
+
+    public String isbn(int identifiant) {
+        return dictionnaire.isbn(identifiant);
+    }
+
+    // Candidats dont la disponibilité connue vaut disponible ; ceux que le bitmap ne connaît pas sont exclus
+    public BitmapCompresse selectionner(BitmapCompresse candidats, boolean disponible) {
+        verrou.readLock().lock();
+        try {
+            return disponible ? candidats.et(disponibles) : candidats.et(connus).sauf(disponibles);
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    /**
+     * Livre tel qu'un index l'a gardé, avec la disponibilité du bitmap quand il la connaît :
+     * les index ne sont pas mis à jour par les réservations. Copié seulement s'il diffère.
+     */
+    public Livre actualiser(Livre livre) {
+        int identifiant = dictionnaire.chercher(livre.getIsbn());
+        if (identifiant == DictionnaireIsbn.ABSENT) {
+            return livre;
+        }
+        boolean disponible;
+        verrou.readLock().lock();
+        try {
+            if (!connus.contient(identifiant)) {
+                return livre;
+            }
+            disponible = disponibles.contient(identifiant);
+        } finally {
+            verrou.readLock().unlock();
+        }
+        if (disponible == livre.isDisponible()) {
+            return livre;
+        }
+        return new Livre(livre.getIsbn(), livre.getTitre(), livre.getAuteur(), livre.getEditeur(), livre.getFormat(), disponible);
+    }
+
+    public List<Livre> actualiser(List<Livre> livres) {
+        List<Livre> resultat = new ArrayList<>(livres.size());
+        for (Livre livre : livres) {
+            resultat.add(actualiser(livre));
+        }
+        return resultat;
+    }
+
+    // Les livres inconnus du bitmap sont filtrés d'après leur propre champ disponible : à réserver aux livres lus en base
+    public List<Livre> filtrerDisponibles(List<Livre> livres) {
+        List<Livre> resultat = new ArrayList<>(livres.size());
+        for (Livre livre : livres) {
+            boolean disponible = estConnu(livre.getIsbn()) ? estDisponible(livre.getIsbn()) : livre.isDisponible();
+            if (disponible) {
+                resultat.add(livre);
+            }
+        }
+        return resultat;
+    }
+
+    public int nombreDisponibles() {
+        verrou.readLock().lock();
+        try {
+            return disponibles.cardinalite();
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+}
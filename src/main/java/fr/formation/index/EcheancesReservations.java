@@ -0,0 +1,134 @@
+package fr.formation.index;
+
+import fr.formation.dto.EcheanceReservation;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Roue d'échéances : les identifiants des réservations rangés par jour de fin (jour epoch).
+ * Permet de retrouver les réservations expirées, ou celles qui viennent de passer en retard,
+ * sans parcourir la table. Reconstruite au démarrage, puis tenue à jour par la création,
+ * l'annulation et la purge des réservations.
+ */
+@Component
+public class EcheancesReservations {
+
+    /**
+     * Jours basculés en retard depuis la bascule précédente : de {@code debut} inclus
+     * à {@code fin} exclue, et les réservations qui y arrivaient à échéance.
+     */
+    public record Basculement(LocalDate debut, LocalDate fin, List<Long> ids) {
+    }
+
+    private final TreeMap<Long, Set<Long>> parJour = new TreeMap<>();
+    private final ReadWriteLock verrou = new ReentrantReadWriteLock();
+    // Premier jour de fin dont les réservations ne sont pas encore signalées en retard
+    private long prochainJour;
+    private volatile boolean pret;
+
+    /**
+     * Range les réservations existantes ; celles arrivées à échéance avant {@code prochainJour}
+     * ont déjà été signalées par les bascules précédentes.
+     */
+    public void reconstruire(Iterable<EcheanceReservation> echeances, LocalDate prochainJour) {
+        verrou.writeLock().lock();
+        try {
+            parJour.clear();
+            for (EcheanceReservation echeance : echeances) {
+                parJour.computeIfAbsent(echeance.dateFin().toEpochDay(), jour -> new HashSet<>()).add(echeance.id());
+            }
+            this.prochainJour = prochainJour.toEpochDay();
+            pret = true;
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    public boolean estPret() {
+        return pret;
+    }
+
+    public void ajouter(Long id, LocalDate dateFin) {
+        verrou.writeLock().lock();
+        try {
+            parJour.computeIfAbsent(dateFin.toEpochDay(), jour -> new HashSet<>()).add(id);
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    public void retirer(Long id, LocalDate dateFin) {
+        verrou.writeLock().lock();
+        try {
+            long jour = dateFin.toEpochDay();
+            Set<Long> ids = parJour.get(jour);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                parJour.remove(jour);
+            }
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    // Réservations dont la date de fin est antérieure à date
+    public List<Long> echeancesAvant(LocalDate date) {
+        verrou.readLock().lock();
+        try {
+            return aplatir(parJour.headMap(date.toEpochDay(), false));
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    /**
+     * Réservations passées en retard depuis la bascule précédente, c'est-à-dire dont la date
+     * de fin tombe entre le premier jour non traité et la veille de {@code aujourdhui}.
+     * Le curseur n'avance qu'à l'appel de {@link #avancer} : tant qu'il n'a pas bougé,
+     * les mêmes jours sont proposés à nouveau.
+     */
+    public Basculement aBasculer(LocalDate aujourdhui) {
+        verrou.readLock().lock();
+        try {
+            long fin = aujourdhui.toEpochDay();
+            long debut = Math.min(prochainJour, fin);
+            List<Long> ids = aplatir(parJour.subMap(debut, true, fin, false));
+            return new Basculement(LocalDate.ofEpochDay(debut), LocalDate.ofEpochDay(fin), ids);
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    // Marque les jours antérieurs à fin comme basculés ; le curseur ne recule jamais
+    public void avancer(LocalDate fin) {
+        verrou.writeLock().lock();
+        try {
+            prochainJour = Math.max(prochainJour, fin.toEpochDay());
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    public int taille() {
+        verrou.readLock().lock();
+        try {
+            return parJour.values().stream().mapToInt(Set::size).sum();
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    private static List<Long> aplatir(Map<Long, Set<Long>> jours) {
+        List<Long> ids = new ArrayList<>();
+        jours.values().forEach(ids::addAll);
+        return ids;
+    }
+}
@@ -0,0 +1,145 @@
+package fr.formation.index;
+
+import fr.formation.model.Adherent;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index en mémoire des adhérents par code et par nom. Tant qu'il n'a pas été construit,
+ * {@link #estPret()} retourne false et les lectures doivent passer par le repository.
+ * Pendant une reconstruction, les codes écrits sont notés comme dans {@link DisponibiliteLivres}.
+ * Les adhérents sont copiés à l'entrée et à la sortie : un appelant qui modifie l'instance reçue
+ * ne modifie pas l'index.
+ */
+@Component
+public class IndexAdherents {
+
+    private final TrigramIndex indexNoms = new TrigramIndex();
+    private final IndexApproche nomsApproches = new IndexApproche();
+    private final Map<String, Adherent> adherents = new ConcurrentHashMap<>();
+    private volatile boolean pret;
+    // Codes écrits depuis suivreEcritures, null hors suivi ; verrou distinct de celui de reconstruire
+    private final Object suivi = new Object();
+    private Set<String> ecrits;
+
+    public synchronized void reconstruire(Collection<Adherent> annuaire) {
+        pret = false;
+        indexNoms.vider();
+        nomsApproches.vider();
+        adherents.clear();
+        for (Adherent adherent : annuaire) {
+            placer(adherent);
+        }
+        pret = true;
+    }
+
+    public void indexer(Adherent adherent) {
+        noter(adherent.getCodeAdherent());
+        placer(adherent);
+    }
+
+    private void placer(Adherent adherent) {
+        adherents.put(adherent.getCodeAdherent(), copier(adherent));
+        indexNoms.indexer(adherent.getCodeAdherent(), adherent.getNom());
+        nomsApproches.indexer(adherent.getCodeAdherent(), adherent.getNom());
+    }
+
+    public void retirer(String code) {
+        noter(code);
+        effacer(code);
+    }
+
+    private void effacer(String code) {
+        indexNoms.retirer(code);
+        nomsApproches.retirer(code);
+        adherents.remove(code);
+    }
+
+    public void suivreEcritures() {
+        synchronized (suivi) {
+            ecrits = new HashSet<>();
+        }
+    }
+
+    // Codes écrits depuis le relevé précédent ; un relevé vide met fin au suivi
+    public Set<String> releverEcritures() {
+        synchronized (suivi) {
+            if (ecrits == null || ecrits.isEmpty()) {
+                ecrits = null;
+                return Set.of();
+            }
+            Set<String> releve = ecrits;
+            ecrits = new HashSet<>();
+            return releve;
+        }
+    }
+
+    public void arreterSuivi() {
+        synchronized (suivi) {
+            ecrits = null;
+        }
+    }
+
+    private void noter(String code) {
+        synchronized (suivi) {
+            if (ecrits != null) {
+                ecrits.add(code);
+            }
+        }
+    }
+
+    // Adhérents relus en base après un relevé : indexés sans être notés, les absents sont retirés
+    public void rafraichir(Collection<Adherent> relus, Collection<String> absents) {
+        relus.forEach(this::placer);
+        absents.forEach(this::effacer);
+    }
+
+    public boolean estPret() {
+        return pret;
+    }
+
+    public Optional<Adherent> rechercherParCode(String code) {
+        return Optional.ofNullable(adherents.get(code)).map(IndexAdherents::copier);
+    }
+
+    public List<Adherent> rechercherParNom(String nom) {
+        List<String> codes = indexNoms.rechercher(nom);
+        List<Adherent> resultat = new ArrayList<>(codes.size());
+        for (String code : codes) {
+            Adherent adherent = adherents.get(code);
+            if (adherent != null) {
+                resultat.add(copier(adherent));
+            }
+        }
+        return resultat;
+    }
+
+    /**
+     * Adhérents dont le nom ressemble à {@code nom}, sans tenir compte des accents ni de la casse,
+     * aux fautes de frappe ou d'orthographe près, du plus proche au plus lointain.
+     */
+    public List<Adherent> rechercherParNomApproche(String nom, int limite) {
+        List<IndexApproche.Resultat> trouves = nomsApproches.rechercher(nom, limite);
+        List<Adherent> resultat = new ArrayList<>(trouves.size());
+        for (IndexApproche.Resultat trouve : trouves) {
+            Adherent adherent = adherents.get(trouve.cle());
+            if (adherent != null) {
+                resultat.add(copier(adherent));
+            }
+        }
+        return resultat;
+    }
+
+    private static Adherent copier(Adherent adherent) {
+        return new Adherent(adherent.getCodeAdherent(), adherent.getNom(), adherent.getPrenom(), adherent.getDateNaissance(),
+                adherent.getCivilite(), adherent.getAdresseMail());
+    }
+}
@@ -0,0 +1,236 @@
+package fr.formation.index;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index de recherche approchée sur des textes courts (noms, auteurs). Les textes sont pliés
+ * (sans accents ni casse) et découpés en mots ; chaque mot est retrouvé par sa clé phonétique
+ * ou par une distance d'édition bornée, grâce à ses variantes privées d'une lettre.
+ * Une recherche ne parcourt que les mots candidats, jamais l'ensemble des textes.
+ */
+public class IndexApproche {
+
+    // Plafond des résultats servis par les recherches approchées, avec ou sans index
+    public static final int RESULTATS_MAX = 100;
+
+    /**
+     * Clé trouvée et coût de la correspondance : somme, sur les mots de la recherche,
+     * de la distance d'édition au mot retenu (1 pour une correspondance seulement phonétique).
+     */
+    public record Resultat(String cle, int distance) {
+    }
+
+    private final Map<String, String> textes = new HashMap<>();
+    private final Map<String, Set<String>> clesParMot = new HashMap<>();
+    private final Map<String, Set<String>> motsParSon = new HashMap<>();
+    private final Map<String, Set<String>> motsParVariante = new HashMap<>();
+    private final ReadWriteLock verrou = new ReentrantReadWriteLock();
+
+    public void indexer(String cle, String texte) {
+        String plie = NormalisationTexte.plier(texte);
+        verrou.writeLock().lock();
+        try {
+            String ancien = textes.put(cle, plie);
+            if (ancien != null) {
+                retirerMots(cle, ancien);
+            }
+            for (String mot : NormalisationTexte.mots(plie)) {
+                Set<String> cles = clesParMot.computeIfAbsent(mot, m -> new HashSet<>());
+                if (cles.isEmpty()) {
+                    motsParSon.computeIfAbsent(PhonetiqueFrancaise.cle(mot), s -> new HashSet<>()).add(mot);
+                    for (String variante : variantes(mot)) {
+                        motsParVariante.computeIfAbsent(variante, v -> new HashSet<>()).add(mot);
+                    }
+                }
+                cles.add(cle);
+            }
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    public void retirer(String cle) {
+        verrou.writeLock().lock();
+        try {
+            String ancien = textes.remove(cle);
+            if (ancien != null) {
+                retirerMots(cle, ancien);
+            }
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    public void vider() {
+        verrou.writeLock().lock();
+        try {
+            textes.clear();
+            clesParMot.clear();
+            motsParSon.clear();
+            motsParVariante.clear();
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Clés dont le texte contient, pour chaque mot de {@code recherche}, un mot proche,
+     * de la plus proche à la plus lointaine, au plus {@code limite}.
+     */
+    public List<Resultat> rechercher(String recherche, int limite) {
+        List<String> motsRecherche = NormalisationTexte.mots(NormalisationTexte.plier(recherche));
+        if (motsRecherche.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+        verrou.readLock().lock();
+        try {
+            Map<String, Integer> scores = null;
+            for (String motRecherche : motsRecherche) {
+                Map<String, Integer> couts = new HashMap<>();
+                candidats(motRecherche).forEach((mot, distance) -> {
+                    for (String cle : clesParMot.get(mot)) {
+                        couts.merge(cle, distance, Math::min);
+                    }
+                });
+                if (scores == null) {
+                    scores = couts;
+                } else {
+                    Map<String, Integer> precedents = scores;
+                    scores = new HashMap<>();
+                    for (Map.Entry<String, Integer> entree : precedents.entrySet()) {
+                        Integer cout = couts.get(entree.getKey());
+                        if (cout != null) {
+                            scores.put(entree.getKey(), entree.getValue() + cout);
+                        }
+                    }
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+            Comparator<Map.Entry<String, Integer>> ordre = Map.Entry.<String, Integer>comparingByValue()
+                    .thenComparing(entree -> textes.get(entree.getKey()))
+                    .thenComparing(Map.Entry.comparingByKey());
+            return scores.entrySet().stream()
+                    .sorted(ordre)
+                    .limit(limite)
+                    .map(entree -> new Resultat(entree.getKey(), entree.getValue()))
+                    .toList();
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    public int taille() {
+        verrou.readLock().lock();
+        try {
+            return textes.size();
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    // Mots indexés proches du mot recherché, avec leur distance
+    private Map<String, Integer> candidats(String motRecherche) {
+        int distanceMax = distanceMax(motRecherche.length());
+        Map<String, Integer> candidats = new HashMap<>();
+        if (distanceMax == 0) {
+            if (clesParMot.containsKey(motRecherche)) {
+                candidats.put(motRecherche, 0);
+            }
+        } else {
+            for (String variante : variantes(motRecherche)) {
+                for (String mot : motsParVariante.getOrDefault(variante, Set.of())) {
+                    int distance = distance(motRecherche, mot, distanceMax);
+                    if (distance <= distanceMax) {
+                        candidats.merge(mot, distance, Math::min);
+                    }
+                }
+            }
+        }
+        for (String mot : motsParSon.getOrDefault(PhonetiqueFrancaise.cle(motRecherche), Set.of())) {
+            candidats.merge(mot, mot.equals(motRecherche) ? 0 : 1, Math::min);
+        }
+        return candidats;
+    }
+
+    // Les mots courts n'admettent pas de faute, sinon un mot sur deux serait candidat
+    private static int distanceMax(int longueur) {
+        return longueur <= 2 ? 0 : longueur <= 5 ? 1 : 2;
+    }
+
+    private void retirerMots(String cle, String textePlie) {
+        for (String mot : NormalisationTexte.mots(textePlie)) {
+            Set<String> cles = clesParMot.get(mot);
+            if (cles == null || !cles.remove(cle) || !cles.isEmpty()) {
+                continue;
+            }
+            clesParMot.remove(mot);
+            retirerDe(motsParSon, PhonetiqueFrancaise.cle(mot), mot);
+            for (String variante : variantes(mot)) {
+                retirerDe(motsParVariante, variante, mot);
+            }
+        }
+    }
+
+    private static void retirerDe(Map<String, Set<String>> index, String cle, String mot) {
+        Set<String> mots = index.get(cle);
+        if (mots != null && mots.remove(mot) && mots.isEmpty()) {
+            index.remove(cle);
+        }
+    }
+
+    // Le mot lui-même et ses variantes privées d'une lettre
+    private static Set<String> variantes(String mot) {
+        Set<String> variantes = new HashSet<>();
+        variantes.add(mot);
+        for (int i = 0; i < mot.length(); i++) {
+            variantes.add(mot.substring(0, i) + mot.substring(i + 1));
+        }
+        return variantes;
+    }
+
+    /**
+     * Distance de Damerau-Levenshtein restreinte (transposition de lettres voisines comprise),
+     * abandonnée dès qu'elle dépasse {@code max} : retourne alors max + 1.
+     */
+    static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] avantPrecedente = new int[b.length() + 1];
+        int[] precedente = new int[b.length() + 1];
+        int[] courante = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            precedente[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            courante[0] = i;
+            int minimumLigne = courante[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cout = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int valeur = Math.min(Math.min(precedente[j] + 1, courante[j - 1] + 1), precedente[j - 1] + cout);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    valeur = Math.min(valeur, avantPrecedente[j - 2] + 1);
+                }
+                courante[j] = valeur;
+                minimumLigne = Math.min(minimumLigne, valeur);
+            }
+            if (minimumLigne > max) {
+                return max + 1;
+            }
+            int[] libre = avantPrecedente;
+            avantPrecedente = precedente;
+            precedente = courante;
+            courante = libre;
+        }
+        return Math.min(precedente[b.length()], max + 1);
+    }
+}
@@ -0,0 +1,87 @@
+package fr.formation.index;
+
+import fr.formation.model.Livre;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index en mémoire des titres et auteurs du catalogue.
+ * Tant qu'il n'a pas été construit, {@link #estPret()} retourne false et les
+ * recherches doivent passer par le repository.
+ */
+@Component
+public class IndexRechercheLivres {
+
+    private final TrigramIndex indexTitres = new TrigramIndex();
+    private final TrigramIndex indexAuteurs = new TrigramIndex();
+    private final IndexApproche auteursApproches = new IndexApproche();
+    private final Map<String, Livre> livres = new ConcurrentHashMap<>();
+    private volatile boolean pret;
+
+    public synchronized void reconstruire(Collection<Livre> catalogue) {
+        pret = false;
+        indexTitres.vider();
+        indexAuteurs.vider();
+        auteursApproches.vider();
+        livres.clear();
+        for (Livre livre : catalogue) {
+            indexer(livre);
+        }
+        pret = true;
+    }
+
+    public void indexer(Livre livre) {
+        livres.put(livre.getIsbn(), livre);
+        indexTitres.indexer(livre.getIsbn(), livre.getTitre());
+        indexAuteurs.indexer(livre.getIsbn(), livre.getAuteur());
+        auteursApproches.indexer(livre.getIsbn(), livre.getAuteur());
+    }
+
+    public void retirer(String isbn) {
+        indexTitres.retirer(isbn);
+        indexAuteurs.retirer(isbn);
+        auteursApproches.retirer(isbn);
+        livres.remove(isbn);
+    }
+
+    public boolean estPret() {
+        return pret;
+    }
+
+    public List<Livre> rechercherParTitre(String titre) {
+        return resoudre(indexTitres.rechercher(titre));
+    }
+
+    public List<Livre> rechercherParAuteur(String auteur) {
+        return resoudre(indexAuteurs.rechercher(auteur));
+    }
+
+    /**
+     * Livres dont l'auteur ressemble à {@code auteur}, sans tenir compte des accents ni de la casse,
+     * aux fautes de frappe ou d'orthographe près, du plus proche au plus lointain.
+     */
+    public List<Livre> rechercherParAuteurApproche(String auteur, int limite) {
+        List<IndexApproche.Resultat> trouves = auteursApproches.rechercher(auteur, limite);
+        List<Livre> resultat = new ArrayList<>(trouves.size());
+        for (IndexApproche.Resultat trouve : trouves) {
+            Livre livre = livres.get(trouve.cle());
+            if (livre != null) {
+                resultat.add(livre);
+            }
+        }
+        return resultat;
+    }
+
+    private List<Livre> resoudre(List<String> isbns) {
+        List<Livre> resultat = new ArrayList<>(isbns.size());
+        for (String isbn : isbns) {
+            Livre livre = livres.get(isbn);
+            if (livre != null) {
+                resultat.add(livre);
+            }
+        }
+        return resultat;
+    }
+}
@@ -0,0 +1,42 @@
+package fr.formation.index;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Pliage des textes pour la recherche : minuscules, sans accents ni ligatures,
+ * tout caractère autre qu'une lettre ou un chiffre devenant un espace.
+ */
+public final class NormalisationTexte {
+
+    private static final Pattern DIACRITIQUES = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATEURS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private NormalisationTexte() {
+    }
+
+    public static String plier(String texte) {
+        if (texte == null) {
+            return "";
+        }
+        String sansLigatures = texte.toLowerCase(Locale.ROOT)
+                .replace("œ", "oe")
+                .replace("æ", "ae")
+                .replace("ß", "ss");
+        String sansAccents = DIACRITIQUES.matcher(Normalizer.normalize(sansLigatures, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATEURS.matcher(sansAccents).replaceAll(" ").strip();
+    }
+
+    public static List<String> mots(String textePlie) {
+        List<String> mots = new ArrayList<>();
+        for (String mot : textePlie.split(" ")) {
+            if (!mot.isEmpty()) {
+                mots.add(mot);
+            }
+        }
+        return mots;
+    }
+}
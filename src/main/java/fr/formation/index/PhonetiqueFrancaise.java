@@ -0,0 +1,57 @@
+package fr.formation.index;
+
+import java.util.regex.Pattern;
+
+/**
+ * Clé phonétique simplifiée d'un mot plié, pour le français : les graphies d'un même son
+ * sont ramenées à une seule (ph/f, qu/k, c/s devant e i y, eau/au/o, nasales...), les lettres
+ * doublées fusionnées et les consonnes finales muettes supprimées. "Dumas" et "Dumat" ont la même clé.
+ */
+final class PhonetiqueFrancaise {
+
+    private static final String VOYELLES = "aeiouy";
+
+    // Appliquées dans l'ordre sur le mot plié
+    private static final Regle[] REGLES = {
+            new Regle("[^a-z]", ""),
+            new Regle("ph", "f"),
+            new Regle("th", "t"),
+            new Regle("sch|sh|ch", "x"),
+            new Regle("qu?", "k"),
+            new Regle("gu(?=[eiy])", "g"),
+            new Regle("g(?=[eiy])", "j"),
+            new Regle("c(?=[eiy])", "s"),
+            new Regle("ck|c", "k"),
+            new Regle("eau|au", "o"),
+            new Regle("ou", "u"),
+            new Regle("(ain|ein|aim|eim|in|im|yn|ym|un|um)(?![" + VOYELLES + "nm])", "1"),
+            new Regle("(an|am|en|em)(?![" + VOYELLES + "nm])", "2"),
+            new Regle("(on|om)(?![" + VOYELLES + "nm])", "3"),
+            new Regle("ai|ei", "e"),
+            new Regle("(er|ez|et)$", "e"),
+            new Regle("y", "i"),
+            new Regle("z", "s"),
+            new Regle("w", "v"),
+            new Regle("h", ""),
+            new Regle("(.)\\1+", "$1"),
+            new Regle("(?<=..)[stdxp]+$", ""),
+            new Regle("(?<=..)e$", ""),
+    };
+
+    private record Regle(Pattern motif, String remplacement) {
+        Regle(String motif, String remplacement) {
+            this(Pattern.compile(motif), remplacement);
+        }
+    }
+
+    private PhonetiqueFrancaise() {
+    }
+
+    static String cle(String motPlie) {
+        String cle = motPlie;
+        for (Regle regle : REGLES) {
+            cle = regle.motif().matcher(cle).replaceAll(regle.remplacement());
+        }
+        return cle.isEmpty() ? motPlie : cle;
+    }
+}
@@ -0,0 +1,212 @@
+package fr.formation.index;
+
+import fr.formation.dto.CriteresLivres;
+import fr.formation.dto.PageLivres;
+import fr.formation.model.Format;
+import fr.formation.model.Livre;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index multicritère du catalogue : une liste de livres, sous forme de {@link BitmapCompresse},
+ * par mot plié du titre, de l'auteur et de l'éditeur, et par format. Les livres sont désignés
+ * par l'identifiant dense du dictionnaire de {@link DisponibiliteLivres}, dont le bitmap sert
+ * au critère de disponibilité. Une recherche est une suite d'unions et d'intersections de
+ * bitmaps ; seuls les livres de la page demandée sont lus.
+ */
+@Component
+public class RechercheCatalogue {
+
+    public static final int TAILLE_PAGE_MAX = 100;
+
+    private final DisponibiliteLivres disponibiliteLivres;
+    private final NavigableMap<String, BitmapCompresse> motsTitres = new TreeMap<>();
+    private final NavigableMap<String, BitmapCompresse> motsAuteurs = new TreeMap<>();
+    private final NavigableMap<String, BitmapCompresse> motsEditeurs = new TreeMap<>();
+    private final Map<Format, BitmapCompresse> formats = new EnumMap<>(Format.class);
+    private final BitmapCompresse tous = new BitmapCompresse();
+    private Livre[] livres = new Livre[1024];
+    private final ReadWriteLock verrou = new ReentrantReadWriteLock();
+    private volatile boolean pret;
+
+    public RechercheCatalogue(DisponibiliteLivres disponibiliteLivres) {
+        this.disponibiliteLivres = disponibiliteLivres;
+    }
+
+    public void reconstruire(Collection<Livre> catalogue) {
+        verrou.writeLock().lock();
+        try {
+            pret = false;
+            motsTitres.clear();
+            motsAuteurs.clear();
+            motsEditeurs.clear();
+            formats.clear();
+            tous.vider();
+            Arrays.fill(livres, null);
+            for (Livre livre : catalogue) {
+                ajouter(disponibiliteLivres.identifiant(livre.getIsbn()), livre);
+            }
+            pret = true;
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    public void indexer(Livre livre) {
+        int identifiant = disponibiliteLivres.identifiant(livre.getIsbn());
+        verrou.writeLock().lock();
+        try {
+            enlever(identifiant);
+            ajouter(identifiant, livre);
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    public void retirer(String isbn) {
+        int identifiant = disponibiliteLivres.chercher(isbn);
+        if (identifiant == DictionnaireIsbn.ABSENT) {
+            return;
+        }
+        verrou.writeLock().lock();
+        try {
+            enlever(identifiant);
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    public boolean estPret() {
+        return pret;
+    }
+
+    /**
+     * Livres qui satisfont tous les critères, dans l'ordre de leur entrée au catalogue,
+     * par pages de {@code taille} (au plus {@link #TAILLE_PAGE_MAX}) numérotées à partir de 0.
+     */
+    public PageLivres rechercher(CriteresLivres criteres, int page, int taille) {
+        int numero = Math.max(0, page);
+        int parPage = Math.max(1, Math.min(taille, TAILLE_PAGE_MAX));
+        verrou.readLock().lock();
+        try {
+            BitmapCompresse textes = tous;
+            textes = restreindre(textes, motsTitres, criteres.titre());
+            textes = restreindre(textes, motsAuteurs, criteres.auteur());
+            textes = restreindre(textes, motsEditeurs, criteres.editeur());
+
+            BitmapCompresse avecFormat = textes;
+            if (criteres.formats() != null && !criteres.formats().isEmpty()) {
+                BitmapCompresse union = new BitmapCompresse();
+                for (Format format : criteres.formats()) {
+                    BitmapCompresse livresDuFormat = formats.get(format);
+                    if (livresDuFormat != null) {
+                        union.ajouterTout(livresDuFormat);
+                    }
+                }
+                avecFormat = textes.et(union);
+            }
+            BitmapCompresse avecDisponibilite = selonDisponibilite(textes, criteres.disponible());
+            BitmapCompresse resultat = selonDisponibilite(avecFormat, criteres.disponible());
+
+            Map<Format, Integer> parFormat = new EnumMap<>(Format.class);
+            formats.forEach((format, livresDuFormat) -> {
+                int nombre = avecDisponibilite.et(livresDuFormat).cardinalite();
+                if (nombre > 0) {
+                    parFormat.put(format, nombre);
+                }
+            });
+            int disponibles = selonDisponibilite(avecFormat, true).cardinalite();
+
+            List<Livre> trouves = new ArrayList<>(parPage);
+            long saut = (long) numero * parPage;
+            if (saut < Integer.MAX_VALUE) {
+                resultat.parcourir((int) saut, parPage, identifiant -> trouves.add(disponibiliteLivres.actualiser(livres[identifiant])));
+            }
+            return new PageLivres(trouves, resultat.cardinalite(), numero, parPage, parFormat, disponibles);
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    // Chaque mot de la recherche doit commencer un mot du champ : union sur les préfixes, intersection entre mots
+    private static BitmapCompresse restreindre(BitmapCompresse candidats, NavigableMap<String, BitmapCompresse> index,
+                                               String recherche) {
+        for (String mot : NormalisationTexte.mots(NormalisationTexte.plier(recherche))) {
+            BitmapCompresse union = new BitmapCompresse();
+            for (BitmapCompresse livresDuMot : index.subMap(mot, true, mot + Character.MAX_VALUE, false).values()) {
+                union.ajouterTout(livresDuMot);
+            }
+            candidats = candidats.et(union);
+            if (candidats.estVide()) {
+                break;
+            }
+        }
+        return candidats;
+    }
+
+    // Seul le bitmap fait foi : le champ gardé par l'index peut venir d'un instantané périmé
+    private BitmapCompresse selonDisponibilite(BitmapCompresse candidats, Boolean disponible) {
+        return disponible == null ? candidats : disponibiliteLivres.selectionner(candidats, disponible);
+    }
+
+    private void ajouter(int identifiant, Livre livre) {
+        if (identifiant >= livres.length) {
+            livres = Arrays.copyOf(livres, Math.max(identifiant + 1, livres.length * 2));
+        }
+        livres[identifiant] = livre;
+        tous.ajouter(identifiant);
+        indexerMots(motsTitres, livre.getTitre(), identifiant);
+        indexerMots(motsAuteurs, livre.getAuteur(), identifiant);
+        indexerMots(motsEditeurs, livre.getEditeur(), identifiant);
+        if (livre.getFormat() != null) {
+            formats.computeIfAbsent(livre.getFormat(), f -> new BitmapCompresse()).ajouter(identifiant);
+        }
+    }
+
+    private void enlever(int identifiant) {
+        Livre ancien = identifiant < livres.length ? livres[identifiant] : null;
+        if (ancien == null) {
+            return;
+        }
+        livres[identifiant] = null;
+        tous.retirer(identifiant);
+        retirerMots(motsTitres, ancien.getTitre(), identifiant);
+        retirerMots(motsAuteurs, ancien.getAuteur(), identifiant);
+        retirerMots(motsEditeurs, ancien.getEditeur(), identifiant);
+        if (ancien.getFormat() != null) {
+            BitmapCompresse livresDuFormat = formats.get(ancien.getFormat());
+            livresDuFormat.retirer(identifiant);
+            if (livresDuFormat.estVide()) {
+                formats.remove(ancien.getFormat());
+            }
+        }
+    }
+
+    private static void indexerMots(Map<String, BitmapCompresse> index, String texte, int identifiant) {
+        for (String mot : NormalisationTexte.mots(NormalisationTexte.plier(texte))) {
+            index.computeIfAbsent(mot, m -> new BitmapCompresse()).ajouter(identifiant);
+        }
+    }
+
+    private static void retirerMots(Map<String, BitmapCompresse> index, String texte, int identifiant) {
+        for (String mot : NormalisationTexte.mots(NormalisationTexte.plier(texte))) {
+            BitmapCompresse livresDuMot = index.get(mot);
+            if (livresDuMot != null) {
+                livresDuMot.retirer(identifiant);
+                if (livresDuMot.estVide()) {
+                    index.remove(mot);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,417 @@
+package fr.formation.index;
+
+import fr.formation.dto.CompteLivre;
+import fr.formation.model.Livre;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Suggestions de saisie sur les titres et auteurs du catalogue. Les textes pliés sont rangés
+ * dans un arbre de préfixes compressé, à partir de chacun de leurs mots ("prince" suggère
+ * "Le Petit Prince"). Chaque nœud garde les {@link #SUGGESTIONS_MAX} suggestions les plus
+ * populaires de son sous-arbre : une saisie ne coûte que la descente jusqu'au préfixe.
+ * La popularité d'un texte est la somme, sur les livres qui le portent, de 1 plus leur
+ * nombre de réservations en cours : annulations et purges la font baisser, pour qu'elle
+ * reste égale à celle recalculée au démarrage.
+ */
+@Component
+public class SuggestionsLivres {
+
+    public static final int SUGGESTIONS_MAX = 10;
+
+    private static final Noeud[] AUCUN_ENFANT = {};
+    private static final Entree[] AUCUNE_ENTREE = {};
+
+    private static final Comparator<Entree> ORDRE = Comparator.comparingLong((Entree entree) -> entree.poids).reversed()
+            .thenComparing(entree -> entree.cle)
+            .thenComparing(entree -> entree.libelle);
+
+    // Texte suggéré, partagé par tous les livres dont le titre ou l'auteur se plie de la même façon
+    private static final class Entree {
+        private final String cle;
+        private String libelle;
+        private long poids;
+        private int references;
+
+        private Entree(String cle, String libelle) {
+            this.cle = cle;
+            this.libelle = libelle;
+        }
+    }
+
+    private static final class Noeud {
+        private String arete;
+        private Noeud[] enfants = AUCUN_ENFANT;
+        private Entree[] entrees = AUCUNE_ENTREE;
+        private Entree[] meilleures = AUCUNE_ENTREE;
+
+        private Noeud(String arete) {
+            this.arete = arete;
+        }
+
+        private int position(char premiere) {
+            int bas = 0;
+            int haut = enfants.length - 1;
+            while (bas <= haut) {
+                int milieu = (bas + haut) >>> 1;
+                char lettre = enfants[milieu].arete.charAt(0);
+                if (lettre < premiere) {
+                    bas = milieu + 1;
+                } else if (lettre > premiere) {
+                    haut = milieu - 1;
+                } else {
+                    return milieu;
+                }
+            }
+            return -(bas + 1);
+        }
+
+        private Noeud enfant(char premiere) {
+            int position = position(premiere);
+            return position >= 0 ? enfants[position] : null;
+        }
+
+        // Ajoute ou remplace l'enfant dont l'arête commence par la même lettre
+        private void placer(Noeud enfant) {
+            int position = position(enfant.arete.charAt(0));
+            if (position >= 0) {
+                enfants[position] = enfant;
+                return;
+            }
+            int insertion = -position - 1;
+            Noeud[] agrandis = new Noeud[enfants.length + 1];
+            System.arraycopy(enfants, 0, agrandis, 0, insertion);
+            agrandis[insertion] = enfant;
+            System.arraycopy(enfants, insertion, agrandis, insertion + 1, enfants.length - insertion);
+            enfants = agrandis;
+        }
+
+        private void retirer(Noeud enfant) {
+            int position = position(enfant.arete.charAt(0));
+            Noeud[] reduits = new Noeud[enfants.length - 1];
+            System.arraycopy(enfants, 0, reduits, 0, position);
+            System.arraycopy(enfants, position + 1, reduits, position, enfants.length - position - 1);
+            enfants = reduits;
+        }
+    }
+
+    private record Fiche(List<Entree> entrees, long contribution) {
+    }
+
+    private Noeud racine = new Noeud("");
+    private final Map<String, Entree> entrees = new HashMap<>();
+    private final Map<String, Fiche> fiches = new HashMap<>();
+    private final Map<String, Long> popularites = new HashMap<>();
+    private final ReadWriteLock verrou = new ReentrantReadWriteLock();
+    private volatile boolean pret;
+
+    public void reconstruire(Collection<Livre> catalogue) {
+        verrou.writeLock().lock();
+        try {
+            pret = false;
+            racine = new Noeud("");
+            entrees.clear();
+            fiches.clear();
+            for (Livre livre : catalogue) {
+                ajouterFiche(livre, false);
+            }
+            calculer(racine);
+            pret = true;
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remplace les popularités par les nombres de réservations de chaque livre.
+     */
+    public void definirPopularites(Iterable<CompteLivre> comptes) {
+        verrou.writeLock().lock();
+        try {
+            Map<String, Long> nouvelles = new HashMap<>();
+            for (CompteLivre compte : comptes) {
+                nouvelles.put(compte.isbn(), compte.nombre());
+            }
+            Set<String> isbns = new LinkedHashSet<>(popularites.keySet());
+            isbns.addAll(nouvelles.keySet());
+            for (String isbn : isbns) {
+                long ecart = nouvelles.getOrDefault(isbn, 0L) - popularites.getOrDefault(isbn, 0L);
+                if (ecart != 0) {
+                    modifierPopularite(isbn, ecart);
+                }
+            }
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    public void ajouterPopularite(String isbn, long nombre) {
+        verrou.writeLock().lock();
+        try {
+            modifierPopularite(isbn, nombre);
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    public void indexer(Livre livre) {
+        verrou.writeLock().lock();
+        try {
+            retirerFiche(livre.getIsbn());
+            ajouterFiche(livre, true);
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    public void retirer(String isbn) {
+        verrou.writeLock().lock();
+        try {
+            retirerFiche(isbn);
+            popularites.remove(isbn);
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    public boolean estPret() {
+        return pret;
+    }
+
+    /**
+     * Titres et auteurs dont un mot commence par {@code prefixe} (plié), du plus populaire
+     * au moins populaire, au plus {@code limite} et jamais plus de {@link #SUGGESTIONS_MAX}.
+     */
+    public List<String> suggerer(String prefixe, int limite) {
+        String recherche = NormalisationTexte.plier(prefixe);
+        verrou.readLock().lock();
+        try {
+            Noeud noeud = racine;
+            int i = 0;
+            while (i < recherche.length()) {
+                Noeud enfant = noeud.enfant(recherche.charAt(i));
+                if (enfant == null) {
+                    return List.of();
+                }
+                int commun = prefixeCommun(enfant.arete, recherche, i);
+                if (i + commun < recherche.length() && commun < enfant.arete.length()) {
+                    return List.of();
+                }
+                noeud = enfant;
+                i += commun;
+            }
+            int nombre = Math.max(0, Math.min(limite, noeud.meilleures.length));
+            List<String> suggestions = new ArrayList<>(nombre);
+            for (int j = 0; j < nombre; j++) {
+                suggestions.add(noeud.meilleures[j].libelle);
+            }
+            return suggestions;
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    private void modifierPopularite(String isbn, long ecart) {
+        long popularite = popularites.getOrDefault(isbn, 0L) + ecart;
+        if (popularite > 0) {
+            popularites.put(isbn, popularite);
+        } else {
+            popularites.remove(isbn);
+        }
+        Fiche fiche = fiches.get(isbn);
+        if (fiche == null) {
+            return;
+        }
+        long contribution = 1 + Math.max(0, popularite);
+        long difference = contribution - fiche.contribution();
+        fiches.put(isbn, new Fiche(fiche.entrees(), contribution));
+        for (Entree entree : fiche.entrees()) {
+            entree.poids += difference;
+            for (String suffixe : suffixes(entree.cle)) {
+                recalculer(chemin(suffixe));
+            }
+        }
+    }
+
+    private void ajouterFiche(Livre livre, boolean recalculer) {
+        long contribution = 1 + popularites.getOrDefault(livre.getIsbn(), 0L);
+        Map<String, String> textes = new HashMap<>();
+        for (String texte : new String[]{livre.getTitre(), livre.getAuteur()}) {
+            String cle = NormalisationTexte.plier(texte);
+            if (!cle.isEmpty()) {
+                textes.putIfAbsent(cle, texte.strip());
+            }
+        }
+        List<Entree> entreesLivre = new ArrayList<>(textes.size());
+        for (Map.Entry<String, String> texte : textes.entrySet()) {
+            Entree entree = entrees.get(texte.getKey());
+            boolean nouvelle = entree == null;
+            if (nouvelle) {
+                entree = new Entree(texte.getKey(), texte.getValue());
+                entrees.put(texte.getKey(), entree);
+            } else {
+                entree.libelle = texte.getValue();
+            }
+            entree.poids += contribution;
+            entree.references++;
+            entreesLivre.add(entree);
+            for (String suffixe : suffixes(entree.cle)) {
+                if (nouvelle) {
+                    List<Noeud> chemin = inserer(suffixe, entree);
+                    if (recalculer) {
+                        recalculer(chemin);
+                    }
+                } else if (recalculer) {
+                    recalculer(chemin(suffixe));
+                }
+            }
+        }
+        fiches.put(livre.getIsbn(), new Fiche(entreesLivre, contribution));
+    }
+
+    private void retirerFiche(String isbn) {
+        Fiche fiche = fiches.remove(isbn);
+        if (fiche == null) {
+            return;
+        }
+        for (Entree entree : fiche.entrees()) {
+            entree.poids -= fiche.contribution();
+            entree.references--;
+            boolean supprimee = entree.references == 0;
+            if (supprimee) {
+                entrees.remove(entree.cle);
+            }
+            for (String suffixe : suffixes(entree.cle)) {
+                List<Noeud> chemin = chemin(suffixe);
+                if (supprimee) {
+                    enlever(chemin, entree);
+                } else {
+                    recalculer(chemin);
+                }
+            }
+        }
+    }
+
+    // Noeuds de la racine jusqu'à celui où se termine le suffixe, qui doit être présent
+    private List<Noeud> chemin(String suffixe) {
+        List<Noeud> chemin = new ArrayList<>();
+        Noeud noeud = racine;
+        chemin.add(noeud);
+        int i = 0;
+        while (i < suffixe.length()) {
+            noeud = noeud.enfant(suffixe.charAt(i));
+            chemin.add(noeud);
+            i += noeud.arete.length();
+        }
+        return chemin;
+    }
+
+    private List<Noeud> inserer(String suffixe, Entree entree) {
+        List<Noeud> chemin = new ArrayList<>();
+        Noeud noeud = racine;
+        chemin.add(noeud);
+        int i = 0;
+        while (i < suffixe.length()) {
+            Noeud enfant = noeud.enfant(suffixe.charAt(i));
+            if (enfant == null) {
+                Noeud feuille = new Noeud(suffixe.substring(i));
+                noeud.placer(feuille);
+                noeud = feuille;
+                chemin.add(noeud);
+                break;
+            }
+            int commun = prefixeCommun(enfant.arete, suffixe, i);
+            if (commun < enfant.arete.length()) {
+                // L'arête diverge du suffixe : elle est coupée par un nœud intermédiaire
+                Noeud intermediaire = new Noeud(enfant.arete.substring(0, commun));
+                noeud.placer(intermediaire);
+                enfant.arete = enfant.arete.substring(commun);
+                intermediaire.placer(enfant);
+                intermediaire.meilleures = enfant.meilleures;
+                enfant = intermediaire;
+            }
+            noeud = enfant;
+            chemin.add(noeud);
+            i += commun;
+        }
+        if (!Arrays.asList(noeud.entrees).contains(entree)) {
+            noeud.entrees = Arrays.copyOf(noeud.entrees, noeud.entrees.length + 1);
+            noeud.entrees[noeud.entrees.length - 1] = entree;
+        }
+        return chemin;
+    }
+
+    // Retire l'entrée du dernier nœud du chemin, puis élague ou fusionne les nœuds devenus inutiles
+    private void enlever(List<Noeud> chemin, Entree entree) {
+        Noeud fin = chemin.get(chemin.size() - 1);
+        fin.entrees = Arrays.stream(fin.entrees).filter(e -> e != entree).toArray(Entree[]::new);
+        for (int k = chemin.size() - 1; k > 0; k--) {
+            Noeud noeud = chemin.get(k);
+            Noeud parent = chemin.get(k - 1);
+            if (noeud.entrees.length == 0 && noeud.enfants.length == 0) {
+                parent.retirer(noeud);
+            } else if (noeud.entrees.length == 0 && noeud.enfants.length == 1) {
+                Noeud seul = noeud.enfants[0];
+                seul.arete = noeud.arete + seul.arete;
+                parent.placer(seul);
+            } else {
+                meilleures(noeud);
+            }
+        }
+        meilleures(racine);
+    }
+
+    private void recalculer(List<Noeud> chemin) {
+        for (int k = chemin.size() - 1; k >= 0; k--) {
+            meilleures(chemin.get(k));
+        }
+    }
+
+    private void calculer(Noeud noeud) {
+        for (Noeud enfant : noeud.enfants) {
+            calculer(enfant);
+        }
+        meilleures(noeud);
+    }
+
+    // Fusionne les entrées du nœud et les meilleures de ses enfants
+    private static void meilleures(Noeud noeud) {
+        List<Entree> candidates = new ArrayList<>(Arrays.asList(noeud.entrees));
+        for (Noeud enfant : noeud.enfants) {
+            candidates.addAll(Arrays.asList(enfant.meilleures));
+        }
+        candidates.sort(ORDRE);
+        // Une entrée peut remonter de deux enfants par deux de ses mots
+        noeud.meilleures = candidates.stream().distinct().limit(SUGGESTIONS_MAX).toArray(Entree[]::new);
+    }
+
+    // Le texte plié à partir de chacun de ses mots
+    private static List<String> suffixes(String cle) {
+        List<String> suffixes = new ArrayList<>();
+        suffixes.add(cle);
+        for (int i = cle.indexOf(' '); i >= 0; i = cle.indexOf(' ', i + 1)) {
+            suffixes.add(cle.substring(i + 1));
+        }
+        return suffixes;
+    }
+
+    private static int prefixeCommun(String arete, String texte, int debut) {
+        int longueur = Math.min(arete.length(), texte.length() - debut);
+        int i = 0;
+        while (i < longueur && arete.charAt(i) == texte.charAt(debut + i)) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,157 @@
+package fr.formation.index;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index inversé de trigrammes : associe chaque suite de 3 caractères (en minuscules)
+ * aux clés dont le texte la contient. Une recherche "contient, sans casse" se résout
+ * par intersection des listes de trigrammes puis vérification du texte candidat.
+ * Les clés sont numérotées par un {@link DictionnaireIsbn} et chaque liste est un
+ * {@link BitmapCompresse} de ces identifiants : les résultats sortent dans l'ordre
+ * d'indexation des clés.
+ */
+public class TrigramIndex {
+
+    private static final int N = 3;
+
+    private DictionnaireIsbn cles = new DictionnaireIsbn();
+    // Texte normalisé par identifiant de clé, null pour une clé retirée
+    private final List<String> textes = new ArrayList<>();
+    private final Map<String, BitmapCompresse> postings = new HashMap<>();
+    private int taille;
+    private final ReadWriteLock verrou = new ReentrantReadWriteLock();
+
+    public void indexer(String cle, String texte) {
+        String normalise = normaliser(texte);
+        verrou.writeLock().lock();
+        try {
+            int identifiant = cles.identifiant(cle);
+            while (textes.size() <= identifiant) {
+                textes.add(null);
+            }
+            String ancien = textes.set(identifiant, normalise);
+            if (ancien == null) {
+                taille++;
+            } else {
+                for (String trigramme : trigrammes(ancien)) {
+                    retirerPosting(trigramme, identifiant);
+                }
+            }
+            for (String trigramme : trigrammes(normalise)) {
+                postings.computeIfAbsent(trigramme, t -> new BitmapCompresse()).ajouter(identifiant);
+            }
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    public void retirer(String cle) {
+        verrou.writeLock().lock();
+        try {
+            int identifiant = cles.chercher(cle);
+            if (identifiant == DictionnaireIsbn.ABSENT || identifiant >= textes.size()) {
+                return;
+            }
+            String ancien = textes.set(identifiant, null);
+            if (ancien != null) {
+                taille--;
+                for (String trigramme : trigrammes(ancien)) {
+                    retirerPosting(trigramme, identifiant);
+                }
+            }
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    public void vider() {
+        verrou.writeLock().lock();
+        try {
+            cles = new DictionnaireIsbn();
+            textes.clear();
+            postings.clear();
+            taille = 0;
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    public int taille() {
+        verrou.readLock().lock();
+        try {
+            return taille;
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retourne les clés dont le texte contient {@code recherche}, sans tenir compte de la casse,
+     * dans l'ordre où elles ont été indexées pour la première fois.
+     */
+    public List<String> rechercher(String recherche) {
+        String motif = normaliser(recherche);
+        verrou.readLock().lock();
+        try {
+            List<String> resultat = new ArrayList<>();
+            // Motif trop court pour avoir un trigramme : on vérifie directement les textes
+            if (motif.length() < N) {
+                for (int identifiant = 0; identifiant < textes.size(); identifiant++) {
+                    String texte = textes.get(identifiant);
+                    if (texte != null && texte.contains(motif)) {
+                        resultat.add(cles.isbn(identifiant));
+                    }
+                }
+                return resultat;
+            }
+
+            List<BitmapCompresse> listes = new ArrayList<>();
+            for (String trigramme : trigrammes(motif)) {
+                BitmapCompresse liste = postings.get(trigramme);
+                if (liste == null) {
+                    return List.of();
+                }
+                listes.add(liste);
+            }
+            // On part de la liste la plus courte pour garder des intersections petites
+            listes.sort(Comparator.comparingInt(BitmapCompresse::cardinalite));
+            BitmapCompresse candidats = listes.get(0);
+            for (int i = 1; i < listes.size() && !candidats.estVide(); i++) {
+                candidats = candidats.et(listes.get(i));
+            }
+
+            candidats.parcourir(identifiant -> {
+                if (textes.get(identifiant).contains(motif)) {
+                    resultat.add(cles.isbn(identifiant));
+                }
+            });
+            return resultat;
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    private void retirerPosting(String trigramme, int identifiant) {
+        BitmapCompresse liste = postings.get(trigramme);
+        if (liste != null) {
+            liste.retirer(identifiant);
+            if (liste.estVide()) {
+                postings.remove(trigramme);
+            }
+        }
+    }
+
+    private static Set<String> trigrammes(String texte) {
+        Set<String> resultat = new HashSet<>();
+        for (int i = 0; i + N <= texte.length(); i++) {
+            resultat.add(texte.substring(i, i + N));
+        }
+        return resultat;
+    }
+
+    static String normaliser(String texte) {
+        return texte == null ? "" : texte.toLowerCase(Locale.ROOT);
+    }
+}
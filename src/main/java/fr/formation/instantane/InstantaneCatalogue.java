@@ -0,0 +1,195 @@
+package fr.formation.instantane;
+
+import fr.formation.model.Adherent;
+import fr.formation.model.Civilite;
+import fr.formation.model.Format;
+import fr.formation.model.Livre;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32C;
+
+/**
+ * Instantané binaire des tables livre et adhérent, écrit dans un fichier projeté en mémoire
+ * pour que les index puissent être reconstruits au démarrage sans attendre la base.
+ * Le fichier est remplacé atomiquement ; un fichier absent, d'une autre version ou dont
+ * le CRC ne correspond pas est ignoré. Inactif tant que {@code catalogue.instantane.fichier}
+ * n'est pas renseigné.
+ */
+@Component
+public class InstantaneCatalogue {
+
+    public record Contenu(long horodatage, List<Livre> livres, List<Adherent> adherents) {
+    }
+
+    private static final long MAGIC = 0x434154534E415031L;
+    private static final int VERSION = 1;
+    private static final int TAILLE_ENTETE = 32;
+    private static final int TEXTE_ABSENT = 0xFFFF;
+    private static final int TEXTE_MAX = 0xFFFE;
+
+    private final Path fichier;
+
+    public InstantaneCatalogue(@Value("${catalogue.instantane.fichier:}") String fichier) {
+        this.fichier = fichier == null || fichier.isBlank() ? null : Path.of(fichier);
+    }
+
+    public boolean estActif() {
+        return fichier != null;
+    }
+
+    public synchronized void ecrire(Collection<Livre> livres, Collection<Adherent> adherents) {
+        if (fichier == null) {
+            return;
+        }
+        ByteBuffer corps = encoder(livres, adherents);
+        CRC32C crc = new CRC32C();
+        crc.update(corps.duplicate());
+        Path temporaire = fichier.resolveSibling(fichier.getFileName() + ".tmp");
+        try {
+            if (fichier.getParent() != null) {
+                Files.createDirectories(fichier.getParent());
+            }
+            try (FileChannel canal = FileChannel.open(temporaire, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                MappedByteBuffer projection = canal.map(FileChannel.MapMode.READ_WRITE, 0, TAILLE_ENTETE + corps.remaining());
+                projection.putLong(0, MAGIC);
+                projection.putInt(8, VERSION);
+                projection.putInt(12, livres.size());
+                projection.putInt(16, adherents.size());
+                projection.putInt(20, (int) crc.getValue());
+                projection.putLong(24, System.currentTimeMillis());
+                projection.put(TAILLE_ENTETE, corps, 0, corps.remaining());
+                projection.force();
+            }
+            Files.move(temporaire, fichier, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Écriture de l'instantané impossible : " + fichier, e);
+        }
+    }
+
+    /**
+     * Projette le fichier et décode son contenu, ou retourne vide si aucun instantané
+     * valide n'est disponible.
+     */
+    public Optional<Contenu> lire() {
+        if (fichier == null || !Files.isRegularFile(fichier)) {
+            return Optional.empty();
+        }
+        MappedByteBuffer projection;
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ)) {
+            if (canal.size() < TAILLE_ENTETE || canal.size() > Integer.MAX_VALUE) {
+                return Optional.empty();
+            }
+            projection = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lecture de l'instantané impossible : " + fichier, e);
+        }
+        if (projection.getLong(0) != MAGIC || projection.getInt(8) != VERSION) {
+            return Optional.empty();
+        }
+        ByteBuffer corps = projection.slice(TAILLE_ENTETE, projection.capacity() - TAILLE_ENTETE);
+        CRC32C crc = new CRC32C();
+        crc.update(corps.duplicate());
+        if ((int) crc.getValue() != projection.getInt(20)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(decoder(corps, projection.getInt(12), projection.getInt(16), projection.getLong(24)));
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static ByteBuffer encoder(Collection<Livre> livres, Collection<Adherent> adherents) {
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream(64 * (livres.size() + adherents.size()) + 16);
+        for (Livre livre : livres) {
+            ecrireTexte(sortie, livre.getIsbn());
+            ecrireTexte(sortie, livre.getTitre());
+            ecrireTexte(sortie, livre.getAuteur());
+            ecrireTexte(sortie, livre.getEditeur());
+            sortie.write(livre.getFormat() == null ? 0 : livre.getFormat().ordinal() + 1);
+            sortie.write(livre.isDisponible() ? 1 : 0);
+        }
+        for (Adherent adherent : adherents) {
+            ecrireTexte(sortie, adherent.getCodeAdherent());
+            ecrireTexte(sortie, adherent.getNom());
+            ecrireTexte(sortie, adherent.getPrenom());
+            ecrireTexte(sortie, adherent.getDateNaissance());
+            sortie.write(adherent.getCivilite() == null ? 0 : adherent.getCivilite().ordinal() + 1);
+            ecrireTexte(sortie, adherent.getAdresseMail());
+        }
+        return ByteBuffer.wrap(sortie.toByteArray());
+    }
+
+    private static Contenu decoder(ByteBuffer corps, int nombreLivres, int nombreAdherents, long horodatage) {
+        Format[] formats = Format.values();
+        Civilite[] civilites = Civilite.values();
+        List<Livre> livres = new ArrayList<>(nombreLivres);
+        for (int i = 0; i < nombreLivres; i++) {
+            Livre livre = new Livre(lireTexte(corps), lireTexte(corps), lireTexte(corps), lireTexte(corps),
+                    enumeration(formats, corps.get()), corps.get() == 1);
+            livres.add(livre);
+        }
+        List<Adherent> adherents = new ArrayList<>(nombreAdherents);
+        for (int i = 0; i < nombreAdherents; i++) {
+            adherents.add(new Adherent(lireTexte(corps), lireTexte(corps), lireTexte(corps), lireTexte(corps),
+                    enumeration(civilites, corps.get()), lireTexte(corps)));
+        }
+        if (corps.hasRemaining()) {
+            throw new IllegalArgumentException("Octets inattendus en fin d'instantané");
+        }
+        return new Contenu(horodatage, livres, adherents);
+    }
+
+    private static <E> E enumeration(E[] valeurs, byte code) {
+        if (code < 0 || code > valeurs.length) {
+            throw new IllegalArgumentException("Valeur inconnue : " + code);
+        }
+        return code == 0 ? null : valeurs[code - 1];
+    }
+
+    private static void ecrireTexte(ByteArrayOutputStream sortie, String texte) {
+        if (texte == null) {
+            sortie.write(TEXTE_ABSENT >>> 8);
+            sortie.write(TEXTE_ABSENT & 0xFF);
+            return;
+        }
+        byte[] utf8 = texte.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length > TEXTE_MAX) {
+            throw new IllegalArgumentException("Texte trop long pour l'instantané : " + utf8.length + " octets");
+        }
+        sortie.write(utf8.length >>> 8);
+        sortie.write(utf8.length & 0xFF);
+        sortie.write(utf8, 0, utf8.length);
+    }
+
+    private static String lireTexte(ByteBuffer corps) {
+        int longueur = Short.toUnsignedInt(corps.getShort());
+        if (longueur == TEXTE_ABSENT) {
+            return null;
+        }
+        if (longueur > corps.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] utf8 = new byte[longueur];
+        corps.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
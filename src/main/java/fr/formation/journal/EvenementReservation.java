@@ -0,0 +1,14 @@
+package fr.formation.journal;
+
+import java.time.LocalDate;
+
+/**
+ * Changement d'état d'une réservation tel qu'il est relu dans le journal.
+ * {@code tronque} signale un code adhérent ou un ISBN trop long pour l'enregistrement.
+ */
+public record EvenementReservation(long sequence, Type type, long horodatage, Long idReservation,
+                                   String codeAdherent, String isbn, LocalDate dateDebut, LocalDate dateFin,
+                                   boolean tronque) {
+
+    public enum Type {CREATION, ANNULATION, EXPIRATION}
+}
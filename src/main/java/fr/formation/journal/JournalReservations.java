@@ -0,0 +1,387 @@
+package fr.formation.journal;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Journal en ajout seul des créations, annulations et expirations de réservations.
+ * Chaque événement occupe un enregistrement binaire de 128 octets dans des segments de fichier
+ * projetés en mémoire. Un thread unique regroupe les fsync : tout ce qui a été écrit pendant
+ * une synchronisation est rendu durable par la suivante ; après un échec, la plage non
+ * synchronisée est reprise par la synchronisation suivante. Inactif tant que
+ * {@code reservations.journal.repertoire} n'est pas renseigné.
+ */
+@Component
+public class JournalReservations {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalReservations.class);
+
+    static final int TAILLE_ENREGISTREMENT = 128;
+    private static final long MAGIC = 0x4A52455356303031L;
+    private static final int VERSION = 1;
+    private static final int TAILLE_TEXTE = 40;
+    private static final int TEXTE_ABSENT = 0xFF;
+    private static final int DATE_ABSENTE = Integer.MIN_VALUE;
+    private static final long ID_ABSENT = Long.MIN_VALUE;
+    private static final byte TRONQUE = 1;
+    private static final int SEGMENT_MAX = Integer.MAX_VALUE / TAILLE_ENREGISTREMENT;
+
+    // Disposition d'un enregistrement ; le CRC couvre tous les octets sauf les siens
+    private static final int POS_TYPE = 0;
+    private static final int POS_LONGUEUR_CODE = 1;
+    private static final int POS_LONGUEUR_ISBN = 2;
+    private static final int POS_DRAPEAUX = 3;
+    private static final int POS_CRC = 4;
+    private static final int POS_SEQUENCE = 8;
+    private static final int POS_HORODATAGE = 16;
+    private static final int POS_ID = 24;
+    private static final int POS_DEBUT = 32;
+    private static final int POS_FIN = 36;
+    private static final int POS_CODE = 40;
+    private static final int POS_ISBN = POS_CODE + TAILLE_TEXTE;
+
+    private static final CompletableFuture<Void> TERMINE = CompletableFuture.completedFuture(null);
+
+    private final Path repertoire;
+    private final int enregistrementsParSegment;
+
+    private final ReentrantLock verrou = new ReentrantLock();
+    private final Condition aSynchroniser = verrou.newCondition();
+    private final ArrayDeque<CompletableFuture<Void>> attentes = new ArrayDeque<>();
+    private final ByteBuffer tampon = ByteBuffer.allocate(TAILLE_ENREGISTREMENT);
+    private final CRC32C crc = new CRC32C();
+    private MappedByteBuffer segment;
+    // Octet du prochain enregistrement dans le segment courant, et limite déjà synchronisée
+    private int position;
+    private int positionSynchronisee;
+    private long prochaineSequence;
+    private boolean ferme;
+    private Thread synchronisation;
+
+    public JournalReservations(@Value("${reservations.journal.repertoire:}") String repertoire,
+                               @Value("${reservations.journal.enregistrements-par-segment:524288}") int enregistrementsParSegment) {
+        if (enregistrementsParSegment < 2 || enregistrementsParSegment > SEGMENT_MAX) {
+            throw new IllegalArgumentException("Taille de segment invalide : " + enregistrementsParSegment);
+        }
+        this.repertoire = repertoire == null || repertoire.isBlank() ? null : Path.of(repertoire);
+        this.enregistrementsParSegment = enregistrementsParSegment;
+        if (this.repertoire != null) {
+            try {
+                ouvrir();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Ouverture du journal impossible : " + this.repertoire, e);
+            }
+            synchronisation = new Thread(this::synchroniser, "journal-reservations");
+            synchronisation.setDaemon(true);
+            synchronisation.start();
+        }
+    }
+
+    public boolean estActif() {
+        return repertoire != null;
+    }
+
+    /**
+     * Ajoute un événement au journal. Le futur est complété quand l'enregistrement est sur disque,
+     * ou en erreur si l'écriture a échoué ; l'appelant n'a pas à l'attendre.
+     */
+    public CompletableFuture<Void> enregistrer(EvenementReservation.Type type, Long idReservation, String codeAdherent,
+                                               String isbn, LocalDate dateDebut, LocalDate dateFin) {
+        if (repertoire == null) {
+            return TERMINE;
+        }
+        CompletableFuture<Void> durable = new CompletableFuture<>();
+        verrou.lock();
+        try {
+            if (ferme) {
+                throw new IllegalStateException("Journal fermé");
+            }
+            if (position + TAILLE_ENREGISTREMENT > segment.capacity()) {
+                basculerSegment();
+            }
+            encoder(type, idReservation, codeAdherent, isbn, dateDebut, dateFin);
+            segment.put(position, tampon.array());
+            position += TAILLE_ENREGISTREMENT;
+            prochaineSequence++;
+            attentes.add(durable);
+            aSynchroniser.signal();
+        } catch (IOException | RuntimeException e) {
+            log.error("Écriture dans le journal des réservations impossible", e);
+            durable.completeExceptionally(e);
+        } finally {
+            verrou.unlock();
+        }
+        return durable;
+    }
+
+    /**
+     * Relit le journal dans l'ordre des séquences et retourne le nombre d'événements lus.
+     * La lecture s'arrête au premier emplacement libre ou invalide.
+     */
+    public long relire(Consumer<EvenementReservation> consommateur) {
+        if (repertoire == null) {
+            return 0;
+        }
+        long lus = 0;
+        byte[] octets = new byte[TAILLE_ENREGISTREMENT];
+        try {
+            for (Path fichier : segments()) {
+                ByteBuffer lecture = projeter(fichier, FileChannel.MapMode.READ_ONLY, 0);
+                for (int p = TAILLE_ENREGISTREMENT; p + TAILLE_ENREGISTREMENT <= lecture.capacity(); p += TAILLE_ENREGISTREMENT) {
+                    lecture.get(p, octets);
+                    if (octets[POS_TYPE] == 0 || !crcValide(octets)) {
+                        return lus;
+                    }
+                    consommateur.accept(decoder(ByteBuffer.wrap(octets)));
+                    lus++;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return lus;
+    }
+
+    // Synchronise ce qui reste et arrête le thread de synchronisation
+    @PreDestroy
+    public void fermer() throws InterruptedException {
+        if (repertoire == null) {
+            return;
+        }
+        verrou.lock();
+        try {
+            ferme = true;
+            aSynchroniser.signal();
+        } finally {
+            verrou.unlock();
+        }
+        synchronisation.join();
+    }
+
+    private void synchroniser() {
+        while (true) {
+            List<CompletableFuture<Void>> lot;
+            MappedByteBuffer cible;
+            int debut;
+            int fin;
+            verrou.lock();
+            try {
+                while (attentes.isEmpty() && !ferme) {
+                    aSynchroniser.awaitUninterruptibly();
+                }
+                if (attentes.isEmpty()) {
+                    return;
+                }
+                lot = new ArrayList<>(attentes);
+                attentes.clear();
+                cible = segment;
+                debut = positionSynchronisee;
+                fin = position;
+                positionSynchronisee = fin;
+            } finally {
+                verrou.unlock();
+            }
+            try {
+                forcer(cible, debut, fin - debut);
+                lot.forEach(durable -> durable.complete(null));
+            } catch (RuntimeException e) {
+                log.error("Synchronisation du journal des réservations impossible", e);
+                verrou.lock();
+                try {
+                    // Segment changé entretemps : basculerSegment l'a déjà forcé en entier
+                    if (cible == segment) {
+                        positionSynchronisee = Math.min(positionSynchronisee, debut);
+                    }
+                } finally {
+                    verrou.unlock();
+                }
+                lot.forEach(durable -> durable.completeExceptionally(e));
+            }
+        }
+    }
+
+    private void ouvrir() throws IOException {
+        Files.createDirectories(repertoire);
+        List<Path> existants = segments();
+        if (existants.isEmpty()) {
+            prochaineSequence = 1;
+            segment = creerSegment();
+            position = TAILLE_ENREGISTREMENT;
+        } else {
+            Path dernier = existants.get(existants.size() - 1);
+            segment = projeter(dernier, FileChannel.MapMode.READ_WRITE, 0);
+            if (segment.getLong(0) != MAGIC || segment.getInt(8) != VERSION || segment.getInt(12) != TAILLE_ENREGISTREMENT) {
+                throw new IOException("Segment de journal illisible : " + dernier);
+            }
+            reprendre(premiereSequence(dernier));
+        }
+        positionSynchronisee = position;
+    }
+
+    // Retrouve la fin du dernier segment ; un enregistrement incomplet (arrêt brutal) et la suite sont effacés
+    private void reprendre(long premiereSequence) {
+        byte[] octets = new byte[TAILLE_ENREGISTREMENT];
+        prochaineSequence = premiereSequence;
+        position = TAILLE_ENREGISTREMENT;
+        while (position + TAILLE_ENREGISTREMENT <= segment.capacity()) {
+            segment.get(position, octets);
+            if (octets[POS_TYPE] == 0) {
+                return;
+            }
+            if (!crcValide(octets)) {
+                byte[] vide = new byte[TAILLE_ENREGISTREMENT];
+                for (int p = position; p + TAILLE_ENREGISTREMENT <= segment.capacity(); p += TAILLE_ENREGISTREMENT) {
+                    segment.put(p, vide);
+                }
+                segment.force();
+                return;
+            }
+            prochaineSequence = ByteBuffer.wrap(octets).getLong(POS_SEQUENCE) + 1;
+            position += TAILLE_ENREGISTREMENT;
+        }
+    }
+
+    // Le segment quitté est forcé en entier : une plage dont la synchronisation est en cours peut encore échouer
+    private void basculerSegment() throws IOException {
+        MappedByteBuffer nouveau = creerSegment();
+        segment.force();
+        segment = nouveau;
+        position = TAILLE_ENREGISTREMENT;
+        positionSynchronisee = TAILLE_ENREGISTREMENT;
+    }
+
+    void forcer(MappedByteBuffer cible, int debut, int longueur) {
+        cible.force(debut, longueur);
+    }
+
+    // Le nom d'un segment porte la séquence de son premier enregistrement
+    private MappedByteBuffer creerSegment() throws IOException {
+        Path fichier = repertoire.resolve(String.format("reservations-%016d.journal", prochaineSequence));
+        MappedByteBuffer nouveau = projeter(fichier, FileChannel.MapMode.READ_WRITE,
+                (long) enregistrementsParSegment * TAILLE_ENREGISTREMENT);
+        nouveau.putLong(0, MAGIC);
+        nouveau.putInt(8, VERSION);
+        nouveau.putInt(12, TAILLE_ENREGISTREMENT);
+        nouveau.force(0, TAILLE_ENREGISTREMENT);
+        return nouveau;
+    }
+
+    private static MappedByteBuffer projeter(Path fichier, FileChannel.MapMode mode, long taille) throws IOException {
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[]{StandardOpenOption.READ}
+                : new StandardOpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE};
+        // La projection reste valide après la fermeture du canal
+        try (FileChannel canal = FileChannel.open(fichier, options)) {
+            return canal.map(mode, 0, taille > 0 ? taille : canal.size());
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> fichiers = Files.list(repertoire)) {
+            return fichiers.filter(f -> f.getFileName().toString().matches("reservations-\\d{16}\\.journal"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long premiereSequence(Path fichier) {
+        String nom = fichier.getFileName().toString();
+        return Long.parseLong(nom.substring("reservations-".length(), nom.length() - ".journal".length()));
+    }
+
+    private void encoder(EvenementReservation.Type type, Long idReservation, String codeAdherent,
+                         String isbn, LocalDate dateDebut, LocalDate dateFin) {
+        byte[] octets = tampon.array();
+        Arrays.fill(octets, (byte) 0);
+        tampon.put(POS_TYPE, (byte) (type.ordinal() + 1));
+        boolean tronque = ecrireTexte(codeAdherent, POS_CODE, POS_LONGUEUR_CODE);
+        tronque |= ecrireTexte(isbn, POS_ISBN, POS_LONGUEUR_ISBN);
+        tampon.put(POS_DRAPEAUX, tronque ? TRONQUE : 0);
+        tampon.putLong(POS_SEQUENCE, prochaineSequence);
+        tampon.putLong(POS_HORODATAGE, System.currentTimeMillis());
+        tampon.putLong(POS_ID, idReservation == null ? ID_ABSENT : idReservation);
+        tampon.putInt(POS_DEBUT, dateDebut == null ? DATE_ABSENTE : (int) dateDebut.toEpochDay());
+        tampon.putInt(POS_FIN, dateFin == null ? DATE_ABSENTE : (int) dateFin.toEpochDay());
+        crc.reset();
+        crc.update(octets, 0, POS_CRC);
+        crc.update(octets, POS_SEQUENCE, TAILLE_ENREGISTREMENT - POS_SEQUENCE);
+        tampon.putInt(POS_CRC, (int) crc.getValue());
+    }
+
+    // Un texte trop long est coupé à la frontière d'un caractère ; retourne true s'il a été tronqué
+    private boolean ecrireTexte(String texte, int pos, int posLongueur) {
+        if (texte == null) {
+            tampon.put(posLongueur, (byte) TEXTE_ABSENT);
+            return false;
+        }
+        byte[] utf8 = texte.getBytes(StandardCharsets.UTF_8);
+        int longueur = utf8.length;
+        if (longueur > TAILLE_TEXTE) {
+            longueur = TAILLE_TEXTE;
+            while ((utf8[longueur] & 0xC0) == 0x80) {
+                longueur--;
+            }
+        }
+        tampon.put(pos, utf8, 0, longueur);
+        tampon.put(posLongueur, (byte) longueur);
+        return longueur < utf8.length;
+    }
+
+    private static boolean crcValide(byte[] octets) {
+        CRC32C controle = new CRC32C();
+        controle.update(octets, 0, POS_CRC);
+        controle.update(octets, POS_SEQUENCE, TAILLE_ENREGISTREMENT - POS_SEQUENCE);
+        return (int) controle.getValue() == ByteBuffer.wrap(octets).getInt(POS_CRC);
+    }
+
+    private static EvenementReservation decoder(ByteBuffer enregistrement) {
+        long id = enregistrement.getLong(POS_ID);
+        return new EvenementReservation(
+                enregistrement.getLong(POS_SEQUENCE),
+                EvenementReservation.Type.values()[enregistrement.get(POS_TYPE) - 1],
+                enregistrement.getLong(POS_HORODATAGE),
+                id == ID_ABSENT ? null : id,
+                lireTexte(enregistrement, POS_CODE, POS_LONGUEUR_CODE),
+                lireTexte(enregistrement, POS_ISBN, POS_LONGUEUR_ISBN),
+                lireDate(enregistrement, POS_DEBUT),
+                lireDate(enregistrement, POS_FIN),
+                enregistrement.get(POS_DRAPEAUX) == TRONQUE);
+    }
+
+    private static String lireTexte(ByteBuffer enregistrement, int pos, int posLongueur) {
+        int longueur = enregistrement.get(posLongueur) & 0xFF;
+        if (longueur == TEXTE_ABSENT) {
+            return null;
+        }
+        return new String(enregistrement.array(), pos, longueur, StandardCharsets.UTF_8);
+    }
+
+    private static LocalDate lireDate(ByteBuffer enregistrement, int pos) {
+        int jour = enregistrement.getInt(pos);
+        return jour == DATE_ABSENTE ? null : LocalDate.ofEpochDay(jour);
+    }
+}
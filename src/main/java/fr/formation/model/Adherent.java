@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
+@Table(indexes = @Index(name = "idx_adherent_nom", columnList = "nom"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
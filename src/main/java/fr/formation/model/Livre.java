@@ -5,12 +5,18 @@ import jakarta.persistence.Id;
 import jakarta.persistence.Column;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.EnumType;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_livre_titre", columnList = "titre"),
+        @Index(name = "idx_livre_auteur", columnList = "auteur")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
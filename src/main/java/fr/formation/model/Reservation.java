@@ -5,6 +5,10 @@ import lombok.*;
 import java.time.LocalDate;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_reservation_adherent_date_fin", columnList = "adherent_code_adherent, date_fin"),
+        @Index(name = "idx_reservation_date_fin", columnList = "date_fin")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -1,9 +1,28 @@
 package fr.formation.repository;
 
+import fr.formation.dto.AdherentResume;
 import fr.formation.model.Adherent;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface AdherentRepository extends JpaRepository<Adherent, String> {
     List<Adherent> findByNomContainingIgnoreCase(String nom);
+
+    // Verrou de ligne tenu jusqu'à la fin de la transaction : sérialise les emprunts d'un même adhérent
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Adherent> findWithLockByCodeAdherent(String codeAdherent);
+
+    // Verrous pris dans l'ordre des codes, comme tout autre lot : pas d'interblocage entre deux lots
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Adherent> findWithLockByCodeAdherentInOrderByCodeAdherent(Collection<String> codes);
+
+    @Query("select new fr.formation.dto.AdherentResume(a.codeAdherent, a.nom, a.prenom) from Adherent a where a.codeAdherent in :codes")
+    List<AdherentResume> findResumesByCodeAdherentIn(@Param("codes") Collection<String> codes);
 }
@@ -1,9 +1,16 @@
 package fr.formation.repository;
 
+import fr.formation.dto.LivreResume;
 import fr.formation.model.Livre;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,4 +19,33 @@ public interface LivreRepository extends JpaRepository<Livre, String> {
     List<Livre> findByTitreContainingIgnoreCase(String titre);
     List<Livre> findByAuteurContainingIgnoreCase(String auteur);
     Optional<Livre> findById(String isbn);
+
+    // Réserve le livre seulement s'il est encore disponible : retourne 0 si un autre emprunt l'a pris
+    @Modifying
+    @Query("update Livre l set l.disponible = false where l.isbn = :isbn and l.disponible = true")
+    int reserverSiDisponible(@Param("isbn") String isbn);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Livre> findWithLockByIsbnInOrderByIsbn(Collection<String> isbns);
+
+    // À appeler sur des livres déjà verrouillés et vérifiés disponibles
+    @Modifying
+    @Query("update Livre l set l.disponible = false where l.isbn in :isbns")
+    int marquerIndisponibles(@Param("isbns") Collection<String> isbns);
+
+    // Livres qu'aucune réservation ne retient plus, à rendre disponibles après une purge
+    @Query("select l.isbn from Livre l where l.isbn in :isbns and l.disponible = false"
+            + " and not exists (select r.id from Reservation r where r.livre = l)")
+    List<String> findLiberablesByIsbnIn(@Param("isbns") Collection<String> isbns);
+
+    @Modifying
+    @Query("update Livre l set l.disponible = true where l.isbn in :isbns")
+    int marquerDisponibles(@Param("isbns") Collection<String> isbns);
+
+    @Query("select new fr.formation.dto.LivreResume(l.isbn, l.titre, l.auteur) from Livre l where l.isbn in :isbns")
+    List<LivreResume> findResumesByIsbnIn(@Param("isbns") Collection<String> isbns);
+
+    // ISBN déjà présents, sans charger les entités
+    @Query("select l.isbn from Livre l where l.isbn in :isbns")
+    List<String> findIsbnsExistants(@Param("isbns") Collection<String> isbns);
 }
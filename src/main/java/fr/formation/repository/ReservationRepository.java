@@ -1,17 +1,104 @@
 package fr.formation.repository;
 
+import fr.formation.dto.CompteAdherent;
+import fr.formation.dto.CompteLivre;
+import fr.formation.dto.EcheanceReservation;
+import fr.formation.dto.LigneRetard;
+import fr.formation.dto.ReservationExpiree;
+import fr.formation.dto.ReservationResume;
 import fr.formation.model.Adherent;
 import fr.formation.model.Reservation;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 public interface ReservationRepository extends JpaRepository<Reservation, Long> {
-    int countByAdherentAndDateFinIsNull(Adherent adherent);
+    String APRES_CURSEUR = "and (:apresDateFin is null or r.dateFin > :apresDateFin or (r.dateFin = :apresDateFin and r.id > :apresId)) "
+            + "order by r.dateFin, r.id";
+
+    int countByAdherent(Adherent adherent);
+
+    @Query("select new fr.formation.dto.CompteAdherent(r.adherent.codeAdherent, count(r)) from Reservation r group by r.adherent.codeAdherent")
+    List<CompteAdherent> compterParAdherent();
+
+    @Query("select new fr.formation.dto.CompteLivre(r.livre.isbn, count(r)) from Reservation r group by r.livre.isbn")
+    List<CompteLivre> compterParLivre();
 
     List<Reservation> findByDateFinAfter(LocalDate date);
     List<Reservation> findByAdherentAndDateFinAfter(Adherent adherent, LocalDate date);
     List<Reservation> findByAdherent(Adherent adherent);
     List<Reservation> findByDateFinBefore(LocalDate date);
-}
\ No newline at end of file
+
+    // Pagination par curseur sur (dateFin, id)
+    Window<Reservation> findByDateFinAfterOrderByDateFinAscIdAsc(LocalDate date, ScrollPosition position, Limit limit);
+    Window<Reservation> findByAdherentAndDateFinAfterOrderByDateFinAscIdAsc(Adherent adherent, LocalDate date, ScrollPosition position, Limit limit);
+    Window<Reservation> findByAdherentOrderByDateFinAscIdAsc(Adherent adherent, ScrollPosition position, Limit limit);
+
+    // Listes résumées, triées par (dateFin, id) et reprises après le curseur (apresDateFin, apresId) s'il est fourni
+    @Query("select new fr.formation.dto.ReservationResume(r.id, r.adherent.codeAdherent, r.livre.isbn, r.dateDebut, r.dateFin) "
+            + "from Reservation r where r.dateFin > :date " + APRES_CURSEUR)
+    List<ReservationResume> findResumesActives(@Param("date") LocalDate date, @Param("apresDateFin") LocalDate apresDateFin,
+                                               @Param("apresId") Long apresId, Limit limit);
+
+    @Query("select new fr.formation.dto.ReservationResume(r.id, r.adherent.codeAdherent, r.livre.isbn, r.dateDebut, r.dateFin) "
+            + "from Reservation r where r.adherent.codeAdherent = :codeAdherent and r.dateFin > :date " + APRES_CURSEUR)
+    List<ReservationResume> findResumesActivesParAdherent(@Param("codeAdherent") String codeAdherent, @Param("date") LocalDate date,
+                                                          @Param("apresDateFin") LocalDate apresDateFin, @Param("apresId") Long apresId, Limit limit);
+
+    @Query("select new fr.formation.dto.ReservationResume(r.id, r.adherent.codeAdherent, r.livre.isbn, r.dateDebut, r.dateFin) "
+            + "from Reservation r where r.adherent.codeAdherent = :codeAdherent " + APRES_CURSEUR)
+    List<ReservationResume> findResumesParAdherent(@Param("codeAdherent") String codeAdherent, @Param("apresDateFin") LocalDate apresDateFin,
+                                                   @Param("apresId") Long apresId, Limit limit);
+
+    // Lecture en flux depuis le curseur JDBC, à consommer dans une transaction ; adhérent et livre
+    // viennent de la même ligne plutôt que d'une requête chacun
+    @Query("select r from Reservation r join fetch r.adherent join fetch r.livre where r.dateFin > :date order by r.dateFin, r.id")
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    Stream<Reservation> streamByDateFinAfterOrderByDateFinAscIdAsc(@Param("date") LocalDate date);
+
+    // Purge par lots : identifiants expirés puis suppression ensembliste
+    @Query("select new fr.formation.dto.ReservationExpiree(r.id, r.adherent.codeAdherent, r.livre.isbn, r.dateDebut, r.dateFin) from Reservation r where r.dateFin < :date order by r.id")
+    List<ReservationExpiree> findExpireesByDateFinBefore(@Param("date") LocalDate date, Limit limit);
+
+    // Purge guidée par la roue d'échéances : les identifiants sont déjà connus
+    @Query("select new fr.formation.dto.ReservationExpiree(r.id, r.adherent.codeAdherent, r.livre.isbn, r.dateDebut, r.dateFin) from Reservation r where r.id in :ids")
+    List<ReservationExpiree> findExpireesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Reconstruction de la roue d'échéances au démarrage
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select new fr.formation.dto.EcheanceReservation(r.id, r.dateFin) from Reservation r")
+    Stream<EcheanceReservation> streamEcheances();
+
+    @Modifying
+    @Query("delete from Reservation r where r.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Rappels par lots d'adhérents : codes des adhérents en retard après apres, puis leurs lignes.
+    // Retards dont la date de fin est dans [debut, fin), sans borne basse si debut est nul
+    @Query("select distinct r.adherent.codeAdherent from Reservation r where r.dateFin < :fin "
+            + "and (:debut is null or r.dateFin >= :debut) and (:apres is null or r.adherent.codeAdherent > :apres) "
+            + "order by r.adherent.codeAdherent")
+    List<String> findAdherentsEnRetard(@Param("debut") LocalDate debut, @Param("fin") LocalDate fin,
+                                       @Param("apres") String apres, Limit limit);
+
+    @Query("select new fr.formation.dto.LigneRetard(a.codeAdherent, a.prenom, a.adresseMail, l.titre, r.dateFin) "
+            + "from Reservation r join r.adherent a join r.livre l "
+            + "where a.codeAdherent in :codes and r.dateFin < :fin and (:debut is null or r.dateFin >= :debut) "
+            + "order by a.codeAdherent, r.id")
+    List<LigneRetard> findRetardsParAdherentIn(@Param("codes") Collection<String> codes, @Param("debut") LocalDate debut,
+                                               @Param("fin") LocalDate fin);
+}
@@ -1,21 +1,65 @@
 package fr.formation.service;
 
+import fr.formation.cache.VersionsEntites;
+import fr.formation.cache.VersionsEntites.Ressource;
+import fr.formation.dto.Versionne;
+import fr.formation.index.IndexAdherents;
+import fr.formation.index.IndexApproche;
 import fr.formation.model.Adherent;
 import fr.formation.repository.AdherentRepository;
 import jakarta.persistence.EntityNotFoundException;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
+@Timed("service.appels")
 public class AdherentService {
 
     @Autowired
     private AdherentRepository adherentRepository;
 
+    @Autowired
+    private IndexAdherents indexAdherents;
+
+    @Autowired
+    private VersionsEntites versionsEntites;
+
+    public void construireIndex() {
+        construireIndex(adherentRepository.findAll());
+    }
+
+    public void construireIndex(List<Adherent> adherents) {
+        indexAdherents.reconstruire(adherents);
+    }
+
+    public void suivreEcritures() {
+        indexAdherents.suivreEcritures();
+    }
+
+    // Relit en base les adhérents écrits depuis suivreEcritures et les réindexe, jusqu'à un relevé vide
+    public void rejouerEcritures() {
+        for (Set<String> codes = indexAdherents.releverEcritures(); !codes.isEmpty(); codes = indexAdherents.releverEcritures()) {
+            List<Adherent> relus = adherentRepository.findAllById(codes);
+            Set<String> absents = new HashSet<>(codes);
+            relus.forEach(adherent -> absents.remove(adherent.getCodeAdherent()));
+            indexAdherents.rafraichir(relus, absents);
+        }
+    }
+
+    public void arreterSuivi() {
+        indexAdherents.arreterSuivi();
+    }
+
     public Adherent ajouterAdherent(Adherent adherent) {
-        return adherentRepository.save(adherent);
+        Adherent adherentEnregistre = adherentRepository.save(adherent);
+        indexAdherents.indexer(adherentEnregistre);
+        versionsEntites.incrementer(Ressource.ADHERENT, adherentEnregistre.getCodeAdherent());
+        return adherentEnregistre;
     }
 
     public Adherent modifierAdherent(String code, Adherent adherentModifie) {
@@ -25,7 +69,10 @@ public class AdherentService {
         adherent.setPrenom(adherentModifie.getPrenom());
         adherent.setDateNaissance(adherentModifie.getDateNaissance());
         adherent.setAdresseMail(adherentModifie.getAdresseMail());
-        return adherentRepository.save(adherent);
+        Adherent adherentEnregistre = adherentRepository.save(adherent);
+        indexAdherents.indexer(adherentEnregistre);
+        versionsEntites.incrementer(Ressource.ADHERENT, adherentEnregistre.getCodeAdherent());
+        return adherentEnregistre;
     }
 
     public void supprimerAdherent(String code) {
@@ -33,13 +80,44 @@ public class AdherentService {
             throw new EntityNotFoundException("Adhérent non trouvé");
         }
         adherentRepository.deleteById(code);
+        indexAdherents.retirer(code);
+        versionsEntites.oublier(Ressource.ADHERENT, code);
     }
 
     public Optional<Adherent> rechercherParCode(String code) {
-        return adherentRepository.findById(code);
+        // Tant que l'index n'est pas construit, on interroge la base
+        if (!indexAdherents.estPret()) {
+            return adherentRepository.findById(code);
+        }
+        return indexAdherents.rechercherParCode(code);
+    }
+
+    // ETag connu sans lecture de l'adhérent, pour répondre 304 à un client à jour
+    public Optional<String> etag(String code) {
+        return versionsEntites.etag(Ressource.ADHERENT, code);
+    }
+
+    public Optional<Versionne<Adherent>> rechercherParCodeVersionne(String code) {
+        String etag = versionsEntites.suivre(Ressource.ADHERENT, code);
+        Optional<Adherent> adherent = rechercherParCode(code);
+        if (adherent.isEmpty()) {
+            versionsEntites.oublier(Ressource.ADHERENT, code);
+        }
+        return adherent.map(trouve -> new Versionne<>(trouve, etag));
     }
 
     public List<Adherent> rechercherParNom(String nom) {
-        return adherentRepository.findByNomContainingIgnoreCase(nom);
+        if (!indexAdherents.estPret()) {
+            return adherentRepository.findByNomContainingIgnoreCase(nom);
+        }
+        return indexAdherents.rechercherParNom(nom);
+    }
+
+    public List<Adherent> rechercherParNomApproche(String nom, int limite) {
+        int plafond = Math.max(0, Math.min(limite, IndexApproche.RESULTATS_MAX));
+        if (!indexAdherents.estPret()) {
+            return adherentRepository.findByNomContainingIgnoreCase(nom).stream().limit(plafond).toList();
+        }
+        return indexAdherents.rechercherParNomApproche(nom, plafond);
     }
 }
@@ -0,0 +1,71 @@
+package fr.formation.service;
+
+import fr.formation.index.CurseurEcheances;
+import fr.formation.index.EcheancesReservations;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Passage au jour suivant : la roue d'échéances donne exactement les réservations passées
+ * en retard depuis la bascule précédente, et seuls leurs adhérents reçoivent un rappel.
+ * Planifiée par {@code reservations.echeances.cron}, désactivée par défaut.
+ */
+@Component
+public class BasculeEcheances {
+
+    private final EcheancesReservations echeances;
+    private final CurseurEcheances curseurEcheances;
+    private final PreparationRappels preparationRappels;
+    private final PipelineRappels pipelineRappels;
+    private final PurgeReservations purgeReservations;
+    private final int purgeApresJours;
+
+    public BasculeEcheances(EcheancesReservations echeances,
+                            CurseurEcheances curseurEcheances,
+                            PreparationRappels preparationRappels,
+                            PipelineRappels pipelineRappels,
+                            PurgeReservations purgeReservations,
+                            @Value("${reservations.echeances.purge-apres-jours:0}") int purgeApresJours) {
+        this.echeances = echeances;
+        this.curseurEcheances = curseurEcheances;
+        this.preparationRappels = preparationRappels;
+        this.pipelineRappels = pipelineRappels;
+        this.purgeReservations = purgeReservations;
+        this.purgeApresJours = purgeApresJours;
+    }
+
+    @Scheduled(cron = "${reservations.echeances.cron:-}")
+    public void basculerAujourdhui() {
+        basculer(LocalDate.now());
+    }
+
+    /**
+     * Envoie les rappels des réservations arrivées à échéance depuis la bascule précédente,
+     * puis purge, si {@code purgeApresJours} est positif, celles en retard depuis plus longtemps.
+     * Retourne la tâche d'envoi, absente s'il n'y a aucun nouveau retard ou si l'envoi précédent
+     * tourne encore : les jours ne sont alors pas marqués basculés et la bascule suivante les reprend.
+     */
+    public Optional<TacheRappel> basculer(LocalDate aujourdhui) {
+        if (!echeances.estPret()) {
+            return Optional.empty();
+        }
+        EcheancesReservations.Basculement basculement = echeances.aBasculer(aujourdhui);
+        Optional<TacheRappel> tache = Optional.empty();
+        if (!basculement.ids().isEmpty()) {
+            tache = pipelineRappels.lancerSiLibre(emetteur ->
+                    preparationRappels.preparerEntre(basculement.debut(), basculement.fin(), emetteur));
+        }
+        if (basculement.ids().isEmpty() || tache.isPresent()) {
+            echeances.avancer(basculement.fin());
+            curseurEcheances.enregistrer(basculement.fin());
+        }
+        if (purgeApresJours > 0) {
+            purgeReservations.purger(aujourdhui.minusDays(purgeApresJours));
+        }
+        return tache;
+    }
+}
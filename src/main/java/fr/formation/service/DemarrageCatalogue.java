@@ -0,0 +1,157 @@
+package fr.formation.service;
+
+import fr.formation.instantane.InstantaneCatalogue;
+import fr.formation.model.Adherent;
+import fr.formation.model.Livre;
+import fr.formation.repository.AdherentRepository;
+import fr.formation.repository.LivreRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Construit les index des livres et des adhérents au démarrage. Avec un instantané valide,
+ * ils sont construits depuis le fichier et servent aussitôt, pendant que la base est relue
+ * en arrière-plan : si elle diffère, les index sont reconstruits depuis la base. Le bitmap
+ * de disponibilité n'est construit qu'à partir de la base. Les livres et adhérents écrits entre
+ * la lecture de la base et la fin d'une reconstruction sont relus puis réindexés, pour que la
+ * reconstruction n'efface pas ces écritures. En cas d'échec, la construction est relancée
+ * après {@code catalogue.demarrage.delai-relance}.
+ * L'instantané est réécrit périodiquement ({@code catalogue.instantane.periode}).
+ */
+@Component
+public class DemarrageCatalogue {
+
+    private static final Logger log = LoggerFactory.getLogger(DemarrageCatalogue.class);
+
+    private final InstantaneCatalogue instantane;
+    private final LivreService livreService;
+    private final AdherentService adherentService;
+    private final LivreRepository livreRepository;
+    private final AdherentRepository adherentRepository;
+    private final Duration delaiRelance;
+    private final SimpleAsyncTaskExecutor executeur = new SimpleAsyncTaskExecutor("catalogue-");
+
+    public DemarrageCatalogue(InstantaneCatalogue instantane, LivreService livreService, AdherentService adherentService,
+                              LivreRepository livreRepository, AdherentRepository adherentRepository,
+                              @Value("${catalogue.demarrage.delai-relance:PT30S}") Duration delaiRelance) {
+        this.instantane = instantane;
+        this.livreService = livreService;
+        this.adherentService = adherentService;
+        this.livreRepository = livreRepository;
+        this.adherentRepository = adherentRepository;
+        this.delaiRelance = delaiRelance;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void demarrer() {
+        demarrer(1);
+    }
+
+    private void demarrer(int tentative) {
+        CompletableFuture<Boolean> verification;
+        try {
+            verification = rechauffer();
+        } catch (RuntimeException e) {
+            verification = CompletableFuture.failedFuture(e);
+        }
+        verification.whenComplete((aJour, erreur) -> {
+            if (erreur != null) {
+                log.error("Construction du catalogue en échec (tentative {}), relance dans {}", tentative, delaiRelance, erreur);
+                CompletableFuture.runAsync(() -> demarrer(tentative + 1),
+                        CompletableFuture.delayedExecutor(delaiRelance.toMillis(), TimeUnit.MILLISECONDS, executeur));
+            }
+        });
+    }
+
+    /**
+     * Construit les index et retourne la vérification en arrière-plan : true si l'instantané
+     * était à jour, false s'il a fallu reconstruire depuis la base ou s'il n'y avait pas d'instantané.
+     */
+    public CompletableFuture<Boolean> rechauffer() {
+        Optional<InstantaneCatalogue.Contenu> contenu;
+        try {
+            contenu = instantane.lire();
+        } catch (UncheckedIOException e) {
+            contenu = Optional.empty();
+        }
+        if (contenu.isEmpty()) {
+            List<Livre> livres = new ArrayList<>();
+            List<Adherent> adherents = new ArrayList<>();
+            sousSuivi(() -> {
+                livres.addAll(livreRepository.findAll());
+                adherents.addAll(adherentRepository.findAll());
+                livreService.construireIndex(livres);
+                adherentService.construireIndex(adherents);
+                return null;
+            });
+            if (!instantane.estActif()) {
+                return CompletableFuture.completedFuture(false);
+            }
+            // Premier démarrage : l'instantané servira au suivant
+            return CompletableFuture.supplyAsync(() -> {
+                instantane.ecrire(livres, adherents);
+                return false;
+            }, executeur);
+        }
+        InstantaneCatalogue.Contenu charge = contenu.get();
+        livreService.construireIndexRecherche(charge.livres());
+        adherentService.construireIndex(charge.adherents());
+        return CompletableFuture.supplyAsync(() -> sousSuivi(() -> verifier(charge)), executeur);
+    }
+
+    private <T> T sousSuivi(Supplier<T> reconstruction) {
+        livreService.suivreEcritures();
+        adherentService.suivreEcritures();
+        try {
+            T resultat = reconstruction.get();
+            livreService.rejouerEcritures();
+            adherentService.rejouerEcritures();
+            return resultat;
+        } finally {
+            livreService.arreterSuivi();
+            adherentService.arreterSuivi();
+        }
+    }
+
+    private boolean verifier(InstantaneCatalogue.Contenu contenu) {
+        List<Livre> livres = livreRepository.findAll();
+        List<Adherent> adherents = adherentRepository.findAll();
+        boolean livresAJour = new HashSet<>(livres).equals(new HashSet<>(contenu.livres()));
+        boolean adherentsAJour = new HashSet<>(adherents).equals(new HashSet<>(contenu.adherents()));
+        if (livresAJour) {
+            livreService.construireDisponibilites(livres);
+        } else {
+            livreService.construireIndex(livres);
+        }
+        if (!adherentsAJour) {
+            adherentService.construireIndex(adherents);
+        }
+        if (!livresAJour || !adherentsAJour) {
+            instantane.ecrire(livres, adherents);
+        }
+        return livresAJour && adherentsAJour;
+    }
+
+    @Scheduled(fixedDelayString = "${catalogue.instantane.periode:PT15M}", initialDelayString = "${catalogue.instantane.periode:PT15M}")
+    public void enregistrerInstantane() {
+        if (instantane.estActif()) {
+            instantane.ecrire(livreRepository.findAll(), adherentRepository.findAll());
+        }
+    }
+}
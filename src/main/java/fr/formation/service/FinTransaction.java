@@ -0,0 +1,43 @@
+package fr.formation.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Synchronise les structures en mémoire avec l'issue de la transaction courante,
+ * pour qu'un rollback ne les laisse pas incohérentes.
+ */
+final class FinTransaction {
+
+    private FinTransaction() {
+    }
+
+    // Exécute l'action après le commit, ou immédiatement s'il n'y a pas de transaction
+    static void apresCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // Exécute l'action si la transaction est annulée ; sans transaction, rien à compenser
+    static void apresAnnulation(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int statut) {
+                if (statut != STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+}
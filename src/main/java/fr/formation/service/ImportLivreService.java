@@ -0,0 +1,245 @@
+package fr.formation.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.formation.dto.RapportImport;
+import fr.formation.dto.RapportImport.RejetImport;
+import fr.formation.index.DisponibiliteLivres;
+import fr.formation.index.IndexRechercheLivres;
+import fr.formation.index.RechercheCatalogue;
+import fr.formation.index.SuggestionsLivres;
+import fr.formation.model.Format;
+import fr.formation.model.Livre;
+import fr.formation.repository.LivreRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+
+/**
+ * Import en masse du catalogue depuis un flux CSV ou NDJSON.
+ * Les lignes sont lues au fil de l'eau et écrites par lots JDBC, chaque lot dans sa
+ * propre transaction. Une ligne invalide est rejetée sans interrompre l'import.
+ */
+@Service
+public class ImportLivreService {
+
+    public enum FormatImport {
+        CSV, NDJSON
+    }
+
+    static final int MAX_REJETS_DETAILLES = 1000;
+    private static final List<String> COLONNES_CSV = List.of("isbn", "titre", "auteur", "editeur", "format", "disponible");
+
+    private final LivreRepository livreRepository;
+    private final IndexRechercheLivres indexRechercheLivres;
+    private final DisponibiliteLivres disponibiliteLivres;
+    private final SuggestionsLivres suggestionsLivres;
+    private final RechercheCatalogue rechercheCatalogue;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int tailleLot;
+
+    public ImportLivreService(LivreRepository livreRepository,
+                              IndexRechercheLivres indexRechercheLivres,
+                              DisponibiliteLivres disponibiliteLivres,
+                              SuggestionsLivres suggestionsLivres,
+                              RechercheCatalogue rechercheCatalogue,
+                              EntityManager entityManager,
+                              PlatformTransactionManager transactionManager,
+                              ObjectMapper objectMapper,
+                              @Value("${livres.import.taille-lot:500}") int tailleLot) {
+        this.livreRepository = livreRepository;
+        this.indexRechercheLivres = indexRechercheLivres;
+        this.disponibiliteLivres = disponibiliteLivres;
+        this.suggestionsLivres = suggestionsLivres;
+        this.rechercheCatalogue = rechercheCatalogue;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.objectMapper = objectMapper;
+        this.tailleLot = tailleLot;
+    }
+
+    public RapportImport importerLivres(Reader source, FormatImport format) throws IOException {
+        Bilan bilan = new Bilan();
+        List<LigneImport> lot = new ArrayList<>(tailleLot);
+        BufferedReader lecteur = new BufferedReader(source);
+
+        String ligne;
+        long numero = 0;
+        while ((ligne = lecteur.readLine()) != null) {
+            numero++;
+            // Ignore les lignes vides et l'éventuel en-tête CSV
+            if (ligne.isBlank() || (format == FormatImport.CSV && numero == 1 && estEnTete(ligne))) {
+                continue;
+            }
+            bilan.lignesLues++;
+            try {
+                Livre livre = format == FormatImport.CSV ? lireCsv(ligne) : objectMapper.readValue(ligne, Livre.class);
+                valider(livre);
+                lot.add(new LigneImport(numero, livre));
+            } catch (IllegalArgumentException | IOException e) {
+                bilan.rejeter(numero, null, e.getMessage());
+                continue;
+            }
+            if (lot.size() >= tailleLot) {
+                enregistrerLot(lot, bilan);
+                lot.clear();
+            }
+        }
+        if (!lot.isEmpty()) {
+            enregistrerLot(lot, bilan);
+        }
+        return new RapportImport(bilan.lignesLues, bilan.livresImportes, bilan.nombreRejets, bilan.rejets);
+    }
+
+    private void enregistrerLot(List<LigneImport> lot, Bilan bilan) {
+        // Écarte les ISBN déjà présents en base ou en double dans le lot (une seule requête IN par lot)
+        Set<String> existants = new HashSet<>(livreRepository.findIsbnsExistants(lot.stream().map(l -> l.livre().getIsbn()).toList()));
+        List<LigneImport> aInserer = new ArrayList<>(lot.size());
+        for (LigneImport ligne : lot) {
+            if (!existants.add(ligne.livre().getIsbn())) {
+                bilan.rejeter(ligne.numero(), ligne.livre().getIsbn(), "ISBN déjà existant");
+            } else {
+                aInserer.add(ligne);
+            }
+        }
+        if (aInserer.isEmpty()) {
+            return;
+        }
+
+        try {
+            inserer(aInserer);
+        } catch (RuntimeException e) {
+            // Le lot a échoué (ex : insertion concurrente) : on rejoue ligne par ligne pour isoler les fautives
+            List<LigneImport> inseres = new ArrayList<>(aInserer.size());
+            for (LigneImport ligne : aInserer) {
+                try {
+                    inserer(List.of(ligne));
+                    inseres.add(ligne);
+                } catch (RuntimeException erreurLigne) {
+                    bilan.rejeter(ligne.numero(), ligne.livre().getIsbn(), "Insertion refusée : " + erreurLigne.getMessage());
+                }
+            }
+            aInserer = inseres;
+        }
+
+        for (LigneImport ligne : aInserer) {
+            disponibiliteLivres.enregistrer(ligne.livre());
+            indexRechercheLivres.indexer(ligne.livre());
+            suggestionsLivres.indexer(ligne.livre());
+            rechercheCatalogue.indexer(ligne.livre());
+        }
+        bilan.livresImportes += aInserer.size();
+    }
+
+    private void inserer(List<LigneImport> lignes) {
+        transactionTemplate.executeWithoutResult(statut -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(tailleLot);
+            for (LigneImport ligne : lignes) {
+                entityManager.persist(ligne.livre());
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+
+    private static boolean estEnTete(String ligne) {
+        return ligne.toLowerCase(Locale.ROOT).startsWith(COLONNES_CSV.get(0) + ",");
+    }
+
+    private static void valider(Livre livre) {
+        if (livre == null) {
+            throw new IllegalArgumentException("Ligne vide");
+        }
+        exiger(livre.getIsbn(), "isbn");
+        exiger(livre.getTitre(), "titre");
+        exiger(livre.getAuteur(), "auteur");
+        exiger(livre.getEditeur(), "editeur");
+        if (livre.getFormat() == null) {
+            throw new IllegalArgumentException("Champ obligatoire manquant : format");
+        }
+    }
+
+    private static void exiger(String valeur, String champ) {
+        if (valeur == null || valeur.isBlank()) {
+            throw new IllegalArgumentException("Champ obligatoire manquant : " + champ);
+        }
+    }
+
+    static Livre lireCsv(String ligne) {
+        List<String> champs = decouperCsv(ligne);
+        if (champs.size() != COLONNES_CSV.size()) {
+            throw new IllegalArgumentException("Nombre de colonnes invalide : " + champs.size() + " au lieu de " + COLONNES_CSV.size());
+        }
+        Format format;
+        try {
+            format = Format.valueOf(champs.get(4).trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Format inconnu : " + champs.get(4));
+        }
+        String disponible = champs.get(5).trim();
+        if (!disponible.equalsIgnoreCase("true") && !disponible.equalsIgnoreCase("false")) {
+            throw new IllegalArgumentException("Valeur de disponibilité invalide : " + disponible);
+        }
+        return new Livre(champs.get(0).trim(), champs.get(1), champs.get(2), champs.get(3), format, Boolean.parseBoolean(disponible));
+    }
+
+    // Découpage CSV simple : virgule comme séparateur, guillemets doubles pour échapper
+    static List<String> decouperCsv(String ligne) {
+        List<String> champs = new ArrayList<>();
+        StringBuilder champ = new StringBuilder();
+        boolean entreGuillemets = false;
+        for (int i = 0; i < ligne.length(); i++) {
+            char c = ligne.charAt(i);
+            if (entreGuillemets) {
+                if (c == '"' && i + 1 < ligne.length() && ligne.charAt(i + 1) == '"') {
+                    champ.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreGuillemets = false;
+                } else {
+                    champ.append(c);
+                }
+            } else if (c == '"') {
+                entreGuillemets = true;
+            } else if (c == ',') {
+                champs.add(champ.toString());
+                champ.setLength(0);
+            } else {
+                champ.append(c);
+            }
+        }
+        if (entreGuillemets) {
+            throw new IllegalArgumentException("Guillemet non fermé");
+        }
+        champs.add(champ.toString());
+        return champs;
+    }
+
+    private record LigneImport(long numero, Livre livre) {
+    }
+
+    private static class Bilan {
+        long lignesLues;
+        long livresImportes;
+        long nombreRejets;
+        final List<RejetImport> rejets = new ArrayList<>();
+
+        void rejeter(long ligne, String isbn, String motif) {
+            nombreRejets++;
+            if (rejets.size() < MAX_REJETS_DETAILLES) {
+                rejets.add(new RejetImport(ligne, isbn, motif));
+            }
+        }
+    }
+}
@@ -1,24 +1,116 @@
 package fr.formation.service;
 
+import fr.formation.cache.CacheLivres;
+import fr.formation.cache.VersionsEntites;
+import fr.formation.cache.VersionsEntites.Ressource;
+import fr.formation.dto.CriteresLivres;
+import fr.formation.dto.PageLivres;
+import fr.formation.dto.Versionne;
+import fr.formation.exception.IndexIndisponibleException;
+import fr.formation.index.DisponibiliteLivres;
+import fr.formation.index.IndexApproche;
+import fr.formation.index.IndexRechercheLivres;
+import fr.formation.index.RechercheCatalogue;
+import fr.formation.index.SuggestionsLivres;
 import fr.formation.model.Livre;
 import fr.formation.repository.LivreRepository;
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
+@Timed("service.appels")
 public class LivreService {
 
     private final LivreRepository livreRepository;
+    private final IndexRechercheLivres indexRechercheLivres;
+    private final CacheLivres cacheLivres;
+    private final DisponibiliteLivres disponibiliteLivres;
+    private final SuggestionsLivres suggestionsLivres;
+    private final RechercheCatalogue rechercheCatalogue;
+    private final VersionsEntites versionsEntites;
 
-    public LivreService(LivreRepository livreRepository) {
+    public LivreService(LivreRepository livreRepository, IndexRechercheLivres indexRechercheLivres,
+                        CacheLivres cacheLivres, DisponibiliteLivres disponibiliteLivres,
+                        SuggestionsLivres suggestionsLivres, RechercheCatalogue rechercheCatalogue,
+                        VersionsEntites versionsEntites) {
         this.livreRepository = livreRepository;
+        this.indexRechercheLivres = indexRechercheLivres;
+        this.cacheLivres = cacheLivres;
+        this.disponibiliteLivres = disponibiliteLivres;
+        this.suggestionsLivres = suggestionsLivres;
+        this.rechercheCatalogue = rechercheCatalogue;
+        this.versionsEntites = versionsEntites;
+    }
+
+    // Construit l'index de recherche et le bitmap de disponibilité depuis la base
+    public void construireIndex() {
+        construireIndex(livreRepository.findAll());
+    }
+
+    public void construireIndex(List<Livre> catalogue) {
+        construireIndexRecherche(catalogue);
+        disponibiliteLivres.reconstruire(catalogue);
+    }
+
+    // Catalogue qui peut être périmé : le bitmap, qui fait refuser des emprunts, reste vide,
+    // et aucun filtre de disponibilité ne se fie à ce catalogue avant sa construction
+    public void construireIndexRecherche(List<Livre> catalogue) {
+        indexRechercheLivres.reconstruire(catalogue);
+        suggestionsLivres.reconstruire(catalogue);
+        rechercheCatalogue.reconstruire(catalogue);
+    }
+
+    public void construireDisponibilites(List<Livre> catalogue) {
+        disponibiliteLivres.reconstruire(catalogue);
+    }
+
+    // Chaque écriture passe d'abord par le bitmap, qui la note si une reconstruction est en cours
+    public void suivreEcritures() {
+        disponibiliteLivres.suivreEcritures();
+    }
+
+    /**
+     * Relit en base les livres écrits depuis {@link #suivreEcritures()} et les réindexe, jusqu'à
+     * un relevé vide, pour qu'une reconstruction n'efface pas une écriture validée pendant sa lecture.
+     */
+    public void rejouerEcritures() {
+        for (Set<String> isbns = disponibiliteLivres.releverEcritures(); !isbns.isEmpty(); isbns = disponibiliteLivres.releverEcritures()) {
+            List<Livre> relus = livreRepository.findAllById(isbns);
+            Set<String> absents = new HashSet<>(isbns);
+            for (Livre livre : relus) {
+                absents.remove(livre.getIsbn());
+                indexRechercheLivres.indexer(livre);
+                suggestionsLivres.indexer(livre);
+                rechercheCatalogue.indexer(livre);
+            }
+            for (String isbn : absents) {
+                indexRechercheLivres.retirer(isbn);
+                suggestionsLivres.retirer(isbn);
+                rechercheCatalogue.retirer(isbn);
+            }
+            disponibiliteLivres.rafraichir(relus, absents);
+        }
+    }
+
+    public void arreterSuivi() {
+        disponibiliteLivres.arreterSuivi();
     }
 
     public Livre ajouterLivre(Livre livre) {
-        return livreRepository.save(livre);
+        Livre livreEnregistre = livreRepository.save(livre);
+        disponibiliteLivres.enregistrer(livreEnregistre);
+        indexRechercheLivres.indexer(livreEnregistre);
+        suggestionsLivres.indexer(livreEnregistre);
+        rechercheCatalogue.indexer(livreEnregistre);
+        cacheLivres.mettreAJour(livreEnregistre);
+        versionsEntites.incrementer(Ressource.LIVRE, livreEnregistre.getIsbn());
+        return livreEnregistre;
     }
 
     public Livre modifierLivre(String isbn, Livre livre) {
@@ -26,7 +118,14 @@ public class LivreService {
             throw new EntityNotFoundException("Livre introuvable");
         }
         livre.setIsbn(isbn);
-        return livreRepository.save(livre);
+        Livre livreModifie = livreRepository.save(livre);
+        disponibiliteLivres.enregistrer(livreModifie);
+        indexRechercheLivres.indexer(livreModifie);
+        suggestionsLivres.indexer(livreModifie);
+        rechercheCatalogue.indexer(livreModifie);
+        cacheLivres.mettreAJour(livreModifie);
+        versionsEntites.incrementer(Ressource.LIVRE, isbn);
+        return livreModifie;
     }
 
     public void supprimerLivre(String isbn) {
@@ -34,17 +133,111 @@ public class LivreService {
             throw new EntityNotFoundException("Livre introuvable");
         }
         livreRepository.deleteById(isbn);
+        disponibiliteLivres.retirer(isbn);
+        indexRechercheLivres.retirer(isbn);
+        suggestionsLivres.retirer(isbn);
+        rechercheCatalogue.retirer(isbn);
+        cacheLivres.invalider(isbn);
+        versionsEntites.oublier(Ressource.LIVRE, isbn);
     }
 
     public Optional<Livre> rechercherParISBN(String isbn) {
-        return livreRepository.findById(isbn);
+        return cacheLivres.obtenir(isbn, livreRepository::findById);
+    }
+
+    // ETag connu sans lecture du livre, pour répondre 304 à un client à jour
+    public Optional<String> etag(String isbn) {
+        return versionsEntites.etag(Ressource.LIVRE, isbn);
+    }
+
+    /**
+     * Livre et ETag de la version prise avant la lecture. Les écritures n'incrémentent la version
+     * qu'après avoir rendu le nouveau livre visible (cache invalidé ou mis à jour), et le cache
+     * ne garde pas un chargement concurrent d'une invalidation : un ETag n'est donc jamais plus
+     * récent que le livre servi avec lui.
+     */
+    public Optional<Versionne<Livre>> rechercherParIsbnVersionne(String isbn) {
+        String etag = versionsEntites.suivre(Ressource.LIVRE, isbn);
+        Optional<Livre> livre = rechercherParISBN(isbn);
+        if (livre.isEmpty()) {
+            versionsEntites.oublier(Ressource.LIVRE, isbn);
+        }
+        return livre.map(trouve -> new Versionne<>(trouve, etag));
     }
 
     public List<Livre> rechercherParTitre(String titre) {
-        return livreRepository.findByTitreContainingIgnoreCase(titre);
+        // Tant que l'index n'est pas construit, on interroge la base
+        if (!indexRechercheLivres.estPret()) {
+            return livreRepository.findByTitreContainingIgnoreCase(titre);
+        }
+        return disponibiliteLivres.actualiser(indexRechercheLivres.rechercherParTitre(titre));
     }
 
     public List<Livre> rechercherParAuteur(String auteur) {
-        return livreRepository.findByAuteurContainingIgnoreCase(auteur);
+        if (!indexRechercheLivres.estPret()) {
+            return livreRepository.findByAuteurContainingIgnoreCase(auteur);
+        }
+        return disponibiliteLivres.actualiser(indexRechercheLivres.rechercherParAuteur(auteur));
+    }
+
+    /**
+     * Recherche tolérante aux accents et aux fautes ; avant la construction de l'index,
+     * se rabat sur la recherche par sous-chaîne de la base.
+     */
+    public List<Livre> rechercherParAuteurApproche(String auteur, int limite) {
+        int plafond = Math.max(0, Math.min(limite, IndexApproche.RESULTATS_MAX));
+        if (!indexRechercheLivres.estPret()) {
+            return livreRepository.findByAuteurContainingIgnoreCase(auteur).stream().limit(plafond).toList();
+        }
+        return disponibiliteLivres.actualiser(indexRechercheLivres.rechercherParAuteurApproche(auteur, plafond));
+    }
+
+    /**
+     * Titres et auteurs commençant par {@code prefixe}, les plus réservés d'abord ;
+     * avant la construction de l'index, titres trouvés en base par sous-chaîne.
+     */
+    public List<String> suggerer(String prefixe, int limite) {
+        int plafond = Math.max(0, Math.min(limite, SuggestionsLivres.SUGGESTIONS_MAX));
+        if (!suggestionsLivres.estPret()) {
+            return livreRepository.findByTitreContainingIgnoreCase(prefixe).stream()
+                    .map(Livre::getTitre)
+                    .distinct()
+                    .limit(plafond)
+                    .toList();
+        }
+        return suggestionsLivres.suggerer(prefixe, plafond);
+    }
+
+    /**
+     * Recherche multicritère paginée. Sans index, elle reviendrait à relire tout le catalogue
+     * à chaque requête : avant la construction de l'index et du bitmap, dont elle tire
+     * ses disponibilités, la recherche est refusée.
+     */
+    public PageLivres rechercher(CriteresLivres criteres, int page, int taille) {
+        if (!rechercheCatalogue.estPret() || !disponibiliteLivres.estPret()) {
+            throw new IndexIndisponibleException("Index de recherche en cours de construction");
+        }
+        return rechercheCatalogue.rechercher(criteres, page, taille);
+    }
+
+    // Tant que le bitmap n'est pas construit, le filtre porte sur les livres lus en base
+    public List<Livre> rechercherParTitre(String titre, boolean disponiblesSeulement) {
+        if (!disponiblesSeulement) {
+            return rechercherParTitre(titre);
+        }
+        return disponibiliteLivres.filtrerDisponibles(disponibiliteLivres.estPret()
+                ? rechercherParTitre(titre) : livreRepository.findByTitreContainingIgnoreCase(titre));
+    }
+
+    public List<Livre> rechercherParAuteur(String auteur, boolean disponiblesSeulement) {
+        if (!disponiblesSeulement) {
+            return rechercherParAuteur(auteur);
+        }
+        return disponibiliteLivres.filtrerDisponibles(disponibiliteLivres.estPret()
+                ? rechercherParAuteur(auteur) : livreRepository.findByAuteurContainingIgnoreCase(auteur));
+    }
+
+    public CacheLivres.Statistiques statistiquesCache() {
+        return cacheLivres.statistiques();
     }
 }
@@ -1,8 +1,10 @@
 package fr.formation.service;
 
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
 
 @Service
+@Timed("service.appels")
 public class MailService {
 
     private final EmailSender emailSender;
@@ -0,0 +1,4 @@
+package fr.formation.service;
+
+public record MessageRappel(String destinataire, String sujet, String contenu) {
+}
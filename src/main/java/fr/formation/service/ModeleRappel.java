@@ -0,0 +1,136 @@
+package fr.formation.service;
+
+import fr.formation.dto.LigneRetard;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Modèle du message de rappel, compilé une seule fois en fragments littéraux et emplacements
+ * ({prenom} et {livres} pour le message, {titre} et {dateFin} pour chaque livre).
+ * Le rendu se fait dans un tampon réutilisé par thread et les dates déjà formatées sont gardées en cache.
+ */
+public final class ModeleRappel {
+
+    public static final String MESSAGE = """
+            Cher(e) {prenom},
+
+            Vous avez des réservations en retard :
+            {livres}
+            Merci de les retourner au plus vite.
+
+            Cordialement,
+            Bibliothèque""";
+    public static final String LIGNE = "- {titre} (fin prévue le {dateFin})\n";
+
+    private static final int CAPACITE_INITIALE = 1024;
+    // Au-delà, le tampon n'est pas conservé pour ne pas garder en mémoire un message exceptionnel
+    private static final int CAPACITE_CONSERVEE = 64 * 1024;
+    private static final int DATES_MAX = 4096;
+
+    private enum Emplacement {PRENOM, LIVRES, TITRE, DATE_FIN}
+
+    // litteraux[i] précède emplacements[i] ; le dernier littéral termine le modèle
+    private record Compile(String[] litteraux, Emplacement[] emplacements) {
+    }
+
+    private final Compile message;
+    private final Compile ligne;
+    private final ThreadLocal<StringBuilder> tampons = ThreadLocal.withInitial(() -> new StringBuilder(CAPACITE_INITIALE));
+    private final Map<LocalDate, String> dates = new ConcurrentHashMap<>();
+
+    public ModeleRappel() {
+        this(MESSAGE, LIGNE);
+    }
+
+    public ModeleRappel(String modeleMessage, String modeleLigne) {
+        this.message = compiler(modeleMessage, Set.of(Emplacement.PRENOM, Emplacement.LIVRES));
+        this.ligne = compiler(modeleLigne, Set.of(Emplacement.TITRE, Emplacement.DATE_FIN));
+    }
+
+    /**
+     * Rend le message d'un adhérent ; les lignes sont celles de ses réservations en retard.
+     */
+    public String rendre(List<LigneRetard> retards) {
+        StringBuilder tampon = tampons.get();
+        tampon.setLength(0);
+        LigneRetard adherent = retards.get(0);
+        for (int i = 0; i < message.emplacements().length; i++) {
+            tampon.append(message.litteraux()[i]);
+            if (message.emplacements()[i] == Emplacement.PRENOM) {
+                tampon.append(adherent.prenom());
+            } else {
+                for (LigneRetard retard : retards) {
+                    rendreLigne(tampon, retard);
+                }
+            }
+        }
+        tampon.append(message.litteraux()[message.emplacements().length]);
+
+        String resultat = tampon.toString();
+        if (tampon.capacity() > CAPACITE_CONSERVEE) {
+            tampons.remove();
+        }
+        return resultat;
+    }
+
+    private void rendreLigne(StringBuilder tampon, LigneRetard retard) {
+        for (int i = 0; i < ligne.emplacements().length; i++) {
+            tampon.append(ligne.litteraux()[i]);
+            if (ligne.emplacements()[i] == Emplacement.TITRE) {
+                tampon.append(retard.titre());
+            } else {
+                tampon.append(formater(retard.dateFin()));
+            }
+        }
+        tampon.append(ligne.litteraux()[ligne.emplacements().length]);
+    }
+
+    // Même texte que LocalDate.toString ; les retards d'un envoi portent sur peu de dates distinctes
+    private String formater(LocalDate date) {
+        if (date == null) {
+            return "null";
+        }
+        String texte = dates.get(date);
+        if (texte == null) {
+            if (dates.size() >= DATES_MAX) {
+                dates.clear();
+            }
+            texte = date.toString();
+            dates.put(date, texte);
+        }
+        return texte;
+    }
+
+    private static Compile compiler(String modele, Set<Emplacement> autorises) {
+        List<String> litteraux = new ArrayList<>();
+        List<Emplacement> emplacements = new ArrayList<>();
+        int debut = 0;
+        int ouverture;
+        while ((ouverture = modele.indexOf('{', debut)) >= 0) {
+            int fermeture = modele.indexOf('}', ouverture);
+            if (fermeture < 0) {
+                throw new IllegalArgumentException("Emplacement non fermé dans le modèle : " + modele);
+            }
+            Emplacement emplacement = switch (modele.substring(ouverture + 1, fermeture)) {
+                case "prenom" -> Emplacement.PRENOM;
+                case "livres" -> Emplacement.LIVRES;
+                case "titre" -> Emplacement.TITRE;
+                case "dateFin" -> Emplacement.DATE_FIN;
+                default -> null;
+            };
+            if (emplacement == null || !autorises.contains(emplacement)) {
+                throw new IllegalArgumentException("Emplacement inconnu : " + modele.substring(ouverture, fermeture + 1));
+            }
+            litteraux.add(modele.substring(debut, ouverture));
+            emplacements.add(emplacement);
+            debut = fermeture + 1;
+        }
+        litteraux.add(modele.substring(debut));
+        return new Compile(litteraux.toArray(String[]::new), emplacements.toArray(Emplacement[]::new));
+    }
+}
@@ -0,0 +1,180 @@
+package fr.formation.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Envoi des rappels en arrière-plan : un producteur prépare les messages dans une file
+ * bornée, consommée par plusieurs envoyeurs. Ceux-ci tournent sur des threads virtuels avec
+ * {@code rappels.threads-virtuels}, qui suit par défaut {@code spring.threads.virtual.enabled}
+ * et, comme lui, n'a d'effet qu'à partir de Java 21. Chaque envoi est retenté avec un délai
+ * croissant. Un seul envoi de rappels tourne à la fois ; seules les
+ * {@code rappels.taches-conservees} dernières tâches terminées restent consultables.
+ */
+@Component
+public class PipelineRappels {
+
+    private static final Logger log = LoggerFactory.getLogger(PipelineRappels.class);
+    private static final MessageRappel FIN = new MessageRappel(null, null, null);
+
+    private final MailService mailService;
+    private final int capaciteFile;
+    private final int parallelisme;
+    private final int tentativesMax;
+    private final Duration delaiInitial;
+    private final int tachesConservees;
+    private final SimpleAsyncTaskExecutor executeur;
+
+    private final Map<String, TacheRappel> taches = new ConcurrentHashMap<>();
+    private final Queue<String> tachesTerminees = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<TacheRappel> tacheEnCours = new AtomicReference<>();
+
+    public PipelineRappels(MailService mailService,
+                           @Value("${rappels.capacite-file:1000}") int capaciteFile,
+                           @Value("${rappels.parallelisme:16}") int parallelisme,
+                           @Value("${rappels.tentatives-max:3}") int tentativesMax,
+                           @Value("${rappels.delai-initial:PT1S}") Duration delaiInitial,
+                           @Value("${rappels.threads-virtuels:${spring.threads.virtual.enabled:false}}") boolean threadsVirtuels,
+                           @Value("${rappels.taches-conservees:100}") int tachesConservees) {
+        this.mailService = mailService;
+        this.capaciteFile = capaciteFile;
+        this.parallelisme = parallelisme;
+        this.tentativesMax = tentativesMax;
+        this.delaiInitial = delaiInitial;
+        this.tachesConservees = tachesConservees;
+        this.executeur = new SimpleAsyncTaskExecutor("rappel-");
+        this.executeur.setVirtualThreads(threadsVirtuels && Runtime.version().feature() >= 21);
+    }
+
+    /**
+     * Lance l'envoi et retourne immédiatement. {@code producteur} reçoit la fonction à appeler
+     * pour chaque message à envoyer ; il est exécuté en arrière-plan.
+     * Si un envoi est déjà en cours, c'est sa tâche qui est retournée.
+     */
+    public TacheRappel lancer(Consumer<Consumer<MessageRappel>> producteur) {
+        return lancerSiLibre(producteur).orElseGet(tacheEnCours::get);
+    }
+
+    /**
+     * Comme {@link #lancer}, mais retourne vide sans rien lancer si un envoi est déjà en cours.
+     */
+    public Optional<TacheRappel> lancerSiLibre(Consumer<Consumer<MessageRappel>> producteur) {
+        TacheRappel tache = new TacheRappel();
+        TacheRappel enCours = tacheEnCours.updateAndGet(actuelle ->
+                actuelle != null && actuelle.getEtat() == TacheRappel.Etat.EN_COURS ? actuelle : tache);
+        if (enCours != tache) {
+            return Optional.empty();
+        }
+        taches.put(tache.getId(), tache);
+
+        BlockingQueue<MessageRappel> file = new ArrayBlockingQueue<>(capaciteFile);
+        CountDownLatch envoyeursTermines = new CountDownLatch(parallelisme);
+        for (int i = 0; i < parallelisme; i++) {
+            executeur.execute(() -> {
+                try {
+                    envoyer(file, tache);
+                } finally {
+                    envoyeursTermines.countDown();
+                }
+            });
+        }
+        executeur.execute(() -> produire(producteur, file, envoyeursTermines, tache));
+        return Optional.of(tache);
+    }
+
+    public Optional<TacheRappel> tache(String id) {
+        return Optional.ofNullable(taches.get(id));
+    }
+
+    private void produire(Consumer<Consumer<MessageRappel>> producteur, BlockingQueue<MessageRappel> file,
+                          CountDownLatch envoyeursTermines, TacheRappel tache) {
+        TacheRappel.Etat etat = TacheRappel.Etat.TERMINEE;
+        try {
+            producteur.accept(message -> {
+                tache.comptePrepare();
+                deposer(file, message);
+            });
+        } catch (RuntimeException e) {
+            log.error("Préparation des rappels de la tâche {} en échec", tache.getId(), e);
+            etat = TacheRappel.Etat.ECHOUEE;
+        }
+        try {
+            // Un marqueur de fin par envoyeur pour les arrêter une fois la file vidée
+            for (int i = 0; i < parallelisme; i++) {
+                file.put(FIN);
+            }
+            envoyeursTermines.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            etat = TacheRappel.Etat.ECHOUEE;
+        }
+        oublierAnciennes(tache);
+        tache.terminer(etat);
+    }
+
+    private void oublierAnciennes(TacheRappel terminee) {
+        tachesTerminees.add(terminee.getId());
+        while (tachesTerminees.size() > tachesConservees) {
+            String id = tachesTerminees.poll();
+            if (id != null) {
+                taches.remove(id);
+            }
+        }
+    }
+
+    private void envoyer(BlockingQueue<MessageRappel> file, TacheRappel tache) {
+        try {
+            MessageRappel message;
+            while ((message = file.take()) != FIN) {
+                if (envoyerAvecRelance(message, tache)) {
+                    tache.compteEnvoye();
+                } else {
+                    tache.compteEchec();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean envoyerAvecRelance(MessageRappel message, TacheRappel tache) throws InterruptedException {
+        long delai = delaiInitial.toMillis();
+        for (int tentative = 1; ; tentative++) {
+            tache.compteTentative();
+            try {
+                mailService.envoyerMail(message.destinataire(), message.sujet(), message.contenu());
+                return true;
+            } catch (RuntimeException e) {
+                if (tentative >= tentativesMax) {
+                    return false;
+                }
+                Thread.sleep(delai);
+                delai *= 2;
+            }
+        }
+    }
+
+    private static void deposer(BlockingQueue<MessageRappel> file, MessageRappel message) {
+        try {
+            file.put(message);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Préparation des rappels interrompue", e);
+        }
+    }
+}
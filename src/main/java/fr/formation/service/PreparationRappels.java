@@ -0,0 +1,92 @@
+package fr.formation.service;
+
+import fr.formation.dto.LigneRetard;
+import fr.formation.repository.ReservationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Prépare les rappels de retard par lots de {@code rappels.adherents-par-lot} adhérents :
+ * chaque lot est lu dans sa propre transaction courte, puis émis une fois la connexion rendue,
+ * pour qu'un émetteur bloqué sur la file des envois ne retienne ni connexion ni curseur JDBC.
+ */
+@Component
+public class PreparationRappels {
+
+    static final String SUJET = "Rappel de vos réservations dépassées";
+    private static final ModeleRappel MODELE = new ModeleRappel();
+
+    private final ReservationRepository reservationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int adherentsParLot;
+
+    public PreparationRappels(ReservationRepository reservationRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${rappels.adherents-par-lot:500}") int adherentsParLot) {
+        this.reservationRepository = reservationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.adherentsParLot = adherentsParLot;
+    }
+
+    public void preparer(Consumer<MessageRappel> emetteur) {
+        parcourirRetardsParAdherent(LocalDate.now(), retards -> emetteur.accept(composer(retards)));
+    }
+
+    // Rappels limités aux réservations arrivées à échéance entre debut inclus et fin exclue
+    public void preparerEntre(LocalDate debut, LocalDate fin, Consumer<MessageRappel> emetteur) {
+        parcourir(debut, fin, retards -> emetteur.accept(composer(retards)));
+    }
+
+    /**
+     * Transmet au consommateur, adhérent par adhérent, ses réservations terminées avant {@code date}.
+     */
+    public void parcourirRetardsParAdherent(LocalDate date, Consumer<List<LigneRetard>> consommateur) {
+        parcourir(null, date, consommateur);
+    }
+
+    private void parcourir(LocalDate debut, LocalDate fin, Consumer<List<LigneRetard>> consommateur) {
+        String apres = null;
+        while (true) {
+            String dernier = apres;
+            Lot lot = transactionTemplate.execute(statut -> {
+                List<String> codes = reservationRepository.findAdherentsEnRetard(debut, fin, dernier, Limit.of(adherentsParLot));
+                return new Lot(codes, codes.isEmpty() ? List.of() : reservationRepository.findRetardsParAdherentIn(codes, debut, fin));
+            });
+            if (lot.codes().isEmpty()) {
+                return;
+            }
+            regrouperParAdherent(lot.lignes(), consommateur);
+            apres = lot.codes().get(lot.codes().size() - 1);
+        }
+    }
+
+    private record Lot(List<String> codes, List<LigneRetard> lignes) {
+    }
+
+    private static void regrouperParAdherent(List<LigneRetard> lignes, Consumer<List<LigneRetard>> consommateur) {
+        List<LigneRetard> retards = new ArrayList<>();
+        for (LigneRetard ligne : lignes) {
+            if (!retards.isEmpty() && !retards.get(0).codeAdherent().equals(ligne.codeAdherent())) {
+                consommateur.accept(retards);
+                retards = new ArrayList<>();
+            }
+            retards.add(ligne);
+        }
+        if (!retards.isEmpty()) {
+            consommateur.accept(retards);
+        }
+    }
+
+    static MessageRappel composer(List<LigneRetard> retards) {
+        return new MessageRappel(retards.get(0).adresseMail(), SUJET, MODELE.rendre(retards));
+    }
+}
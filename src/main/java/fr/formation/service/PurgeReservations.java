@@ -0,0 +1,178 @@
+package fr.formation.service;
+
+import fr.formation.cache.CacheLivres;
+import fr.formation.cache.VersionsEntites;
+import fr.formation.cache.VersionsEntites.Ressource;
+import fr.formation.dto.ReservationExpiree;
+import fr.formation.index.CompteursEmprunts;
+import fr.formation.index.DisponibiliteLivres;
+import fr.formation.index.EcheancesReservations;
+import fr.formation.index.SuggestionsLivres;
+import fr.formation.journal.EvenementReservation;
+import fr.formation.journal.JournalReservations;
+import fr.formation.repository.LivreRepository;
+import fr.formation.repository.ReservationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Suppression des réservations expirées par lots bornés, chacun dans sa propre
+ * transaction courte, avec un débit maximal configurable. Les livres qu'aucune réservation
+ * ne retient plus sont rendus disponibles dans la même transaction.
+ */
+@Component
+public class PurgeReservations {
+
+    private record Lot(List<ReservationExpiree> expirees, List<String> livresLiberes) {
+    }
+
+    private final ReservationRepository reservationRepository;
+    private final LivreRepository livreRepository;
+    private final CompteursEmprunts compteursEmprunts;
+    private final EcheancesReservations echeances;
+    private final JournalReservations journal;
+    private final DisponibiliteLivres disponibiliteLivres;
+    private final CacheLivres cacheLivres;
+    private final VersionsEntites versionsEntites;
+    private final SuggestionsLivres suggestionsLivres;
+    private final TransactionTemplate transactionTemplate;
+    private final int tailleLot;
+    private final int lignesParSeconde;
+
+    public PurgeReservations(ReservationRepository reservationRepository,
+                             LivreRepository livreRepository,
+                             CompteursEmprunts compteursEmprunts,
+                             EcheancesReservations echeances,
+                             JournalReservations journal,
+                             DisponibiliteLivres disponibiliteLivres,
+                             CacheLivres cacheLivres,
+                             VersionsEntites versionsEntites,
+                             SuggestionsLivres suggestionsLivres,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${reservations.purge.taille-lot:1000}") int tailleLot,
+                             @Value("${reservations.purge.lignes-par-seconde:0}") int lignesParSeconde) {
+        this.reservationRepository = reservationRepository;
+        this.livreRepository = livreRepository;
+        this.compteursEmprunts = compteursEmprunts;
+        this.echeances = echeances;
+        this.journal = journal;
+        this.disponibiliteLivres = disponibiliteLivres;
+        this.cacheLivres = cacheLivres;
+        this.versionsEntites = versionsEntites;
+        this.suggestionsLivres = suggestionsLivres;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.tailleLot = tailleLot;
+        this.lignesParSeconde = lignesParSeconde;
+    }
+
+    /**
+     * Supprime les réservations dont la date de fin est antérieure à {@code date}.
+     * Un débit de 0 désactive la limitation. Retourne le nombre de lignes supprimées.
+     * Quand la roue d'échéances est construite, les lots sont pris directement dans ses
+     * jours échus plutôt que par un parcours de la table.
+     */
+    public long purger(LocalDate date) {
+        return echeances.estPret() ? purgerParEcheances(date) : purgerParParcours(date);
+    }
+
+    private long purgerParEcheances(LocalDate date) {
+        List<Long> ids = echeances.echeancesAvant(date);
+        long debut = System.nanoTime();
+        long supprimees = 0;
+        for (int i = 0; i < ids.size(); i += tailleLot) {
+            List<Long> idsLot = ids.subList(i, Math.min(i + tailleLot, ids.size()));
+            Lot lot = transactionTemplate.execute(statut -> supprimer(reservationRepository.findExpireesByIdIn(idsLot)));
+            if (lot != null) {
+                libererEmprunts(lot);
+                supprimees += lot.expirees().size();
+            }
+            if (!temporiser(debut, supprimees)) {
+                return supprimees;
+            }
+        }
+        return supprimees;
+    }
+
+    private long purgerParParcours(LocalDate date) {
+        long debut = System.nanoTime();
+        long supprimees = 0;
+        while (true) {
+            Lot lot = transactionTemplate.execute(statut ->
+                    supprimer(reservationRepository.findExpireesByDateFinBefore(date, Limit.of(tailleLot))));
+            if (lot == null || lot.expirees().isEmpty()) {
+                return supprimees;
+            }
+            libererEmprunts(lot);
+            supprimees += lot.expirees().size();
+            if (!temporiser(debut, supprimees)) {
+                return supprimees;
+            }
+        }
+    }
+
+    // Dans la transaction du lot : suppression, puis remise en disponibilité des livres sans autre réservation
+    private Lot supprimer(List<ReservationExpiree> expirees) {
+        if (expirees.isEmpty()) {
+            return new Lot(expirees, List.of());
+        }
+        reservationRepository.deleteByIdIn(expirees.stream().map(ReservationExpiree::id).toList());
+        LinkedHashSet<String> isbns = new LinkedHashSet<>();
+        expirees.forEach(expiree -> isbns.add(expiree.isbn()));
+        List<String> liberes = livreRepository.findLiberablesByIsbnIn(isbns);
+        if (!liberes.isEmpty()) {
+            livreRepository.marquerDisponibles(liberes);
+        }
+        return new Lot(expirees, liberes);
+    }
+
+    // Après commit du lot
+    private void libererEmprunts(Lot lot) {
+        for (String isbn : lot.livresLiberes()) {
+            cacheLivres.invalider(isbn);
+            disponibiliteLivres.enregistrer(isbn, true);
+            versionsEntites.incrementer(Ressource.LIVRE, isbn);
+        }
+        Map<String, Integer> parAdherent = new HashMap<>();
+        Map<String, Integer> parLivre = new HashMap<>();
+        for (ReservationExpiree expiree : lot.expirees()) {
+            parAdherent.merge(expiree.codeAdherent(), 1, Integer::sum);
+            parLivre.merge(expiree.isbn(), 1, Integer::sum);
+            echeances.retirer(expiree.id(), expiree.dateFin());
+            journal.enregistrer(EvenementReservation.Type.EXPIRATION, expiree.id(), expiree.codeAdherent(),
+                    expiree.isbn(), expiree.dateDebut(), expiree.dateFin());
+        }
+        parAdherent.forEach(compteursEmprunts::liberer);
+        parLivre.forEach((isbn, nombre) -> suggestionsLivres.ajouterPopularite(isbn, -nombre));
+    }
+
+    // Attend si besoin pour ne pas dépasser le débit configuré ; false si le thread est interrompu
+    private boolean temporiser(long debut, long supprimees) {
+        if (lignesParSeconde <= 0) {
+            return true;
+        }
+        long attendu = supprimees * TimeUnit.SECONDS.toNanos(1) / lignesParSeconde;
+        long avance = attendu - (System.nanoTime() - debut);
+        if (avance <= 0) {
+            return true;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(avance);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -1,24 +1,85 @@
 package fr.formation.service;
 
+import fr.formation.cache.CacheLivres;
+import fr.formation.cache.VersionsEntites;
+import fr.formation.cache.VersionsEntites.Ressource;
+import fr.formation.dto.AdherentResume;
+import fr.formation.dto.CurseurReservation;
+import fr.formation.dto.DemandeReservation;
+import fr.formation.dto.EcheanceReservation;
+import fr.formation.dto.ListeReservations;
+import fr.formation.dto.LivreResume;
+import fr.formation.dto.PageReservations;
+import fr.formation.dto.ReservationResume;
+import fr.formation.dto.ResultatReservation;
+import fr.formation.index.CompteursEmprunts;
+import fr.formation.index.CurseurEcheances;
+import fr.formation.index.DisponibiliteLivres;
+import fr.formation.index.EcheancesReservations;
+import fr.formation.index.SuggestionsLivres;
+import fr.formation.journal.EvenementReservation;
+import fr.formation.journal.JournalReservations;
 import fr.formation.model.Adherent;
 import fr.formation.model.Livre;
 import fr.formation.model.Reservation;
 import fr.formation.repository.AdherentRepository;
 import fr.formation.repository.LivreRepository;
 import fr.formation.repository.ReservationRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Window;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
+@Timed("service.appels")
 public class ReservationService {
 
+    public static final int MAX_RESERVATIONS = 3;
+    public static final int TAILLE_PAGE_MAX = 1000;
+    private static final int TAILLE_LOT_FLUX = 500;
+    private static final int TAILLE_LOT_IN = 1000;
+    public static final int TAILLE_LOT_DEMANDES_MAX = 1000;
+    private static final String INSERTION_RESERVATION =
+            "insert into reservation (adherent_code_adherent, livre_isbn, date_debut, date_fin) values (?, ?, ?, ?)";
+
+    // Refus d'emprunt comptés par motif dans la métrique reservations.refus
+    static final String METRIQUE_REFUS = "reservations.refus";
+    static final String MOTIF_INDISPONIBLE = "indisponible";
+    static final String MOTIF_QUOTA = "quota";
+    static final String MOTIF_DATE = "date";
+    static final String MOTIF_ADHERENT_INCONNU = "adherent_inconnu";
+    static final String MOTIF_LIVRE_INCONNU = "livre_inconnu";
+
     @Autowired
     private ReservationRepository reservationRepository;
 
@@ -31,31 +92,248 @@ public class ReservationService {
     @Autowired
     private MailService mailService;
 
+    @Autowired
+    private CacheLivres cacheLivres;
+
+    @Autowired
+    private DisponibiliteLivres disponibiliteLivres;
+
+    @Autowired
+    private CompteursEmprunts compteursEmprunts;
+
+    @Autowired
+    private EcheancesReservations echeancesReservations;
+
+    @Autowired
+    private CurseurEcheances curseurEcheances;
+
+    @Autowired
+    private JournalReservations journalReservations;
+
+    @Autowired
+    private SuggestionsLivres suggestionsLivres;
+
+    @Autowired
+    private VersionsEntites versionsEntites;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PreparationRappels preparationRappels;
+
+    @Autowired
+    private PipelineRappels pipelineRappels;
+
+    @Autowired
+    private PurgeReservations purgeReservations;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Reconstruit les compteurs de réservations par adhérent au démarrage de l'application
+    @EventListener(ApplicationReadyEvent.class)
+    public void construireCompteurs() {
+        compteursEmprunts.reconstruire(reservationRepository.compterParAdherent());
+    }
+
+    // Les suggestions de saisie sont classées par nombre de réservations du livre
+    @EventListener(ApplicationReadyEvent.class)
+    public void construirePopularites() {
+        suggestionsLivres.definirPopularites(reservationRepository.compterParLivre());
+    }
+
+    // Range les réservations existantes par jour d'échéance au démarrage de l'application,
+    // en reprenant les bascules au premier jour que la dernière n'a pas traité
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void construireEcheances() {
+        try (Stream<EcheanceReservation> echeances = reservationRepository.streamEcheances()) {
+            echeancesReservations.reconstruire(echeances::iterator, curseurEcheances.lire().orElseGet(LocalDate::now));
+        }
+    }
+
+    /**
+     * Les emprunts concurrents d'un même adhérent sont sérialisés par un verrou sur sa ligne,
+     * et le livre est pris par une mise à jour conditionnelle : deux demandes simultanées
+     * sur le même exemplaire ne peuvent pas aboutir toutes les deux.
+     */
+    @Transactional
     public Reservation ajouterReservation(String codeAdherent, String isbn, LocalDate dateFin) {
-        Adherent adherent = adherentRepository.findById(codeAdherent)
+        Adherent adherent = adherentRepository.findWithLockByCodeAdherent(codeAdherent)
                 .orElseThrow(() -> new EntityNotFoundException("Adhérent non trouvé"));
-        Livre livre = livreRepository.findById(isbn)
-                .orElseThrow(() -> new EntityNotFoundException("Livre non trouvé"));
 
-        if (!livre.isDisponible()) {
+        // Le bitmap permet de refuser un livre indisponible sans charger l'entité
+        if (disponibiliteLivres.estConnu(isbn) && !disponibiliteLivres.estDisponible(isbn)) {
+            compterRefus(MOTIF_INDISPONIBLE);
             throw new IllegalStateException("Le livre n'est pas disponible");
         }
 
-        int reservationsActives = reservationRepository.countByAdherentAndDateFinIsNull(adherent);
-        if (reservationsActives >= 3) {
-            throw new IllegalStateException("L'adhérent a atteint le nombre maximal de réservations");
+        Livre livre = cacheLivres.obtenir(isbn, livreRepository::findById)
+                .orElseThrow(() -> new EntityNotFoundException("Livre non trouvé"));
+
+        if (!livre.isDisponible()) {
+            compterRefus(MOTIF_INDISPONIBLE);
+            throw new IllegalStateException("Le livre n'est pas disponible");
         }
 
         // Vérification que la date de fin est dans les 4 mois suivant la date de début
         if (dateFin.isAfter(LocalDate.now().plusMonths(4))) {
+            compterRefus(MOTIF_DATE);
             throw new IllegalArgumentException("La date de fin ne peut pas être supérieure à 4 mois après la date de début");
         }
 
+        if (!reserverPlace(adherent, 0)) {
+            compterRefus(MOTIF_QUOTA);
+            throw new IllegalStateException("L'adhérent a atteint le nombre maximal de réservations");
+        }
+        // Place rendue par tout échec qui suit, exception de la base comprise
+        FinTransaction.apresAnnulation(() -> compteursEmprunts.liberer(codeAdherent));
+
+        if (livreRepository.reserverSiDisponible(isbn) == 0) {
+            compterRefus(MOTIF_INDISPONIBLE);
+            throw new IllegalStateException("Le livre n'est pas disponible");
+        }
+        livre.setDisponible(false);
+        FinTransaction.apresCommit(() -> {
+            cacheLivres.invalider(isbn);
+            disponibiliteLivres.enregistrer(isbn, false);
+            versionsEntites.incrementer(Ressource.LIVRE, isbn);
+        });
+
         // Créer la réservation avec la date de fin renseignée par l'appelant
-        Reservation reservation = new Reservation(null, adherent, livre, LocalDate.now(), dateFin);
-        return reservationRepository.save(reservation);
+        Reservation reservation = reservationRepository.save(new Reservation(null, adherent, livre, LocalDate.now(), dateFin));
+        FinTransaction.apresCommit(() -> {
+            echeancesReservations.ajouter(reservation.getId(), dateFin);
+            suggestionsLivres.ajouterPopularite(isbn, 1);
+            journalReservations.enregistrer(EvenementReservation.Type.CREATION, reservation.getId(), codeAdherent, isbn,
+                    reservation.getDateDebut(), dateFin);
+        });
+        return reservation;
+    }
+
+    private void compterRefus(String motif) {
+        meterRegistry.counter(METRIQUE_REFUS, "motif", motif).increment();
     }
 
+    /**
+     * Emprunts d'un lot : adhérents et livres sont chargés et verrouillés en deux requêtes IN,
+     * les règles de l'emprunt unitaire sont appliquées à chaque demande dans l'ordre, puis les
+     * réservations acceptées sont insérées en un seul batch JDBC. Un refus n'annule pas le lot.
+     */
+    @Transactional
+    public List<ResultatReservation> ajouterReservations(List<DemandeReservation> demandes) {
+        if (demandes.size() > TAILLE_LOT_DEMANDES_MAX) {
+            throw new IllegalArgumentException("Un lot est limité à " + TAILLE_LOT_DEMANDES_MAX + " demandes");
+        }
+        Set<String> codes = new HashSet<>();
+        Set<String> isbns = new HashSet<>();
+        for (DemandeReservation demande : demandes) {
+            codes.add(demande.codeAdherent());
+            isbns.add(demande.isbn());
+        }
+        Map<String, Adherent> adherents = new HashMap<>();
+        adherentRepository.findWithLockByCodeAdherentInOrderByCodeAdherent(codes).forEach(a -> adherents.put(a.getCodeAdherent(), a));
+        Map<String, Livre> livres = new HashMap<>();
+        livreRepository.findWithLockByIsbnInOrderByIsbn(isbns).forEach(l -> livres.put(l.getIsbn(), l));
+
+        ResultatReservation[] resultats = new ResultatReservation[demandes.size()];
+        List<Integer> acceptees = new ArrayList<>();
+        Set<String> livresPris = new HashSet<>();
+        Map<String, Integer> accepteesParAdherent = new HashMap<>();
+        LocalDate aujourdhui = LocalDate.now();
+        LocalDate dateMax = aujourdhui.plusMonths(4);
+        for (int i = 0; i < demandes.size(); i++) {
+            DemandeReservation demande = demandes.get(i);
+            Adherent adherent = adherents.get(demande.codeAdherent());
+            Livre livre = livres.get(demande.isbn());
+            String motif = null;
+            if (adherent == null) {
+                motif = MOTIF_ADHERENT_INCONNU;
+            } else if (livre == null) {
+                motif = MOTIF_LIVRE_INCONNU;
+            } else if (!livre.isDisponible() || livresPris.contains(livre.getIsbn())) {
+                motif = MOTIF_INDISPONIBLE;
+            } else if (demande.dateFin() == null || demande.dateFin().isAfter(dateMax)) {
+                motif = MOTIF_DATE;
+            } else if (!reserverPlace(adherent, accepteesParAdherent.getOrDefault(adherent.getCodeAdherent(), 0))) {
+                motif = MOTIF_QUOTA;
+            } else {
+                String codeAdherent = adherent.getCodeAdherent();
+                FinTransaction.apresAnnulation(() -> compteursEmprunts.liberer(codeAdherent));
+            }
+            if (motif != null) {
+                compterRefus(motif);
+                resultats[i] = ResultatReservation.refusee(i, demande, motif);
+                continue;
+            }
+            String codeAdherent = adherent.getCodeAdherent();
+            accepteesParAdherent.merge(codeAdherent, 1, Integer::sum);
+            livresPris.add(livre.getIsbn());
+            acceptees.add(i);
+        }
+
+        if (!acceptees.isEmpty()) {
+            livreRepository.marquerIndisponibles(livresPris);
+            FinTransaction.apresCommit(() -> livresPris.forEach(isbn -> {
+                cacheLivres.invalider(isbn);
+                disponibiliteLivres.enregistrer(isbn, false);
+                versionsEntites.incrementer(Ressource.LIVRE, isbn);
+            }));
+            List<Long> ids = inserer(acceptees.stream().map(demandes::get).toList(), aujourdhui);
+            for (int j = 0; j < acceptees.size(); j++) {
+                int i = acceptees.get(j);
+                resultats[i] = ResultatReservation.acceptee(i, demandes.get(i), ids.get(j));
+            }
+            FinTransaction.apresCommit(() -> {
+                for (int j = 0; j < acceptees.size(); j++) {
+                    DemandeReservation demande = demandes.get(acceptees.get(j));
+                    echeancesReservations.ajouter(ids.get(j), demande.dateFin());
+                    suggestionsLivres.ajouterPopularite(demande.isbn(), 1);
+                    journalReservations.enregistrer(EvenementReservation.Type.CREATION, ids.get(j), demande.codeAdherent(),
+                            demande.isbn(), aujourdhui, demande.dateFin());
+                }
+            });
+        }
+        return List.of(resultats);
+    }
+
+    // Insertion en un seul batch, en récupérant les identifiants générés
+    private List<Long> inserer(List<DemandeReservation> demandes, LocalDate aujourdhui) {
+        Date dateDebut = Date.valueOf(aujourdhui);
+        GeneratedKeyHolder cles = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connexion -> connexion.prepareStatement(INSERTION_RESERVATION, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        DemandeReservation demande = demandes.get(i);
+                        statement.setString(1, demande.codeAdherent());
+                        statement.setString(2, demande.isbn());
+                        statement.setDate(3, dateDebut);
+                        statement.setDate(4, Date.valueOf(demande.dateFin()));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return demandes.size();
+                    }
+                }, cles);
+        return cles.getKeyList().stream()
+                .map(ligne -> ((Number) ligne.values().iterator().next()).longValue())
+                .toList();
+    }
+
+    // Quota vérifié en mémoire ; tant que les compteurs ne sont pas construits, on compte en base
+    // en ajoutant les demandes déjà acceptées dans le même lot, pas encore insérées
+    private boolean reserverPlace(Adherent adherent, int dejaAcceptees) {
+        if (!compteursEmprunts.estPret()) {
+            return reservationRepository.countByAdherent(adherent) + dejaAcceptees < MAX_RESERVATIONS;
+        }
+        return compteursEmprunts.reserverPlace(adherent.getCodeAdherent(), MAX_RESERVATIONS);
+    }
 
     @Transactional
     public void annulerReservation(Long reservationId) {
@@ -71,6 +349,16 @@ public class ReservationService {
         Livre livre = reservation.getLivre();
         livre.setDisponible(true);
         livreRepository.save(livre);
+        FinTransaction.apresCommit(() -> {
+            cacheLivres.invalider(livre.getIsbn());
+            disponibiliteLivres.enregistrer(livre.getIsbn(), true);
+            versionsEntites.incrementer(Ressource.LIVRE, livre.getIsbn());
+            compteursEmprunts.liberer(reservation.getAdherent().getCodeAdherent());
+            echeancesReservations.retirer(reservation.getId(), reservation.getDateFin());
+            suggestionsLivres.ajouterPopularite(livre.getIsbn(), -1);
+            journalReservations.enregistrer(EvenementReservation.Type.ANNULATION, reservation.getId(),
+                    reservation.getAdherent().getCodeAdherent(), livre.getIsbn(), reservation.getDateDebut(), reservation.getDateFin());
+        });
 
         // Supprime la réservation
         reservationRepository.delete(reservation);
@@ -91,40 +379,151 @@ public class ReservationService {
                 .orElseThrow(() -> new EntityNotFoundException("Adhérent non trouvé"));
         return reservationRepository.findByAdherent(adherent);
     }
-    public void envoyerRappelReservationsDepassees() {
-        List<Reservation> reservationsDepassees = reservationRepository.findByDateFinBefore(LocalDate.now());
 
-        // Regroupe les réservations par adhérent
-        Map<Adherent, List<Reservation>> reservationsParAdherent = reservationsDepassees.stream()
-                .collect(Collectors.groupingBy(Reservation::getAdherent));
+    public PageReservations recupererReservationsActives(String curseur, int taille) {
+        Window<Reservation> fenetre = reservationRepository.findByDateFinAfterOrderByDateFinAscIdAsc(
+                LocalDate.now(), CurseurReservation.positionApres(curseur), limite(taille));
+        return versPage(fenetre);
+    }
 
-        // Pour chaque adhérent, on envoie un seul mail
-        for (Map.Entry<Adherent, List<Reservation>> entry : reservationsParAdherent.entrySet()) {
-            Adherent adherent = entry.getKey();
-            List<Reservation> reservations = entry.getValue();
+    public PageReservations recupererReservationsActivesParAdherent(String codeAdherent, String curseur, int taille) {
+        Adherent adherent = adherentRepository.findById(codeAdherent)
+                .orElseThrow(() -> new EntityNotFoundException("Adhérent non trouvé"));
+        Window<Reservation> fenetre = reservationRepository.findByAdherentAndDateFinAfterOrderByDateFinAscIdAsc(
+                adherent, LocalDate.now(), CurseurReservation.positionApres(curseur), limite(taille));
+        return versPage(fenetre);
+    }
+
+    public PageReservations recupererHistoriqueReservationsAdherent(String codeAdherent, String curseur, int taille) {
+        Adherent adherent = adherentRepository.findById(codeAdherent)
+                .orElseThrow(() -> new EntityNotFoundException("Adhérent non trouvé"));
+        Window<Reservation> fenetre = reservationRepository.findByAdherentOrderByDateFinAscIdAsc(
+                adherent, CurseurReservation.positionApres(curseur), limite(taille));
+        return versPage(fenetre);
+    }
 
-            // Crée le message du mail
-            StringBuilder message = new StringBuilder();
-            message.append("Cher(e) ").append(adherent.getPrenom()).append(",\n\n");
-            message.append("Vous avez des réservations en retard :\n");
+    /**
+     * Réservations actives résumées. Sans {@code taille}, toute la liste est retournée ;
+     * les adhérents et les livres cités sont ajoutés une seule fois chacun si demandé.
+     */
+    public ListeReservations listerReservationsActives(String curseur, Integer taille, boolean avecAdherents, boolean avecLivres) {
+        CurseurReservation apres = CurseurReservation.decoderSiPresent(curseur);
+        List<ReservationResume> resumes = reservationRepository.findResumesActives(LocalDate.now(),
+                apres == null ? null : apres.dateFin(), apres == null ? null : apres.id(), limiteListe(taille));
+        return versListe(resumes, taille, avecAdherents, avecLivres);
+    }
 
-            for (Reservation reservation : reservations) {
-                message.append("- ").append(reservation.getLivre().getTitre())
-                        .append(" (fin prévue le ").append(reservation.getDateFin()).append(")\n");
+    public ListeReservations listerReservationsActivesParAdherent(String codeAdherent, String curseur, Integer taille,
+                                                                  boolean avecAdherents, boolean avecLivres) {
+        verifierAdherent(codeAdherent);
+        CurseurReservation apres = CurseurReservation.decoderSiPresent(curseur);
+        List<ReservationResume> resumes = reservationRepository.findResumesActivesParAdherent(codeAdherent, LocalDate.now(),
+                apres == null ? null : apres.dateFin(), apres == null ? null : apres.id(), limiteListe(taille));
+        return versListe(resumes, taille, avecAdherents, avecLivres);
+    }
+
+    public ListeReservations listerHistoriqueReservationsAdherent(String codeAdherent, String curseur, Integer taille,
+                                                                  boolean avecAdherents, boolean avecLivres) {
+        verifierAdherent(codeAdherent);
+        CurseurReservation apres = CurseurReservation.decoderSiPresent(curseur);
+        List<ReservationResume> resumes = reservationRepository.findResumesParAdherent(codeAdherent,
+                apres == null ? null : apres.dateFin(), apres == null ? null : apres.id(), limiteListe(taille));
+        return versListe(resumes, taille, avecAdherents, avecLivres);
+    }
+
+    // Transmet les réservations actives une à une au consommateur, sans les charger toutes en mémoire
+    @Transactional(readOnly = true)
+    public void parcourirReservationsActives(Consumer<Reservation> consommateur) {
+        try (Stream<Reservation> reservations = reservationRepository.streamByDateFinAfterOrderByDateFinAscIdAsc(LocalDate.now())) {
+            Iterator<Reservation> iterateur = reservations.iterator();
+            int compteur = 0;
+            while (iterateur.hasNext()) {
+                consommateur.accept(iterateur.next());
+                // On vide régulièrement le contexte de persistance pour garder une mémoire constante
+                if (++compteur % TAILLE_LOT_FLUX == 0) {
+                    entityManager.clear();
+                }
             }
+        }
+    }
 
-            message.append("\nMerci de les retourner au plus vite.\n\n");
-            message.append("Cordialement,\nBibliothèque");
+    private static Limit limite(int taille) {
+        return Limit.of(Math.max(1, Math.min(taille, TAILLE_PAGE_MAX)));
+    }
 
-            mailService.envoyerMail(adherent.getAdresseMail(), "Rappel de vos réservations dépassées", message.toString());
+    private void verifierAdherent(String codeAdherent) {
+        if (!adherentRepository.existsById(codeAdherent)) {
+            throw new EntityNotFoundException("Adhérent non trouvé");
         }
     }
 
-    public void supprimerReservationsExpirees() {
-        List<Reservation> reservationsExpirees = reservationRepository.findByDateFinBefore(LocalDate.now());
+    // Une ligne de plus que la taille demandée indique qu'une page suivante existe
+    private static Limit limiteListe(Integer taille) {
+        return taille == null ? Limit.unlimited() : Limit.of(limite(taille).max() + 1);
+    }
+
+    private ListeReservations versListe(List<ReservationResume> resumes, Integer taille, boolean avecAdherents, boolean avecLivres) {
+        String curseurSuivant = null;
+        if (taille != null && resumes.size() > limite(taille).max()) {
+            resumes = resumes.subList(0, limite(taille).max());
+            curseurSuivant = CurseurReservation.depuis(resumes.get(resumes.size() - 1)).encoder();
+        }
+        Map<String, AdherentResume> adherents = null;
+        if (avecAdherents) {
+            Set<String> codes = new LinkedHashSet<>();
+            resumes.forEach(resume -> codes.add(resume.codeAdherent()));
+            adherents = indexerParLots(codes, adherentRepository::findResumesByCodeAdherentIn, AdherentResume::codeAdherent);
+        }
+        Map<String, LivreResume> livres = null;
+        if (avecLivres) {
+            Set<String> isbns = new LinkedHashSet<>();
+            resumes.forEach(resume -> isbns.add(resume.isbn()));
+            livres = indexerParLots(isbns, livreRepository::findResumesByIsbnIn, LivreResume::isbn);
+        }
+        return new ListeReservations(resumes, adherents, livres, curseurSuivant);
+    }
 
-        for (Reservation reservation : reservationsExpirees) {
-            reservationRepository.delete(reservation);
+    // Charge les résumés par clauses IN de taille bornée
+    private static <T> Map<String, T> indexerParLots(Collection<String> cles, Function<List<String>, List<T>> chargement,
+                                                     Function<T, String> cle) {
+        Map<String, T> index = new LinkedHashMap<>();
+        List<String> lot = new ArrayList<>();
+        for (String valeur : cles) {
+            lot.add(valeur);
+            if (lot.size() == TAILLE_LOT_IN) {
+                chargement.apply(lot).forEach(element -> index.put(cle.apply(element), element));
+                lot = new ArrayList<>();
+            }
+        }
+        if (!lot.isEmpty()) {
+            chargement.apply(lot).forEach(element -> index.put(cle.apply(element), element));
         }
+        return index;
+    }
+
+    private static PageReservations versPage(Window<Reservation> fenetre) {
+        List<Reservation> reservations = fenetre.getContent();
+        String curseurSuivant = fenetre.hasNext() && !reservations.isEmpty()
+                ? CurseurReservation.depuis(reservations.get(reservations.size() - 1)).encoder()
+                : null;
+        return new PageReservations(reservations, curseurSuivant);
+    }
+
+    public void envoyerRappelReservationsDepassees() {
+        preparationRappels.preparer(message -> mailService.envoyerMail(message.destinataire(), message.sujet(), message.contenu()));
+    }
+
+    // Lance l'envoi des rappels en arrière-plan et retourne la tâche de suivi sans attendre
+    public TacheRappel lancerRappelReservationsDepassees() {
+        return pipelineRappels.lancer(preparationRappels::preparer);
+    }
+
+    public Optional<TacheRappel> suivreRappel(String idTache) {
+        return pipelineRappels.tache(idTache);
+    }
+
+    // Purge ensembliste par lots, sans charger les entités
+    public long supprimerReservationsExpirees() {
+        return purgeReservations.purger(LocalDate.now());
     }
 }
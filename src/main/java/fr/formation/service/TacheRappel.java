@@ -0,0 +1,85 @@
+package fr.formation.service;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Suivi d'un envoi de rappels lancé en arrière-plan.
+ */
+public class TacheRappel {
+
+    public enum Etat {
+        EN_COURS, TERMINEE, ECHOUEE
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final Instant debut = Instant.now();
+    private volatile Instant fin;
+    private volatile Etat etat = Etat.EN_COURS;
+    private final AtomicLong prepares = new AtomicLong();
+    private final AtomicLong envoyes = new AtomicLong();
+    private final AtomicLong echecs = new AtomicLong();
+    private final AtomicLong tentatives = new AtomicLong();
+    private final CountDownLatch terminee = new CountDownLatch(1);
+
+    public String getId() {
+        return id;
+    }
+
+    public Etat getEtat() {
+        return etat;
+    }
+
+    public Instant getDebut() {
+        return debut;
+    }
+
+    public Instant getFin() {
+        return fin;
+    }
+
+    public long getPrepares() {
+        return prepares.get();
+    }
+
+    public long getEnvoyes() {
+        return envoyes.get();
+    }
+
+    public long getEchecs() {
+        return echecs.get();
+    }
+
+    public long getTentatives() {
+        return tentatives.get();
+    }
+
+    public boolean attendreFin(long delai, TimeUnit unite) throws InterruptedException {
+        return terminee.await(delai, unite);
+    }
+
+    void comptePrepare() {
+        prepares.incrementAndGet();
+    }
+
+    void compteEnvoye() {
+        envoyes.incrementAndGet();
+    }
+
+    void compteEchec() {
+        echecs.incrementAndGet();
+    }
+
+    void compteTentative() {
+        tentatives.incrementAndGet();
+    }
+
+    void terminer(Etat etatFinal) {
+        etat = etatFinal;
+        fin = Instant.now();
+        terminee.countDown();
+    }
+}
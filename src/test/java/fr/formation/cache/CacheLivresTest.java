@@ -0,0 +1,143 @@
+package fr.formation.cache;
+
+import fr.formation.model.Format;
+import fr.formation.model.Livre;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheLivresTest {
+
+    private final AtomicInteger chargements = new AtomicInteger();
+    private final Function<String, Optional<Livre>> chargeur = isbn -> {
+        chargements.incrementAndGet();
+        return Optional.of(new Livre(isbn, "Titre " + isbn, "Auteur", "Éditeur", Format.POCHE, true));
+    };
+
+    private MutableClock horloge;
+    private CacheLivres cache;
+
+    @BeforeEach
+    void setUp() {
+        horloge = new MutableClock();
+        cache = new CacheLivres(2, Duration.ofMinutes(5), horloge);
+    }
+
+    @Test
+    void testObtenir_LectureTraversante() {
+        cache.obtenir("1", chargeur);
+        cache.obtenir("1", chargeur);
+
+        assertEquals(1, chargements.get());
+        assertEquals(new CacheLivres.Statistiques(1, 1, 0, 1), cache.statistiques());
+    }
+
+    @Test
+    void testObtenir_AbsentNonMisEnCache() {
+        cache.obtenir("1", isbn -> Optional.empty());
+
+        assertEquals(0, cache.statistiques().taille());
+    }
+
+    @Test
+    void testObtenir_ChargementConcurrentDUneInvalidationNonConserve() {
+        // La ligne est lue avant le commit d'une écriture, qui invalide le cache pendant le chargement
+        Livre avantCommit = new Livre("1", "Ancien titre", "Auteur", "Éditeur", Format.POCHE, true);
+        cache.obtenir("1", isbn -> {
+            cache.invalider(isbn);
+            return Optional.of(avantCommit);
+        });
+
+        assertEquals(0, cache.statistiques().taille());
+        assertEquals("Titre 1", cache.obtenir("1", chargeur).orElseThrow().getTitre());
+        assertEquals(1, chargements.get());
+    }
+
+    @Test
+    void testObtenir_ChargementNEcrasePasUneMiseAJour() {
+        Livre aJour = new Livre("1", "Nouveau titre", "Auteur", "Éditeur", Format.POCHE, false);
+        cache.obtenir("1", isbn -> {
+            cache.mettreAJour(aJour);
+            return Optional.of(new Livre("1", "Ancien titre", "Auteur", "Éditeur", Format.POCHE, true));
+        });
+
+        assertEquals("Nouveau titre", cache.obtenir("1", chargeur).orElseThrow().getTitre());
+        assertEquals(0, chargements.get());
+    }
+
+    @Test
+    void testEviction_ParTaille() {
+        cache.obtenir("1", chargeur);
+        cache.obtenir("2", chargeur);
+        cache.obtenir("1", chargeur); // "1" devient le plus récemment utilisé
+        cache.obtenir("3", chargeur); // évince "2"
+
+        cache.obtenir("1", chargeur);
+        assertEquals(3, chargements.get());
+        cache.obtenir("2", chargeur);
+        assertEquals(4, chargements.get());
+        assertEquals(2, cache.statistiques().evictions());
+    }
+
+    @Test
+    void testEviction_ParDureeDeVie() {
+        cache.obtenir("1", chargeur);
+        horloge.avancer(Duration.ofMinutes(6));
+
+        cache.obtenir("1", chargeur);
+
+        assertEquals(2, chargements.get());
+        assertEquals(1, cache.statistiques().evictions());
+    }
+
+    @Test
+    void testInvalider() {
+        cache.obtenir("1", chargeur);
+        cache.invalider("1");
+
+        cache.obtenir("1", chargeur);
+
+        assertEquals(2, chargements.get());
+    }
+
+    @Test
+    void testCopieDefensive() {
+        Livre livre = cache.obtenir("1", chargeur).orElseThrow();
+        livre.setDisponible(false);
+
+        assertTrue(cache.obtenir("1", chargeur).orElseThrow().isDisponible());
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant instant = Instant.parse("2025-01-01T00:00:00Z");
+
+        void avancer(Duration duree) {
+            instant = instant.plus(duree);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
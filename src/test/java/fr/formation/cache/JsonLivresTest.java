@@ -0,0 +1,71 @@
+package fr.formation.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.formation.model.Format;
+import fr.formation.model.Livre;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonLivresTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JsonLivres jsonLivres = new JsonLivres(objectMapper, 2);
+
+    private static Livre livre(String isbn) {
+        return new Livre(isbn, "Titre « " + isbn + " »", "Auteur", "Éditeur", Format.POCHE, true);
+    }
+
+    @Test
+    void testOctets_CommeJacksonEtGardesEnCache() throws Exception {
+        Livre livre = livre("1");
+
+        byte[] octets = jsonLivres.octets(livre);
+
+        assertArrayEquals(objectMapper.writeValueAsBytes(livre), octets);
+        assertSame(octets, jsonLivres.octets(livre(("1"))));
+        assertEquals(1, jsonLivres.taille());
+    }
+
+    @Test
+    void testOctets_LivreModifieResserialise() throws Exception {
+        Livre livre = livre("1");
+        byte[] avant = jsonLivres.octets(livre);
+
+        livre.setDisponible(false);
+
+        assertFalse(avant == jsonLivres.octets(livre));
+        assertArrayEquals(objectMapper.writeValueAsBytes(livre), jsonLivres.octets(livre));
+    }
+
+    @Test
+    void testEcrire_TableauCommeJackson() throws Exception {
+        List<Livre> livres = List.of(livre("1"), livre("2"), livre("3"));
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream();
+
+        jsonLivres.ecrire(livres, sortie);
+
+        assertArrayEquals(objectMapper.writeValueAsBytes(livres), sortie.toByteArray());
+        assertEquals(2, jsonLivres.taille());
+
+        ByteArrayOutputStream vide = new ByteArrayOutputStream();
+        jsonLivres.ecrire(List.of(), vide);
+        assertEquals("[]", vide.toString());
+    }
+
+    @Test
+    void testOctets_EvinceLaMoinsServie() {
+        byte[] premier = jsonLivres.octets(livre("1"));
+        byte[] second = jsonLivres.octets(livre("2"));
+        jsonLivres.octets(livre("1"));
+
+        jsonLivres.octets(livre("3"));
+
+        assertEquals(2, jsonLivres.taille());
+        assertSame(premier, jsonLivres.octets(livre("1")));
+        assertNotSame(second, jsonLivres.octets(livre("2")));
+    }
+}
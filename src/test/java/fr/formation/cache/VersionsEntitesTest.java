@@ -0,0 +1,58 @@
+package fr.formation.cache;
+
+import fr.formation.cache.VersionsEntites.Ressource;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VersionsEntitesTest {
+
+    private final VersionsEntites versions = new VersionsEntites();
+
+    @Test
+    void testSuivre_EtagStableTantQueRienNeChange() {
+        assertEquals(Optional.empty(), versions.etag(Ressource.LIVRE, "1"));
+
+        String etag = versions.suivre(Ressource.LIVRE, "1");
+
+        assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+        assertEquals(etag, versions.suivre(Ressource.LIVRE, "1"));
+        assertEquals(Optional.of(etag), versions.etag(Ressource.LIVRE, "1"));
+    }
+
+    @Test
+    void testIncrementer_NouvelEtag() {
+        String etag = versions.suivre(Ressource.LIVRE, "1");
+
+        versions.incrementer(Ressource.LIVRE, "1");
+
+        assertNotEquals(etag, versions.etag(Ressource.LIVRE, "1").orElseThrow());
+    }
+
+    @Test
+    void testIncrementer_EntiteNonSuivieResteNonSuivie() {
+        versions.incrementer(Ressource.LIVRE, "1");
+
+        assertEquals(Optional.empty(), versions.etag(Ressource.LIVRE, "1"));
+    }
+
+    @Test
+    void testOublier_UneVersionNEstJamaisReutilisee() {
+        String etag = versions.suivre(Ressource.ADHERENT, "A1");
+
+        versions.oublier(Ressource.ADHERENT, "A1");
+
+        assertEquals(Optional.empty(), versions.etag(Ressource.ADHERENT, "A1"));
+        assertNotEquals(etag, versions.suivre(Ressource.ADHERENT, "A1"));
+    }
+
+    @Test
+    void testRessources_IndependantesEtInstancesDistinctes() {
+        versions.suivre(Ressource.LIVRE, "1");
+
+        assertEquals(Optional.empty(), versions.etag(Ressource.ADHERENT, "1"));
+        assertNotEquals(versions.suivre(Ressource.LIVRE, "1"), new VersionsEntites().suivre(Ressource.LIVRE, "1"));
+    }
+}
@@ -0,0 +1,34 @@
+package fr.formation.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class ConfigurationExecutionTest {
+
+    private final ApplicationContextRunner contexte = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(PropertyPlaceholderAutoConfiguration.class))
+            .withUserConfiguration(ConfigurationExecution.class)
+            .withBean(DataSource.class, () -> mock(DataSource.class));
+
+    @Test
+    void testThreadsVirtuels_ConnexionsBornees() {
+        contexte.withPropertyValues("spring.threads.virtual.enabled=true", "jdbc.connexions-max=4")
+                .run(application -> {
+                    assertThat(application.getBean(DataSource.class)).isInstanceOf(DataSourceBornee.class);
+                    assertThat(application.getBean(DataSourceBornee.class).connexionsDisponibles()).isEqualTo(4);
+                });
+    }
+
+    @Test
+    void testThreadsPlateforme_DataSourceInchangee() {
+        contexte.run(application ->
+                assertThat(application.getBean(DataSource.class)).isNotInstanceOf(DataSourceBornee.class));
+    }
+}
@@ -0,0 +1,59 @@
+package fr.formation.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.formation.cache.JsonLivres;
+import fr.formation.dto.PageLivres;
+import fr.formation.model.Adherent;
+import fr.formation.model.Format;
+import fr.formation.model.Livre;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.lang.reflect.Type;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConvertisseurJsonLivresTest {
+
+    private static final Type LISTE_LIVRES = new TypeReference<List<Livre>>() { }.getType();
+    private static final Type LISTE_CHAINES = new TypeReference<List<String>>() { }.getType();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ConvertisseurJsonLivres convertisseur = new ConvertisseurJsonLivres(new JsonLivres(objectMapper, 100));
+    private final Livre livre = new Livre("9783161484100", "Livre conforme", "Valentin Bedet", "Éditeur IIA", Format.BROCHE, true);
+
+    @Test
+    void testCanWrite_LivresEtListesDeLivresEnJson() {
+        assertTrue(convertisseur.canWrite(Livre.class, Livre.class, MediaType.APPLICATION_JSON));
+        assertTrue(convertisseur.canWrite(LISTE_LIVRES, List.class, MediaType.APPLICATION_JSON));
+        assertTrue(convertisseur.canWrite(LISTE_LIVRES, List.class, null));
+
+        assertFalse(convertisseur.canWrite(Livre.class, Livre.class, MediaType.APPLICATION_XML));
+        assertFalse(convertisseur.canWrite(LISTE_CHAINES, List.class, MediaType.APPLICATION_JSON));
+        assertFalse(convertisseur.canWrite(List.class, List.class, MediaType.APPLICATION_JSON));
+        assertFalse(convertisseur.canWrite(Adherent.class, Adherent.class, MediaType.APPLICATION_JSON));
+        assertFalse(convertisseur.canWrite(PageLivres.class, PageLivres.class, MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void testCanRead_JamaisPourLaisserJacksonLireLesCorps() {
+        assertFalse(convertisseur.canRead(Livre.class, MediaType.APPLICATION_JSON));
+        assertFalse(convertisseur.canRead(LISTE_LIVRES, null, MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void testWrite_MemeCorpsQueJackson() throws Exception {
+        MockHttpOutputMessage unLivre = new MockHttpOutputMessage();
+        MockHttpOutputMessage liste = new MockHttpOutputMessage();
+
+        convertisseur.write(livre, Livre.class, MediaType.APPLICATION_JSON, unLivre);
+        convertisseur.write(List.of(livre, livre), LISTE_LIVRES, MediaType.APPLICATION_JSON, liste);
+
+        assertArrayEquals(objectMapper.writeValueAsBytes(livre), unLivre.getBodyAsBytes());
+        assertEquals(MediaType.APPLICATION_JSON, unLivre.getHeaders().getContentType());
+        assertArrayEquals(objectMapper.writeValueAsBytes(List.of(livre, livre)), liste.getBodyAsBytes());
+    }
+}
@@ -0,0 +1,78 @@
+package fr.formation.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class DataSourceBorneeTest {
+
+    private DataSource cible;
+    private DataSourceBornee dataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        cible = mock(DataSource.class);
+        when(cible.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        dataSource = new DataSourceBornee(cible, 2, Duration.ofSeconds(10));
+    }
+
+    @Test
+    void testGetConnection_AttendQuUneConnexionSoitRendue() throws Exception {
+        Connection premiere = dataSource.getConnection();
+        dataSource.getConnection();
+        assertEquals(0, dataSource.connexionsDisponibles());
+
+        CompletableFuture<Connection> troisieme = CompletableFuture.supplyAsync(() -> {
+            try {
+                return dataSource.getConnection();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThrows(TimeoutException.class, () -> troisieme.get(200, TimeUnit.MILLISECONDS));
+
+        premiere.close();
+
+        assertNotNull(troisieme.get(5, TimeUnit.SECONDS));
+        verify(cible, times(3)).getConnection();
+    }
+
+    @Test
+    void testClose_RendLePermisUneSeuleFois() throws Exception {
+        Connection connexion = dataSource.getConnection();
+
+        connexion.close();
+        connexion.close();
+
+        assertEquals(2, dataSource.connexionsDisponibles());
+    }
+
+    @Test
+    void testGetConnection_EchecRendLePermis() throws Exception {
+        when(cible.getConnection()).thenThrow(new java.sql.SQLException("base arrêtée"));
+
+        assertThrows(java.sql.SQLException.class, () -> dataSource.getConnection());
+
+        assertEquals(2, dataSource.connexionsDisponibles());
+    }
+
+    @Test
+    void testGetConnection_DelaiDepasse() throws Exception {
+        DataSourceBornee bornee = new DataSourceBornee(cible, 1, Duration.ofMillis(50));
+        bornee.getConnection();
+
+        assertThrows(SQLTransientConnectionException.class, bornee::getConnection);
+        assertEquals(0, bornee.connexionsDisponibles());
+        verify(cible, times(1)).getConnection();
+    }
+}
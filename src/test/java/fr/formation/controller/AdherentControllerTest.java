@@ -1,5 +1,6 @@
 package fr.formation.controller;
 
+import fr.formation.dto.Versionne;
 import fr.formation.exception.AdherentNotFoundException;
 import fr.formation.model.Adherent;
 import fr.formation.model.Civilite;
@@ -10,8 +11,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.Collections;
 import java.util.List;
@@ -90,23 +95,46 @@ public class AdherentControllerTest {
     // --- Test de recherche par code ---
     @Test
     void testRechercherAdherentParCode_Existant() {
-        when(adherentService.rechercherParCode("A123")).thenReturn(Optional.of(adherent));
+        when(adherentService.etag("A123")).thenReturn(Optional.empty());
+        when(adherentService.rechercherParCodeVersionne("A123")).thenReturn(Optional.of(new Versionne<>(adherent, "\"v1\"")));
 
-        ResponseEntity<Adherent> response = adherentController.rechercherAdherentParCode("A123");
+        ResponseEntity<Adherent> response = adherentController.rechercherAdherentParCode("A123", requeteGet(null, new MockHttpServletResponse()));
 
         assertEquals(200, response.getStatusCodeValue());
         assertEquals("Bedet", response.getBody().getNom());
+        assertEquals("\"v1\"", response.getHeaders().getETag());
     }
 
     @Test
     void testRechercherAdherentParCode_Inexistant() {
-        when(adherentService.rechercherParCode("A123")).thenReturn(Optional.empty());
+        when(adherentService.etag("A123")).thenReturn(Optional.empty());
+        when(adherentService.rechercherParCodeVersionne("A123")).thenReturn(Optional.empty());
 
-        ResponseEntity<Adherent> response = adherentController.rechercherAdherentParCode("A123");
+        ResponseEntity<Adherent> response = adherentController.rechercherAdherentParCode("A123", requeteGet(null, new MockHttpServletResponse()));
 
         assertEquals(404, response.getStatusCodeValue());
     }
 
+    @Test
+    void testRechercherAdherentParCode_NonModifie() {
+        when(adherentService.etag("A123")).thenReturn(Optional.of("\"v1\""));
+        MockHttpServletResponse reponseServlet = new MockHttpServletResponse();
+
+        ResponseEntity<Adherent> response = adherentController.rechercherAdherentParCode("A123", requeteGet("\"v1\"", reponseServlet));
+
+        assertNull(response);
+        assertEquals(304, reponseServlet.getStatus());
+        verify(adherentService, never()).rechercherParCodeVersionne(any());
+    }
+
+    private static ServletWebRequest requeteGet(String etag, MockHttpServletResponse reponse) {
+        MockHttpServletRequest requete = new MockHttpServletRequest("GET", "/api/adherents/A123");
+        if (etag != null) {
+            requete.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        return new ServletWebRequest(requete, reponse);
+    }
+
     // --- Test de recherche par nom ---
     @Test
     void testRechercherAdherentParNom_Existant() {
@@ -127,6 +155,15 @@ public class AdherentControllerTest {
         assertEquals(204, response.getStatusCodeValue());
     }
 
+    @Test
+    void testRechercherAdherentParNomApproche() {
+        when(adherentService.rechercherParNomApproche("Bedett", 20)).thenReturn(List.of(adherent));
+        when(adherentService.rechercherParNomApproche("Inconnu", 20)).thenReturn(Collections.emptyList());
+
+        assertEquals(200, adherentController.rechercherAdherentParNomApproche("Bedett", 20).getStatusCodeValue());
+        assertEquals(204, adherentController.rechercherAdherentParNomApproche("Inconnu", 20).getStatusCodeValue());
+    }
+
     // --- Test du gestionnaire d'exception ---
     @Test
     void testHandleAdherentNotFoundException() {
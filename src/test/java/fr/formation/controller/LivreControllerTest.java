@@ -1,8 +1,16 @@
 package fr.formation.controller;
 
+import fr.formation.cache.CacheLivres;
+import fr.formation.dto.CriteresLivres;
+import fr.formation.dto.PageLivres;
+import fr.formation.dto.RapportImport;
+import fr.formation.dto.Versionne;
+import fr.formation.exception.IndexIndisponibleException;
 import fr.formation.exception.LivreNotFoundException;
 import fr.formation.model.Livre;
 import fr.formation.model.Format;
+import fr.formation.service.ImportLivreService;
+import fr.formation.service.ImportLivreService.FormatImport;
 import fr.formation.service.LivreService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,12 +18,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.io.ByteArrayInputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -26,6 +43,9 @@ public class LivreControllerTest {
     @Mock
     private LivreService livreService;
 
+    @Mock
+    private ImportLivreService importLivreService;
+
     @InjectMocks
     private LivreController livreController;
 
@@ -104,23 +124,57 @@ public class LivreControllerTest {
     // --- Test de recherche par ISBN ---
     @Test
     void testRechercherLivreParIsbn_LivreExistant() {
-        when(livreService.rechercherParISBN("9783161484100")).thenReturn(Optional.of(livre));
+        when(livreService.etag("9783161484100")).thenReturn(Optional.empty());
+        when(livreService.rechercherParIsbnVersionne("9783161484100")).thenReturn(Optional.of(new Versionne<>(livre, "\"v1\"")));
 
-        ResponseEntity<Livre> response = livreController.rechercherLivreParIsbn("9783161484100");
+        ResponseEntity<Livre> response = livreController.rechercherLivreParIsbn("9783161484100", requeteGet(null, new MockHttpServletResponse()));
 
         assertEquals(200, response.getStatusCodeValue());
         assertEquals("Livre conforme", response.getBody().getTitre());
+        assertEquals("\"v1\"", response.getHeaders().getETag());
     }
 
     @Test
     void testRechercherLivreParIsbn_LivreInexistant() {
-        when(livreService.rechercherParISBN("9783161484100")).thenReturn(Optional.empty());
+        when(livreService.etag("9783161484100")).thenReturn(Optional.empty());
+        when(livreService.rechercherParIsbnVersionne("9783161484100")).thenReturn(Optional.empty());
 
-        ResponseEntity<Livre> response = livreController.rechercherLivreParIsbn("9783161484100");
+        ResponseEntity<Livre> response = livreController.rechercherLivreParIsbn("9783161484100", requeteGet(null, new MockHttpServletResponse()));
 
         assertEquals(404, response.getStatusCodeValue());
     }
 
+    @Test
+    void testRechercherLivreParIsbn_NonModifie() {
+        when(livreService.etag("9783161484100")).thenReturn(Optional.of("\"v1\""));
+        MockHttpServletResponse reponseServlet = new MockHttpServletResponse();
+
+        ResponseEntity<Livre> response = livreController.rechercherLivreParIsbn("9783161484100", requeteGet("\"v1\"", reponseServlet));
+
+        assertNull(response);
+        assertEquals(304, reponseServlet.getStatus());
+        verify(livreService, never()).rechercherParIsbnVersionne(any());
+    }
+
+    @Test
+    void testRechercherLivreParIsbn_EtagPerime() {
+        when(livreService.etag("9783161484100")).thenReturn(Optional.of("\"v2\""));
+        when(livreService.rechercherParIsbnVersionne("9783161484100")).thenReturn(Optional.of(new Versionne<>(livre, "\"v2\"")));
+
+        ResponseEntity<Livre> response = livreController.rechercherLivreParIsbn("9783161484100", requeteGet("\"v1\"", new MockHttpServletResponse()));
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals("\"v2\"", response.getHeaders().getETag());
+    }
+
+    private static ServletWebRequest requeteGet(String etag, MockHttpServletResponse reponse) {
+        MockHttpServletRequest requete = new MockHttpServletRequest("GET", "/api/livres/9783161484100");
+        if (etag != null) {
+            requete.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        return new ServletWebRequest(requete, reponse);
+    }
+
     // --- Test de recherche par titre ---
     @Test
     void testRechercherLivreParTitre_Valide() {
@@ -142,6 +196,47 @@ public class LivreControllerTest {
         assertEquals(204, response.getStatusCodeValue());  // No content
     }
 
+    @Test
+    void testRechercherLivres() {
+        CriteresLivres criteres = new CriteresLivres("livre", "bedet", null, Set.of(Format.BROCHE), true);
+        PageLivres page = new PageLivres(List.of(livre), 1, 0, 20, Map.of(Format.BROCHE, 1), 1);
+        when(livreService.rechercher(criteres, 0, 20)).thenReturn(page);
+
+        ResponseEntity<PageLivres> response = livreController.rechercherLivres("livre", "bedet", null, Set.of(Format.BROCHE), true, 0, 20);
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(page, response.getBody());
+    }
+
+    @Test
+    void testIndexIndisponible_503() {
+        ResponseEntity<Void> response = livreController.handleIndexIndisponible(new IndexIndisponibleException("en construction"));
+
+        assertEquals(503, response.getStatusCodeValue());
+        assertEquals("5", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void testSuggerer() {
+        when(livreService.suggerer("liv", 10)).thenReturn(List.of("Livre conforme"));
+        when(livreService.suggerer("zzz", 10)).thenReturn(Collections.emptyList());
+
+        ResponseEntity<List<String>> response = livreController.suggerer("liv", 10);
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(List.of("Livre conforme"), response.getBody());
+        assertEquals(204, livreController.suggerer("zzz", 10).getStatusCodeValue());
+    }
+
+    @Test
+    void testRechercherLivreParAuteurApproche() {
+        when(livreService.rechercherParAuteurApproche("Valentin Bedett", 20)).thenReturn(List.of(livre));
+        when(livreService.rechercherParAuteurApproche("NonExistant", 20)).thenReturn(Collections.emptyList());
+
+        assertEquals(200, livreController.rechercherLivreParAuteurApproche("Valentin Bedett", 20).getStatusCodeValue());
+        assertEquals(204, livreController.rechercherLivreParAuteurApproche("NonExistant", 20).getStatusCodeValue());
+    }
+
     @Test
     void testRechercherLivreParTitre_AvecErreur() {
         when(livreService.rechercherParTitre("Erreur")).thenThrow(new RuntimeException("Erreur de service"));
@@ -154,6 +249,25 @@ public class LivreControllerTest {
         }
     }
 
+    @Test
+    void testRechercherLivresDisponiblesParTitre() {
+        when(livreService.rechercherParTitre("Livre", true)).thenReturn(List.of(livre));
+
+        ResponseEntity<List<Livre>> response = livreController.rechercherLivresDisponiblesParTitre("Livre");
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(1, response.getBody().size());
+    }
+
+    @Test
+    void testRechercherLivresDisponiblesParAuteur_Aucun() {
+        when(livreService.rechercherParAuteur("Valentin", true)).thenReturn(Collections.emptyList());
+
+        ResponseEntity<List<Livre>> response = livreController.rechercherLivresDisponiblesParAuteur("Valentin");
+
+        assertEquals(204, response.getStatusCodeValue());
+    }
+
     // --- Test de recherche par auteur ---
     @Test
     void testRechercherLivreParAuteur_Existant() {
@@ -197,4 +311,37 @@ public class LivreControllerTest {
 
         assertEquals(404, response.getStatusCodeValue());
     }
+
+    // --- Test d'import en masse ---
+    @Test
+    void testImporterLivres_Csv() throws Exception {
+        RapportImport rapport = new RapportImport(1, 1, 0, List.of());
+        when(importLivreService.importerLivres(any(Reader.class), eq(FormatImport.CSV))).thenReturn(rapport);
+
+        ResponseEntity<RapportImport> response = livreController.importerLivres("text/csv; charset=UTF-8",
+                new ByteArrayInputStream("9782070360024,L'Étranger,Albert Camus,Gallimard,POCHE,true".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(1, response.getBody().livresImportes());
+    }
+
+    @Test
+    void testImporterLivres_Ndjson() throws Exception {
+        when(importLivreService.importerLivres(any(Reader.class), eq(FormatImport.NDJSON))).thenReturn(new RapportImport(0, 0, 0, List.of()));
+
+        ResponseEntity<RapportImport> response = livreController.importerLivres("application/x-ndjson", new ByteArrayInputStream(new byte[0]));
+
+        assertEquals(200, response.getStatusCodeValue());
+    }
+
+    // --- Test des statistiques du cache ---
+    @Test
+    void testStatistiquesCache() {
+        when(livreService.statistiquesCache()).thenReturn(new CacheLivres.Statistiques(10, 2, 1, 5));
+
+        ResponseEntity<CacheLivres.Statistiques> response = livreController.statistiquesCache();
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(10, response.getBody().succes());
+    }
 }
@@ -1,18 +1,36 @@
 package fr.formation.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import fr.formation.dto.AdherentResume;
+import fr.formation.dto.DemandeReservation;
+import fr.formation.dto.ListeReservations;
+import fr.formation.dto.PageReservations;
+import fr.formation.dto.ReservationResume;
+import fr.formation.dto.ResultatReservation;
+import fr.formation.exception.CurseurInvalideException;
 import fr.formation.exception.ReservationNotFoundException;
 import fr.formation.model.*;
 import fr.formation.service.ReservationService;
+import fr.formation.service.TacheRappel;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -22,6 +40,9 @@ public class ReservationControllerTest {
     @Mock
     private ReservationService reservationService;
 
+    @Spy
+    private ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
     @InjectMocks
     private ReservationController reservationController;
 
@@ -128,19 +149,137 @@ public class ReservationControllerTest {
 
     @Test
     void testEnvoyerRappelReservationsDepassees() {
-        doNothing().when(reservationService).envoyerRappelReservationsDepassees();
+        TacheRappel tache = new TacheRappel();
+        when(reservationService.lancerRappelReservationsDepassees()).thenReturn(tache);
+
+        ResponseEntity<TacheRappel> response = reservationController.envoyerRappelReservationsDepassees();
 
-        ResponseEntity<Void> response = reservationController.envoyerRappelReservationsDepassees();
+        assertEquals(202, response.getStatusCodeValue());
+        assertEquals(tache.getId(), response.getBody().getId());
+    }
+
+    @Test
+    void testSuivreRappel() {
+        TacheRappel tache = new TacheRappel();
+        when(reservationService.suivreRappel(tache.getId())).thenReturn(Optional.of(tache));
+
+        ResponseEntity<TacheRappel> response = reservationController.suivreRappel(tache.getId());
 
         assertEquals(200, response.getStatusCodeValue());
     }
 
+    @Test
+    void testSuivreRappel_Inconnue() {
+        when(reservationService.suivreRappel("inconnue")).thenReturn(Optional.empty());
+
+        ResponseEntity<TacheRappel> response = reservationController.suivreRappel("inconnue");
+
+        assertEquals(404, response.getStatusCodeValue());
+    }
+
     @Test
     void testSupprimerReservationsExpirees() {
-        doNothing().when(reservationService).supprimerReservationsExpirees();
+        when(reservationService.supprimerReservationsExpirees()).thenReturn(12L);
 
-        ResponseEntity<Void> response = reservationController.supprimerReservationsExpirees();
+        ResponseEntity<Long> response = reservationController.supprimerReservationsExpirees();
 
-        assertEquals(204, response.getStatusCodeValue());
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(12L, response.getBody());
+    }
+
+    @Test
+    void testGetReservationsActivesPaginees() {
+        when(reservationService.recupererReservationsActives(null, 50)).thenReturn(new PageReservations(List.of(reservation), "2025-06-01_1"));
+
+        ResponseEntity<PageReservations> response = reservationController.recupererReservationsActives(null, 50);
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals("2025-06-01_1", response.getBody().curseurSuivant());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void testDiffuserReservationsActives() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Reservation> consommateur = invocation.getArgument(0);
+            consommateur.accept(reservation);
+            consommateur.accept(reservation);
+            return null;
+        }).when(reservationService).parcourirReservationsActives(any(Consumer.class));
+
+        ResponseEntity<StreamingResponseBody> response = reservationController.diffuserReservationsActives();
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream();
+        response.getBody().writeTo(sortie);
+
+        assertEquals(200, response.getStatusCodeValue());
+        String[] lignes = sortie.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lignes.length);
+        assertTrue(lignes[0].contains("\"isbn\":\"9783161484100\""));
+    }
+
+    @Test
+    void testListerReservationsActives_VueResume() throws Exception {
+        ListeReservations liste = new ListeReservations(
+                List.of(new ReservationResume(1L, "A123", "9783161484100", LocalDate.now(), dateFin)),
+                Map.of("A123", new AdherentResume("A123", "Bedet", "Valentin")), null, null);
+        when(reservationService.listerReservationsActives(null, null, true, false)).thenReturn(liste);
+
+        ResponseEntity<ListeReservations> response = reservationController.listerReservationsActives(null, null, Set.of("adherents"));
+
+        assertEquals(200, response.getStatusCodeValue());
+        // Ni adresse mail ni date de naissance, et les champs absents ne sont pas sérialisés
+        String json = objectMapper.writeValueAsString(response.getBody());
+        assertFalse(json.contains("adresseMail"));
+        assertFalse(json.contains("livres"));
+        assertFalse(json.contains("curseurSuivant"));
+        assertTrue(json.contains("\"codeAdherent\":\"A123\""));
+    }
+
+    @Test
+    void testListerHistoriqueReservationsAdherent_VueResume() {
+        ListeReservations liste = new ListeReservations(List.of(), null, null, null);
+        when(reservationService.listerHistoriqueReservationsAdherent("A123", null, 20, false, true)).thenReturn(liste);
+
+        ResponseEntity<ListeReservations> response = reservationController.listerHistoriqueReservationsAdherent("A123", null, 20, Set.of("livres"));
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertSame(liste, response.getBody());
+    }
+
+    @Test
+    void testAjouterReservations() {
+        List<DemandeReservation> demandes = List.of(
+                new DemandeReservation("A123", "9783161484100", dateFin),
+                new DemandeReservation("A123", "9783161484100", dateFin));
+        List<ResultatReservation> resultats = List.of(
+                ResultatReservation.acceptee(0, demandes.get(0), 1L),
+                ResultatReservation.refusee(1, demandes.get(1), "indisponible"));
+        when(reservationService.ajouterReservations(demandes)).thenReturn(resultats);
+
+        ResponseEntity<List<ResultatReservation>> response = reservationController.ajouterReservations(demandes);
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(resultats, response.getBody());
+    }
+
+    @Test
+    void testAjouterReservations_LotTropGrand() {
+        when(reservationService.ajouterReservations(anyList())).thenThrow(new IllegalArgumentException("Un lot est limité à 1000 demandes"));
+
+        ResponseEntity<List<ResultatReservation>> response = reservationController.ajouterReservations(List.of());
+
+        assertEquals(400, response.getStatusCodeValue());
+    }
+
+    @Test
+    void testCurseurInvalide_400() {
+        when(reservationService.recupererReservationsActives("pas-un-curseur", 50))
+                .thenThrow(new CurseurInvalideException("Curseur invalide : pas-un-curseur"));
+
+        CurseurInvalideException erreur = assertThrows(CurseurInvalideException.class,
+                () -> reservationController.recupererReservationsActives("pas-un-curseur", 50));
+        ResponseEntity<Void> response = reservationController.handleCurseurInvalide(erreur);
+
+        assertEquals(400, response.getStatusCodeValue());
     }
 }
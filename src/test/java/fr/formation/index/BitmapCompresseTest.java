@@ -0,0 +1,113 @@
+package fr.formation.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BitmapCompresseTest {
+
+    private static List<Integer> valeurs(BitmapCompresse bitmap) {
+        List<Integer> valeurs = new ArrayList<>();
+        bitmap.parcourir(valeurs::add);
+        return valeurs;
+    }
+
+    // Valeurs creuses et blocs denses, pour passer par les deux représentations
+    private static TreeSet<Integer> aleatoires(Random aleatoire, int nombre, int etendue) {
+        TreeSet<Integer> valeurs = new TreeSet<>();
+        while (valeurs.size() < nombre) {
+            valeurs.add(aleatoire.nextInt(etendue));
+        }
+        return valeurs;
+    }
+
+    private static BitmapCompresse bitmap(TreeSet<Integer> valeurs) {
+        BitmapCompresse bitmap = new BitmapCompresse();
+        valeurs.forEach(bitmap::ajouter);
+        return bitmap;
+    }
+
+    @Test
+    void testAjouterRetirerContient() {
+        BitmapCompresse bitmap = BitmapCompresse.de(3, 70_000, 1, 3);
+
+        assertEquals(List.of(1, 3, 70_000), valeurs(bitmap));
+        assertTrue(bitmap.contient(70_000));
+        assertFalse(bitmap.contient(2));
+        assertFalse(bitmap.contient(-1));
+
+        bitmap.retirer(70_000);
+        bitmap.retirer(42);
+        assertEquals(List.of(1, 3), valeurs(bitmap));
+        assertEquals(2, bitmap.cardinalite());
+
+        bitmap.vider();
+        assertTrue(bitmap.estVide());
+        assertThrows(IllegalArgumentException.class, () -> bitmap.ajouter(-1));
+    }
+
+    @Test
+    void testBlocDense_PasseEnBitsPuisRevientEnTableau() {
+        BitmapCompresse bitmap = new BitmapCompresse();
+        for (int i = 0; i <= BitmapCompresse.TABLEAU_MAX; i++) {
+            bitmap.ajouter(i * 2);
+        }
+        assertEquals(BitmapCompresse.TABLEAU_MAX + 1, bitmap.cardinalite());
+        assertTrue(bitmap.contient(BitmapCompresse.TABLEAU_MAX * 2));
+
+        bitmap.retirer(0);
+        bitmap.retirer(2);
+        assertEquals(BitmapCompresse.TABLEAU_MAX - 1, bitmap.cardinalite());
+        assertFalse(bitmap.contient(2));
+        assertTrue(bitmap.contient(4));
+    }
+
+    @Test
+    void testOperations_CommeTreeSet() {
+        Random aleatoire = new Random(11);
+        for (int essai = 0; essai < 20; essai++) {
+            int etendue = essai % 2 == 0 ? 300_000 : 20_000;
+            TreeSet<Integer> a = aleatoires(aleatoire, 1 + aleatoire.nextInt(12_000), etendue);
+            TreeSet<Integer> b = aleatoires(aleatoire, 1 + aleatoire.nextInt(12_000), etendue);
+            BitmapCompresse bitmapA = bitmap(a);
+            BitmapCompresse bitmapB = bitmap(b);
+
+            TreeSet<Integer> et = new TreeSet<>(a);
+            et.retainAll(b);
+            TreeSet<Integer> ou = new TreeSet<>(a);
+            ou.addAll(b);
+            TreeSet<Integer> sauf = new TreeSet<>(a);
+            sauf.removeAll(b);
+
+            assertEquals(new ArrayList<>(et), valeurs(bitmapA.et(bitmapB)));
+            assertEquals(new ArrayList<>(ou), valeurs(bitmapA.ou(bitmapB)));
+            assertEquals(new ArrayList<>(sauf), valeurs(bitmapA.sauf(bitmapB)));
+            assertEquals(ou.size(), bitmapA.ou(bitmapB).cardinalite());
+
+            BitmapCompresse cumul = bitmapA.copie();
+            cumul.ajouterTout(bitmapB);
+            assertEquals(new ArrayList<>(ou), valeurs(cumul));
+            assertEquals(new ArrayList<>(a), valeurs(bitmapA));
+            assertEquals(new ArrayList<>(b), valeurs(bitmapB));
+        }
+    }
+
+    @Test
+    void testParcourir_SautEtNombre() {
+        Random aleatoire = new Random(5);
+        TreeSet<Integer> valeurs = aleatoires(aleatoire, 20_000, 200_000);
+        BitmapCompresse bitmap = bitmap(valeurs);
+        List<Integer> attendues = new ArrayList<>(valeurs);
+
+        for (int saut : new int[]{0, 1, 4095, 4096, 9_000, 19_990, 25_000}) {
+            List<Integer> page = new ArrayList<>();
+            bitmap.parcourir(saut, 20, page::add);
+            assertEquals(attendues.subList(Math.min(saut, attendues.size()), Math.min(saut + 20, attendues.size())), page);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package fr.formation.index;
+
+import fr.formation.dto.CompteAdherent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompteursEmpruntsTest {
+
+    private CompteursEmprunts compteurs;
+
+    @BeforeEach
+    void setUp() {
+        compteurs = new CompteursEmprunts();
+        compteurs.reconstruire(List.of(new CompteAdherent("A123", 2)));
+    }
+
+    @Test
+    void testReconstruire() {
+        assertTrue(compteurs.estPret());
+        assertEquals(2, compteurs.nombre("A123"));
+        assertEquals(0, compteurs.nombre("B456"));
+    }
+
+    @Test
+    void testReserverPlace_JusquAuMaximum() {
+        assertTrue(compteurs.reserverPlace("A123", 3));
+        assertFalse(compteurs.reserverPlace("A123", 3));
+        assertEquals(3, compteurs.nombre("A123"));
+
+        assertTrue(compteurs.reserverPlace("B456", 3));
+        assertEquals(1, compteurs.nombre("B456"));
+    }
+
+    @Test
+    void testLiberer_NeDescendPasSousZero() {
+        compteurs.liberer("A123");
+        assertEquals(1, compteurs.nombre("A123"));
+
+        compteurs.liberer("A123", 5);
+        assertEquals(0, compteurs.nombre("A123"));
+
+        compteurs.liberer("Inconnu");
+        assertEquals(0, compteurs.nombre("Inconnu"));
+    }
+
+    @Test
+    void testReserverPlace_Concurrent() throws Exception {
+        AtomicInteger accordees = new AtomicInteger();
+        ExecutorService executeur = Executors.newFixedThreadPool(8);
+        List<Future<?>> taches = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            taches.add(executeur.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    if (compteurs.reserverPlace("C789", 100)) {
+                        accordees.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> tache : taches) {
+            tache.get(10, TimeUnit.SECONDS);
+        }
+        executeur.shutdown();
+
+        assertEquals(100, accordees.get());
+        assertEquals(100, compteurs.nombre("C789"));
+    }
+}
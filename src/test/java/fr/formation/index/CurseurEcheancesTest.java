@@ -0,0 +1,42 @@
+package fr.formation.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CurseurEcheancesTest {
+
+    @TempDir
+    private Path repertoire;
+
+    @Test
+    void testInactifSansFichier() {
+        CurseurEcheances curseur = new CurseurEcheances("");
+
+        curseur.enregistrer(LocalDate.of(2025, 3, 10));
+
+        assertTrue(curseur.lire().isEmpty());
+    }
+
+    @Test
+    void testEnregistrerPuisRelire() {
+        Path fichier = repertoire.resolve("echeances/curseur");
+        new CurseurEcheances(fichier.toString()).enregistrer(LocalDate.of(2025, 3, 10));
+
+        assertEquals(Optional.of(LocalDate.of(2025, 3, 10)), new CurseurEcheances(fichier.toString()).lire());
+    }
+
+    @Test
+    void testFichierIllisible() throws Exception {
+        Path fichier = repertoire.resolve("curseur");
+        Files.writeString(fichier, "pas une date");
+
+        assertTrue(new CurseurEcheances(fichier.toString()).lire().isEmpty());
+    }
+}
@@ -0,0 +1,48 @@
+package fr.formation.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DictionnaireIsbnTest {
+
+    @Test
+    void testIdentifiantsDenses() {
+        DictionnaireIsbn dictionnaire = new DictionnaireIsbn();
+
+        assertEquals(0, dictionnaire.identifiant("9783161484100"));
+        assertEquals(1, dictionnaire.identifiant("9782070360024"));
+        assertEquals(0, dictionnaire.identifiant("9783161484100"));
+        assertEquals(2, dictionnaire.taille());
+    }
+
+    @Test
+    void testChercher_Absent() {
+        DictionnaireIsbn dictionnaire = new DictionnaireIsbn();
+
+        assertEquals(DictionnaireIsbn.ABSENT, dictionnaire.chercher("9783161484100"));
+    }
+
+    @Test
+    void testAllerRetour_ZerosDeTeteEtX() {
+        DictionnaireIsbn dictionnaire = new DictionnaireIsbn();
+        String[] isbns = {"0306406152", "080442957X", "9783161484100", "isbn-hors-norme", "X"};
+
+        for (String isbn : isbns) {
+            int identifiant = dictionnaire.identifiant(isbn);
+            assertEquals(isbn, dictionnaire.isbn(identifiant));
+            assertEquals(identifiant, dictionnaire.chercher(isbn));
+        }
+    }
+
+    @Test
+    void testAgrandissement() {
+        DictionnaireIsbn dictionnaire = new DictionnaireIsbn();
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, dictionnaire.identifiant(String.valueOf(9780000000000L + i)));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, dictionnaire.chercher(String.valueOf(9780000000000L + i)));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package fr.formation.index;
+
+import fr.formation.model.Format;
+import fr.formation.model.Livre;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DisponibiliteLivresTest {
+
+    private DisponibiliteLivres disponibilite;
+    private Livre disponible;
+    private Livre emprunte;
+
+    @BeforeEach
+    void setUp() {
+        disponibilite = new DisponibiliteLivres();
+        disponible = new Livre("9783161484100", "Livre conforme", "Valentin Bedet", "Éditeur IIA", Format.BROCHE, true);
+        emprunte = new Livre("9782070360024", "L'Étranger", "Albert Camus", "Gallimard", Format.POCHE, false);
+        disponibilite.reconstruire(List.of(disponible, emprunte));
+    }
+
+    @Test
+    void testEstDisponible() {
+        assertTrue(disponibilite.estDisponible(disponible.getIsbn()));
+        assertFalse(disponibilite.estDisponible(emprunte.getIsbn()));
+        assertEquals(1, disponibilite.nombreDisponibles());
+    }
+
+    @Test
+    void testReleverEcritures_JusquAUnReleveVide() {
+        disponibilite.enregistrer(emprunte.getIsbn(), true);
+        disponibilite.suivreEcritures();
+        disponibilite.enregistrer(disponible.getIsbn(), false);
+        disponibilite.retirer("9780000000000");
+
+        assertEquals(Set.of(disponible.getIsbn(), "9780000000000"), disponibilite.releverEcritures());
+        disponibilite.rafraichir(List.of(disponible), List.of());
+        assertEquals(Set.of(), disponibilite.releverEcritures());
+        disponibilite.enregistrer(emprunte.getIsbn(), false);
+        assertEquals(Set.of(), disponibilite.releverEcritures());
+    }
+
+    @Test
+    void testEnregistrer_ChangementDeDisponibilite() {
+        disponibilite.enregistrer(emprunte.getIsbn(), true);
+        disponibilite.enregistrer(disponible.getIsbn(), false);
+
+        assertTrue(disponibilite.estDisponible(emprunte.getIsbn()));
+        assertFalse(disponibilite.estDisponible(disponible.getIsbn()));
+    }
+
+    @Test
+    void testRetirer() {
+        disponibilite.retirer(disponible.getIsbn());
+
+        assertFalse(disponibilite.estConnu(disponible.getIsbn()));
+        assertEquals(0, disponibilite.nombreDisponibles());
+    }
+
+    @Test
+    void testActualiser_DisponibiliteDuBitmap() {
+        Livre inconnu = new Livre("9782070368228", "La Peste", "Albert Camus", "Gallimard", Format.POCHE, true);
+        disponibilite.enregistrer(disponible.getIsbn(), false);
+
+        Livre actualise = disponibilite.actualiser(disponible);
+
+        assertFalse(actualise.isDisponible());
+        assertEquals(disponible.getTitre(), actualise.getTitre());
+        assertTrue(disponible.isDisponible());
+        assertSame(emprunte, disponibilite.actualiser(emprunte));
+        assertSame(inconnu, disponibilite.actualiser(inconnu));
+    }
+
+    @Test
+    void testFiltrerDisponibles_LivreInconnuSelonEntite() {
+        Livre inconnu = new Livre("9782070368228", "La Peste", "Albert Camus", "Gallimard", Format.POCHE, true);
+
+        List<Livre> resultat = disponibilite.filtrerDisponibles(List.of(disponible, emprunte, inconnu));
+
+        assertEquals(List.of(disponible, inconnu), resultat);
+    }
+}
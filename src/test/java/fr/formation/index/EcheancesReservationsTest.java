@@ -0,0 +1,96 @@
+package fr.formation.index;
+
+import fr.formation.dto.EcheanceReservation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EcheancesReservationsTest {
+
+    private final LocalDate aujourdhui = LocalDate.of(2025, 3, 10);
+    private EcheancesReservations echeances;
+
+    @BeforeEach
+    void setUp() {
+        echeances = new EcheancesReservations();
+        echeances.reconstruire(List.of(
+                new EcheanceReservation(1L, aujourdhui.minusDays(5)),
+                new EcheanceReservation(2L, aujourdhui),
+                new EcheanceReservation(3L, aujourdhui.plusDays(1)),
+                new EcheanceReservation(4L, aujourdhui.plusDays(2))), aujourdhui);
+    }
+
+    @Test
+    void testReconstruire() {
+        assertTrue(echeances.estPret());
+        assertEquals(4, echeances.taille());
+        assertEquals(List.of(1L), echeances.echeancesAvant(aujourdhui));
+    }
+
+    @Test
+    void testAjouterEtRetirer() {
+        echeances.ajouter(5L, aujourdhui.minusDays(1));
+        echeances.retirer(1L, aujourdhui.minusDays(5));
+        // Retirer avec une mauvaise date n'a pas d'effet
+        echeances.retirer(2L, aujourdhui.plusDays(1));
+
+        assertEquals(List.of(5L), echeances.echeancesAvant(aujourdhui));
+        assertEquals(4, echeances.taille());
+    }
+
+    @Test
+    void testABasculer_MemeJour_Rien() {
+        EcheancesReservations.Basculement basculement = echeances.aBasculer(aujourdhui);
+
+        assertTrue(basculement.ids().isEmpty());
+    }
+
+    @Test
+    void testABasculer_SeulementLesNouveauxRetards() {
+        EcheancesReservations.Basculement basculement = echeances.aBasculer(aujourdhui.plusDays(1));
+
+        // La réservation déjà en retard au démarrage n'est pas signalée à nouveau
+        assertEquals(List.of(2L), basculement.ids());
+        assertEquals(aujourdhui, basculement.debut());
+        assertEquals(aujourdhui.plusDays(1), basculement.fin());
+    }
+
+    @Test
+    void testABasculer_ReproposeTantQueNonAvance() {
+        echeances.aBasculer(aujourdhui.plusDays(1));
+
+        assertEquals(List.of(2L), echeances.aBasculer(aujourdhui.plusDays(1)).ids());
+
+        echeances.avancer(aujourdhui.plusDays(1));
+
+        assertTrue(echeances.aBasculer(aujourdhui.plusDays(1)).ids().isEmpty());
+    }
+
+    @Test
+    void testABasculer_RattrapeLesJoursManques() {
+        EcheancesReservations.Basculement basculement = echeances.aBasculer(aujourdhui.plusDays(3));
+
+        assertEquals(List.of(2L, 3L, 4L), basculement.ids());
+        assertEquals(aujourdhui, basculement.debut());
+    }
+
+    @Test
+    void testAvancer_NeReculePas() {
+        echeances.avancer(aujourdhui.plusDays(2));
+        echeances.avancer(aujourdhui.plusDays(1));
+
+        assertEquals(List.of(4L), echeances.aBasculer(aujourdhui.plusDays(3)).ids());
+    }
+
+    @Test
+    void testReconstruire_RepriseAuJourPersiste() {
+        // Arrêt de trois jours : la dernière bascule s'était arrêtée avant l'échéance de la réservation 1
+        echeances.reconstruire(List.of(new EcheanceReservation(1L, aujourdhui.minusDays(2))), aujourdhui.minusDays(3));
+
+        assertEquals(List.of(1L), echeances.aBasculer(aujourdhui).ids());
+    }
+}
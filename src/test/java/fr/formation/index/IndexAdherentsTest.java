@@ -0,0 +1,57 @@
+package fr.formation.index;
+
+import fr.formation.model.Adherent;
+import fr.formation.model.Civilite;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndexAdherentsTest {
+
+    private IndexAdherents index;
+    private final Adherent valentin = new Adherent("A123", "Bedet", "Valentin", "2003-10-24", Civilite.HOMME, "valentin.bedet@mail.com");
+    private final Adherent lea = new Adherent("A001", "Martin", "Léa", "1999-04-12", Civilite.FEMME, "lea.martin@mail.com");
+
+    @BeforeEach
+    void setUp() {
+        index = new IndexAdherents();
+        index.reconstruire(List.of(valentin, lea));
+    }
+
+    @Test
+    void testRechercherParCode() {
+        assertTrue(index.estPret());
+        assertEquals(valentin, index.rechercherParCode("A123").orElseThrow());
+        assertTrue(index.rechercherParCode("A999").isEmpty());
+    }
+
+    @Test
+    void testRechercherParCode_CopieNonPartagee() {
+        index.rechercherParCode("A123").orElseThrow().setNom("Modifié");
+        valentin.setPrenom("Modifié");
+
+        assertEquals("Bedet", index.rechercherParCode("A123").orElseThrow().getNom());
+        assertEquals("Valentin", index.rechercherParCode("A123").orElseThrow().getPrenom());
+        assertNotSame(index.rechercherParNom("bedet").get(0), index.rechercherParNom("bedet").get(0));
+    }
+
+    @Test
+    void testRechercherParNom_SansCasse() {
+        assertEquals(List.of(lea), index.rechercherParNom("MART"));
+        assertEquals(List.of(valentin), index.rechercherParNom("be"));
+    }
+
+    @Test
+    void testIndexerEtRetirer() {
+        Adherent renomme = new Adherent("A123", "Aubert", "Valentin", "2003-10-24", Civilite.HOMME, "valentin.bedet@mail.com");
+        index.indexer(renomme);
+        index.retirer("A001");
+
+        assertTrue(index.rechercherParNom("bedet").isEmpty());
+        assertEquals(List.of(renomme), index.rechercherParNom("aubert"));
+        assertTrue(index.rechercherParCode("A001").isEmpty());
+    }
+}
@@ -0,0 +1,111 @@
+package fr.formation.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndexApprocheTest {
+
+    private IndexApproche index;
+
+    @BeforeEach
+    void setUp() {
+        index = new IndexApproche();
+        index.indexer("1", "Paul Éluard");
+        index.indexer("2", "Alexandre Dumas");
+        index.indexer("3", "Albert Camus");
+        index.indexer("4", "Émile Zola");
+        index.indexer("5", "Victor Hugo");
+    }
+
+    private List<String> cles(String recherche) {
+        return index.rechercher(recherche, 10).stream().map(IndexApproche.Resultat::cle).toList();
+    }
+
+    @Test
+    void testPlier_SansAccentsNiLigatures() {
+        assertEquals("paul eluard", NormalisationTexte.plier("  Paul ÉLUARD "));
+        assertEquals("coeur de boeuf", NormalisationTexte.plier("Cœur-de-Bœuf"));
+        assertEquals("", NormalisationTexte.plier(null));
+        assertEquals(List.of("saint", "exupery"), NormalisationTexte.mots(NormalisationTexte.plier("Saint-Exupéry")));
+    }
+
+    @Test
+    void testCle_MemeSonMemeCle() {
+        assertEquals(PhonetiqueFrancaise.cle("dumas"), PhonetiqueFrancaise.cle("dumat"));
+        assertEquals(PhonetiqueFrancaise.cle("camus"), PhonetiqueFrancaise.cle("kamu"));
+        assertEquals(PhonetiqueFrancaise.cle("philippe"), PhonetiqueFrancaise.cle("filipe"));
+        assertEquals(PhonetiqueFrancaise.cle("rousseau"), PhonetiqueFrancaise.cle("rouso"));
+        assertNotEquals(PhonetiqueFrancaise.cle("dumas"), PhonetiqueFrancaise.cle("camus"));
+    }
+
+    @Test
+    void testDistance_TranspositionEtPlafond() {
+        assertEquals(0, IndexApproche.distance("zola", "zola", 2));
+        assertEquals(1, IndexApproche.distance("zloa", "zola", 2));
+        assertEquals(1, IndexApproche.distance("eluadr", "eluard", 2));
+        assertEquals(3, IndexApproche.distance("camus", "zola", 2));
+    }
+
+    @Test
+    void testRechercher_SansAccentsNiCasse() {
+        assertEquals(List.of(new IndexApproche.Resultat("1", 0)), index.rechercher("ELUARD", 10));
+        assertEquals(List.of("4"), cles("emile zola"));
+    }
+
+    @Test
+    void testRechercher_FauteDeFrappe() {
+        assertEquals(List.of("1"), cles("Eluadr"));
+        assertEquals(List.of("5"), cles("Vicotr"));
+    }
+
+    @Test
+    void testRechercher_Phonetique() {
+        assertEquals(List.of("2"), cles("Dumat"));
+        assertEquals(List.of("3"), cles("Kamu"));
+    }
+
+    @Test
+    void testRechercher_TousLesMotsDoiventCorrespondre() {
+        assertEquals(List.of("2"), cles("alexandre dumas"));
+        assertTrue(cles("alexandre camus").isEmpty());
+    }
+
+    @Test
+    void testRechercher_ClasseParDistanceEtLimite() {
+        index.indexer("6", "Dumat");
+        index.indexer("7", "Alexandre Dumas fils");
+
+        List<IndexApproche.Resultat> resultats = index.rechercher("dumas", 10);
+
+        assertEquals(List.of("2", "7", "6"), resultats.stream().map(IndexApproche.Resultat::cle).toList());
+        assertEquals(List.of(0, 0, 1), resultats.stream().map(IndexApproche.Resultat::distance).toList());
+        assertEquals(List.of("2"), index.rechercher("dumas", 1).stream().map(IndexApproche.Resultat::cle).toList());
+    }
+
+    @Test
+    void testRechercher_MotCourtSansFaute() {
+        index.indexer("6", "Jo");
+
+        assertEquals(List.of("6"), cles("jo"));
+        assertTrue(cles("ja").isEmpty());
+    }
+
+    @Test
+    void testIndexerEtRetirer() {
+        index.indexer("2", "Alexandre Dumas fils");
+        index.indexer("8", "Alexandre Dumas");
+        index.retirer("2");
+
+        assertEquals(List.of("8"), cles("dumas"));
+        assertTrue(cles("fils").isEmpty());
+        assertEquals(5, index.taille());
+
+        index.vider();
+        assertTrue(cles("dumas").isEmpty());
+        assertEquals(0, index.taille());
+    }
+}
@@ -0,0 +1,152 @@
+package fr.formation.index;
+
+import fr.formation.dto.CriteresLivres;
+import fr.formation.dto.PageLivres;
+import fr.formation.model.Format;
+import fr.formation.model.Livre;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RechercheCatalogueTest {
+
+    private DisponibiliteLivres disponibilite;
+    private RechercheCatalogue recherche;
+
+    private final Livre miserables = new Livre("9782070409228", "Les Misérables", "Victor Hugo", "Gallimard", Format.POCHE, true);
+    private final Livre notreDame = new Livre("9782253009689", "Notre-Dame de Paris", "Victor Hugo", "Le Livre de Poche", Format.POCHE, false);
+    private final Livre contemplations = new Livre("9782070322251", "Les Contemplations", "Victor Hugo", "Gallimard", Format.BROCHE, true);
+    private final Livre peste = new Livre("9782070360420", "La Peste", "Albert Camus", "Gallimard", Format.POCHE, true);
+
+    private static CriteresLivres criteres(String titre, String auteur, String editeur, Set<Format> formats, Boolean disponible) {
+        return new CriteresLivres(titre, auteur, editeur, formats, disponible);
+    }
+
+    private static List<String> titres(PageLivres page) {
+        return page.livres().stream().map(Livre::getTitre).toList();
+    }
+
+    @BeforeEach
+    void setUp() {
+        disponibilite = new DisponibiliteLivres();
+        recherche = new RechercheCatalogue(disponibilite);
+        List<Livre> catalogue = List.of(miserables, notreDame, contemplations, peste);
+        disponibilite.reconstruire(catalogue);
+        recherche.reconstruire(catalogue);
+    }
+
+    @Test
+    void testRechercher_CriteresCombines() {
+        PageLivres page = recherche.rechercher(criteres(null, "hugo", "gallimard", Set.of(Format.POCHE), true), 0, 20);
+
+        assertEquals(List.of("Les Misérables"), titres(page));
+        assertEquals(1, page.total());
+    }
+
+    @Test
+    void testRechercher_MotsPrefixesSansAccents() {
+        assertEquals(List.of("Les Misérables"), titres(recherche.rechercher(criteres("les MISER", null, null, null, null), 0, 20)));
+        assertEquals(List.of("Notre-Dame de Paris"), titres(recherche.rechercher(criteres("dame", "vic", "poche", null, null), 0, 20)));
+        assertEquals(0, recherche.rechercher(criteres("dame", "camus", null, null, null), 0, 20).total());
+    }
+
+    @Test
+    void testRechercher_SansCritere_ToutLeCatalogue() {
+        PageLivres page = recherche.rechercher(criteres(null, " ", null, Set.of(), null), 0, 20);
+
+        assertEquals(4, page.total());
+        assertEquals(Map.of(Format.POCHE, 3, Format.BROCHE, 1), page.parFormat());
+        assertEquals(3, page.disponibles());
+    }
+
+    @Test
+    void testRechercher_FormatsEnOu() {
+        PageLivres page = recherche.rechercher(criteres(null, "hugo", null, Set.of(Format.BROCHE, Format.GRAND_FORMAT), null), 0, 20);
+
+        assertEquals(List.of("Les Contemplations"), titres(page));
+    }
+
+    @Test
+    void testRechercher_FacettesSansLeurPropreCritere() {
+        PageLivres page = recherche.rechercher(criteres(null, "hugo", null, Set.of(Format.POCHE), true), 0, 20);
+
+        assertEquals(1, page.total());
+        // Comptes par format avec le seul critère de disponibilité, disponibles avec le seul critère de format
+        assertEquals(Map.of(Format.POCHE, 1, Format.BROCHE, 1), page.parFormat());
+        assertEquals(1, page.disponibles());
+        assertEquals(List.of("Notre-Dame de Paris"),
+                titres(recherche.rechercher(criteres(null, "hugo", null, Set.of(Format.POCHE), false), 0, 20)));
+    }
+
+    @Test
+    void testRechercher_DisponibiliteSuitLeBitmap() {
+        disponibilite.enregistrer(peste.getIsbn(), false);
+
+        assertEquals(List.of("Les Misérables", "Les Contemplations"),
+                titres(recherche.rechercher(criteres(null, null, null, null, true), 0, 20)));
+    }
+
+    @Test
+    void testRechercher_LivresServisAvecLaDisponibiliteDuBitmap() {
+        disponibilite.enregistrer(peste.getIsbn(), false);
+
+        PageLivres page = recherche.rechercher(criteres("peste", null, null, null, null), 0, 20);
+
+        assertFalse(page.livres().get(0).isDisponible());
+        assertEquals(0, page.disponibles());
+        assertTrue(peste.isDisponible());
+    }
+
+    @Test
+    void testRechercher_LivreInconnuDuBitmap_ExcluDuFiltreDeDisponibilite() {
+        Livre nouveau = new Livre("9782070413119", "L'Homme qui rit", "Victor Hugo", "Gallimard", Format.POCHE, true);
+        recherche.indexer(nouveau);
+
+        assertFalse(disponibilite.estConnu(nouveau.getIsbn()));
+        assertTrue(titres(recherche.rechercher(criteres(null, "hugo", null, null, null), 0, 20)).contains("L'Homme qui rit"));
+        assertFalse(titres(recherche.rechercher(criteres(null, "hugo", null, null, true), 0, 20)).contains("L'Homme qui rit"));
+        assertFalse(titres(recherche.rechercher(criteres(null, "hugo", null, null, false), 0, 20)).contains("L'Homme qui rit"));
+    }
+
+    @Test
+    void testRechercher_Pages() {
+        List<Livre> catalogue = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            catalogue.add(new Livre(String.format("978000000%04d", i), "Tome " + i, "Auteur", "Éditeur", Format.POCHE, true));
+        }
+        disponibilite.reconstruire(catalogue);
+        recherche.reconstruire(catalogue);
+
+        PageLivres deuxieme = recherche.rechercher(criteres("tome", null, null, null, null), 1, 20);
+        assertEquals(250, deuxieme.total());
+        assertEquals(20, deuxieme.livres().size());
+        assertEquals("Tome 20", deuxieme.livres().get(0).getTitre());
+
+        PageLivres plafonnee = recherche.rechercher(criteres(null, null, null, null, null), 0, 1000);
+        assertEquals(RechercheCatalogue.TAILLE_PAGE_MAX, plafonnee.taille());
+        assertEquals(RechercheCatalogue.TAILLE_PAGE_MAX, plafonnee.livres().size());
+        assertTrue(recherche.rechercher(criteres(null, null, null, null, null), Integer.MAX_VALUE, 100).livres().isEmpty());
+    }
+
+    @Test
+    void testIndexerEtRetirer() {
+        Livre renomme = new Livre(peste.getIsbn(), "L'Étranger", "Albert Camus", "Gallimard", Format.GRAND_FORMAT, true);
+        recherche.indexer(renomme);
+
+        assertEquals(0, recherche.rechercher(criteres("peste", null, null, null, null), 0, 20).total());
+        assertEquals(List.of("L'Étranger"),
+                titres(recherche.rechercher(criteres("etranger", null, null, Set.of(Format.GRAND_FORMAT), null), 0, 20)));
+
+        recherche.retirer(renomme.getIsbn());
+        recherche.retirer("inconnu");
+
+        assertEquals(0, recherche.rechercher(criteres(null, "camus", null, null, null), 0, 20).total());
+        assertEquals(3, recherche.rechercher(criteres(null, null, null, null, null), 0, 20).total());
+    }
+}
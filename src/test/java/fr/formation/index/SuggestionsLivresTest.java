@@ -0,0 +1,142 @@
+package fr.formation.index;
+
+import fr.formation.dto.CompteLivre;
+import fr.formation.model.Format;
+import fr.formation.model.Livre;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SuggestionsLivresTest {
+
+    private SuggestionsLivres suggestions;
+
+    private static Livre livre(String isbn, String titre, String auteur) {
+        return new Livre(isbn, titre, auteur, "Gallimard", Format.POCHE, true);
+    }
+
+    @BeforeEach
+    void setUp() {
+        suggestions = new SuggestionsLivres();
+        suggestions.reconstruire(List.of(
+                livre("1", "Le Petit Prince", "Antoine de Saint-Exupéry"),
+                livre("2", "Les Misérables", "Victor Hugo"),
+                livre("3", "Notre-Dame de Paris", "Victor Hugo"),
+                livre("4", "Le Père Goriot", "Honoré de Balzac"),
+                livre("5", "La Peste", "Albert Camus")));
+    }
+
+    @Test
+    void testSuggerer_PrefixeSansAccentsNiCasse() {
+        assertEquals(List.of("Les Misérables"), suggestions.suggerer("LES MISE", 10));
+        assertEquals(List.of("Le Père Goriot"), suggestions.suggerer("le pere", 10));
+        assertTrue(suggestions.suggerer("zola", 10).isEmpty());
+    }
+
+    @Test
+    void testSuggerer_DepuisChaqueMot() {
+        assertEquals(List.of("Le Petit Prince"), suggestions.suggerer("prin", 10));
+        assertEquals(List.of("Antoine de Saint-Exupéry"), suggestions.suggerer("exup", 10));
+    }
+
+    @Test
+    void testSuggerer_ClasseParPopularite() {
+        // À popularité égale, ordre alphabétique ; Hugo porte deux livres
+        assertEquals(List.of("La Peste", "Le Père Goriot", "Le Petit Prince"), suggestions.suggerer("pe", 10));
+        assertEquals("Victor Hugo", suggestions.suggerer("", 1).get(0));
+
+        suggestions.ajouterPopularite("1", 3);
+
+        assertEquals(List.of("Le Petit Prince", "La Peste", "Le Père Goriot"), suggestions.suggerer("pe", 10));
+        assertEquals(List.of("Le Petit Prince"), suggestions.suggerer("pe", 1));
+        assertEquals(List.of("Antoine de Saint-Exupéry", "Le Petit Prince"), suggestions.suggerer("", 2));
+    }
+
+    @Test
+    void testDefinirPopularites_RemplaceLesPrecedentes() {
+        suggestions.definirPopularites(List.of(new CompteLivre("1", 5)));
+        assertEquals("Antoine de Saint-Exupéry", suggestions.suggerer("", 1).get(0));
+
+        suggestions.definirPopularites(List.of(new CompteLivre("4", 5)));
+        assertEquals(List.of("Le Père Goriot", "La Peste", "Le Petit Prince"), suggestions.suggerer("pe", 10));
+        assertEquals("Honoré de Balzac", suggestions.suggerer("", 1).get(0));
+    }
+
+    @Test
+    void testIndexerEtRetirer() {
+        suggestions.indexer(livre("4", "Eugénie Grandet", "Honoré de Balzac"));
+        suggestions.indexer(livre("6", "Le Petit Nicolas", "René Goscinny"));
+
+        assertTrue(suggestions.suggerer("goriot", 10).isEmpty());
+        assertEquals(List.of("Eugénie Grandet"), suggestions.suggerer("eug", 10));
+        assertEquals(List.of("Le Petit Nicolas", "Le Petit Prince"), suggestions.suggerer("le petit", 10));
+
+        suggestions.retirer("1");
+        suggestions.retirer("6");
+
+        assertTrue(suggestions.suggerer("le petit", 10).isEmpty());
+        assertTrue(suggestions.suggerer("antoine", 10).isEmpty());
+        assertEquals(List.of("Victor Hugo"), suggestions.suggerer("vic", 10));
+    }
+
+    @Test
+    void testSuggerer_AuPlusDixEtLimite() {
+        List<Livre> catalogue = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            catalogue.add(livre("T" + i, "Tome " + i, null));
+        }
+        suggestions.reconstruire(catalogue);
+
+        assertEquals(SuggestionsLivres.SUGGESTIONS_MAX, suggestions.suggerer("tome", 50).size());
+        assertEquals(List.of("Tome 0", "Tome 1", "Tome 10"), suggestions.suggerer("tome", 3));
+        assertEquals(List.of("Tome 2", "Tome 20", "Tome 21"), suggestions.suggerer("tome 2", 3));
+    }
+
+    @Test
+    void testIndexerUnParUn_CommeReconstruire() {
+        SuggestionsLivres incrementales = new SuggestionsLivres();
+        List<Livre> catalogue = List.of(
+                livre("1", "Le Petit Prince", "Antoine de Saint-Exupéry"),
+                livre("2", "Les Misérables", "Victor Hugo"),
+                livre("3", "Notre-Dame de Paris", "Victor Hugo"),
+                livre("4", "Le Père Goriot", "Honoré de Balzac"),
+                livre("5", "La Peste", "Albert Camus"));
+        catalogue.forEach(incrementales::indexer);
+
+        for (String prefixe : List.of("", "l", "le", "le p", "p", "vi", "hugo", "de")) {
+            assertEquals(suggestions.suggerer(prefixe, 10), incrementales.suggerer(prefixe, 10), prefixe);
+        }
+    }
+
+    @Test
+    void testAjoutsEtRetraitsAleatoires_CommeReconstruire() {
+        String[] mots = {"le", "la", "les", "petit", "peste", "pere", "prince", "paris", "pa", "p"};
+        Random aleatoire = new Random(7);
+        SuggestionsLivres incrementales = new SuggestionsLivres();
+        Map<String, Livre> catalogue = new HashMap<>();
+        for (int i = 0; i < 500; i++) {
+            String isbn = Integer.toString(aleatoire.nextInt(40));
+            if (aleatoire.nextInt(3) == 0) {
+                incrementales.retirer(isbn);
+                catalogue.remove(isbn);
+            } else {
+                Livre livre = livre(isbn, mots[aleatoire.nextInt(mots.length)] + " " + mots[aleatoire.nextInt(mots.length)],
+                        mots[aleatoire.nextInt(mots.length)]);
+                incrementales.indexer(livre);
+                catalogue.put(isbn, livre);
+            }
+        }
+        suggestions.reconstruire(catalogue.values());
+
+        for (String prefixe : List.of("", "p", "pa", "par", "pe", "pet", "l", "le", "les", "le p", "la pa", "prince p")) {
+            assertEquals(suggestions.suggerer(prefixe, 10), incrementales.suggerer(prefixe, 10), prefixe);
+        }
+    }
+}
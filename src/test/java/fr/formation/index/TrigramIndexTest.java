@@ -0,0 +1,72 @@
+package fr.formation.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrigramIndexTest {
+
+    private TrigramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TrigramIndex();
+        index.indexer("1", "Le Comte de Monte-Cristo");
+        index.indexer("2", "Les Trois Mousquetaires");
+        index.indexer("3", "Le Petit Prince");
+    }
+
+    @Test
+    void testRechercher_SousChaineSansCasse() {
+        assertEquals(List.of("1"), index.rechercher("MONTE-cri"));
+        assertEquals(List.of("2"), index.rechercher("trois mous"));
+    }
+
+    @Test
+    void testRechercher_MotifCourt() {
+        assertEquals(List.of("1", "2", "3"), index.rechercher("e"));
+        assertEquals(List.of("1", "2", "3"), index.rechercher(""));
+    }
+
+    @Test
+    void testRechercher_OrdreDIndexation() {
+        index.indexer("10", "Le Rouge et le Noir");
+        index.indexer("0", "Le Père Goriot");
+        index.retirer("1");
+        index.indexer("1", "Le Comte");
+
+        assertEquals(List.of("1", "3", "10", "0"), index.rechercher("le "));
+        assertEquals(List.of("1", "2", "3", "10", "0"), index.rechercher("le"));
+    }
+
+    @Test
+    void testRechercher_TrigrammesPresentsMaisPasContigus() {
+        // Tous les trigrammes de "monte de" sont présents dans le titre 1, mais pas la sous-chaîne
+        assertTrue(index.rechercher("monte de").isEmpty());
+    }
+
+    @Test
+    void testRechercher_Inexistant() {
+        assertTrue(index.rechercher("Germinal").isEmpty());
+    }
+
+    @Test
+    void testIndexer_RemplaceAncienTexte() {
+        index.indexer("3", "Germinal");
+
+        assertTrue(index.rechercher("Petit").isEmpty());
+        assertEquals(List.of("3"), index.rechercher("germ"));
+        assertEquals(3, index.taille());
+    }
+
+    @Test
+    void testRetirer() {
+        index.retirer("1");
+
+        assertTrue(index.rechercher("Monte").isEmpty());
+        assertEquals(2, index.taille());
+    }
+}
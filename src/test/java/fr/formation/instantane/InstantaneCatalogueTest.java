@@ -0,0 +1,97 @@
+package fr.formation.instantane;
+
+import fr.formation.model.Adherent;
+import fr.formation.model.Civilite;
+import fr.formation.model.Format;
+import fr.formation.model.Livre;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InstantaneCatalogueTest {
+
+    @TempDir
+    private Path repertoire;
+
+    private final List<Livre> livres = List.of(
+            new Livre("9783161484100", "Livre conforme", "Valentin Bedet", "Éditeur IIA", Format.BROCHE, true),
+            new Livre("9782070360024", "L'Étranger", "Albert Camus", "Gallimard", Format.POCHE, false),
+            new Livre("9782070000000", "Sans format", "Anonyme", null, null, true));
+    private final List<Adherent> adherents = List.of(
+            new Adherent("A123", "Bedet", "Valentin", "2003-10-24", Civilite.HOMME, "valentin.bedet@mail.com"),
+            new Adherent("A001", "Martin", "Léa", "1999-04-12", Civilite.FEMME, "lea.martin@mail.com"));
+
+    @Test
+    void testInactifSansFichier() {
+        InstantaneCatalogue instantane = new InstantaneCatalogue("");
+
+        instantane.ecrire(livres, adherents);
+
+        assertFalse(instantane.estActif());
+        assertTrue(instantane.lire().isEmpty());
+    }
+
+    @Test
+    void testAbsent() {
+        assertTrue(new InstantaneCatalogue(repertoire.resolve("catalogue.bin").toString()).lire().isEmpty());
+    }
+
+    @Test
+    void testEcrirePuisLire() {
+        InstantaneCatalogue instantane = new InstantaneCatalogue(repertoire.resolve("sous/catalogue.bin").toString());
+
+        instantane.ecrire(livres, adherents);
+        InstantaneCatalogue.Contenu contenu = instantane.lire().orElseThrow();
+
+        assertEquals(livres, contenu.livres());
+        assertEquals(adherents, contenu.adherents());
+        assertTrue(contenu.horodatage() > 0);
+    }
+
+    @Test
+    void testReecritureRemplaceLeContenu() throws Exception {
+        Path fichier = repertoire.resolve("catalogue.bin");
+        InstantaneCatalogue instantane = new InstantaneCatalogue(fichier.toString());
+        instantane.ecrire(livres, adherents);
+
+        instantane.ecrire(livres.subList(0, 1), List.of());
+
+        InstantaneCatalogue.Contenu contenu = instantane.lire().orElseThrow();
+        assertEquals(livres.subList(0, 1), contenu.livres());
+        assertTrue(contenu.adherents().isEmpty());
+        try (var fichiers = Files.list(repertoire)) {
+            assertEquals(List.of(fichier), fichiers.toList());
+        }
+    }
+
+    @Test
+    void testFichierAltereIgnore() throws Exception {
+        Path fichier = repertoire.resolve("catalogue.bin");
+        InstantaneCatalogue instantane = new InstantaneCatalogue(fichier.toString());
+        instantane.ecrire(livres, adherents);
+        try (RandomAccessFile acces = new RandomAccessFile(fichier.toFile(), "rw")) {
+            acces.seek(acces.length() - 3);
+            acces.write('#');
+        }
+
+        assertTrue(instantane.lire().isEmpty());
+    }
+
+    @Test
+    void testFichierTronqueIgnore() throws Exception {
+        Path fichier = repertoire.resolve("catalogue.bin");
+        InstantaneCatalogue instantane = new InstantaneCatalogue(fichier.toString());
+        instantane.ecrire(livres, adherents);
+        try (RandomAccessFile acces = new RandomAccessFile(fichier.toFile(), "rw")) {
+            acces.setLength(20);
+        }
+
+        assertTrue(instantane.lire().isEmpty());
+    }
+}
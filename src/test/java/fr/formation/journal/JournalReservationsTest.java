@@ -0,0 +1,194 @@
+package fr.formation.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JournalReservationsTest {
+
+    @TempDir
+    private Path repertoire;
+
+    private final LocalDate debut = LocalDate.of(2025, 1, 2);
+    private final LocalDate fin = LocalDate.of(2025, 2, 1);
+
+    private List<EvenementReservation> relire(int enregistrementsParSegment) throws Exception {
+        JournalReservations journal = new JournalReservations(repertoire.toString(), enregistrementsParSegment);
+        List<EvenementReservation> evenements = new ArrayList<>();
+        journal.relire(evenements::add);
+        journal.fermer();
+        return evenements;
+    }
+
+    @Test
+    void testInactifSansRepertoire() {
+        JournalReservations journal = new JournalReservations("", 1024);
+
+        assertFalse(journal.estActif());
+        assertTrue(journal.enregistrer(EvenementReservation.Type.CREATION, 1L, "A123", "9783161484100", debut, fin).isDone());
+        assertEquals(0, journal.relire(evenement -> fail()));
+    }
+
+    @Test
+    void testSynchronisationEnEchec_PlageReprise() throws Exception {
+        AtomicBoolean echouer = new AtomicBoolean(true);
+        List<int[]> plages = new ArrayList<>();
+        JournalReservations journal = new JournalReservations(repertoire.toString(), 1024) {
+            @Override
+            void forcer(MappedByteBuffer cible, int debut, int longueur) {
+                plages.add(new int[]{debut, longueur});
+                if (echouer.getAndSet(false)) {
+                    throw new UncheckedIOException(new IOException("Disque plein"));
+                }
+                super.forcer(cible, debut, longueur);
+            }
+        };
+
+        CompletableFuture<Void> premier = journal.enregistrer(EvenementReservation.Type.CREATION, 1L, "A123", "9783161484100", debut, fin);
+        assertThrows(ExecutionException.class, () -> premier.get(5, TimeUnit.SECONDS));
+        journal.enregistrer(EvenementReservation.Type.ANNULATION, 1L, "A123", "9783161484100", debut, fin).get(5, TimeUnit.SECONDS);
+        journal.fermer();
+
+        // La seconde synchronisation couvre aussi l'enregistrement dont la synchronisation a échoué
+        int[] reprise = plages.get(plages.size() - 1);
+        assertEquals(JournalReservations.TAILLE_ENREGISTREMENT, reprise[0]);
+        assertEquals(2 * JournalReservations.TAILLE_ENREGISTREMENT, reprise[1]);
+    }
+
+    @Test
+    void testEnregistrerPuisRelire() throws Exception {
+        JournalReservations journal = new JournalReservations(repertoire.toString(), 1024);
+        journal.enregistrer(EvenementReservation.Type.CREATION, 1L, "A123", "9783161484100", debut, fin);
+        journal.enregistrer(EvenementReservation.Type.ANNULATION, 1L, "A123", "9783161484100", debut, fin);
+        journal.enregistrer(EvenementReservation.Type.EXPIRATION, 2L, "A001", null, null, fin).get(5, TimeUnit.SECONDS);
+        journal.fermer();
+
+        List<EvenementReservation> evenements = relire(1024);
+
+        assertEquals(3, evenements.size());
+        EvenementReservation creation = evenements.get(0);
+        assertEquals(1, creation.sequence());
+        assertEquals(EvenementReservation.Type.CREATION, creation.type());
+        assertEquals(1L, creation.idReservation());
+        assertEquals("A123", creation.codeAdherent());
+        assertEquals("9783161484100", creation.isbn());
+        assertEquals(debut, creation.dateDebut());
+        assertEquals(fin, creation.dateFin());
+        assertFalse(creation.tronque());
+        assertEquals(EvenementReservation.Type.ANNULATION, evenements.get(1).type());
+        EvenementReservation expiration = evenements.get(2);
+        assertEquals(3, expiration.sequence());
+        assertNull(expiration.isbn());
+        assertNull(expiration.dateDebut());
+    }
+
+    @Test
+    void testReouvertureContinueLaSequence() throws Exception {
+        JournalReservations journal = new JournalReservations(repertoire.toString(), 1024);
+        journal.enregistrer(EvenementReservation.Type.CREATION, 1L, "A123", "9783161484100", debut, fin);
+        journal.fermer();
+
+        journal = new JournalReservations(repertoire.toString(), 1024);
+        journal.enregistrer(EvenementReservation.Type.CREATION, 2L, "A123", "9782070360024", debut, fin);
+        journal.fermer();
+
+        assertEquals(List.of(1L, 2L), relire(1024).stream().map(EvenementReservation::sequence).toList());
+    }
+
+    @Test
+    void testBasculeDeSegment() throws Exception {
+        // 4 emplacements dont l'en-tête : 3 événements par segment
+        JournalReservations journal = new JournalReservations(repertoire.toString(), 4);
+        for (long id = 1; id <= 10; id++) {
+            journal.enregistrer(EvenementReservation.Type.CREATION, id, "A123", "9783161484100", debut, fin);
+        }
+        journal.fermer();
+
+        try (Stream<Path> fichiers = Files.list(repertoire)) {
+            assertEquals(4, fichiers.count());
+        }
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L),
+                relire(4).stream().map(EvenementReservation::idReservation).toList());
+    }
+
+    @Test
+    void testTexteTropLongTronque() throws Exception {
+        JournalReservations journal = new JournalReservations(repertoire.toString(), 1024);
+        String code = "é".repeat(30);
+        journal.enregistrer(EvenementReservation.Type.CREATION, 1L, code, "9783161484100", debut, fin);
+        journal.fermer();
+
+        EvenementReservation evenement = relire(1024).get(0);
+        assertTrue(evenement.tronque());
+        assertEquals("é".repeat(20), evenement.codeAdherent());
+    }
+
+    @Test
+    void testEnregistrementIncompletIgnore() throws Exception {
+        JournalReservations journal = new JournalReservations(repertoire.toString(), 1024);
+        journal.enregistrer(EvenementReservation.Type.CREATION, 1L, "A123", "9783161484100", debut, fin);
+        journal.enregistrer(EvenementReservation.Type.CREATION, 2L, "A123", "9782070360024", debut, fin);
+        journal.fermer();
+        // Simule une écriture interrompue du second enregistrement
+        try (Stream<Path> fichiers = Files.list(repertoire);
+             RandomAccessFile fichier = new RandomAccessFile(fichiers.findFirst().orElseThrow().toFile(), "rw")) {
+            fichier.seek(2L * JournalReservations.TAILLE_ENREGISTREMENT + 50);
+            fichier.write(0x7F);
+        }
+
+        journal = new JournalReservations(repertoire.toString(), 1024);
+        journal.enregistrer(EvenementReservation.Type.CREATION, 3L, "A123", "9782070360024", debut, fin);
+        journal.fermer();
+
+        List<EvenementReservation> evenements = relire(1024);
+        assertEquals(List.of(1L, 3L), evenements.stream().map(EvenementReservation::idReservation).toList());
+        assertEquals(List.of(1L, 2L), evenements.stream().map(EvenementReservation::sequence).toList());
+    }
+
+    @Test
+    void testEcrituresConcurrentes() throws Exception {
+        JournalReservations journal = new JournalReservations(repertoire.toString(), 1000);
+        ExecutorService executeur = Executors.newFixedThreadPool(8);
+        List<CompletableFuture<Void>> durables = new ArrayList<>();
+        try {
+            List<CompletableFuture<CompletableFuture<Void>>> envois = new ArrayList<>();
+            for (long id = 1; id <= 2000; id++) {
+                long idReservation = id;
+                envois.add(CompletableFuture.supplyAsync(() -> journal.enregistrer(EvenementReservation.Type.CREATION,
+                        idReservation, "A123", "9783161484100", debut, fin), executeur));
+            }
+            for (CompletableFuture<CompletableFuture<Void>> envoi : envois) {
+                durables.add(envoi.get(5, TimeUnit.SECONDS));
+            }
+            CompletableFuture.allOf(durables.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+        } finally {
+            executeur.shutdownNow();
+            journal.fermer();
+        }
+
+        List<EvenementReservation> evenements = relire(1000);
+        assertEquals(2000, evenements.size());
+        for (int i = 0; i < evenements.size(); i++) {
+            assertEquals(i + 1, evenements.get(i).sequence());
+        }
+        assertEquals(2000, evenements.stream().map(EvenementReservation::idReservation).distinct().count());
+    }
+}
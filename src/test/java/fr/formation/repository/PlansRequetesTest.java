@@ -0,0 +1,164 @@
+package fr.formation.repository;
+
+import fr.formation.dto.CurseurReservation;
+import fr.formation.model.*;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Passe chaque requête déclarée sur les repositories dans EXPLAIN (H2) et échoue
+ * si l'une d'elles parcourt une table entière au lieu d'utiliser un index.
+ */
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=fr.formation.repository.PlansRequetesTest$CaptureRequetes")
+public class PlansRequetesTest {
+
+    // Un LIKE '%texte%' ne peut pas utiliser d'index B-tree : ces recherches sont servies par l'index trigramme en mémoire
+    private static final Set<String> PARCOURS_ASSUMES = Set.of(
+            "findByTitreContainingIgnoreCase",
+            "findByAuteurContainingIgnoreCase",
+            "findByNomContainingIgnoreCase");
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private LivreRepository livreRepository;
+
+    @Autowired
+    private AdherentRepository adherentRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private Adherent adherent;
+
+    @BeforeEach
+    void setUp() {
+        adherent = adherentRepository.save(new Adherent("A123", "Bedet", "Valentin", "2003-10-24", Civilite.HOMME, "valentin.bedet@mail.com"));
+        Livre livre = livreRepository.save(new Livre("9783161484100", "Livre conforme", "Valentin Bedet", "Éditeur IIA", Format.BROCHE, true));
+        reservationRepository.save(new Reservation(null, adherent, livre, LocalDate.now(), LocalDate.now().plusDays(10)));
+        reservationRepository.flush();
+    }
+
+    @Test
+    void testReservationRepository_AucunParcoursComplet() throws Exception {
+        verifierPlans(ReservationRepository.class, reservationRepository);
+    }
+
+    @Test
+    void testLivreRepository_AucunParcoursComplet() throws Exception {
+        verifierPlans(LivreRepository.class, livreRepository);
+    }
+
+    @Test
+    void testAdherentRepository_AucunParcoursComplet() throws Exception {
+        verifierPlans(AdherentRepository.class, adherentRepository);
+    }
+
+    private void verifierPlans(Class<?> type, Object repository) throws Exception {
+        List<String> parcoursComplets = new ArrayList<>();
+        for (Method methode : type.getDeclaredMethods()) {
+            if (methode.isBridge() || methode.isSynthetic()) {
+                continue;
+            }
+            CaptureRequetes.REQUETES.clear();
+            Object resultat = methode.invoke(repository, arguments(methode));
+            if (resultat instanceof Stream<?> flux) {
+                flux.close();
+            }
+            assertFalse(CaptureRequetes.REQUETES.isEmpty(), "Aucune requête pour " + methode.getName());
+            for (String requete : CaptureRequetes.REQUETES) {
+                String plan = expliquer(requete);
+                if (plan.contains(".tableScan") && !PARCOURS_ASSUMES.contains(methode.getName())) {
+                    parcoursComplets.add(methode.getName() + " : " + plan);
+                }
+            }
+        }
+        assertTrue(parcoursComplets.isEmpty(), "Parcours complets : " + parcoursComplets);
+    }
+
+    private Object[] arguments(Method methode) {
+        Type[] types = methode.getGenericParameterTypes();
+        Object[] arguments = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            arguments[i] = exemple(types[i]);
+        }
+        return arguments;
+    }
+
+    private Object exemple(Type type) {
+        // Collection<String> ou Collection<Long> : un élément du type attendu
+        if (type instanceof ParameterizedType parametre && Collection.class.isAssignableFrom((Class<?>) parametre.getRawType())) {
+            return List.of(exemple(parametre.getActualTypeArguments()[0]));
+        }
+        if (type == String.class) {
+            return "A123";
+        }
+        if (type == Long.class) {
+            return 1L;
+        }
+        if (type == LocalDate.class) {
+            return LocalDate.now();
+        }
+        if (type == Adherent.class) {
+            return adherent;
+        }
+        if (type == ScrollPosition.class) {
+            return new CurseurReservation(LocalDate.now(), 1L).enPosition();
+        }
+        if (type == Limit.class) {
+            return Limit.of(10);
+        }
+        throw new IllegalArgumentException("Pas d'exemple pour " + type);
+    }
+
+    // EXPLAIN sur la connexion de la transaction de test, pour que l'optimiseur voie les lignes insérées
+    private String expliquer(String requete) throws Exception {
+        Connection connexion = DataSourceUtils.getConnection(dataSource);
+        try (PreparedStatement statement = connexion.prepareStatement("EXPLAIN " + requete);
+             ResultSet resultat = statement.executeQuery()) {
+            StringBuilder plan = new StringBuilder();
+            while (resultat.next()) {
+                plan.append(resultat.getString(1));
+            }
+            return plan.toString();
+        }
+    }
+
+    public static class CaptureRequetes implements StatementInspector {
+
+        static final List<String> REQUETES = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            REQUETES.add(sql);
+            return sql;
+        }
+    }
+}
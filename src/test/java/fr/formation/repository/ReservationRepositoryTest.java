@@ -0,0 +1,138 @@
+package fr.formation.repository;
+
+import fr.formation.dto.AdherentResume;
+import fr.formation.dto.CurseurReservation;
+import fr.formation.dto.LivreResume;
+import fr.formation.dto.ReservationResume;
+import fr.formation.model.*;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Window;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+public class ReservationRepositoryTest {
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private AdherentRepository adherentRepository;
+
+    @Autowired
+    private LivreRepository livreRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Adherent adherent;
+
+    @BeforeEach
+    void setUp() {
+        adherent = adherentRepository.save(new Adherent("A123", "Bedet", "Valentin", "2003-10-24", Civilite.HOMME, "valentin.bedet@mail.com"));
+        Livre livre = livreRepository.save(new Livre("9783161484100", "Livre conforme", "Valentin Bedet", "Éditeur IIA", Format.BROCHE, true));
+
+        // Plusieurs réservations partagent la même date de fin pour vérifier le départage par id
+        for (int i = 0; i < 7; i++) {
+            LocalDate dateFin = LocalDate.now().plusDays(1 + i / 3);
+            reservationRepository.save(new Reservation(null, adherent, livre, LocalDate.now(), dateFin));
+        }
+        reservationRepository.save(new Reservation(null, adherent, livre, LocalDate.now().minusMonths(2), LocalDate.now().minusDays(1)));
+    }
+
+    @Test
+    void testPaginationParCurseur_ParcourtToutSansDoublon() {
+        List<Long> ids = new ArrayList<>();
+        String curseur = null;
+        do {
+            Window<Reservation> fenetre = reservationRepository.findByDateFinAfterOrderByDateFinAscIdAsc(
+                    LocalDate.now(), CurseurReservation.positionApres(curseur), Limit.of(3));
+            fenetre.forEach(reservation -> ids.add(reservation.getId()));
+            curseur = fenetre.hasNext() ? CurseurReservation.depuis(fenetre.getContent().get(fenetre.size() - 1)).encoder() : null;
+        } while (curseur != null);
+
+        assertEquals(7, ids.size());
+        assertEquals(7, ids.stream().distinct().count());
+    }
+
+    @Test
+    void testPaginationHistorique_InclutReservationsTerminees() {
+        Window<Reservation> fenetre = reservationRepository.findByAdherentOrderByDateFinAscIdAsc(
+                adherent, CurseurReservation.positionApres(null), Limit.of(10));
+
+        assertEquals(8, fenetre.size());
+        assertFalse(fenetre.hasNext());
+        assertTrue(fenetre.getContent().get(0).getDateFin().isBefore(LocalDate.now()));
+    }
+
+    @Test
+    void testStreamReservationsActives() {
+        try (Stream<Reservation> reservations = reservationRepository.streamByDateFinAfterOrderByDateFinAscIdAsc(LocalDate.now())) {
+            assertEquals(7, reservations.count());
+        }
+    }
+
+    @Test
+    void testStreamReservationsActives_UneSeuleRequete() {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistiques = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistiques.setStatisticsEnabled(true);
+        statistiques.clear();
+        try (Stream<Reservation> reservations = reservationRepository.streamByDateFinAfterOrderByDateFinAscIdAsc(LocalDate.now())) {
+            reservations.forEach(reservation -> assertNotNull(reservation.getLivre().getTitre()));
+        } finally {
+            statistiques.setStatisticsEnabled(false);
+        }
+
+        assertEquals(1, statistiques.getPrepareStatementCount());
+    }
+
+    @Test
+    void testResumesActives_ParCurseurSansDoublon() {
+        List<Long> ids = new ArrayList<>();
+        CurseurReservation apres = null;
+        List<ReservationResume> page;
+        do {
+            page = reservationRepository.findResumesActives(LocalDate.now(),
+                    apres == null ? null : apres.dateFin(), apres == null ? null : apres.id(), Limit.of(3));
+            page.forEach(resume -> ids.add(resume.id()));
+            apres = page.isEmpty() ? null : CurseurReservation.depuis(page.get(page.size() - 1));
+        } while (page.size() == 3);
+
+        assertEquals(7, ids.size());
+        assertEquals(7, ids.stream().distinct().count());
+    }
+
+    @Test
+    void testResumesParAdherent() {
+        List<ReservationResume> historique = reservationRepository.findResumesParAdherent("A123", null, null, Limit.unlimited());
+        List<ReservationResume> actives = reservationRepository.findResumesActivesParAdherent("A123", LocalDate.now(), null, null, Limit.unlimited());
+
+        assertEquals(8, historique.size());
+        assertEquals(7, actives.size());
+        assertEquals("A123", historique.get(0).codeAdherent());
+        assertEquals("9783161484100", historique.get(0).isbn());
+        assertTrue(historique.get(0).dateFin().isBefore(LocalDate.now()));
+    }
+
+    @Test
+    void testResumesAdherentsEtLivres() {
+        assertEquals(List.of(new AdherentResume("A123", "Bedet", "Valentin")),
+                adherentRepository.findResumesByCodeAdherentIn(List.of("A123", "Inconnu")));
+        assertEquals(List.of(new LivreResume("9783161484100", "Livre conforme", "Valentin Bedet")),
+                livreRepository.findResumesByIsbnIn(List.of("9783161484100")));
+    }
+}
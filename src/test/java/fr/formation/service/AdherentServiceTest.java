@@ -3,6 +3,8 @@ package fr.formation.service;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import fr.formation.cache.VersionsEntites;
+import fr.formation.index.IndexAdherents;
 import fr.formation.model.Adherent;
 import fr.formation.model.Civilite;
 import fr.formation.repository.AdherentRepository;
@@ -12,6 +14,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.List;
@@ -23,6 +26,12 @@ public class AdherentServiceTest {
     @Mock
     private AdherentRepository adherentRepository;
 
+    @Spy
+    private IndexAdherents indexAdherents = new IndexAdherents();
+
+    @Spy
+    private VersionsEntites versionsEntites = new VersionsEntites();
+
     @InjectMocks
     private AdherentService adherentService;
 
@@ -83,6 +92,7 @@ public class AdherentServiceTest {
 
         // Then
         verify(adherentRepository, times(1)).deleteById(adherent.getCodeAdherent());
+        verify(indexAdherents).retirer(adherent.getCodeAdherent());
     }
 
     @Test
@@ -109,6 +119,28 @@ public class AdherentServiceTest {
         assertEquals("Bedet", result.get().getNom());
     }
 
+    @Test
+    void testRechercherParCodeVersionne_EtagChangeApresModification() {
+        when(adherentRepository.findById(adherent.getCodeAdherent())).thenReturn(Optional.of(adherent));
+        when(adherentRepository.save(any(Adherent.class))).thenReturn(adherent);
+
+        String etag = adherentService.rechercherParCodeVersionne(adherent.getCodeAdherent()).orElseThrow().etag();
+
+        assertEquals(Optional.of(etag), adherentService.etag(adherent.getCodeAdherent()));
+
+        adherentService.modifierAdherent(adherent.getCodeAdherent(), adherent);
+
+        assertNotEquals(Optional.of(etag), adherentService.etag(adherent.getCodeAdherent()));
+    }
+
+    @Test
+    void testRechercherParCodeVersionne_InexistantNonSuivi() {
+        when(adherentRepository.findById("A999")).thenReturn(Optional.empty());
+
+        assertTrue(adherentService.rechercherParCodeVersionne("A999").isEmpty());
+        assertTrue(adherentService.etag("A999").isEmpty());
+    }
+
     @Test
     void testRechercherParCodeInexistant() {
         // Given
@@ -160,4 +192,61 @@ public class AdherentServiceTest {
         assertFalse(result.isEmpty());
         assertEquals(2, result.size());
     }
+
+    @Test
+    void testRechercherDansLIndex() {
+        // Given
+        adherentService.construireIndex(List.of(adherent));
+
+        // When
+        Optional<Adherent> parCode = adherentService.rechercherParCode("A123");
+        List<Adherent> parNom = adherentService.rechercherParNom("bed");
+
+        // Then
+        assertEquals(Optional.of(adherent), parCode);
+        assertEquals(List.of(adherent), parNom);
+        verifyNoInteractions(adherentRepository);
+    }
+
+    @Test
+    void testModifierAdherent_MetAJourLIndex() {
+        // Given
+        adherentService.construireIndex(List.of(adherent));
+        Adherent adherentModifie = new Adherent("A123", "Aubert", "Benjamin", "2003-02-02", Civilite.HOMME, "benjamin.aubert@mail.com");
+        when(adherentRepository.findById("A123")).thenReturn(Optional.of(adherent));
+        when(adherentRepository.save(any(Adherent.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        adherentService.modifierAdherent("A123", adherentModifie);
+
+        // Then
+        assertEquals("Aubert", adherentService.rechercherParNom("aubert").get(0).getNom());
+        assertTrue(adherentService.rechercherParNom("bedet").isEmpty());
+    }
+
+    @Test
+    void testRechercherParNomApproche_AvecIndex() {
+        // Given
+        Adherent accentue = new Adherent("A456", "Bédard", "Lucie", "1999-05-12", Civilite.FEMME, "lucie.bedard@mail.com");
+        adherentService.construireIndex(List.of(adherent, accentue));
+
+        // When
+        List<Adherent> result = adherentService.rechercherParNomApproche("BEDART", 20);
+
+        // Then
+        assertEquals(List.of(accentue), result);
+        verifyNoInteractions(adherentRepository);
+    }
+
+    @Test
+    void testRechercherParNomApproche_SansIndex() {
+        // Given
+        when(adherentRepository.findByNomContainingIgnoreCase("Bedet")).thenReturn(List.of(adherent, adherent));
+
+        // When
+        List<Adherent> result = adherentService.rechercherParNomApproche("Bedet", 1);
+
+        // Then
+        assertEquals(List.of(adherent), result);
+    }
 }
@@ -0,0 +1,102 @@
+package fr.formation.service;
+
+import fr.formation.dto.EcheanceReservation;
+import fr.formation.index.CurseurEcheances;
+import fr.formation.index.EcheancesReservations;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class BasculeEcheancesTest {
+
+    @Mock
+    private PreparationRappels preparationRappels;
+
+    @Mock
+    private PipelineRappels pipelineRappels;
+
+    @Mock
+    private PurgeReservations purgeReservations;
+
+    @Mock
+    private CurseurEcheances curseurEcheances;
+
+    private final EcheancesReservations echeances = new EcheancesReservations();
+    private final LocalDate aujourdhui = LocalDate.of(2025, 3, 10);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        echeances.reconstruire(List.of(new EcheanceReservation(1L, aujourdhui)), aujourdhui);
+        when(pipelineRappels.lancerSiLibre(any())).thenReturn(Optional.of(new TacheRappel()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBasculer_RappelsDesNouveauxRetards() {
+        BasculeEcheances bascule = new BasculeEcheances(echeances, curseurEcheances, preparationRappels, pipelineRappels, purgeReservations, 0);
+
+        Optional<TacheRappel> tache = bascule.basculer(aujourdhui.plusDays(1));
+
+        assertTrue(tache.isPresent());
+        ArgumentCaptor<Consumer<Consumer<MessageRappel>>> producteur = ArgumentCaptor.forClass(Consumer.class);
+        verify(pipelineRappels).lancerSiLibre(producteur.capture());
+        Consumer<MessageRappel> emetteur = message -> { };
+        producteur.getValue().accept(emetteur);
+        verify(preparationRappels).preparerEntre(aujourdhui, aujourdhui.plusDays(1), emetteur);
+        verifyNoInteractions(purgeReservations);
+        verify(curseurEcheances).enregistrer(aujourdhui.plusDays(1));
+        assertTrue(echeances.aBasculer(aujourdhui.plusDays(1)).ids().isEmpty());
+    }
+
+    @Test
+    void testBasculer_EnvoiPrecedentEnCours_JoursRepris() {
+        BasculeEcheances bascule = new BasculeEcheances(echeances, curseurEcheances, preparationRappels, pipelineRappels, purgeReservations, 0);
+        when(pipelineRappels.lancerSiLibre(any())).thenReturn(Optional.empty());
+
+        assertTrue(bascule.basculer(aujourdhui.plusDays(1)).isEmpty());
+
+        // Les jours non envoyés restent à basculer et partent avec la bascule suivante
+        verifyNoInteractions(curseurEcheances);
+        when(pipelineRappels.lancerSiLibre(any())).thenReturn(Optional.of(new TacheRappel()));
+        assertTrue(bascule.basculer(aujourdhui.plusDays(2)).isPresent());
+        verify(curseurEcheances).enregistrer(aujourdhui.plusDays(2));
+    }
+
+    @Test
+    void testBasculer_AucunNouveauRetard() {
+        BasculeEcheances bascule = new BasculeEcheances(echeances, curseurEcheances, preparationRappels, pipelineRappels, purgeReservations, 0);
+
+        assertTrue(bascule.basculer(aujourdhui).isEmpty());
+        verifyNoInteractions(pipelineRappels);
+    }
+
+    @Test
+    void testBasculer_PurgeDesRetardsAnciens() {
+        BasculeEcheances bascule = new BasculeEcheances(echeances, curseurEcheances, preparationRappels, pipelineRappels, purgeReservations, 30);
+
+        bascule.basculer(aujourdhui.plusDays(1));
+
+        verify(purgeReservations).purger(eq(aujourdhui.plusDays(1).minusDays(30)));
+    }
+
+    @Test
+    void testBasculer_RoueNonConstruite() {
+        BasculeEcheances bascule = new BasculeEcheances(new EcheancesReservations(), curseurEcheances, preparationRappels, pipelineRappels, purgeReservations, 30);
+
+        assertTrue(bascule.basculer(aujourdhui).isEmpty());
+        verifyNoInteractions(pipelineRappels, purgeReservations);
+    }
+}
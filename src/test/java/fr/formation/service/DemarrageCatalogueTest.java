@@ -0,0 +1,191 @@
+package fr.formation.service;
+
+import fr.formation.cache.CacheLivres;
+import fr.formation.cache.VersionsEntites;
+import fr.formation.dto.CriteresLivres;
+import fr.formation.exception.IndexIndisponibleException;
+import fr.formation.index.DisponibiliteLivres;
+import fr.formation.index.IndexAdherents;
+import fr.formation.index.IndexRechercheLivres;
+import fr.formation.index.RechercheCatalogue;
+import fr.formation.index.SuggestionsLivres;
+import fr.formation.instantane.InstantaneCatalogue;
+import fr.formation.model.*;
+import fr.formation.repository.AdherentRepository;
+import fr.formation.repository.LivreRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class DemarrageCatalogueTest {
+
+    @TempDir
+    private Path repertoire;
+
+    @Mock
+    private LivreRepository livreRepository;
+
+    @Mock
+    private AdherentRepository adherentRepository;
+
+    @Spy
+    private IndexAdherents indexAdherents = new IndexAdherents();
+
+    @Spy
+    private VersionsEntites versionsEntites = new VersionsEntites();
+
+    @InjectMocks
+    private AdherentService adherentService;
+
+    private final IndexRechercheLivres indexRechercheLivres = new IndexRechercheLivres();
+    private final DisponibiliteLivres disponibiliteLivres = new DisponibiliteLivres();
+    private LivreService livreService;
+    private InstantaneCatalogue instantane;
+    private DemarrageCatalogue demarrage;
+
+    private final Livre livre = new Livre("9783161484100", "Livre conforme", "Valentin Bedet", "Éditeur IIA", Format.BROCHE, true);
+    private final Livre etranger = new Livre("9782070360024", "L'Étranger", "Albert Camus", "Gallimard", Format.POCHE, false);
+    private final Adherent adherent = new Adherent("A123", "Bedet", "Valentin", "2003-10-24", Civilite.HOMME, "valentin.bedet@mail.com");
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        livreService = new LivreService(livreRepository, indexRechercheLivres,
+                new CacheLivres(100, Duration.ofMinutes(10)), disponibiliteLivres, new SuggestionsLivres(),
+                new RechercheCatalogue(disponibiliteLivres), new VersionsEntites());
+        instantane = new InstantaneCatalogue(repertoire.resolve("catalogue.bin").toString());
+        demarrage = new DemarrageCatalogue(instantane, livreService, adherentService, livreRepository, adherentRepository, Duration.ofMillis(10));
+        when(livreRepository.findAll()).thenReturn(List.of(livre, etranger));
+        when(adherentRepository.findAll()).thenReturn(List.of(adherent));
+    }
+
+    @Test
+    void testSansInstantane_DepuisLaBaseEtEcritLInstantane() throws Exception {
+        assertFalse(demarrage.rechauffer().get(5, TimeUnit.SECONDS));
+
+        assertTrue(indexRechercheLivres.estPret());
+        assertTrue(disponibiliteLivres.estConnu(etranger.getIsbn()));
+        assertTrue(indexAdherents.estPret());
+        assertEquals(List.of(livre, etranger), instantane.lire().orElseThrow().livres());
+    }
+
+    @Test
+    void testInactif() throws Exception {
+        demarrage = new DemarrageCatalogue(new InstantaneCatalogue(""), livreService, adherentService, livreRepository, adherentRepository, Duration.ofMillis(10));
+
+        assertFalse(demarrage.rechauffer().get(5, TimeUnit.SECONDS));
+
+        assertTrue(indexRechercheLivres.estPret());
+        try (var fichiers = Files.list(repertoire)) {
+            assertEquals(0, fichiers.count());
+        }
+    }
+
+    @Test
+    void testInstantaneAJour_ServiAvantLaVerification() throws Exception {
+        instantane.ecrire(List.of(livre, etranger), List.of(adherent));
+        CountDownLatch baseLente = new CountDownLatch(1);
+        when(livreRepository.findAll()).thenAnswer(invocation -> {
+            baseLente.await(5, TimeUnit.SECONDS);
+            return List.of(livre, etranger);
+        });
+
+        CompletableFuture<Boolean> verification = demarrage.rechauffer();
+
+        // La base n'a pas encore répondu : recherches servies par l'instantané, bitmap pas encore construit
+        assertEquals(List.of(livre), livreService.rechercherParTitre("conforme"));
+        assertEquals("Bedet", adherentService.rechercherParCode("A123").orElseThrow().getNom());
+        assertFalse(disponibiliteLivres.estConnu(etranger.getIsbn()));
+        assertThrows(IndexIndisponibleException.class,
+                () -> livreService.rechercher(new CriteresLivres(null, null, null, null, true), 0, 20));
+        baseLente.countDown();
+        assertTrue(verification.get(5, TimeUnit.SECONDS));
+        assertTrue(disponibiliteLivres.estConnu(etranger.getIsbn()));
+        assertFalse(disponibiliteLivres.estDisponible(etranger.getIsbn()));
+    }
+
+    @Test
+    void testVerification_GardeLesEcrituresFaitesPendantLaLecture() throws Exception {
+        instantane.ecrire(List.of(livre, etranger), List.of(adherent));
+        Livre nouveau = new Livre("9780131103627", "Le langage C", "Brian Kernighan", "Prentice Hall", Format.BROCHE, true);
+        Adherent lea = new Adherent("A001", "Martin", "Léa", "1999-04-12", Civilite.FEMME, "lea.martin@mail.com");
+        Livre reserve = new Livre(livre.getIsbn(), livre.getTitre(), livre.getAuteur(), livre.getEditeur(), livre.getFormat(), false);
+        CountDownLatch lectureFaite = new CountDownLatch(1);
+        CountDownLatch ecrituresFaites = new CountDownLatch(1);
+        // La base est lue avant les écritures, la reconstruction se fait après
+        when(adherentRepository.findAll()).thenAnswer(invocation -> {
+            lectureFaite.countDown();
+            ecrituresFaites.await(5, TimeUnit.SECONDS);
+            return List.of(adherent);
+        });
+        when(livreRepository.save(nouveau)).thenReturn(nouveau);
+        when(adherentRepository.save(lea)).thenReturn(lea);
+        when(livreRepository.findAllById(anyIterable())).thenReturn(List.of(nouveau, reserve));
+        when(adherentRepository.findAllById(anyIterable())).thenReturn(List.of(lea));
+
+        CompletableFuture<Boolean> verification = demarrage.rechauffer();
+        assertTrue(lectureFaite.await(5, TimeUnit.SECONDS));
+        livreService.ajouterLivre(nouveau);
+        disponibiliteLivres.enregistrer(livre.getIsbn(), false);
+        adherentService.ajouterAdherent(lea);
+        ecrituresFaites.countDown();
+
+        assertTrue(verification.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(nouveau), livreService.rechercherParTitre("langage"));
+        assertFalse(disponibiliteLivres.estDisponible(livre.getIsbn()));
+        assertTrue(disponibiliteLivres.estDisponible(nouveau.getIsbn()));
+        assertEquals("Martin", adherentService.rechercherParCode("A001").orElseThrow().getNom());
+    }
+
+    @Test
+    void testInstantanePerime_ReconstruitDepuisLaBase() throws Exception {
+        instantane.ecrire(List.of(livre), List.of());
+
+        assertFalse(demarrage.rechauffer().get(5, TimeUnit.SECONDS));
+
+        assertEquals(List.of(etranger), livreService.rechercherParTitre("étranger"));
+        assertEquals(List.of(adherent), adherentService.rechercherParNom("bedet"));
+        InstantaneCatalogue.Contenu reecrit = instantane.lire().orElseThrow();
+        assertEquals(List.of(livre, etranger), reecrit.livres());
+        assertEquals(List.of(adherent), reecrit.adherents());
+    }
+
+    @Test
+    void testDemarrer_RelanceApresEchec() throws Exception {
+        when(livreRepository.findAll())
+                .thenThrow(new IllegalStateException("Base indisponible"))
+                .thenReturn(List.of(livre, etranger));
+
+        demarrage.demarrer();
+
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!disponibiliteLivres.estPret() && System.nanoTime() < limite) {
+            Thread.sleep(10);
+        }
+        assertTrue(disponibiliteLivres.estPret());
+        assertTrue(disponibiliteLivres.estConnu(etranger.getIsbn()));
+        verify(livreRepository, times(2)).findAll();
+    }
+
+    @Test
+    void testEnregistrerInstantane() {
+        demarrage.enregistrerInstantane();
+
+        assertEquals(List.of(adherent), instantane.lire().orElseThrow().adherents());
+    }
+}
@@ -0,0 +1,104 @@
+package fr.formation.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.formation.dto.RapportImport;
+import fr.formation.index.DisponibiliteLivres;
+import fr.formation.index.IndexRechercheLivres;
+import fr.formation.index.RechercheCatalogue;
+import fr.formation.index.SuggestionsLivres;
+import fr.formation.model.Format;
+import fr.formation.model.Livre;
+import fr.formation.repository.LivreRepository;
+import fr.formation.service.ImportLivreService.FormatImport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ImportLivreService.class, IndexRechercheLivres.class, DisponibiliteLivres.class, SuggestionsLivres.class, RechercheCatalogue.class, JacksonAutoConfiguration.class})
+@TestPropertySource(properties = "livres.import.taille-lot=2")
+public class ImportLivreServiceTest {
+
+    @Autowired
+    private ImportLivreService importLivreService;
+
+    @Autowired
+    private LivreRepository livreRepository;
+
+    @Autowired
+    private IndexRechercheLivres indexRechercheLivres;
+
+    @Autowired
+    private DisponibiliteLivres disponibiliteLivres;
+
+    @AfterEach
+    void tearDown() {
+        livreRepository.deleteAll();
+    }
+
+    @Test
+    void testImporterCsv() throws Exception {
+        // Given
+        livreRepository.save(new Livre("9783161484100", "Livre conforme", "Valentin Bedet", "Éditeur IIA", Format.BROCHE, true));
+        String csv = """
+                isbn,titre,auteur,editeur,format,disponible
+                9782070360024,L'Étranger,Albert Camus,Gallimard,POCHE,true
+                9782253004226,"Vingt mille lieues sous les mers, tome 1",Jules Verne,Le Livre de Poche,poche,false
+                9783161484100,Doublon,Valentin Bedet,Éditeur IIA,BROCHE,true
+                9782070413119,Sans format,Auteur,Éditeur,RELIE,true
+                9782070413120,,Auteur,Éditeur,POCHE,true
+                9782070368228,La Peste,Albert Camus,Gallimard,GRAND_FORMAT,true
+                """;
+
+        // When
+        RapportImport rapport = importLivreService.importerLivres(new StringReader(csv), FormatImport.CSV);
+
+        // Then
+        assertEquals(6, rapport.lignesLues());
+        assertEquals(3, rapport.livresImportes());
+        assertEquals(3, rapport.nombreRejets());
+        assertEquals(List.of(4L, 5L, 6L), rapport.rejets().stream().map(RapportImport.RejetImport::ligne).sorted().toList());
+        assertEquals("Vingt mille lieues sous les mers, tome 1", livreRepository.findById("9782253004226").orElseThrow().getTitre());
+        assertEquals(4, livreRepository.count());
+        assertEquals(1, indexRechercheLivres.rechercherParTitre("peste").size());
+    }
+
+    @Test
+    void testImporterNdjson() throws Exception {
+        // Given
+        String ndjson = """
+                {"isbn":"9782070360024","titre":"L'Étranger","auteur":"Albert Camus","editeur":"Gallimard","format":"POCHE","disponible":true}
+                {"isbn":"9782070360024","titre":"Doublon dans le flux","auteur":"Albert Camus","editeur":"Gallimard","format":"POCHE","disponible":true}
+                {"isbn":"9782070368228","titre":"La Peste"
+                {"isbn":"9782070368228","titre":"La Peste","auteur":"Albert Camus","editeur":"Gallimard","format":"BROCHE","disponible":false}
+                """;
+
+        // When
+        RapportImport rapport = importLivreService.importerLivres(new StringReader(ndjson), FormatImport.NDJSON);
+
+        // Then
+        assertEquals(4, rapport.lignesLues());
+        assertEquals(2, rapport.livresImportes());
+        assertEquals(2, rapport.nombreRejets());
+        assertFalse(livreRepository.findById("9782070368228").orElseThrow().isDisponible());
+        assertFalse(disponibiliteLivres.estDisponible("9782070368228"));
+        assertTrue(disponibiliteLivres.estDisponible("9782070360024"));
+    }
+
+    @Test
+    void testDecouperCsv_GuillemetsEchappes() {
+        assertEquals(List.of("a", "dit \"bonjour\", puis", ""), ImportLivreService.decouperCsv("a,\"dit \"\"bonjour\"\", puis\","));
+    }
+}
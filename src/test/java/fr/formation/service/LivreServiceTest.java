@@ -3,6 +3,17 @@ package fr.formation.service;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import fr.formation.cache.CacheLivres;
+import fr.formation.cache.VersionsEntites;
+import fr.formation.cache.VersionsEntites.Ressource;
+import fr.formation.dto.CriteresLivres;
+import fr.formation.dto.PageLivres;
+import fr.formation.exception.IndexIndisponibleException;
+import fr.formation.index.DictionnaireIsbn;
+import fr.formation.index.DisponibiliteLivres;
+import fr.formation.index.IndexRechercheLivres;
+import fr.formation.index.RechercheCatalogue;
+import fr.formation.index.SuggestionsLivres;
 import fr.formation.model.Format;
 import fr.formation.model.Livre;
 import fr.formation.repository.LivreRepository;
@@ -13,10 +24,13 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @ExtendWith(MockitoExtension.class)
 public class LivreServiceTest {
@@ -24,6 +38,24 @@ public class LivreServiceTest {
     @Mock
     private LivreRepository livreRepository;
 
+    @Spy
+    private IndexRechercheLivres indexRechercheLivres = new IndexRechercheLivres();
+
+    @Spy
+    private CacheLivres cacheLivres = new CacheLivres(100, Duration.ofMinutes(10));
+
+    @Spy
+    private DisponibiliteLivres disponibiliteLivres = new DisponibiliteLivres();
+
+    @Spy
+    private SuggestionsLivres suggestionsLivres = new SuggestionsLivres();
+
+    @Spy
+    private RechercheCatalogue rechercheCatalogue = new RechercheCatalogue(disponibiliteLivres);
+
+    @Spy
+    private VersionsEntites versionsEntites = new VersionsEntites();
+
     @InjectMocks
     private LivreService livreService;
 
@@ -64,6 +96,55 @@ public class LivreServiceTest {
         assertEquals("Livre modifié", result.getTitre());
     }
 
+    @Test
+    void testRechercherParIsbnVersionne_EtagChangeApresModification() {
+        when(livreRepository.findById(livre.getIsbn())).thenReturn(Optional.of(livre));
+        when(livreRepository.existsById(livre.getIsbn())).thenReturn(true);
+        when(livreRepository.save(any(Livre.class))).thenReturn(livre);
+
+        String etag = livreService.rechercherParIsbnVersionne(livre.getIsbn()).orElseThrow().etag();
+
+        assertEquals(Optional.of(etag), livreService.etag(livre.getIsbn()));
+
+        livreService.modifierLivre(livre.getIsbn(), livre);
+
+        assertNotEquals(Optional.of(etag), livreService.etag(livre.getIsbn()));
+        assertEquals(livreService.etag(livre.getIsbn()).orElseThrow(),
+                livreService.rechercherParIsbnVersionne(livre.getIsbn()).orElseThrow().etag());
+    }
+
+    @Test
+    void testRechercherParIsbnVersionne_EcritureConcurrenteDuChargement() {
+        Livre ancien = new Livre(livre.getIsbn(), "Ancien titre", "Valentin Bedet", "Éditeur IIA", Format.BROCHE, true);
+        // La ligne est lue avant le commit d'une écriture, qui invalide le cache et change la version pendant la lecture
+        when(livreRepository.findById(livre.getIsbn())).thenAnswer(invocation -> {
+            cacheLivres.invalider(livre.getIsbn());
+            versionsEntites.incrementer(Ressource.LIVRE, livre.getIsbn());
+            return Optional.of(ancien);
+        }).thenReturn(Optional.of(livre));
+
+        String etagAncien = livreService.rechercherParIsbnVersionne(livre.getIsbn()).orElseThrow().etag();
+        var suivant = livreService.rechercherParIsbnVersionne(livre.getIsbn()).orElseThrow();
+
+        assertNotEquals(etagAncien, suivant.etag());
+        assertEquals("Livre conforme", suivant.valeur().getTitre());
+        assertEquals(Optional.of(suivant.etag()), livreService.etag(livre.getIsbn()));
+    }
+
+    @Test
+    void testRechercherParIsbnVersionne_InexistantOuSupprimeNonSuivi() {
+        when(livreRepository.findById(livre.getIsbn())).thenReturn(Optional.of(livre));
+        when(livreRepository.findById("inconnu")).thenReturn(Optional.empty());
+        when(livreRepository.existsById(livre.getIsbn())).thenReturn(true);
+        livreService.rechercherParIsbnVersionne(livre.getIsbn());
+
+        livreService.supprimerLivre(livre.getIsbn());
+
+        assertTrue(livreService.etag(livre.getIsbn()).isEmpty());
+        assertTrue(livreService.rechercherParIsbnVersionne("inconnu").isEmpty());
+        assertTrue(livreService.etag("inconnu").isEmpty());
+    }
+
     @Test
     void testModifierLivre_LivreNonTrouve() {
         // Given
@@ -108,6 +189,54 @@ public class LivreServiceTest {
         assertEquals("Livre conforme", result.get().getTitre());
     }
 
+    @Test
+    void testRechercherParIsbn_LectureEnCache() {
+        // Given
+        when(livreRepository.findById(livre.getIsbn())).thenReturn(Optional.of(livre));
+
+        // When
+        livreService.rechercherParISBN(livre.getIsbn());
+        Optional<Livre> result = livreService.rechercherParISBN(livre.getIsbn());
+
+        // Then
+        assertTrue(result.isPresent());
+        verify(livreRepository, times(1)).findById(livre.getIsbn());
+        assertEquals(1, livreService.statistiquesCache().succes());
+        assertEquals(1, livreService.statistiquesCache().echecs());
+    }
+
+    @Test
+    void testModifierLivre_MetAJourLeCache() {
+        // Given
+        when(livreRepository.findById(livre.getIsbn())).thenReturn(Optional.of(livre));
+        livreService.rechercherParISBN(livre.getIsbn());
+        Livre livreModifie = new Livre("9783161484100", "Livre modifié", "Valentin Bedet", "Éditeur IIA", Format.BROCHE, false);
+        when(livreRepository.existsById(livre.getIsbn())).thenReturn(true);
+        when(livreRepository.save(any(Livre.class))).thenReturn(livreModifie);
+
+        // When
+        livreService.modifierLivre(livre.getIsbn(), livreModifie);
+        Optional<Livre> result = livreService.rechercherParISBN(livre.getIsbn());
+
+        // Then
+        assertEquals("Livre modifié", result.get().getTitre());
+        verify(livreRepository, times(1)).findById(livre.getIsbn());
+    }
+
+    @Test
+    void testSupprimerLivre_InvalideLeCache() {
+        // Given
+        when(livreRepository.findById(livre.getIsbn())).thenReturn(Optional.of(livre), Optional.empty());
+        livreService.rechercherParISBN(livre.getIsbn());
+        when(livreRepository.existsById(livre.getIsbn())).thenReturn(true);
+
+        // When
+        livreService.supprimerLivre(livre.getIsbn());
+
+        // Then
+        assertFalse(livreService.rechercherParISBN(livre.getIsbn()).isPresent());
+    }
+
     @Test
     void testRechercherParIsbn_LivreNonTrouve() {
         // Given
@@ -171,4 +300,193 @@ public class LivreServiceTest {
         // Then
         assertTrue(result.isEmpty());
     }
+
+    @Test
+    void testRechercherParTitre_AvecIndex() {
+        // Given
+        when(livreRepository.findAll()).thenReturn(List.of(livre,
+                new Livre("9782070360024", "L'Étranger", "Albert Camus", "Gallimard", Format.POCHE, true)));
+        livreService.construireIndex();
+
+        // When
+        List<Livre> result = livreService.rechercherParTitre("LIVRE CONF");
+
+        // Then
+        assertEquals(1, result.size());
+        assertEquals("Livre conforme", result.get(0).getTitre());
+        verify(livreRepository, never()).findByTitreContainingIgnoreCase(anyString());
+    }
+
+    @Test
+    void testRechercherParTitre_AvecIndex_DisponibiliteAJour() {
+        when(livreRepository.findAll()).thenReturn(List.of(livre));
+        livreService.construireIndex();
+
+        // Une réservation ne met à jour que le bitmap
+        disponibiliteLivres.enregistrer(livre.getIsbn(), false);
+
+        assertFalse(livreService.rechercherParTitre("livre").get(0).isDisponible());
+        assertFalse(livreService.rechercherParAuteur("bedet").get(0).isDisponible());
+        assertFalse(livreService.rechercherParAuteurApproche("bedet", 10).get(0).isDisponible());
+    }
+
+    @Test
+    void testRechercherParAuteur_AvecIndex() {
+        // Given
+        when(livreRepository.findAll()).thenReturn(List.of(livre));
+        livreService.construireIndex();
+
+        // When
+        List<Livre> result = livreService.rechercherParAuteur("bedet");
+
+        // Then
+        assertEquals(1, result.size());
+        verify(livreRepository, never()).findByAuteurContainingIgnoreCase(anyString());
+    }
+
+    @Test
+    void testRechercherParAuteurApproche_AvecIndex() {
+        // Given
+        Livre eluard = new Livre("9782070300211", "Capitale de la douleur", "Paul Éluard", "Gallimard", Format.POCHE, true);
+        when(livreRepository.findAll()).thenReturn(List.of(livre, eluard));
+        livreService.construireIndex();
+
+        // When
+        List<Livre> result = livreService.rechercherParAuteurApproche("paul eluar", 20);
+
+        // Then
+        assertEquals(List.of(eluard), result);
+        verify(livreRepository, never()).findByAuteurContainingIgnoreCase(anyString());
+    }
+
+    @Test
+    void testRechercherParAuteurApproche_SansIndex() {
+        // Given
+        when(livreRepository.findByAuteurContainingIgnoreCase("Bedet")).thenReturn(List.of(livre));
+
+        // When
+        List<Livre> result = livreService.rechercherParAuteurApproche("Bedet", 20);
+
+        // Then
+        assertEquals(List.of(livre), result);
+    }
+
+    @Test
+    void testSuggerer_MisAJourParLesEcritures() {
+        // Given
+        when(livreRepository.findAll()).thenReturn(List.of(livre));
+        livreService.construireIndex();
+        Livre peste = new Livre("9782070360420", "La Peste", "Albert Camus", "Gallimard", Format.POCHE, true);
+        when(livreRepository.save(any(Livre.class))).thenReturn(peste);
+        when(livreRepository.existsById(livre.getIsbn())).thenReturn(true);
+
+        // When
+        livreService.ajouterLivre(peste);
+        livreService.supprimerLivre(livre.getIsbn());
+
+        // Then
+        assertEquals(List.of("La Peste"), livreService.suggerer("pes", 10));
+        assertTrue(livreService.suggerer("livre", 10).isEmpty());
+        verify(livreRepository, never()).findByTitreContainingIgnoreCase(anyString());
+    }
+
+    @Test
+    void testRechercher_AvecIndex() {
+        // Given
+        Livre peste = new Livre("9782070360420", "La Peste", "Albert Camus", "Gallimard", Format.POCHE, false);
+        when(livreRepository.findAll()).thenReturn(List.of(livre, peste));
+        livreService.construireIndex();
+
+        // When
+        PageLivres result = livreService.rechercher(new CriteresLivres(null, "camus", "gallimard", Set.of(Format.POCHE), null), 0, 20);
+
+        // Then
+        assertEquals(List.of(peste), result.livres());
+        assertEquals(0, result.disponibles());
+        verify(livreRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testRechercher_SansIndex() {
+        // When / Then
+        assertThrows(IndexIndisponibleException.class,
+                () -> livreService.rechercher(new CriteresLivres("livre", null, null, null, true), 0, 20));
+        verifyNoInteractions(livreRepository);
+        assertEquals(DictionnaireIsbn.ABSENT, disponibiliteLivres.chercher(livre.getIsbn()));
+    }
+
+    @Test
+    void testSuggerer_SansIndex() {
+        // Given
+        when(livreRepository.findByTitreContainingIgnoreCase("livre")).thenReturn(List.of(livre, livre));
+
+        // When
+        List<String> result = livreService.suggerer("livre", 10);
+
+        // Then
+        assertEquals(List.of("Livre conforme"), result);
+    }
+
+    @Test
+    void testIndexMisAJourParModifierEtSupprimer() {
+        // Given
+        when(livreRepository.findAll()).thenReturn(List.of(livre));
+        livreService.construireIndex();
+        Livre livreModifie = new Livre("9783161484100", "Titre modifié", "Valentin Bedet", "Éditeur IIA", Format.BROCHE, true);
+        when(livreRepository.existsById(livre.getIsbn())).thenReturn(true);
+        when(livreRepository.save(any(Livre.class))).thenReturn(livreModifie);
+
+        // When / Then
+        livreService.modifierLivre(livre.getIsbn(), livreModifie);
+        assertTrue(livreService.rechercherParTitre("conforme").isEmpty());
+        assertEquals(1, livreService.rechercherParTitre("modifié").size());
+
+        livreService.supprimerLivre(livre.getIsbn());
+        assertTrue(livreService.rechercherParTitre("modifié").isEmpty());
+    }
+
+    @Test
+    void testRechercherParTitre_DisponiblesSeulement() {
+        // Given
+        Livre indisponible = new Livre("9782070360024", "Livre emprunté", "Albert Camus", "Gallimard", Format.POCHE, false);
+        when(livreRepository.findAll()).thenReturn(List.of(livre, indisponible));
+        livreService.construireIndex();
+
+        // When
+        List<Livre> result = livreService.rechercherParTitre("livre", true);
+
+        // Then
+        assertEquals(List.of(livre), result);
+        assertEquals(2, livreService.rechercherParTitre("livre", false).size());
+    }
+
+    @Test
+    void testRechercherParTitre_DisponiblesSeulement_AvantLeBitmap() {
+        // Given : index construit depuis un instantané où le livre était encore disponible
+        Livre emprunte = new Livre(livre.getIsbn(), livre.getTitre(), livre.getAuteur(), livre.getEditeur(), livre.getFormat(), false);
+        livreService.construireIndexRecherche(List.of(livre));
+        when(livreRepository.findByTitreContainingIgnoreCase("livre")).thenReturn(List.of(emprunte));
+
+        // When / Then
+        assertTrue(livreService.rechercherParTitre("livre", true).isEmpty());
+        assertThrows(IndexIndisponibleException.class,
+                () -> livreService.rechercher(new CriteresLivres("livre", null, null, null, null), 0, 20));
+    }
+
+    @Test
+    void testModifierLivre_MetAJourLaDisponibilite() {
+        // Given
+        when(livreRepository.findAll()).thenReturn(List.of(livre));
+        livreService.construireIndex();
+        Livre livreModifie = new Livre("9783161484100", "Livre conforme", "Valentin Bedet", "Éditeur IIA", Format.BROCHE, false);
+        when(livreRepository.existsById(livre.getIsbn())).thenReturn(true);
+        when(livreRepository.save(any(Livre.class))).thenReturn(livreModifie);
+
+        // When
+        livreService.modifierLivre(livre.getIsbn(), livreModifie);
+
+        // Then
+        assertFalse(disponibiliteLivres.estDisponible(livre.getIsbn()));
+        assertTrue(livreService.rechercherParAuteur("Bedet", true).isEmpty());
+    }
 }
@@ -0,0 +1,111 @@
+package fr.formation.service;
+
+import fr.formation.dto.LigneRetard;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ModeleRappelTest {
+
+    private final ModeleRappel modele = new ModeleRappel();
+
+    // Composition du message telle qu'elle était faite avant le modèle compilé
+    private static String reference(List<LigneRetard> retards) {
+        StringBuilder message = new StringBuilder();
+        message.append("Cher(e) ").append(retards.get(0).prenom()).append(",\n\n");
+        message.append("Vous avez des réservations en retard :\n");
+        for (LigneRetard retard : retards) {
+            message.append("- ").append(retard.titre())
+                    .append(" (fin prévue le ").append(retard.dateFin()).append(")\n");
+        }
+        message.append("\nMerci de les retourner au plus vite.\n\n");
+        message.append("Cordialement,\nBibliothèque");
+        return message.toString();
+    }
+
+    private static List<LigneRetard> retards(Random aleatoire, int nombre) {
+        List<LigneRetard> retards = new ArrayList<>();
+        for (int i = 0; i < nombre; i++) {
+            retards.add(new LigneRetard("A" + aleatoire.nextInt(100), "Léa-" + aleatoire.nextInt(10), "lea@mail.com",
+                    "L'Étranger {tome " + i + "}", LocalDate.of(2025, 1, 1).minusDays(aleatoire.nextInt(5000))));
+        }
+        return retards;
+    }
+
+    @Test
+    void testRendre_IdentiqueALaReference() {
+        Random aleatoire = new Random(42);
+        for (int essai = 0; essai < 500; essai++) {
+            List<LigneRetard> retards = retards(aleatoire, 1 + aleatoire.nextInt(20));
+            assertArrayEquals(reference(retards).getBytes(StandardCharsets.UTF_8),
+                    modele.rendre(retards).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testRendre_ValeursNulles() {
+        List<LigneRetard> retards = List.of(new LigneRetard("A1", null, null, null, null));
+
+        assertEquals(reference(retards), modele.rendre(retards));
+    }
+
+    @Test
+    void testRendre_GrandMessagePuisPetit() {
+        Random aleatoire = new Random(7);
+        List<LigneRetard> grand = retards(aleatoire, 5000);
+        List<LigneRetard> petit = retards(aleatoire, 1);
+
+        assertEquals(reference(grand), modele.rendre(grand));
+        assertEquals(reference(petit), modele.rendre(petit));
+    }
+
+    @Test
+    void testRendre_Concurrent() throws Exception {
+        ExecutorService executeur = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> resultats = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                long graine = t;
+                resultats.add(executeur.submit(() -> {
+                    Random aleatoire = new Random(graine);
+                    for (int essai = 0; essai < 200; essai++) {
+                        List<LigneRetard> retards = retards(aleatoire, 1 + aleatoire.nextInt(10));
+                        if (!reference(retards).equals(modele.rendre(retards))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> resultat : resultats) {
+                assertTrue(resultat.get());
+            }
+        } finally {
+            executeur.shutdownNow();
+        }
+    }
+
+    @Test
+    void testModelePersonnalise() {
+        ModeleRappel court = new ModeleRappel("Bonjour {prenom} :\n{livres}", "{titre}/{dateFin}\n");
+        List<LigneRetard> retards = List.of(new LigneRetard("A1", "Léa", "lea@mail.com", "Titre", LocalDate.of(2025, 2, 1)));
+
+        assertEquals("Bonjour Léa :\nTitre/2025-02-01\n", court.rendre(retards));
+    }
+
+    @Test
+    void testEmplacementInconnu() {
+        assertThrows(IllegalArgumentException.class, () -> new ModeleRappel("Bonjour {nom}", ModeleRappel.LIGNE));
+        assertThrows(IllegalArgumentException.class, () -> new ModeleRappel(ModeleRappel.MESSAGE, "{prenom}"));
+        assertThrows(IllegalArgumentException.class, () -> new ModeleRappel("Bonjour {prenom", ModeleRappel.LIGNE));
+    }
+}
@@ -0,0 +1,107 @@
+package fr.formation.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class PipelineRappelsTest {
+
+    @Mock
+    private MailService mailService;
+
+    private PipelineRappels pipeline;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        // Threads virtuels demandés : sans effet avant Java 21
+        pipeline = new PipelineRappels(mailService, 10, 4, 3, Duration.ofMillis(1), true, 2);
+    }
+
+    @Test
+    void testLancer_EnvoieTousLesMessages() throws Exception {
+        TacheRappel tache = pipeline.lancer(emetteur -> {
+            for (int i = 0; i < 100; i++) {
+                emetteur.accept(new MessageRappel("adherent" + i + "@mail.com", "Sujet", "Contenu"));
+            }
+        });
+
+        assertTrue(tache.attendreFin(5, TimeUnit.SECONDS));
+        assertEquals(TacheRappel.Etat.TERMINEE, tache.getEtat());
+        assertEquals(100, tache.getPrepares());
+        assertEquals(100, tache.getEnvoyes());
+        verify(mailService, times(100)).envoyerMail(anyString(), eq("Sujet"), eq("Contenu"));
+    }
+
+    @Test
+    void testLancer_RelanceApresEchec() throws Exception {
+        doThrow(new RuntimeException("SMTP indisponible"))
+                .doNothing()
+                .when(mailService).envoyerMail("a@mail.com", "Sujet", "Contenu");
+        doThrow(new RuntimeException("Adresse refusée"))
+                .when(mailService).envoyerMail("b@mail.com", "Sujet", "Contenu");
+
+        TacheRappel tache = pipeline.lancer(emetteur -> {
+            emetteur.accept(new MessageRappel("a@mail.com", "Sujet", "Contenu"));
+            emetteur.accept(new MessageRappel("b@mail.com", "Sujet", "Contenu"));
+        });
+
+        assertTrue(tache.attendreFin(5, TimeUnit.SECONDS));
+        assertEquals(1, tache.getEnvoyes());
+        assertEquals(1, tache.getEchecs());
+        assertEquals(5, tache.getTentatives());
+        verify(mailService, times(3)).envoyerMail("b@mail.com", "Sujet", "Contenu");
+    }
+
+    @Test
+    void testLancer_ProducteurEnErreur() throws Exception {
+        TacheRappel tache = pipeline.lancer(emetteur -> {
+            throw new IllegalStateException("Base indisponible");
+        });
+
+        assertTrue(tache.attendreFin(5, TimeUnit.SECONDS));
+        assertEquals(TacheRappel.Etat.ECHOUEE, tache.getEtat());
+    }
+
+    @Test
+    void testLancer_UnSeulEnvoiALaFois() throws Exception {
+        CountDownLatch liberer = new CountDownLatch(1);
+        TacheRappel premiere = pipeline.lancer(emetteur -> {
+            try {
+                liberer.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        TacheRappel seconde = pipeline.lancer(emetteur -> fail("Ne doit pas être lancé"));
+        assertTrue(pipeline.lancerSiLibre(emetteur -> fail("Ne doit pas être lancé")).isEmpty());
+        liberer.countDown();
+
+        assertSame(premiere, seconde);
+        assertTrue(premiere.attendreFin(5, TimeUnit.SECONDS));
+        assertEquals(premiere, pipeline.tache(premiere.getId()).orElseThrow());
+    }
+
+    @Test
+    void testTache_SeulesLesDernieresTermineesConservees() throws Exception {
+        TacheRappel premiere = pipeline.lancer(emetteur -> { });
+        assertTrue(premiere.attendreFin(5, TimeUnit.SECONDS));
+        TacheRappel seconde = pipeline.lancer(emetteur -> { });
+        assertTrue(seconde.attendreFin(5, TimeUnit.SECONDS));
+        TacheRappel troisieme = pipeline.lancer(emetteur -> { });
+        assertTrue(troisieme.attendreFin(5, TimeUnit.SECONDS));
+
+        assertTrue(pipeline.tache(premiere.getId()).isEmpty());
+        assertTrue(pipeline.tache(seconde.getId()).isPresent());
+        assertTrue(pipeline.tache(troisieme.getId()).isPresent());
+    }
+}
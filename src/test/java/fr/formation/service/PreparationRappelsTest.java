@@ -0,0 +1,111 @@
+package fr.formation.service;
+
+import fr.formation.model.*;
+import fr.formation.repository.AdherentRepository;
+import fr.formation.repository.LivreRepository;
+import fr.formation.repository.ReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(PreparationRappels.class)
+// Un adhérent par lot : chaque test traverse plusieurs transactions de lecture
+@TestPropertySource(properties = "rappels.adherents-par-lot=1")
+public class PreparationRappelsTest {
+
+    @Autowired
+    private PreparationRappels preparationRappels;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private AdherentRepository adherentRepository;
+
+    @Autowired
+    private LivreRepository livreRepository;
+
+    private final LocalDate debut = LocalDate.of(2025, 1, 2);
+
+    @BeforeEach
+    void setUp() {
+        Adherent valentin = adherentRepository.save(new Adherent("A123", "Bedet", "Valentin", "2003-10-24", Civilite.HOMME, "valentin.bedet@mail.com"));
+        Adherent lea = adherentRepository.save(new Adherent("A001", "Martin", "Léa", "1999-04-12", Civilite.FEMME, "lea.martin@mail.com"));
+        Livre conforme = livreRepository.save(new Livre("9783161484100", "Livre conforme", "Valentin Bedet", "Éditeur IIA", Format.BROCHE, true));
+        Livre etranger = livreRepository.save(new Livre("9782070360024", "L'Étranger", "Albert Camus", "Gallimard", Format.POCHE, true));
+
+        // Réservations enregistrées dans un ordre mélangé entre adhérents
+        reservationRepository.save(new Reservation(null, valentin, conforme, debut, LocalDate.of(2025, 2, 1)));
+        reservationRepository.save(new Reservation(null, lea, etranger, debut, LocalDate.of(2025, 2, 3)));
+        reservationRepository.save(new Reservation(null, valentin, etranger, debut, LocalDate.of(2025, 2, 2)));
+        reservationRepository.save(new Reservation(null, lea, conforme, debut, LocalDate.now().plusDays(10)));
+    }
+
+    @Test
+    void testParcourirRetardsParAdherent_GroupesConsecutifs() {
+        List<String> groupes = new ArrayList<>();
+
+        preparationRappels.parcourirRetardsParAdherent(LocalDate.now(), retards ->
+                groupes.add(retards.get(0).codeAdherent() + ":" + retards.size()));
+
+        assertEquals(List.of("A001:1", "A123:2"), groupes);
+    }
+
+    @Test
+    void testParcourirRetardsParAdherent_TousLesLots() {
+        Adherent zoe = adherentRepository.save(new Adherent("Z900", "Petit", "Zoé", "2001-06-30", Civilite.FEMME, "zoe.petit@mail.com"));
+        Livre livre = livreRepository.findById("9783161484100").orElseThrow();
+        reservationRepository.save(new Reservation(null, zoe, livre, debut, LocalDate.of(2025, 1, 20)));
+        List<String> groupes = new ArrayList<>();
+
+        preparationRappels.parcourirRetardsParAdherent(LocalDate.now(), retards ->
+                groupes.add(retards.get(0).codeAdherent() + ":" + retards.size()));
+
+        assertEquals(List.of("A001:1", "A123:2", "Z900:1"), groupes);
+    }
+
+    @Test
+    void testPreparerEntre_SeulementLesNouveauxRetards() {
+        List<MessageRappel> messages = new ArrayList<>();
+
+        preparationRappels.preparerEntre(LocalDate.of(2025, 2, 2), LocalDate.of(2025, 2, 4), messages::add);
+
+        assertEquals(List.of("lea.martin@mail.com", "valentin.bedet@mail.com"),
+                messages.stream().map(MessageRappel::destinataire).toList());
+        assertTrue(messages.get(1).contenu().contains("L'Étranger (fin prévue le 2025-02-02)"));
+        assertFalse(messages.get(1).contenu().contains("Livre conforme"));
+    }
+
+    @Test
+    void testPreparer_MessageParAdherent() {
+        List<MessageRappel> messages = new ArrayList<>();
+
+        preparationRappels.preparer(messages::add);
+
+        assertEquals(2, messages.size());
+        MessageRappel message = messages.get(1);
+        assertEquals("valentin.bedet@mail.com", message.destinataire());
+        assertEquals("Rappel de vos réservations dépassées", message.sujet());
+        assertEquals("""
+                Cher(e) Valentin,
+
+                Vous avez des réservations en retard :
+                - Livre conforme (fin prévue le 2025-02-01)
+                - L'Étranger (fin prévue le 2025-02-02)
+
+                Merci de les retourner au plus vite.
+
+                Cordialement,
+                Bibliothèque""", message.contenu());
+    }
+}
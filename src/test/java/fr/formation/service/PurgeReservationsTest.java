@@ -0,0 +1,197 @@
+package fr.formation.service;
+
+import fr.formation.cache.CacheLivres;
+import fr.formation.cache.VersionsEntites;
+import fr.formation.cache.VersionsEntites.Ressource;
+import fr.formation.dto.CompteAdherent;
+import fr.formation.index.CompteursEmprunts;
+import fr.formation.index.DisponibiliteLivres;
+import fr.formation.index.EcheancesReservations;
+import fr.formation.index.SuggestionsLivres;
+import fr.formation.journal.EvenementReservation;
+import fr.formation.journal.JournalReservations;
+import fr.formation.model.*;
+import fr.formation.repository.AdherentRepository;
+import fr.formation.repository.LivreRepository;
+import fr.formation.repository.ReservationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class PurgeReservationsTest {
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private AdherentRepository adherentRepository;
+
+    @Autowired
+    private LivreRepository livreRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final CompteursEmprunts compteursEmprunts = new CompteursEmprunts();
+    private final EcheancesReservations echeances = new EcheancesReservations();
+    private final JournalReservations journal = new JournalReservations("", 1024);
+    private final DisponibiliteLivres disponibiliteLivres = new DisponibiliteLivres();
+    private final CacheLivres cacheLivres = new CacheLivres(100, Duration.ofMinutes(10));
+    private final VersionsEntites versionsEntites = new VersionsEntites();
+    private final SuggestionsLivres suggestionsLivres = new SuggestionsLivres();
+
+    private PurgeReservations nouvellePurge(JournalReservations journal, int tailleLot, int lignesParSeconde) {
+        return new PurgeReservations(reservationRepository, livreRepository, compteursEmprunts, echeances, journal,
+                disponibiliteLivres, cacheLivres, versionsEntites, suggestionsLivres, transactionManager, tailleLot, lignesParSeconde);
+    }
+
+    @BeforeEach
+    void setUp() {
+        Adherent adherent = adherentRepository.save(new Adherent("A123", "Bedet", "Valentin", "2003-10-24", Civilite.HOMME, "valentin.bedet@mail.com"));
+        Livre livre = livreRepository.save(new Livre("9783161484100", "Livre conforme", "Valentin Bedet", "Éditeur IIA", Format.BROCHE, true));
+        for (int i = 0; i < 25; i++) {
+            reservationRepository.save(new Reservation(null, adherent, livre, LocalDate.now().minusMonths(3), LocalDate.now().minusDays(1 + i)));
+        }
+        for (int i = 0; i < 3; i++) {
+            reservationRepository.save(new Reservation(null, adherent, livre, LocalDate.now(), LocalDate.now().plusDays(1 + i)));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        reservationRepository.deleteAll();
+        livreRepository.deleteAll();
+        adherentRepository.deleteAll();
+    }
+
+    @Test
+    void testPurger_ParLots() {
+        PurgeReservations purge = nouvellePurge(journal, 10, 0);
+
+        long supprimees = purge.purger(LocalDate.now());
+
+        assertEquals(25, supprimees);
+        assertEquals(3, reservationRepository.count());
+        assertTrue(reservationRepository.findByDateFinBefore(LocalDate.now()).isEmpty());
+    }
+
+    @Test
+    void testPurger_LibereLesCompteurs() {
+        compteursEmprunts.reconstruire(reservationRepository.compterParAdherent());
+        assertEquals(28, compteursEmprunts.nombre("A123"));
+        PurgeReservations purge = nouvellePurge(journal, 10, 0);
+
+        purge.purger(LocalDate.now());
+
+        assertEquals(3, compteursEmprunts.nombre("A123"));
+        assertEquals(List.of(new CompteAdherent("A123", 3)), reservationRepository.compterParAdherent());
+    }
+
+    @Test
+    void testPurger_ParEcheances() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(statut -> {
+            try (var flux = reservationRepository.streamEcheances()) {
+                echeances.reconstruire(flux.toList(), LocalDate.now());
+            }
+        });
+        compteursEmprunts.reconstruire(reservationRepository.compterParAdherent());
+        PurgeReservations purge = nouvellePurge(journal, 10, 0);
+
+        long supprimees = purge.purger(LocalDate.now());
+
+        assertEquals(25, supprimees);
+        assertEquals(3, reservationRepository.count());
+        assertEquals(3, echeances.taille());
+        assertEquals(3, compteursEmprunts.nombre("A123"));
+        assertTrue(echeances.echeancesAvant(LocalDate.now()).isEmpty());
+    }
+
+    @Test
+    void testPurger_LivreExpireRedevientReservable() {
+        Adherent adherent = adherentRepository.findById("A123").orElseThrow();
+        Livre expire = livreRepository.save(new Livre("9782070360024", "L'Étranger", "Albert Camus", "Gallimard", Format.POCHE, false));
+        reservationRepository.save(new Reservation(null, adherent, expire, LocalDate.now().minusMonths(1), LocalDate.now().minusDays(2)));
+        Livre encoreReserve = livreRepository.findById("9783161484100").orElseThrow();
+        encoreReserve.setDisponible(false);
+        livreRepository.save(encoreReserve);
+        disponibiliteLivres.reconstruire(livreRepository.findAll());
+        cacheLivres.mettreAJour(expire);
+        String etag = versionsEntites.suivre(Ressource.LIVRE, expire.getIsbn());
+
+        nouvellePurge(journal, 10, 0).purger(LocalDate.now());
+
+        assertTrue(livreRepository.findById(expire.getIsbn()).orElseThrow().isDisponible());
+        assertTrue(disponibiliteLivres.estDisponible(expire.getIsbn()));
+        assertEquals(0, cacheLivres.statistiques().taille());
+        assertNotEquals(etag, versionsEntites.etag(Ressource.LIVRE, expire.getIsbn()).orElseThrow());
+        // Le livre dont des réservations courent encore reste indisponible
+        assertFalse(livreRepository.findById(encoreReserve.getIsbn()).orElseThrow().isDisponible());
+        assertFalse(disponibiliteLivres.estDisponible(encoreReserve.getIsbn()));
+
+        Integer reserve = new TransactionTemplate(transactionManager).execute(statut -> livreRepository.reserverSiDisponible(expire.getIsbn()));
+        assertEquals(1, reserve);
+    }
+
+    @Test
+    void testPurger_PopulariteCommeAuDemarrage() {
+        Livre livre = livreRepository.findById("9783161484100").orElseThrow();
+        Livre autre = livreRepository.save(new Livre("9782070360024", "Livre oublié", "Albert Camus", "Gallimard", Format.POCHE, true));
+        suggestionsLivres.reconstruire(List.of(livre, autre));
+        suggestionsLivres.definirPopularites(reservationRepository.compterParLivre());
+        assertEquals(List.of("Livre conforme", "Livre oublié"), suggestionsLivres.suggerer("livre", 10));
+
+        nouvellePurge(journal, 10, 0).purger(LocalDate.now());
+        // Restent les 3 réservations en cours du premier livre, comme le recompterait un redémarrage
+        suggestionsLivres.ajouterPopularite(autre.getIsbn(), 4);
+
+        assertEquals(List.of("Livre oublié", "Livre conforme"), suggestionsLivres.suggerer("livre", 10));
+    }
+
+    @Test
+    void testPurger_JournaliseLesExpirations(@TempDir Path repertoire) throws Exception {
+        JournalReservations actif = new JournalReservations(repertoire.toString(), 1024);
+        PurgeReservations purge = nouvellePurge(actif, 10, 0);
+
+        purge.purger(LocalDate.now());
+        actif.fermer();
+
+        List<EvenementReservation> evenements = new ArrayList<>();
+        new JournalReservations(repertoire.toString(), 1024).relire(evenements::add);
+        assertEquals(25, evenements.size());
+        EvenementReservation evenement = evenements.get(0);
+        assertEquals(EvenementReservation.Type.EXPIRATION, evenement.type());
+        assertEquals("A123", evenement.codeAdherent());
+        assertEquals("9783161484100", evenement.isbn());
+        assertEquals(LocalDate.now().minusMonths(3), evenement.dateDebut());
+    }
+
+    @Test
+    void testPurger_DebitLimite() {
+        PurgeReservations purge = nouvellePurge(journal, 5, 100);
+
+        long debut = System.nanoTime();
+        long supprimees = purge.purger(LocalDate.now());
+        long dureeMillis = (System.nanoTime() - debut) / 1_000_000;
+
+        // 25 lignes à 100 lignes/s : au moins 250 ms
+        assertEquals(25, supprimees);
+        assertTrue(dureeMillis >= 240, "Durée trop courte : " + dureeMillis + " ms");
+    }
+}
@@ -0,0 +1,145 @@
+package fr.formation.service;
+
+import fr.formation.cache.CacheLivres;
+import fr.formation.cache.VersionsEntites;
+import fr.formation.dto.CompteAdherent;
+import fr.formation.index.CompteursEmprunts;
+import fr.formation.index.CurseurEcheances;
+import fr.formation.index.EcheancesReservations;
+import fr.formation.journal.JournalReservations;
+import fr.formation.index.DisponibiliteLivres;
+import fr.formation.index.SuggestionsLivres;
+import fr.formation.model.*;
+import fr.formation.repository.AdherentRepository;
+import fr.formation.repository.LivreRepository;
+import fr.formation.repository.ReservationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test de charge : de nombreux threads tentent d'emprunter en même temps les mêmes livres.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ReservationService.class, CacheLivres.class, DisponibiliteLivres.class, CompteursEmprunts.class, CurseurEcheances.class, EcheancesReservations.class, JournalReservations.class, SuggestionsLivres.class, VersionsEntites.class, SimpleMeterRegistry.class})
+public class ReservationServiceConcurrenceTest {
+
+    private static final int NOMBRE_LIVRES = 20;
+    private static final int NOMBRE_ADHERENTS = 100;
+    private static final int NOMBRE_THREADS = 32;
+    private static final int DEMANDES_PAR_THREAD = 50;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private CompteursEmprunts compteursEmprunts;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private LivreRepository livreRepository;
+
+    @Autowired
+    private AdherentRepository adherentRepository;
+
+    @MockitoBean
+    private MailService mailService;
+
+    @MockitoBean
+    private PreparationRappels preparationRappels;
+
+    @MockitoBean
+    private PipelineRappels pipelineRappels;
+
+    @MockitoBean
+    private PurgeReservations purgeReservations;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < NOMBRE_LIVRES; i++) {
+            livreRepository.save(new Livre(isbn(i), "Livre " + i, "Auteur", "Éditeur", Format.POCHE, true));
+        }
+        for (int i = 0; i < NOMBRE_ADHERENTS; i++) {
+            adherentRepository.save(new Adherent("A" + i, "Nom", "Prénom", "2000-01-01", Civilite.FEMME, "a" + i + "@mail.com"));
+        }
+        reservationService.construireCompteurs();
+    }
+
+    @AfterEach
+    void tearDown() {
+        reservationRepository.deleteAll();
+        livreRepository.deleteAll();
+        adherentRepository.deleteAll();
+    }
+
+    @Test
+    void testAjouterReservation_AucunDoubleEmprunt() throws Exception {
+        AtomicInteger acceptees = new AtomicInteger();
+        Map<String, AtomicInteger> refus = new ConcurrentHashMap<>();
+        CyclicBarrier depart = new CyclicBarrier(NOMBRE_THREADS);
+        ExecutorService executeur = Executors.newFixedThreadPool(NOMBRE_THREADS);
+        List<Future<?>> taches = new ArrayList<>();
+
+        for (int t = 0; t < NOMBRE_THREADS; t++) {
+            long graine = t;
+            taches.add(executeur.submit(() -> {
+                Random aleatoire = new Random(graine);
+                depart.await();
+                for (int i = 0; i < DEMANDES_PAR_THREAD; i++) {
+                    try {
+                        reservationService.ajouterReservation("A" + aleatoire.nextInt(NOMBRE_ADHERENTS),
+                                isbn(aleatoire.nextInt(NOMBRE_LIVRES)), LocalDate.now().plusMonths(1));
+                        acceptees.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        // Livre déjà pris, ou conflit de verrou remonté par la base
+                        refus.computeIfAbsent(e.getClass().getSimpleName(), k -> new AtomicInteger()).incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> tache : taches) {
+            tache.get(60, TimeUnit.SECONDS);
+        }
+        executeur.shutdown();
+
+        // Chaque livre n'a été emprunté qu'une fois, et chaque emprunt l'a rendu indisponible
+        List<Reservation> reservations = reservationRepository.findAll();
+        Map<String, Long> parLivre = reservations.stream()
+                .collect(Collectors.groupingBy(r -> r.getLivre().getIsbn(), Collectors.counting()));
+        assertEquals(acceptees.get(), reservations.size(), "Refus : " + refus);
+        assertTrue(parLivre.values().stream().allMatch(n -> n == 1), "Doubles emprunts : " + parLivre);
+        for (String isbn : parLivre.keySet()) {
+            assertFalse(livreRepository.findById(isbn).orElseThrow().isDisponible());
+        }
+        assertEquals(NOMBRE_LIVRES, acceptees.get());
+
+        // Les compteurs en mémoire correspondent aux réservations en base
+        for (CompteAdherent compte : reservationRepository.compterParAdherent()) {
+            assertEquals(compte.nombre(), compteursEmprunts.nombre(compte.codeAdherent()));
+            assertTrue(compte.nombre() <= ReservationService.MAX_RESERVATIONS);
+        }
+    }
+
+    private static String isbn(int i) {
+        return String.valueOf(9780000000000L + i);
+    }
+}
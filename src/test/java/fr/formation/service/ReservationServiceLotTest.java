@@ -0,0 +1,134 @@
+package fr.formation.service;
+
+import fr.formation.cache.CacheLivres;
+import fr.formation.cache.VersionsEntites;
+import fr.formation.dto.DemandeReservation;
+import fr.formation.dto.ResultatReservation;
+import fr.formation.index.CompteursEmprunts;
+import fr.formation.index.CurseurEcheances;
+import fr.formation.index.EcheancesReservations;
+import fr.formation.journal.JournalReservations;
+import fr.formation.index.DisponibiliteLivres;
+import fr.formation.index.SuggestionsLivres;
+import fr.formation.model.*;
+import fr.formation.repository.AdherentRepository;
+import fr.formation.repository.LivreRepository;
+import fr.formation.repository.ReservationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Emprunts par lot sur une vraie base : règles appliquées demande par demande, insertion groupée.
+ */
+@DataJpaTest
+@Import({ReservationService.class, CacheLivres.class, DisponibiliteLivres.class, CompteursEmprunts.class, CurseurEcheances.class, EcheancesReservations.class, JournalReservations.class, SuggestionsLivres.class, VersionsEntites.class, SimpleMeterRegistry.class})
+public class ReservationServiceLotTest {
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private LivreRepository livreRepository;
+
+    @Autowired
+    private AdherentRepository adherentRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockitoBean
+    private MailService mailService;
+
+    @MockitoBean
+    private PreparationRappels preparationRappels;
+
+    @MockitoBean
+    private PipelineRappels pipelineRappels;
+
+    @MockitoBean
+    private PurgeReservations purgeReservations;
+
+    private final LocalDate dateFin = LocalDate.now().plusMonths(1);
+
+    @BeforeEach
+    void setUp() {
+        adherentRepository.save(new Adherent("A123", "Bedet", "Valentin", "2003-10-24", Civilite.HOMME, "valentin.bedet@mail.com"));
+        adherentRepository.save(new Adherent("B456", "Martin", "Julie", "1999-01-01", Civilite.FEMME, "julie.martin@mail.com"));
+        for (int i = 0; i < 6; i++) {
+            livreRepository.save(new Livre(isbn(i), "Livre " + i, "Auteur", "Éditeur", Format.POCHE, i != 5));
+        }
+    }
+
+    @Test
+    void testAjouterReservations_ResultatsParDemande() {
+        List<DemandeReservation> demandes = List.of(
+                new DemandeReservation("A123", isbn(0), dateFin),
+                new DemandeReservation("A123", isbn(0), dateFin),
+                new DemandeReservation("Inconnu", isbn(1), dateFin),
+                new DemandeReservation("B456", "0000000000000", dateFin),
+                new DemandeReservation("B456", isbn(5), dateFin),
+                new DemandeReservation("B456", isbn(1), LocalDate.now().plusMonths(5)),
+                new DemandeReservation("B456", isbn(1), dateFin));
+
+        List<ResultatReservation> resultats = reservationService.ajouterReservations(demandes);
+
+        assertEquals(List.of(true, false, false, false, false, false, true), resultats.stream().map(ResultatReservation::accepte).toList());
+        assertEquals(List.of("indisponible", "adherent_inconnu", "livre_inconnu", "indisponible", "date"),
+                resultats.stream().filter(r -> !r.accepte()).map(ResultatReservation::motif).toList());
+        for (int i = 0; i < resultats.size(); i++) {
+            assertEquals(i, resultats.get(i).index());
+        }
+
+        entityManager.clear();
+        Reservation creee = reservationRepository.findById(resultats.get(0).idReservation()).orElseThrow();
+        assertEquals("A123", creee.getAdherent().getCodeAdherent());
+        assertEquals(isbn(0), creee.getLivre().getIsbn());
+        assertEquals(dateFin, creee.getDateFin());
+        assertFalse(livreRepository.findById(isbn(0)).orElseThrow().isDisponible());
+        assertFalse(livreRepository.findById(isbn(1)).orElseThrow().isDisponible());
+        assertEquals(2, reservationRepository.count());
+    }
+
+    @Test
+    void testAjouterReservations_QuotaCompteLesDemandesDuLot() {
+        List<DemandeReservation> demandes = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            demandes.add(new DemandeReservation("A123", isbn(i), dateFin));
+        }
+
+        List<ResultatReservation> resultats = reservationService.ajouterReservations(demandes);
+
+        assertEquals(List.of(true, true, true, false, false), resultats.stream().map(ResultatReservation::accepte).toList());
+        assertEquals("quota", resultats.get(3).motif());
+        assertTrue(livreRepository.findById(isbn(3)).orElseThrow().isDisponible());
+    }
+
+    @Test
+    void testAjouterReservations_LotTropGrand() {
+        List<DemandeReservation> demandes = new ArrayList<>();
+        for (int i = 0; i <= ReservationService.TAILLE_LOT_DEMANDES_MAX; i++) {
+            demandes.add(new DemandeReservation("A123", isbn(0), dateFin));
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> reservationService.ajouterReservations(demandes));
+    }
+
+    private static String isbn(int i) {
+        return String.valueOf(9780000000000L + i);
+    }
+}
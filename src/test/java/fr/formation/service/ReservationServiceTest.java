@@ -1,18 +1,53 @@
 package fr.formation.service;
 
+import fr.formation.cache.CacheLivres;
+import fr.formation.cache.VersionsEntites;
+import fr.formation.cache.VersionsEntites.Ressource;
+import fr.formation.dto.AdherentResume;
+import fr.formation.dto.CompteAdherent;
+import fr.formation.dto.CompteLivre;
+import fr.formation.dto.EcheanceReservation;
+import fr.formation.dto.ListeReservations;
+import fr.formation.dto.LivreResume;
+import fr.formation.dto.PageReservations;
+import fr.formation.dto.ReservationResume;
+import fr.formation.exception.CurseurInvalideException;
+import fr.formation.index.CompteursEmprunts;
+import fr.formation.index.CurseurEcheances;
+import fr.formation.index.DisponibiliteLivres;
+import fr.formation.index.EcheancesReservations;
+import fr.formation.index.SuggestionsLivres;
+import fr.formation.journal.EvenementReservation;
+import fr.formation.journal.JournalReservations;
 import fr.formation.model.*;
 import fr.formation.repository.AdherentRepository;
 import fr.formation.repository.LivreRepository;
 import fr.formation.repository.ReservationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-
+import org.junit.jupiter.api.function.Executable;
+import org.mockito.Spy;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -31,6 +66,45 @@ public class ReservationServiceTest {
     @Mock
     private MailService mailService;
 
+    @Mock
+    private PreparationRappels preparationRappels;
+
+    @Mock
+    private PipelineRappels pipelineRappels;
+
+    @Mock
+    private PurgeReservations purgeReservations;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Spy
+    private CacheLivres cacheLivres = new CacheLivres(100, Duration.ofMinutes(10));
+
+    @Spy
+    private DisponibiliteLivres disponibiliteLivres = new DisponibiliteLivres();
+
+    @Spy
+    private CompteursEmprunts compteursEmprunts = new CompteursEmprunts();
+
+    @Spy
+    private EcheancesReservations echeancesReservations = new EcheancesReservations();
+
+    @Spy
+    private CurseurEcheances curseurEcheances = new CurseurEcheances("");
+
+    @Spy
+    private JournalReservations journalReservations = new JournalReservations("", 1024);
+
+    @Spy
+    private SuggestionsLivres suggestionsLivres = new SuggestionsLivres();
+
+    @Spy
+    private VersionsEntites versionsEntites = new VersionsEntites();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private ReservationService reservationService;
 
@@ -51,16 +125,18 @@ public class ReservationServiceTest {
         Reservation reservationMock = new Reservation(1L, adherent, livre, LocalDate.now(), dateFin);
         // Comportement des mocks
         when(adherentRepository.findById("A123")).thenReturn(Optional.of(adherent));
+        when(adherentRepository.findWithLockByCodeAdherent("A123")).thenReturn(Optional.of(adherent));
         when(livreRepository.findById("9783161484100")).thenReturn(Optional.of(livre));
+        when(livreRepository.reserverSiDisponible("9783161484100")).thenReturn(1);
         when(reservationRepository.save(any(Reservation.class))).thenReturn(reservationMock);
     }
 
     @Test
     void testAjouterReservation_Success() {
         // Mocker les méthodes nécessaires pour que la logique de la réservation fonctionne
-        when(adherentRepository.findById("A123")).thenReturn(Optional.of(adherent));
+        when(adherentRepository.findWithLockByCodeAdherent("A123")).thenReturn(Optional.of(adherent));
         when(livreRepository.findById("9783161484100")).thenReturn(Optional.of(livre));
-        when(reservationRepository.countByAdherentAndDateFinIsNull(adherent)).thenReturn(0);
+        when(reservationRepository.countByAdherent(adherent)).thenReturn(0);
 
         Reservation reservation = reservationService.ajouterReservation("A123", "9783161484100", dateFin);
 
@@ -69,6 +145,25 @@ public class ReservationServiceTest {
         assertEquals(adherent, reservation.getAdherent());
         assertEquals(livre, reservation.getLivre());
         assertTrue(reservation.getDateFin().isBefore(LocalDate.now().plusMonths(4)));
+        verify(livreRepository).reserverSiDisponible("9783161484100");
+        assertFalse(disponibiliteLivres.estDisponible("9783161484100"));
+        verify(echeancesReservations).ajouter(1L, dateFin);
+        verify(suggestionsLivres).ajouterPopularite("9783161484100", 1);
+        verify(journalReservations).enregistrer(EvenementReservation.Type.CREATION, 1L, "A123", "9783161484100", LocalDate.now(), dateFin);
+    }
+
+    @Test
+    void testAjouterReservation_LivrePrisEntreTemps() {
+        // Cas où un emprunt concurrent a pris le livre entre la lecture et la mise à jour conditionnelle
+        when(livreRepository.reserverSiDisponible("9783161484100")).thenReturn(0);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> {
+            reservationService.ajouterReservation("A123", "9783161484100", dateFin);
+        });
+
+        assertEquals("Le livre n'est pas disponible", exception.getMessage());
+        verify(reservationRepository, never()).save(any(Reservation.class));
+        assertEquals(1, refus("indisponible"));
     }
 
     @Test
@@ -83,16 +178,125 @@ public class ReservationServiceTest {
         assertEquals("Le livre n'est pas disponible", exception.getMessage());
     }
 
+    @Test
+    void testAjouterReservation_LivreIndisponibleSelonBitmap() {
+        // Cas où le bitmap connaît le livre comme indisponible : l'entité n'est pas chargée
+        disponibiliteLivres.enregistrer("9783161484100", false);
+
+        assertThrows(IllegalStateException.class, () -> reservationService.ajouterReservation("A123", "9783161484100", dateFin));
+
+        verify(livreRepository, never()).findById(anyString());
+    }
+
     @Test
     void testAjouterReservation_MaxReservationsAtteint() {
-        // Cas où l'adhérent a déjà 3 réservations actives
-        when(reservationRepository.countByAdherentAndDateFinIsNull(adherent)).thenReturn(3);
+        // Cas où l'adhérent a déjà 3 réservations actives : le quota est lu dans les compteurs
+        compteursEmprunts.reconstruire(List.of(new CompteAdherent("A123", 3)));
 
         IllegalStateException exception = assertThrows(IllegalStateException.class, () -> {
             reservationService.ajouterReservation("A123", "9783161484100", dateFin);
         });
 
         assertEquals("L'adhérent a atteint le nombre maximal de réservations", exception.getMessage());
+        verify(reservationRepository, never()).countByAdherent(any());
+        verify(livreRepository, never()).reserverSiDisponible(anyString());
+        assertEquals(1, refus("quota"));
+        assertEquals(0, refus("indisponible"));
+    }
+
+    @Test
+    void testAjouterReservation_MaxReservationsAtteintAvantConstructionDesCompteurs() {
+        // Tant que les compteurs ne sont pas construits, le quota est compté en base
+        when(reservationRepository.countByAdherent(adherent)).thenReturn(3);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> {
+            reservationService.ajouterReservation("A123", "9783161484100", dateFin);
+        });
+
+        assertEquals("L'adhérent a atteint le nombre maximal de réservations", exception.getMessage());
+    }
+
+    @Test
+    void testAjouterReservation_IncrementeLeCompteur() {
+        compteursEmprunts.reconstruire(List.of(new CompteAdherent("A123", 1)));
+
+        reservationService.ajouterReservation("A123", "9783161484100", dateFin);
+
+        assertEquals(2, compteursEmprunts.nombre("A123"));
+    }
+
+    @Test
+    void testConstruirePopularites() {
+        List<CompteLivre> comptes = List.of(new CompteLivre("9783161484100", 4));
+        when(reservationRepository.compterParLivre()).thenReturn(comptes);
+
+        reservationService.construirePopularites();
+
+        verify(suggestionsLivres).definirPopularites(comptes);
+    }
+
+    @Test
+    void testConstruireEcheances() {
+        LocalDate hier = LocalDate.now().minusDays(1);
+        when(reservationRepository.streamEcheances()).thenReturn(Stream.of(
+                new EcheanceReservation(1L, hier), new EcheanceReservation(2L, LocalDate.now().plusDays(3))));
+
+        reservationService.construireEcheances();
+
+        assertTrue(echeancesReservations.estPret());
+        assertEquals(List.of(1L), echeancesReservations.echeancesAvant(LocalDate.now()));
+    }
+
+    @Test
+    void testAjouterReservation_LivrePrisEntreTempsLibereLeCompteur() {
+        compteursEmprunts.reconstruire(List.of(new CompteAdherent("A123", 1)));
+        when(livreRepository.reserverSiDisponible("9783161484100")).thenReturn(0);
+
+        annulerApresEchec(() -> reservationService.ajouterReservation("A123", "9783161484100", dateFin));
+
+        assertEquals(1, compteursEmprunts.nombre("A123"));
+    }
+
+    @Test
+    void testAjouterReservation_ErreurDeLaBaseLibereLeCompteur() {
+        compteursEmprunts.reconstruire(List.of(new CompteAdherent("A123", 1)));
+        when(livreRepository.reserverSiDisponible("9783161484100")).thenThrow(new PessimisticLockingFailureException("Verrou"));
+
+        annulerApresEchec(() -> reservationService.ajouterReservation("A123", "9783161484100", dateFin));
+
+        assertEquals(1, compteursEmprunts.nombre("A123"));
+    }
+
+    // Rejoue l'annulation de la transaction que l'appel aurait ouverte
+    private static void annulerApresEchec(Executable appel) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertThrows(RuntimeException.class, appel);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronisation -> synchronisation.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testAjouterReservation_DateFinTropLointaine() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            reservationService.ajouterReservation("A123", "9783161484100", LocalDate.now().plusMonths(5));
+        });
+
+        assertEquals("La date de fin ne peut pas être supérieure à 4 mois après la date de début", exception.getMessage());
+        assertEquals(1, refus("date"));
+    }
+
+    @Test
+    void testConstruireCompteurs() {
+        when(reservationRepository.compterParAdherent()).thenReturn(List.of(new CompteAdherent("A123", 2)));
+
+        reservationService.construireCompteurs();
+
+        assertTrue(compteursEmprunts.estPret());
+        assertEquals(2, compteursEmprunts.nombre("A123"));
     }
 
     @Test
@@ -105,6 +309,28 @@ public class ReservationServiceTest {
 
         verify(reservationRepository).delete(reservation);
         verify(livreRepository).save(livre);
+        verify(cacheLivres).invalider(livre.getIsbn());
+        verify(compteursEmprunts).liberer("A123");
+        verify(echeancesReservations).retirer(1L, reservation.getDateFin());
+        verify(suggestionsLivres).ajouterPopularite(livre.getIsbn(), -1);
+        verify(journalReservations).enregistrer(EvenementReservation.Type.ANNULATION, 1L, "A123", livre.getIsbn(),
+                reservation.getDateDebut(), reservation.getDateFin());
+        assertTrue(disponibiliteLivres.estDisponible(livre.getIsbn()));
+    }
+
+    @Test
+    void testDisponibiliteModifiee_NouvelEtagDuLivre() {
+        when(adherentRepository.findWithLockByCodeAdherent("A123")).thenReturn(Optional.of(adherent));
+        String etag = versionsEntites.suivre(Ressource.LIVRE, livre.getIsbn());
+
+        reservationService.ajouterReservation("A123", livre.getIsbn(), dateFin);
+        String apresReservation = versionsEntites.etag(Ressource.LIVRE, livre.getIsbn()).orElseThrow();
+
+        when(reservationRepository.findById(1L)).thenReturn(Optional.of(new Reservation(1L, adherent, livre, LocalDate.now(), dateFin)));
+        reservationService.annulerReservation(1L);
+
+        assertNotEquals(etag, apresReservation);
+        assertNotEquals(apresReservation, versionsEntites.etag(Ressource.LIVRE, livre.getIsbn()).orElseThrow());
     }
 
     @Test
@@ -132,11 +358,15 @@ public class ReservationServiceTest {
         assertEquals(1, reservations.size());
     }
 
+    @SuppressWarnings("unchecked")
     @Test
     void testEnvoyerRappelReservationsDepassees() {
         // Cas où on envoie un rappel pour les réservations dépassées
-        Reservation expiredReservation = new Reservation(1L, adherent, livre, LocalDate.now().minusMonths(6), LocalDate.now().minusMonths(4));
-        when(reservationRepository.findByDateFinBefore(LocalDate.now())).thenReturn(List.of(expiredReservation));
+        doAnswer(invocation -> {
+            Consumer<MessageRappel> emetteur = invocation.getArgument(0);
+            emetteur.accept(new MessageRappel(adherent.getAdresseMail(), "Rappel de vos réservations dépassées", "Contenu"));
+            return null;
+        }).when(preparationRappels).preparer(any(Consumer.class));
 
         reservationService.envoyerRappelReservationsDepassees();
 
@@ -148,24 +378,129 @@ public class ReservationServiceTest {
         );
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    void testLancerRappelReservationsDepassees() {
+        // Cas où les rappels sont confiés au pipeline, qui appelle lui-même la préparation
+        TacheRappel tache = new TacheRappel();
+        ArgumentCaptor<Consumer<Consumer<MessageRappel>>> producteur = ArgumentCaptor.forClass(Consumer.class);
+        when(pipelineRappels.lancer(producteur.capture())).thenReturn(tache);
+
+        assertSame(tache, reservationService.lancerRappelReservationsDepassees());
+
+        Consumer<MessageRappel> emetteur = message -> { };
+        producteur.getValue().accept(emetteur);
+        verify(preparationRappels).preparer(emetteur);
+        verifyNoInteractions(mailService);
+    }
+
     @Test
     void testSupprimerReservationsExpirees() {
-        // Cas où l'on supprime les réservations expirées
-        Reservation expiredReservation = new Reservation(1L, adherent, livre, LocalDate.now().minusMonths(6), LocalDate.now().minusMonths(4));
-        when(reservationRepository.findByDateFinBefore(LocalDate.now())).thenReturn(List.of(expiredReservation));
+        // Cas où l'on supprime les réservations expirées : la purge ensembliste est déléguée
+        when(purgeReservations.purger(LocalDate.now())).thenReturn(2L);
 
-        reservationService.supprimerReservationsExpirees();
+        long supprimees = reservationService.supprimerReservationsExpirees();
 
-        verify(reservationRepository).delete(expiredReservation);
+        assertEquals(2L, supprimees);
+        verify(reservationRepository, never()).findByDateFinBefore(any(LocalDate.class));
+        verify(reservationRepository, never()).delete(any(Reservation.class));
     }
 
     @Test
     void testSupprimerReservationsExpirees_Vide() {
         // Cas où aucune réservation expirée n'est trouvée
-        when(reservationRepository.findByDateFinBefore(LocalDate.now())).thenReturn(List.of());
+        when(purgeReservations.purger(LocalDate.now())).thenReturn(0L);
 
-        reservationService.supprimerReservationsExpirees();
+        assertEquals(0L, reservationService.supprimerReservationsExpirees());
+    }
 
-        verify(reservationRepository, never()).delete(any(Reservation.class));
+    @Test
+    void testRecupererReservationsActivesPaginees() {
+        // Cas où une page pleine est retournée : le curseur suivant pointe sur la dernière ligne
+        Reservation reservation = new Reservation(42L, adherent, livre, LocalDate.now(), dateFin);
+        when(reservationRepository.findByDateFinAfterOrderByDateFinAscIdAsc(eq(LocalDate.now()), any(ScrollPosition.class), eq(Limit.of(1))))
+                .thenReturn(Window.from(List.of(reservation), index -> ScrollPosition.offset(), true));
+
+        PageReservations page = reservationService.recupererReservationsActives(null, 1);
+
+        assertEquals(1, page.reservations().size());
+        assertEquals(dateFin + "_42", page.curseurSuivant());
+    }
+
+    @Test
+    void testRecupererReservationsActivesPaginees_TailleBornee() {
+        when(reservationRepository.findByDateFinAfterOrderByDateFinAscIdAsc(any(LocalDate.class), any(ScrollPosition.class), any(Limit.class)))
+                .thenReturn(Window.from(List.of(), index -> ScrollPosition.offset()));
+
+        PageReservations page = reservationService.recupererReservationsActives(null, 1_000_000);
+
+        verify(reservationRepository).findByDateFinAfterOrderByDateFinAscIdAsc(any(LocalDate.class), any(ScrollPosition.class), eq(Limit.of(ReservationService.TAILLE_PAGE_MAX)));
+        assertNull(page.curseurSuivant());
+    }
+
+    @Test
+    void testRecupererReservationsActivesPaginees_CurseurInvalide() {
+        assertThrows(CurseurInvalideException.class, () -> reservationService.recupererReservationsActives("2025-06-01", 10));
+        assertThrows(CurseurInvalideException.class, () -> reservationService.listerReservationsActives("hier_1", 10, false, false));
+        verifyNoInteractions(reservationRepository);
+    }
+
+    @Test
+    void testListerReservationsActives_DictionnairesDedupliques() {
+        List<ReservationResume> resumes = List.of(
+                new ReservationResume(1L, "A123", "9783161484100", LocalDate.now(), dateFin),
+                new ReservationResume(2L, "A123", "9782070360024", LocalDate.now(), dateFin));
+        when(reservationRepository.findResumesActives(LocalDate.now(), null, null, Limit.unlimited())).thenReturn(resumes);
+        when(adherentRepository.findResumesByCodeAdherentIn(List.of("A123"))).thenReturn(List.of(new AdherentResume("A123", "Bedet", "Valentin")));
+        when(livreRepository.findResumesByIsbnIn(List.of("9783161484100", "9782070360024"))).thenReturn(List.of(
+                new LivreResume("9783161484100", "Livre conforme", "Valentin Bedet"),
+                new LivreResume("9782070360024", "L'Étranger", "Albert Camus")));
+
+        ListeReservations liste = reservationService.listerReservationsActives(null, null, true, true);
+
+        assertEquals(resumes, liste.reservations());
+        assertEquals(1, liste.adherents().size());
+        assertEquals(2, liste.livres().size());
+        assertNull(liste.curseurSuivant());
+    }
+
+    @Test
+    void testListerReservationsActives_SansDictionnaires() {
+        when(reservationRepository.findResumesActives(any(), any(), any(), any())).thenReturn(List.of());
+
+        ListeReservations liste = reservationService.listerReservationsActives(null, null, false, false);
+
+        assertNull(liste.adherents());
+        assertNull(liste.livres());
+        verify(adherentRepository, never()).findResumesByCodeAdherentIn(any());
+        verify(livreRepository, never()).findResumesByIsbnIn(any());
+    }
+
+    @Test
+    void testListerReservationsActives_PageSuivante() {
+        // Une ligne de plus que la taille demandée est lue pour savoir s'il reste des résultats
+        LocalDate fin = LocalDate.of(2025, 6, 1);
+        when(reservationRepository.findResumesActives(LocalDate.now(), fin, 1L, Limit.of(3))).thenReturn(List.of(
+                new ReservationResume(2L, "A123", "9783161484100", LocalDate.now(), fin),
+                new ReservationResume(3L, "A123", "9783161484100", LocalDate.now(), fin),
+                new ReservationResume(4L, "A123", "9783161484100", LocalDate.now(), fin)));
+
+        ListeReservations liste = reservationService.listerReservationsActives("2025-06-01_1", 2, false, false);
+
+        assertEquals(2, liste.reservations().size());
+        assertEquals("2025-06-01_3", liste.curseurSuivant());
+    }
+
+    @Test
+    void testListerHistoriqueReservationsAdherent_AdherentInconnu() {
+        when(adherentRepository.existsById("Inconnu")).thenReturn(false);
+
+        assertThrows(EntityNotFoundException.class,
+                () -> reservationService.listerHistoriqueReservationsAdherent("Inconnu", null, null, false, false));
+        verify(reservationRepository, never()).findResumesParAdherent(any(), any(), any(), any());
+    }
+
+    private double refus(String motif) {
+        return meterRegistry.counter("reservations.refus", "motif", motif).count();
     }
 }